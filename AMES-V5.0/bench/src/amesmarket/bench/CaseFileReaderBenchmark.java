@@ -0,0 +1,74 @@
+package amesmarket.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import amesmarket.CaseFileData;
+import amesmarket.filereaders.CaseFileReader;
+import amesmarket.filereaders.CaseFileSnapshot;
+
+/**
+ * Parsing of a case file, as done when a case is loaded or a batch run
+ * starts, and loading of the case file from its snapshot instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaseFileReaderBenchmark {
+
+    @Param({"2BusTestCase.dat", "8BusERCOTTestCase.dat"})
+    public String caseName;
+
+    /**
+     * Whether the case file loads from its {@link CaseFileSnapshot}, saved in
+     * the setup.
+     */
+    @Param({"false", "true"})
+    public String snapshot;
+
+    private File snapshotDir;
+
+    @Setup
+    public void setup() throws IOException {
+        this.snapshotDir = Files.createTempDirectory("ames-bench-snapshot").toFile();
+        System.setProperty(CaseFileSnapshot.DIR_PROPERTY, this.snapshotDir.getPath());
+        System.setProperty(CaseFileSnapshot.CACHE_PROPERTY, this.snapshot);
+        loadCaseFileData();
+    }
+
+    @TearDown
+    public void tearDown() {
+        File[] files = this.snapshotDir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        this.snapshotDir.delete();
+        System.clearProperty(CaseFileSnapshot.DIR_PROPERTY);
+        System.clearProperty(CaseFileSnapshot.CACHE_PROPERTY);
+    }
+
+    @Benchmark
+    public CaseFileData loadCaseFileData() {
+        return new CaseFileReader().loadCaseFileData(MarketFixture.caseFile(this.caseName));
+    }
+}
@@ -0,0 +1,71 @@
+package amesmarket.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import amesmarket.AMESMarketException;
+import amesmarket.extern.psst.DataFileWriter;
+import amesmarket.extern.psst.PSSTConfig;
+
+/**
+ * Writing of the text reference models sent to PSST: the DAM SCUC model of
+ * a day and the RTM SCED model of an interval.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataFileWriterBenchmark {
+
+    @Param({"2BusTestCase.dat", "8BusERCOTTestCase.dat"})
+    public String caseName;
+
+    private MarketFixture fixture;
+    private File scucFile, scedFile;
+
+    @Setup
+    public void setup() throws IOException {
+        this.fixture = new MarketFixture(this.caseName, PSSTConfig.TEXT_FORMAT);
+        this.scucFile = this.fixture.getScratchFile("DAMReferenceModel.dat");
+        this.scedFile = this.fixture.getScratchFile("RTMReferenceModel.dat");
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.fixture.close();
+    }
+
+    @Benchmark
+    public File writeScucScenDatFile() throws AMESMarketException {
+        MarketFixture f = this.fixture;
+        new DataFileWriter().writeScucScenDatFile(this.scucFile, f.getMarket(), MarketFixture.DAY,
+                f.getLoadProfileByLSE(), f.getGenProfileByNDG(), f.getPSLDemandBidByLSE(), f.getSupplyOfferByGen(),
+                f.getNumSCUCTimeSteps());
+        return this.scucFile;
+    }
+
+    @Benchmark
+    public File writeScedScenDatFile() throws AMESMarketException {
+        MarketFixture f = this.fixture;
+        new DataFileWriter().writeScedScenDatFile(f.getMarket(), MarketFixture.MIN, MarketFixture.HOUR, MarketFixture.DAY,
+                f.getRTDemand(), f.getRTNDG(), f.getRTPSLDemandBidByLSE(), f.getMarket().NIRTM,
+                f.getCommitments(), this.scedFile);
+        return this.scedFile;
+    }
+}
@@ -0,0 +1,203 @@
+package amesmarket.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import amesmarket.AMESMarket;
+import amesmarket.BatchRunner;
+import amesmarket.CaseFileData;
+import amesmarket.GenAgent;
+import amesmarket.LSEAgent;
+import amesmarket.NDGenAgent;
+import amesmarket.RunContext;
+import amesmarket.extern.common.CommitmentDecision;
+import amesmarket.filereaders.CaseFileReader;
+
+/**
+ * A market built from one of the shipped cases, as {@link BatchRunner} builds
+ * it, with the bids and offers of the first DAM of the case and of the first
+ * RTM interval.
+ *
+ * The cases are read from the directory given by the system property
+ * {@value #DATA_DIR_PROPERTY}, DATA by default. The files exchanged with the
+ * solver go to a temporary directory, deleted by {@link #close()}.
+ */
+public class MarketFixture {
+
+    public static final String DATA_DIR_PROPERTY = "AMES_BENCH_DATA_DIR";
+
+    public static final int DAY = 1;
+    public static final int HOUR = 1;
+    public static final int MIN = 0;
+
+    private final CaseFileData config;
+    private final AMESMarket ames;
+    private final File scratchDir;
+    private final RunContext runContext;
+
+    private final double[][] supplyOfferByGen;
+    private final double[][] loadProfileByLSE;
+    private final double[][][] PSLDemandBidByLSE;
+    private final double[][] genProfileByNDG;
+
+    private final double[][] rtDemand;
+    private final double[][] rtNDG;
+    private final double[][][] RTPSLDemandBidByLSE;
+    private final List<CommitmentDecision> commitments;
+
+    /**
+     * @param caseName file name of the case, in the data directory.
+     * @param dataFormat {@link amesmarket.extern.psst.PSSTConfig#TEXT_FORMAT}
+     * or {@link amesmarket.extern.psst.PSSTConfig#BINARY_FORMAT}, replaces
+     * the format of the case.
+     * @throws IOException if the scratch directory can't be created.
+     */
+    public MarketFixture(String caseName, String dataFormat) throws IOException {
+        this.config = new CaseFileReader().loadCaseFileData(caseFile(caseName));
+        this.config.PSSTDataFormat = dataFormat;
+        this.config.FNCSActive = false;
+
+        this.scratchDir = Files.createTempDirectory("ames-bench-").toFile();
+        this.runContext = new RunContext(this.scratchDir);
+        this.ames = BatchRunner.createMarket(this.config, this.config.RandomSeed);
+        this.ames.setRunContext(this.runContext);
+        this.ames.setup();
+        this.ames.buildModel();
+
+        List<GenAgent> gens = this.ames.getGenAgentList();
+        List<LSEAgent> lses = this.ames.getLSEAgentList();
+        List<NDGenAgent> ndgs = this.ames.getNDGenAgentList();
+        int J = lses.size();
+        int NIRTM = this.ames.NIRTM;
+
+        this.supplyOfferByGen = new double[gens.size()][];
+        for (int i = 0; i < gens.size(); i++) {
+            this.supplyOfferByGen[i] = gens.get(i).submitSupplyOffer();
+        }
+        this.loadProfileByLSE = new double[J][];
+        this.PSLDemandBidByLSE = new double[J][][];
+        for (int j = 0; j < J; j++) {
+            this.loadProfileByLSE[j] = lses.get(j).submitDAMFixedDemandBid(DAY, j, null);
+            this.PSLDemandBidByLSE[j] = lses.get(j).submitDAMPriceSensitiveDemandBid(DAY, j, this.ames.getPriceSensitiveDemandFlag(), null);
+        }
+        this.genProfileByNDG = new double[ndgs.size()][];
+        for (int j = 0; j < ndgs.size(); j++) {
+            this.genProfileByNDG[j] = ndgs.get(j).submitDAMNDGBid(DAY, j, null);
+        }
+
+        //The RT forecasts of an hour are spread uniformly over its intervals, as the ISO does.
+        this.rtDemand = new double[J][NIRTM];
+        this.RTPSLDemandBidByLSE = new double[J][][];
+        for (int j = 0; j < J; j++) {
+            Arrays.fill(this.rtDemand[j], this.loadProfileByLSE[j][HOUR - 1]);
+            this.RTPSLDemandBidByLSE[j] = lses.get(j).submitRTMPriceSensitiveDemandBid(HOUR, DAY, j, this.ames.getPriceSensitiveDemandFlag(), NIRTM, null);
+        }
+        this.rtNDG = new double[ndgs.size()][NIRTM];
+        for (int j = 0; j < ndgs.size(); j++) {
+            Arrays.fill(this.rtNDG[j], this.genProfileByNDG[j][HOUR - 1]);
+        }
+
+        //Every unit on, all day.
+        this.commitments = new ArrayList<CommitmentDecision>();
+        for (GenAgent gen : gens) {
+            int[] schedule = new int[AMESMarket.NUM_HOURS_PER_DAY_UC];
+            Arrays.fill(schedule, 1);
+            this.commitments.add(new CommitmentDecision(gen.getID(), gen.getIndex(), schedule));
+        }
+    }
+
+    /**
+     * @param caseName
+     * @return the case file in the data directory.
+     */
+    public static File caseFile(String caseName) {
+        return new File(System.getProperty(DATA_DIR_PROPERTY, "DATA"), caseName);
+    }
+
+    public CaseFileData getConfig() {
+        return this.config;
+    }
+
+    public AMESMarket getMarket() {
+        return this.ames;
+    }
+
+    public RunContext getRunContext() {
+        return this.runContext;
+    }
+
+    /**
+     * @param name
+     * @return file with the given name in the scratch directory.
+     */
+    public File getScratchFile(String name) {
+        return this.runContext.getScratchFile(name);
+    }
+
+    public double[][] getSupplyOfferByGen() {
+        return this.supplyOfferByGen;
+    }
+
+    public double[][] getLoadProfileByLSE() {
+        return this.loadProfileByLSE;
+    }
+
+    public double[][][] getPSLDemandBidByLSE() {
+        return this.PSLDemandBidByLSE;
+    }
+
+    public double[][] getGenProfileByNDG() {
+        return this.genProfileByNDG;
+    }
+
+    /**
+     * @return RT load forecast by LSE and interval of the hour.
+     */
+    public double[][] getRTDemand() {
+        return this.rtDemand;
+    }
+
+    /**
+     * @return RT NDG forecast by NDG and interval of the hour.
+     */
+    public double[][] getRTNDG() {
+        return this.rtNDG;
+    }
+
+    public double[][][] getRTPSLDemandBidByLSE() {
+        return this.RTPSLDemandBidByLSE;
+    }
+
+    public List<CommitmentDecision> getCommitments() {
+        return this.commitments;
+    }
+
+    /**
+     * @return number of SCUC time periods of the DAM.
+     */
+    public int getNumSCUCTimeSteps() {
+        return (int) (AMESMarket.NUM_HOURS_PER_DAY_UC / this.config.DATDur);
+    }
+
+    /**
+     * Release the result store and delete the scratch directory.
+     */
+    public void close() {
+        this.ames.getResultStore().close();
+        delete(this.scratchDir);
+    }
+
+    private static void delete(File f) {
+        File[] children = f.listFiles();
+        if (children != null) {
+            for (File c : children) {
+                delete(c);
+            }
+        }
+        f.delete();
+    }
+}
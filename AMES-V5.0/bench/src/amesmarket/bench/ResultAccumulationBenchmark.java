@@ -0,0 +1,107 @@
+package amesmarket.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import amesmarket.AMESMarket;
+import amesmarket.ResultColumn;
+import amesmarket.extern.psst.PSSTConfig;
+
+/**
+ * Accumulation of the results of the market in its {@link ResultColumn}s, a
+ * day at a time: the DAM supply offers, dispatch and LMPs of the day and the
+ * RTM dispatch and LMPs of each of its RT operations.
+ *
+ * An invocation accumulates {@value #DAYS} days, the columns are emptied
+ * before each one, so the score is the time per day of a run that long.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultAccumulationBenchmark {
+
+    public static final int DAYS = 30;
+
+    @Param({"2BusTestCase.dat", "8BusERCOTTestCase.dat"})
+    public String caseName;
+
+    private MarketFixture fixture;
+    private AMESMarket ames;
+    private int RTOperationsPerDay;
+    private double[][] dispatchByDay, LMPByDay, RTDispatch, RTLMP;
+
+    @Setup
+    public void setup() throws IOException {
+        this.fixture = new MarketFixture(this.caseName, PSSTConfig.TEXT_FORMAT);
+        this.ames = this.fixture.getMarket();
+        int I = this.ames.getNumGenAgents();
+        int K = this.ames.getNumNodes();
+        int H = this.ames.getNumHoursPerDay();
+        int NIRTM = this.ames.NIRTM;
+
+        this.RTOperationsPerDay = H * 60 / this.fixture.getConfig().RTOPDur;
+        this.dispatchByDay = values(H, I);
+        this.LMPByDay = values(H, K);
+        this.RTDispatch = values(NIRTM, I);
+        this.RTLMP = values(NIRTM, K);
+    }
+
+    private static double[][] values(int rows, int cols) {
+        double[][] v = new double[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                v[i][j] = 20.0 + i + 0.1 * j;
+            }
+        }
+        return v;
+    }
+
+    @Setup(Level.Invocation)
+    public void clearResults() {
+        this.ames.getGenAgentSupplyOfferByDay().clear();
+        this.ames.getGenAgentDispatchByDay().clear();
+        this.ames.getLMPByDay().clear();
+        this.ames.getGenAgentRealTimeDispatchByInterval().clear();
+        this.ames.getRealTimeLMPByInterval().clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.fixture.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DAYS)
+    public int accumulateDays() {
+        AMESMarket market = this.ames;
+        double[][] supplyOffer = this.fixture.getSupplyOfferByGen();
+        for (int d = 0; d < DAYS; d++) {
+            market.addGenAgentSupplyOfferByDay(supplyOffer);
+            for (int rt = 0; rt < this.RTOperationsPerDay; rt++) {
+                market.addRealTimeLMPByInterval(this.RTLMP);
+                market.addGenAgentRealTimeDispatchByInterval(this.RTDispatch);
+            }
+            market.addGenAgentDispatchByDay(this.dispatchByDay);
+            market.addLMPByDay(this.LMPByDay);
+        }
+        return market.getRealTimeLMPByInterval().size();
+    }
+}
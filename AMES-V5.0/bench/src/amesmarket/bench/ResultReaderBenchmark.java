@@ -0,0 +1,85 @@
+package amesmarket.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import amesmarket.AMESMarket;
+import amesmarket.AMESMarketException;
+import amesmarket.extern.psst.PSSTConfig;
+import amesmarket.extern.psst.PSSTDAMOpt;
+import amesmarket.extern.psst.PSSTRTMOpt;
+import amesmarket.filereaders.BadDataFileFormatException;
+
+/**
+ * Reading of the DAM SCUC and RTM SCED results back into the market, in both
+ * result formats.
+ *
+ * The optimizations are solved by a {@link StubPSSTServer}, so each
+ * operation is the write of the canned results file followed by the same
+ * reading of it as in a run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultReaderBenchmark {
+
+    @Param({"2BusTestCase.dat", "8BusERCOTTestCase.dat"})
+    public String caseName;
+
+    @Param({PSSTConfig.TEXT_FORMAT, PSSTConfig.BINARY_FORMAT})
+    public String format;
+
+    private MarketFixture fixture;
+    private PSSTDAMOpt scuc;
+    private PSSTRTMOpt sced;
+
+    @Setup
+    public void setup() throws IOException {
+        this.fixture = new MarketFixture(this.caseName, this.format);
+        AMESMarket ames = this.fixture.getMarket();
+        StubPSSTServer server = new StubPSSTServer(ames, this.fixture.getRunContext().getScratchDir());
+        String ext = PSSTConfig.fileExtension(this.format);
+
+        this.scuc = new PSSTDAMOpt(ames.getISO(), ames, this.fixture.getRunContext());
+        this.scuc.setPSSTServer(server);
+
+        this.sced = new PSSTRTMOpt(ames, this.fixture.getRunContext(), ames.getBaseS(),
+                this.fixture.getScratchFile("RTUnitCommitments.dat"),
+                this.fixture.getScratchFile("RTMReferenceModel" + ext),
+                this.fixture.getScratchFile("RTMResults" + ext));
+        this.sced.setPSSTServer(server);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.fixture.close();
+    }
+
+    @Benchmark
+    public double[][] readDAMResults() throws IOException, AMESMarketException, BadDataFileFormatException {
+        this.scuc.solveDAMOptimization(MarketFixture.DAY);
+        return this.scuc.getDAMLMPSolution();
+    }
+
+    @Benchmark
+    public double[][] readRTMResults() throws AMESMarketException {
+        this.sced.solveRTMOptimization(0);
+        return this.sced.getRTMLMPSolution();
+    }
+}
@@ -0,0 +1,194 @@
+package amesmarket.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import amesmarket.AMESMarket;
+import amesmarket.GenAgent;
+import amesmarket.extern.psst.BinaryDataFileWriter;
+import amesmarket.extern.psst.PSSTBinaryResults;
+import amesmarket.extern.psst.PSSTServer;
+
+/**
+ * Stands in for the PSST server, so that the market classes can be timed
+ * without python and a solver.
+ *
+ * Each job is answered with an optimal solution of the size of the market,
+ * in the layout psst/cli.py writes for text results and psst/binary.py for
+ * binary ones. The solutions are made once, when the server is built, and
+ * only written to the results file of the job.
+ */
+public class StubPSSTServer extends PSSTServer {
+
+    private static final String SCUC = "scuc";
+
+    private final byte[] scucText, scedText, scucBinary, scedBinary;
+    private int jobs;
+
+    /**
+     * @param ames market whose generators and buses the solutions cover.
+     * @param dir
+     */
+    public StubPSSTServer(AMESMarket ames, File dir) {
+        super(dir);
+        List<String> genNames = new ArrayList<String>();
+        for (GenAgent gen : ames.getGenAgentList()) {
+            genNames.add(gen.getID());
+        }
+        int K = ames.getNumNodes();
+        this.scucText = scucText(genNames, AMESMarket.NUM_HOURS_PER_DAY_UC, K);
+        this.scedText = scedText(genNames, ames.NIRTM, K);
+        this.scucBinary = binary(genNames, AMESMarket.NUM_HOURS_PER_DAY_UC, K);
+        this.scedBinary = binary(genNames, ames.NIRTM, K);
+    }
+
+    @Override
+    public synchronized void start() {
+    }
+
+    @Override
+    public synchronized boolean isAlive() {
+        return true;
+    }
+
+    @Override
+    public synchronized int submit(String op, File uc, File staticData, File data,
+            File output, String solver, String echoPrefix) throws IOException {
+        boolean binary = output.getName().endsWith(".bin");
+        byte[] results;
+        if (SCUC.equals(op)) {
+            results = binary ? this.scucBinary : this.scucText;
+        } else {
+            results = binary ? this.scedBinary : this.scedText;
+        }
+        FileOutputStream out = new FileOutputStream(output);
+        try {
+            out.write(results);
+        } finally {
+            out.close();
+        }
+        this.jobs++;
+        return 0;
+    }
+
+    @Override
+    public synchronized boolean lastJobWarmStarted() {
+        return false;
+    }
+
+    @Override
+    public synchronized void close() {
+    }
+
+    /**
+     * @return number of jobs answered.
+     */
+    public synchronized int getJobs() {
+        return this.jobs;
+    }
+
+    private static double power(int g, int t) {
+        return 0.5 + 0.01 * g + 0.001 * t;
+    }
+
+    private static double lmp(int k, int t) {
+        return 20.0 + k + 0.1 * t;
+    }
+
+    private static byte[] scucText(List<String> genNames, int T, int K) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("SOLUTION_STATUS\noptimal \t\nEND_SOLUTION_STATUS\n");
+        List<String> sorted = new ArrayList<String>(genNames);
+        Collections.sort(sorted);
+        for (String name : sorted) {
+            int g = genNames.indexOf(name);
+            sb.append(String.format(Locale.ROOT, "%-8s\n", name));
+            for (int t = 0; t < T; t++) {
+                sb.append(String.format(Locale.ROOT, "% d %6.4f\n", 1, power(g, t)));
+            }
+        }
+        sb.append("DAMLMP\n");
+        for (int t = 0; t < T; t++) {
+            for (int k = 0; k < K; k++) {
+                sb.append(k + 1).append(" : ").append(t + 1).append(" : ").append(lmp(k, t)).append("\n");
+            }
+        }
+        sb.append("END_LMP\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] scedText(List<String> genNames, int T, int K) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("SOLUTION_STATUS\noptimal \t\nEND_SOLUTION_STATUS\n");
+        sb.append("LMP\n");
+        for (int t = 0; t < T; t++) {
+            for (int k = 0; k < K; k++) {
+                sb.append(k + 1).append(" : ").append(t + 1).append(" : ").append(lmp(k, t)).append("\n");
+            }
+        }
+        sb.append("END_LMP\n");
+        sb.append("GenCoResults\n");
+        for (int g = 0; g < genNames.size(); g++) {
+            sb.append(String.format(Locale.ROOT, "%-8s\n", genNames.get(g)));
+            for (int t = 0; t < T; t++) {
+                sb.append("Interval: ").append(t + 1).append("\n");
+                sb.append("\tPowerGenerated: ").append(power(g, t)).append("\n");
+            }
+        }
+        sb.append("END_GenCoResults\n");
+        sb.append("VOLTAGE_ANGLES\n");
+        for (int k = 0; k < K; k++) {
+            for (int t = 0; t < T; t++) {
+                sb.append("Bus").append(k + 1).append(" ").append(t + 1).append(" : ").append(0.0).append("\n");
+            }
+        }
+        sb.append("END_VOLTAGE_ANGLES\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] binary(List<String> genNames, int T, int K) {
+        int size = 5 * 4 + 4 + T * K * 8 + 4 + K * T * 8;
+        for (String name : genNames) {
+            size += 4 + name.getBytes(StandardCharsets.UTF_8).length + T * (4 + 8);
+        }
+        ByteBuffer bb = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        bb.putInt(PSSTBinaryResults.RESULTS_MAGIC);
+        bb.putInt(BinaryDataFileWriter.VERSION);
+        bb.putInt(1);
+        bb.putInt(T);
+        bb.putInt(genNames.size());
+        for (int g = 0; g < genNames.size(); g++) {
+            byte[] name = genNames.get(g).getBytes(StandardCharsets.UTF_8);
+            bb.putInt(name.length);
+            bb.put(name);
+            for (int t = 0; t < T; t++) {
+                bb.putInt(1);
+            }
+            for (int t = 0; t < T; t++) {
+                bb.putDouble(power(g, t));
+            }
+        }
+        bb.putInt(K);
+        for (int t = 0; t < T; t++) {
+            for (int k = 0; k < K; k++) {
+                bb.putDouble(lmp(k, t));
+            }
+        }
+        //No price-sensitive loads.
+        bb.putInt(0);
+        for (int k = 0; k < K; k++) {
+            for (int t = 0; t < T; t++) {
+                bb.putDouble(0.0);
+            }
+        }
+        return bb.array();
+    }
+}
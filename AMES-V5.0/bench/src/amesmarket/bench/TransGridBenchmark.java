@@ -0,0 +1,62 @@
+package amesmarket.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import amesmarket.AMESMarket;
+import amesmarket.TransGrid;
+import amesmarket.extern.psst.PSSTConfig;
+
+/**
+ * Construction of the transmission grid of a case: admittance, adjacency
+ * and voltage angle difference matrices.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransGridBenchmark {
+
+    @Param({"2BusTestCase.dat", "8BusERCOTTestCase.dat"})
+    public String caseName;
+
+    private MarketFixture fixture;
+    private double[][] nodeData;
+    private double[][] branchData;
+    private int xSize, ySize;
+
+    @Setup
+    public void setup() throws IOException {
+        this.fixture = new MarketFixture(this.caseName, PSSTConfig.TEXT_FORMAT);
+        AMESMarket ames = this.fixture.getMarket();
+        this.nodeData = ames.getNodeData();
+        this.branchData = ames.getBranchData();
+        this.xSize = ames.getWorldXSize();
+        this.ySize = ames.getWorldYSize();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.fixture.close();
+    }
+
+    @Benchmark
+    public TransGrid construct() {
+        return new TransGrid(this.nodeData, this.branchData, this.xSize, this.ySize);
+    }
+}
@@ -0,0 +1,234 @@
+# -*- coding: utf-8 -*-
+"""Binary reference model and results exchanged with AMES.
+
+The layouts mirror BinaryDataFileWriter.java and PSSTBinaryResults.java.
+Everything is little endian and in PU. Strings are an int byte count
+followed by UTF-8 bytes.
+"""
+
+import os
+import struct
+
+import pandas as pd
+
+MODEL_MAGIC = 0x414D5342    # 'AMSB'
+RESULTS_MAGIC = 0x414D5352  # 'AMSR'
+VERSION = 1
+
+BINARY_EXT = '.bin'
+
+current_directory = os.path.realpath(os.path.dirname(__file__))
+
+
+def is_binary(path):
+    return path.strip("'").endswith(BINARY_EXT)
+
+
+class _Reader(object):
+
+    def __init__(self, buf):
+        self.buf = buf
+        self.pos = 0
+
+    def _unpack(self, fmt):
+        v = struct.unpack_from(fmt, self.buf, self.pos)
+        self.pos += struct.calcsize(fmt)
+        return v
+
+    def int(self):
+        return self._unpack('<i')[0]
+
+    def double(self):
+        return self._unpack('<d')[0]
+
+    def doubles(self, n):
+        return list(self._unpack('<%dd' % n))
+
+    def string(self):
+        n = self.int()
+        s = self.buf[self.pos:self.pos + n].decode('utf-8')
+        self.pos += n
+        return s
+
+
+def _unlimited_if_zero(v):
+    return 999999 if v == 0 else v
+
+
+def read_model_bin(model_data):
+    """Binary counterpart of utils.read_model. Returns the same values."""
+
+    with open(model_data, 'rb') as f:
+        r = _Reader(f.read())
+
+    if r.int() != MODEL_MAGIC:
+        raise ValueError('%s is not a binary AMES reference model' % model_data)
+    version = r.int()
+    if version != VERSION:
+        raise ValueError('Unsupported reference model version %d' % version)
+
+    from .case import PSSTCase
+    case = PSSTCase(os.path.join(current_directory, '../cases/case.m'))
+
+    K = r.int()
+    buses = ['Bus%d' % (k + 1) for k in range(K)]
+
+    branches = []
+    for _ in range(r.int()):
+        b1, b2 = r.int(), r.int()
+        branches.append((b1, b2, r.double(), r.double()))
+
+    gens = []
+    for _ in range(r.int()):
+        name = r.string()
+        at_bus = r.int()
+        params = r.doubles(16)
+        a, b, c = r.doubles(3)
+        gens.append((name, at_bus, params, a, b, c, r.int()))
+
+    ag = [g[0] for g in gens]
+    for g in ag:
+        case.gen.loc[g] = case.gen.loc['GenCo0']
+        case.gencost.loc[g] = case.gencost.loc['GenCo0']
+
+    if 'GenCo0' not in ag:
+        case.gen.drop('GenCo0', inplace=True)
+        case.gencost.drop('GenCo0', inplace=True)
+
+    for g, at_bus, p, a, b, c, NS in gens:
+        case.gen.loc[g, 'GEN_BUS'] = 'Bus%d' % at_bus
+        case.gen.loc[g, 'PG'] = p[0]
+        case.gen.loc[g, 'UnitOnT0State'] = int(p[1])
+        case.gen.loc[g, 'InitialTimeON'] = int(p[2])
+        case.gen.loc[g, 'InitialTimeOFF'] = int(p[3])
+        case.gen.loc[g, 'PMIN'] = p[4]
+        case.gen.loc[g, 'PMAX'] = p[5]
+        case.gen.loc[g, 'SCALED_MINIMUM_UP_TIME'] = int(p[6])
+        case.gen.loc[g, 'SCALED_MINIMUM_DOWN_TIME'] = int(p[7])
+        case.gen.loc[g, 'SCALED_RAMP_UP'] = _unlimited_if_zero(p[8])
+        case.gen.loc[g, 'SCALED_RAMP_DOWN'] = _unlimited_if_zero(p[9])
+        case.gen.loc[g, 'SCALED_STARTUP_RAMP'] = _unlimited_if_zero(p[10])
+        case.gen.loc[g, 'SCALED_SHUTDOWN_RAMP'] = _unlimited_if_zero(p[11])
+        case.gencost.loc[g, 'SCALED_COLD_START_TIME'] = int(p[12])
+        case.gencost.loc[g, 'STARTUP_COLD'] = p[13]
+        case.gencost.loc[g, 'STARTUP_HOT'] = p[14]
+        case.gencost.loc[g, 'SHUTDOWN_COST'] = p[15]
+        case.gencost.loc[g, 'c'] = c
+        case.gencost.loc[g, 'b'] = b
+        case.gencost.loc[g, 'a'] = a
+        case.gencost.loc[g, 'NS'] = NS
+
+    for i, (b1, b2, tl, x) in enumerate(branches):
+        branch_number = i + 1
+        case.branch.loc[branch_number] = case.branch.loc[0]
+        case.branch.loc[branch_number, 'F_BUS'] = 'Bus%d' % b1
+        case.branch.loc[branch_number, 'T_BUS'] = 'Bus%d' % b2
+        case.branch.loc[branch_number, 'BR_X'] = x
+        case.branch.loc[branch_number, 'RATE_A'] = tl
+
+    case.branch.drop(0, inplace=True)
+
+    for b in buses:
+        case.bus.loc[b] = case.bus.loc['Bus1']
+
+    if 'Bus1' not in buses:
+        case.bus.drop('Bus1', inplace=True)
+
+    case.PositiveMismatchPenalty = r.double()
+    case.NegativeMismatchPenalty = r.double()
+    case.TimePeriodLength = r.double()
+    case.NumTimePeriods = T = r.int()
+    case.PriceSenLoadFlag = r.double()
+    case.StorageFlag = r.double()
+    case.DownReservePercent = r.double()
+    case.UpReservePercent = r.double()
+
+    zonalData = {'NumberOfZones': 0, 'Zones': '', 'HasZonalReserves': False}
+    ZonalDownReservePercent = {}
+    ZonalUpReservePercent = {}
+    zonalBusData = {}
+
+    numZones = r.int()
+    if numZones > 0:
+        zonalData['NumberOfZones'] = float(numZones)
+        zonalData['HasZonalReserves'] = True
+        zonalData['Zones'] = []
+        for _ in range(numZones):
+            z = r.string()
+            zonalBusData[z] = ['Bus%d' % r.int() for _ in range(r.int())]
+            ZonalDownReservePercent[z] = r.double()
+            ZonalUpReservePercent[z] = r.double()
+            zonalData['Zones'].append(z)
+
+    for k in range(K):
+        load = r.doubles(T)
+        for t in range(T):
+            case.load.loc[t + 1, buses[k]] = load[t]
+
+    case.load = case.load.fillna(0)
+    case.load.drop(0, inplace=True)
+    case.load.index = range(1, len(case.load.index)+1)
+
+    # Make Bus1 slack
+    case.bus.loc['Bus1', 'TYPE'] = 3.0
+
+    priceSenLoadData = {}
+    for _ in range(r.int()):
+        Name = r.string()
+        ID, atBus, hourIndex = r.int(), r.int(), r.int()
+        d, e, f, SLMax = r.doubles(4)
+        NS = r.int()
+        priceSenLoadData[Name, hourIndex] = {'ID': str(ID), 'atBus': 'Bus%d' % atBus, 'hourIndex': hourIndex,
+                                             'd': d, 'e': e, 'f': f, 'Pmax': SLMax, 'NS': NS}
+
+    ZonalDataComplete = {'zonalData': zonalData, 'zonalBusData': zonalBusData, 'ZonalDownReservePercent': ZonalDownReservePercent, 'ZonalUpReservePercent': ZonalUpReservePercent}
+
+    return case, ZonalDataComplete, priceSenLoadData
+
+
+def _value(v):
+    return 0.0 if v is None else float(v)
+
+
+def write_results_bin(output, model=None, priceSenLoadData=None):
+    """Write the solved model in the binary results format.
+
+    If model is None an infeasible result is written.
+    """
+
+    out = [struct.pack('<iii', RESULTS_MAGIC, VERSION, 0 if model is None else 1)]
+
+    def string(s):
+        b = str(s).strip().encode('utf-8')
+        out.append(struct.pack('<i', len(b)))
+        out.append(b)
+
+    if model is not None:
+        instance = model._model
+        periods = sorted(instance.TimePeriods)
+        T = len(periods)
+
+        gens = sorted(instance.Generators.value)
+        out.append(struct.pack('<ii', T, len(gens)))
+        for g in gens:
+            string(g)
+            out.append(struct.pack('<%di' % T, *[int(_value(instance.UnitOn[g, t].value) + 0.5) for t in periods]))
+            out.append(struct.pack('<%dd' % T, *[_value(instance.PowerGenerated[g, t].value) for t in periods]))
+
+        lmp = model.results.lmp
+        K = len(lmp.columns)
+        out.append(struct.pack('<i', K))
+        for _, row in lmp.iterrows():
+            out.append(struct.pack('<%dd' % K, *[_value(v) for v in row]))
+
+        loads = sorted(instance.PriceSensitiveLoads.value) if priceSenLoadData else []
+        out.append(struct.pack('<i', len(loads)))
+        for l in loads:
+            string(l)
+            out.append(struct.pack('<%dd' % T, *[_value(instance.PSLoadDemand[l, t].value) for t in periods]))
+
+        for bus in sorted(instance.Buses, key=lambda b: int(str(b)[3:])):
+            out.append(struct.pack('<%dd' % T, *[_value(instance.Angle[bus, t].value) for t in periods]))
+
+    with open(output, 'wb') as f:
+        f.write(b''.join(out))
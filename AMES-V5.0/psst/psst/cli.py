@@ -2,11 +2,14 @@
 # -*- coding: utf-8 -*-
 
 import os
+import sys
+import traceback
 import click
 import pandas as pd
 import random
 
-from .utils import read_unit_commitment, read_model
+from .utils import read_unit_commitment, read_model, read_model_incremental
+from .binary import is_binary, read_model_bin, write_results_bin
 from .model import build_model
 
 import numpy as np
@@ -28,6 +31,10 @@ def cli():
 @click.option('--output', default=None, type=click.Path(), help='Path to output file')
 @click.option('--solver', default=SOLVER, help='Solver')
 def scuc(uc, data, output, solver):
+    run_scuc(uc, data, output, solver)
+
+
+def run_scuc(uc, data, output, solver):
 
     click.echo("Running combined DAM SCUC/SCED using Modified version of PSST")
 
@@ -35,7 +42,7 @@ def scuc(uc, data, output, solver):
         solver = SOLVER 
     click.echo("Solver : " + str(solver))
 
-    c, ZonalDataComplete, priceSenLoadData = read_model(data.strip("'"))
+    c, ZonalDataComplete, priceSenLoadData = load_model(data)
     model = build_model(c, ZonalDataComplete=ZonalDataComplete, PriceSenLoadData=priceSenLoadData, Op='scuc')
 
     SolverOutcomes = model.solve(solver=solver)
@@ -64,6 +71,10 @@ def scuc(uc, data, output, solver):
 
         model.solve(solver=solver)
 
+        if is_binary(output):
+            write_results_bin(output.strip("'"), model, priceSenLoadData)
+            return
+
         with open(output.strip("'"), 'w') as outfile:
             instance = model._model
             results = {}
@@ -106,6 +117,9 @@ def scuc(uc, data, output, solver):
                 #print ('PriceSenLoadDemand = \n',PriceSenLoadDemand)
                 outfile.write("END_PSLResults\n")
 
+    elif (Status is 'infeasible') and is_binary(output):
+        write_results_bin(output.strip("'"))
+
     elif (Status is 'infeasible'):
         with open(output.strip("'"), 'w') as f:
             f.write("SOLUTION_STATUS\n")
@@ -117,7 +131,12 @@ def scuc(uc, data, output, solver):
 @click.option('--data', default=None, type=click.Path(), help='Path to model data')
 @click.option('--output', default='./output.dat', type=click.Path(), help='Path to output file')
 @click.option('--solver', default=SOLVER, help='Solver')
-def sced(uc, data, output, solver):
+@click.option('--static', default=None, type=click.Path(), help='Path to the static part of the model data')
+def sced(uc, data, output, solver, static):
+    run_sced(uc, data, output, solver, static)
+
+
+def run_sced(uc, data, output, solver, static=None):
 
     click.echo("Running RTM SCED using Modified version of PSST")
 
@@ -127,17 +146,26 @@ def sced(uc, data, output, solver):
 
     uc_df = read_unit_commitment(uc.strip("'"))
 
-    c, ZonalDataComplete, priceSenLoadData = read_model(data.strip("'"))
+    c, ZonalDataComplete, priceSenLoadData = load_model(data, static)
     c.gen_status = uc_df.astype(int)
 
     model = build_model(c, ZonalDataComplete=ZonalDataComplete, PriceSenLoadData=priceSenLoadData, Op='sced')
-    SolverOutcomes = model.solve(solver=solver)
+    warmstart = apply_sced_warm_start(model._model)
+    SolverOutcomes = model.solve(solver=solver, warmstart=warmstart)
     Status= str(SolverOutcomes[1])
+    click.echo("%s %d" % (WARM_START_MARKER, 1 if SolverOutcomes[2] else 0))
+    if Status == 'optimal':
+        save_sced_warm_start(model._model)
+    else:
+        _sced_warm_start.clear()
     #click.echo("Model for RTM SCED is solved. Status: " + Status)
     # click.echo("LMP Outcomes: ")
     # click.echo("" + str(round(model.results.lmp, 4)))
 
-    if (Status is 'optimal'):
+    if (Status is 'optimal') and is_binary(output):
+        write_results_bin(output.strip("'"), model, priceSenLoadData)
+
+    elif (Status is 'optimal'):
         with open(output.strip("'"), 'w') as f:
 
             f.write("SOLUTION_STATUS\n")
@@ -185,6 +213,9 @@ def sced(uc, data, output, solver):
                     f.write('{} {} : {}\n'.format(str(bus), str(t), str(round(instance.Angle[bus, t].value,3))))
             f.write("END_VOLTAGE_ANGLES\n")
 
+    elif (Status is 'infeasible') and is_binary(output):
+        write_results_bin(output.strip("'"))
+
     elif (Status is 'infeasible'):
         with open(output.strip("'"), 'w') as f:
             f.write("SOLUTION_STATUS\n")
@@ -192,5 +223,96 @@ def sced(uc, data, output, solver):
             f.write("\nEND_SOLUTION_STATUS\n")
 
 
+# Written after every sced with 1 if the solve was warm started, else 0.
+WARM_START_MARKER = 'PSST_WARM_START'
+
+# Solution of the last optimal sced in this process, used as the starting
+# point of the next one. Consecutive RT intervals only differ in load, NDG
+# and initial power, so it is usually close to the next optimum.
+_sced_warm_start = {}
+
+WARM_START_VARS = ('PowerGenerated', 'Angle')
+
+
+def save_sced_warm_start(instance):
+    _sced_warm_start.clear()
+    _sced_warm_start['generators'] = sorted(instance.Generators.value)
+    _sced_warm_start['periods'] = sorted(instance.TimePeriods)
+    for name in WARM_START_VARS:
+        var = getattr(instance, name)
+        _sced_warm_start[name] = dict((k, var[k].value) for k in var)
+
+
+def apply_sced_warm_start(instance):
+    """Load the last sced solution into instance. Returns False if there is
+    none or it is for a different set of generators or time periods."""
+    if not _sced_warm_start:
+        return False
+    if (_sced_warm_start['generators'] != sorted(instance.Generators.value)
+            or _sced_warm_start['periods'] != sorted(instance.TimePeriods)):
+        return False
+
+    for name in WARM_START_VARS:
+        var = getattr(instance, name)
+        for k, v in _sced_warm_start[name].items():
+            if v is not None and k in var and not var[k].fixed:
+                var[k].value = v
+    return True
+
+
+def load_model(data, static=None):
+    """Read the reference model, in the binary format if it is a .bin file.
+
+    If static is given, data only holds the per interval part of the model
+    and the rest is read (and cached) from static.
+    """
+    data = data.strip("'")
+    if is_binary(data):
+        return read_model_bin(data)
+    if static is not None:
+        return read_model_incremental(static.strip("'"), data)
+    return read_model(data)
+
+
+# Jobs a running server accepts; each maps to the same routine the
+# one-shot command of that name uses.
+SERVER_JOBS = {'scuc': run_scuc, 'sced': run_sced}
+
+# Written on its own line after every job so the caller knows the job
+# finished and can read back its results file.
+SERVER_DONE_MARKER = 'PSST_JOB_DONE'
+
+
+@cli.command()
+def server():
+    """Keep the interpreter (and pyomo) loaded and run jobs read from stdin.
+
+    Each input line is a tab separated job: op, uc, data, output, solver
+    and, for an incremental sced, the static model file.
+    The server exits when stdin is closed or a 'quit' line is received.
+    """
+    click.echo("PSST server ready")
+    sys.stdout.flush()
+
+    for line in iter(sys.stdin.readline, ''):
+        line = line.strip()
+        if not line:
+            continue
+        if line == 'quit':
+            break
+
+        fields = line.split('\t')
+        code = 0
+        try:
+            op, uc, data, output, solver = fields[:5]
+            SERVER_JOBS[op](uc, data, output, solver, *fields[5:])
+        except Exception:
+            traceback.print_exc(file=sys.stdout)
+            code = 1
+
+        click.echo("%s %d" % (SERVER_DONE_MARKER, code))
+        sys.stdout.flush()
+
+
 if __name__ == "__main__":
     cli()
@@ -10,7 +10,7 @@ from pyutilib.services import TempfileManager
 PSST_WARNING = os.getenv('PSST_WARNING', 'ignore')
 
 
-def solve_model(model, solver='glpk', solver_io=None, keepfiles=True, verbose=True, symbolic_solver_labels=True, is_mip=True, mipgap=0.01):
+def solve_model(model, solver='glpk', solver_io=None, keepfiles=True, verbose=True, symbolic_solver_labels=True, is_mip=True, mipgap=0.01, warmstart=False):
     if solver == 'xpress':
         solver = SolverFactory(solver, solver_io=solver_io, is_mip=is_mip)
     else:
@@ -22,7 +22,13 @@ def solve_model(model, solver='glpk', solver_io=None, keepfiles=True, verbose=Tr
     with warnings.catch_warnings():
         warnings.simplefilter(PSST_WARNING)
         TempfileManager.tempdir = os.path.join(os.getcwd(),'PyomoTempFiles') 
-        resultsPSST = solver.solve(model, suffixes=['dual'], tee=verbose, keepfiles=True, symbolic_solver_labels=symbolic_solver_labels)
+        # Start from the values already in the model's variables, if the
+        # solver can use them.
+        warmstart = warmstart and solver.warm_start_capable()
+        if warmstart:
+            resultsPSST = solver.solve(model, suffixes=['dual'], tee=verbose, keepfiles=True, symbolic_solver_labels=symbolic_solver_labels, warmstart=True)
+        else:
+            resultsPSST = solver.solve(model, suffixes=['dual'], tee=verbose, keepfiles=True, symbolic_solver_labels=symbolic_solver_labels)
         TC = str(resultsPSST.solver.termination_condition)
 
-    return model, TC
+    return model, TC, warmstart
@@ -1,6 +1,8 @@
 #This PSST file, originally due to Dheepak Krishnamurthy, has been modified by Swathi Battula to read Price Sensitive Load and Zonal data.
 
 import os
+import copy
+import hashlib
 import click
 
 import pandas as pd
@@ -114,10 +116,9 @@ def find_buses(data):
         if l.startswith(DIRECTIVE):
             return l.split(DIRECTIVE)[1].strip(';').split()
 
-def read_model(model_data):
-
-    with open(model_data) as f:
-        data = f.read()
+def _read_static_model(data):
+    """Read the parts of the reference model that do not change between
+    the intervals of a day."""
 
     from .case import PSSTCase
     case = PSSTCase(os.path.join(current_directory, '../cases/case.m'))
@@ -196,6 +197,87 @@ def read_model(model_data):
             BusSplit = BusTrim.split(',')
             zonalBusData[z] = BusSplit
 
+    READ = False
+    branch_number = 1
+    for l in data.splitlines():
+        if l.strip() == ';':
+            READ = False
+
+        if l == 'param: BusFrom BusTo ThermalLimit Reactance :=':
+            READ = True
+            continue
+
+        if READ is True:
+            _, b1, b2, tl, r = l.split()
+            case.branch.loc[branch_number] = case.branch.loc[0]
+            case.branch.loc[branch_number, 'F_BUS'] = b1
+            case.branch.loc[branch_number, 'T_BUS'] = b2
+            case.branch.loc[branch_number, 'BR_X'] = float(r.replace(',', '.'))
+            case.branch.loc[branch_number, 'RATE_A'] = float(tl.replace(',', '.'))
+            branch_number = branch_number + 1
+
+    case.branch.drop(0, inplace=True)
+
+    ag = find_buses(data)
+    for b in ag:
+        case.bus.loc[b] = case.bus.loc['Bus1']
+
+    if 'Bus1' not in ag:
+        case.bus.drop('Bus1', inplace=True)
+
+    # Make Bus1 slack
+    case.bus.loc['Bus1', 'TYPE'] = 3.0
+
+    READ = False
+    DIRECTIVE = 'param: a b c NS :='
+    for l in data.splitlines():
+        if l.strip() == ';':
+            READ = False
+
+        if l.strip() == '':
+            continue
+
+        if l == DIRECTIVE:
+            READ = True
+            continue
+
+        if READ is True:
+            g, a, b, c, NS = l.split()
+            case.gencost.loc[g, "c"] = float(c.replace(',', '.'))
+            case.gencost.loc[g, "b"] = float(b.replace(',', '.'))
+            case.gencost.loc[g, "a"] = float(a.replace(',', '.'))
+            case.gencost.loc[g, "NS"] = int(NS.replace(',', '.'))
+
+    case.PositiveMismatchPenalty = 1e6
+    case.NegativeMismatchPenalty = 1e6
+
+    for l in data.splitlines():
+        if l.startswith('param BalPenPos'):
+            case.PositiveMismatchPenalty = float(l.split(':=')[1].split(';')[0].replace(' ', ''))
+
+    for l in data.splitlines():
+        if l.startswith('param BalPenNeg'):
+            case.NegativeMismatchPenalty = float(l.split(':=')[1].split(';')[0].replace(' ', ''))
+
+    case.TimePeriodLength = 1
+
+    for l in data.splitlines():
+        if l.startswith('param TimePeriodLength'):
+            case.TimePeriodLength = float(l.split(':=')[1].split(';')[0].replace(' ', ''))
+
+    for l in data.splitlines():
+        if l.startswith('param NumTimePeriods'):
+            case.NumTimePeriods = int(l.split(':=')[1].split(';')[0].replace(' ', ''))
+
+
+    ZonalDataComplete = {'zonalData': zonalData, 'zonalBusData': zonalBusData, 'ZonalDownReservePercent': ZonalDownReservePercent, 'ZonalUpReservePercent': ZonalUpReservePercent}
+
+    return case, ZonalDataComplete
+
+
+def _read_interval_model(case, data):
+    """Read the generator T0 state, load and price sensitive load into case."""
+
     READ = False
     for l in data.splitlines():
         if l.strip() == ';':
@@ -236,33 +318,6 @@ def read_model(model_data):
             case.gencost.loc[g, "SHUTDOWN_COST"] = shutdown_cost
 
 
-    branch_number = 1
-    for l in data.splitlines():
-        if l.strip() == ';':
-            READ = False
-
-        if l == 'param: BusFrom BusTo ThermalLimit Reactance :=':
-            READ = True
-            continue
-
-        if READ is True:
-            _, b1, b2, tl, r = l.split()
-            case.branch.loc[branch_number] = case.branch.loc[0]
-            case.branch.loc[branch_number, 'F_BUS'] = b1
-            case.branch.loc[branch_number, 'T_BUS'] = b2
-            case.branch.loc[branch_number, 'BR_X'] = float(r.replace(',', '.'))
-            case.branch.loc[branch_number, 'RATE_A'] = float(tl.replace(',', '.'))
-            branch_number = branch_number + 1
-
-    case.branch.drop(0, inplace=True)
-
-    ag = find_buses(data)
-    for b in ag:
-        case.bus.loc[b] = case.bus.loc['Bus1']
-
-    if 'Bus1' not in ag:
-        case.bus.drop('Bus1', inplace=True)
-
     READ = False
     DIRECTIVE = 'param: NetFixedLoadForecast :='
     for l in data.splitlines():
@@ -284,29 +339,6 @@ def read_model(model_data):
     case.load.drop(0, inplace=True)
     case.load.index = range(1, len(case.load.index)+1)
 
-    # Make Bus1 slack
-    case.bus.loc['Bus1', 'TYPE'] = 3.0
-
-    READ = False
-    DIRECTIVE = 'param: a b c NS :='
-    for l in data.splitlines():
-        if l.strip() == ';':
-            READ = False
-
-        if l.strip() == '':
-            continue
-
-        if l == DIRECTIVE:
-            READ = True
-            continue
-
-        if READ is True:
-            g, a, b, c, NS = l.split()
-            case.gencost.loc[g, "c"] = float(c.replace(',', '.'))
-            case.gencost.loc[g, "b"] = float(b.replace(',', '.'))
-            case.gencost.loc[g, "a"] = float(a.replace(',', '.'))
-            case.gencost.loc[g, "NS"] = int(NS.replace(',', '.'))
-
     READ = False
     priceSenLoadData = {}
     DIRECTIVE = 'set PriceSensitiveLoadNames :='
@@ -333,28 +365,45 @@ def read_model(model_data):
             Name,ID,atBus,hourIndex,d,e,f,SLMax, NS = l.split()
             priceSenLoadData[Name,(int(hourIndex))] = {'ID':ID,'atBus': atBus,'hourIndex':int(hourIndex),'d':float(d),'e':float(e),'f':float(f),'Pmax':float(SLMax), 'NS':int(NS)}
 
-    case.PositiveMismatchPenalty = 1e6
-    case.NegativeMismatchPenalty = 1e6
+    return priceSenLoadData
 
-    for l in data.splitlines():
-        if l.startswith('param BalPenPos'):
-            case.PositiveMismatchPenalty = float(l.split(':=')[1].split(';')[0].replace(' ', ''))
 
-    for l in data.splitlines():
-        if l.startswith('param BalPenNeg'):
-            case.NegativeMismatchPenalty = float(l.split(':=')[1].split(';')[0].replace(' ', ''))
+def read_model(model_data):
 
-    case.TimePeriodLength = 1
+    with open(model_data) as f:
+        data = f.read()
 
-    for l in data.splitlines():
-        if l.startswith('param TimePeriodLength'):
-            case.TimePeriodLength = float(l.split(':=')[1].split(';')[0].replace(' ', ''))
+    case, ZonalDataComplete = _read_static_model(data)
+    priceSenLoadData = _read_interval_model(case, data)
 
-    for l in data.splitlines():
-        if l.startswith('param NumTimePeriods'):
-            case.NumTimePeriods = int(l.split(':=')[1].split(';')[0].replace(' ', ''))
+    return case, ZonalDataComplete, priceSenLoadData  #, NDGData
 
 
-    ZonalDataComplete = {'zonalData': zonalData, 'zonalBusData': zonalBusData, 'ZonalDownReservePercent': ZonalDownReservePercent, 'ZonalUpReservePercent': ZonalUpReservePercent}
+# Parsed static model, keyed by path; see read_model_incremental.
+_static_model_cache = {}
 
-    return case, ZonalDataComplete, priceSenLoadData  #, NDGData
+
+def read_model_incremental(static_data, model_data):
+    """Read a reference model split in a static file, written once a day,
+    and a per interval file. The parsed static part is kept between calls
+    and only parsed again when the content of the file changes."""
+
+    path = os.path.abspath(static_data)
+    with open(path) as f:
+        data = f.read()
+    # Keyed on the content: mtime and size can both be unchanged when the
+    # file is rewritten within the timestamp resolution.
+    key = hashlib.sha1(data.encode('utf-8')).hexdigest()
+
+    cached = _static_model_cache.get(path)
+    if cached is None or cached[0] != key:
+        cached = (key, _read_static_model(data))
+        _static_model_cache.clear()
+        _static_model_cache[path] = cached
+
+    case, ZonalDataComplete = copy.deepcopy(cached[1])
+
+    with open(model_data) as f:
+        priceSenLoadData = _read_interval_model(case, f.read())
+
+    return case, ZonalDataComplete, priceSenLoadData
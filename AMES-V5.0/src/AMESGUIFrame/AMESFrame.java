@@ -31,7 +31,6 @@ import static java.awt.event.InputEvent.*;
 
 import amesmarket.*;
 import Output.*;
-import fncs.JNIfncs;
 import amesmarket.filereaders.CaseFileReader;
 import amesmarket.CaseFileData.GenData;
 import amesmarket.filereaders.BadDataFileFormatException;
@@ -2405,403 +2404,20 @@ public class AMESFrame extends JFrame {
             return;
         }
 
+        StreamingOutputWriter outputWriter = amesMarket.getOutputWriter();
+        MarketLog.flush();
+
         if (amesMarket.SolutionStatus().equals("optimal")) {
 
             try {
-                String caseFileName = this.caseFile.getName();
-                caseFileName = caseFileName.substring(0, caseFileName.length() - 4);
-                String outputFileName = "";
-
-                if (this.BatchMode == 1) { // for multiple random seeds batch mode
-                    if (this.bMultiRandomSeeds) {
-                        outputFileName = caseFileName + "_" + this.iCurrentRandomSeedsIndex + ".out";
-                    } else if (this.bMultiCases && (!this.bMultiRandomSeeds)) {
-                        outputFileName = caseFileName + ".out";
-                    }
+                File outputFile;
+                if (outputWriter != null) {
+                    outputFile = outputWriter.getOutputFile();
+                    outputWriter.close();
                 } else {
-                    //Time stamp the output file.
-                    //DateFormat df = new SimpleDateFormat("yyyy-MM-dd_Hm");
-                    //switch(this.getAMESMarket().getSCUCType()) {
-                    //case SCUC.SCUC_STOC : outputFileName=caseFileName+df.format(new Date())+ "Stochastic" + ".out"; break;
-                    //case SCUC.SCUC_DETERM : outputFileName=caseFileName+df.format(new Date())+ "Deterministic" + ".out"; }
-                    outputFileName = caseFileName + ".out";
-                }
-                File outdir = new File(this.caseFile.getParent(), "Output");
-                outdir.mkdir();
-                File outputFile = new File(outdir, outputFileName);
-
-                BufferedWriter outputBufferWriter = null;
-
-                outputBufferWriter = new BufferedWriter(new FileWriter(outputFile));
-
-                String[] nodeName = this.getNodeNameData();
-                int iNodeNumber = nodeName.length;
-
-                ArrayList LMPWithTrueCost = this.getAMESMarket().getLMPWithTrueCost();
-                int iLMPWithTrueCost = LMPWithTrueCost.size();
-
-                ArrayList genAgentProfitWithTrueCost = this.getAMESMarket().getGenAgentProfitAndNetGainWithTrueCost();
-                int igenAgentProfitWithTrueCost = genAgentProfitWithTrueCost.size();
-
-                ArrayList genAgentDispatchWithTrueCost = this.getAMESMarket().getGenAgentDispatchWithTrueCost();
-                int igenAgentDispatchWithTrueCost = genAgentDispatchWithTrueCost.size();
-
-                ArrayList lseAgentPriceSensitiveDemandWithTrueCost = this.getAMESMarket().getLSEAgentPriceSensitiveDemandWithTrueCost();
-                int ilseAgentPriceSensitiveDemandWithTrueCost = lseAgentPriceSensitiveDemandWithTrueCost.size();
-
-                ArrayList LSEAgentSurplusWithTrueCost = this.getAMESMarket().getLSEAgentSurplusWithTrueCost();
-                int iLSEAgentSurplusWithTrueCost = LSEAgentSurplusWithTrueCost.size();
-
-                ArrayList genAgentSupplyOfferByDay = this.getAMESMarket().getGenAgentSupplyOfferByDay();
-                int igenAgentSupplyOfferByDay = genAgentSupplyOfferByDay.size();
-
-                ArrayList genAgentDAMDispatchByDay = this.getAMESMarket().getGenAgentDispatchByDay();
-                int igenAgentDispatchByDay = genAgentDAMDispatchByDay.size();
-
-                ArrayList genAgentRealTimeDispatchByDay = this.getAMESMarket().getGenAgentRealTimeDispatchByInterval();
-                int igenAgentRealTimeDispatchByDay = genAgentRealTimeDispatchByDay.size();
-
-                ArrayList realTimeBranchFlowByDay = this.getAMESMarket().getRealTimeBranchFlowByDay();
-                int irealTimeBranchFlowByDay = realTimeBranchFlowByDay.size();
-
-                ArrayList genAgentProfitAndNetGainByDay = this.getAMESMarket().getGenAgentProfitAndNetGainByDay();
-                int igenAgentProfitAndNetGainByDay = genAgentProfitAndNetGainByDay.size();
-
-                ArrayList getGenAgentActionPropensityAndProbilityByDay = this.getAMESMarket().getGenAgentActionPropensityAndProbilityByDay();
-                int igetGenAgentActionPropensityAndProbilityByDay = getGenAgentActionPropensityAndProbilityByDay.size();
-
-                ArrayList lseAgentSurplusByDay = this.getAMESMarket().getLSEAgentSurplusByDay();
-                int ilseAgentSurplusByDay = lseAgentSurplusByDay.size();
-
-                ArrayList priceSensitiveByDay = this.getAMESMarket().getLSEAgenPriceSensitiveDemandByDay();
-                int ipriceSensitiveByDay = priceSensitiveByDay.size();
-
-                ArrayList branchFlowByDay = this.getAMESMarket().getBranchFlowByDay();
-                int ibranchFlowByDay = branchFlowByDay.size();
-
-                ArrayList LMPByDay = this.getAMESMarket().getLMPByDay();
-                int iLMPByDay = LMPByDay.size();
-
-                ArrayList realTimeLMPByDay = this.getAMESMarket().getRealTimeLMPByInterval();
-                int iRealTimeLMPByDay = realTimeLMPByDay.size();
-
-                ArrayList genAction = this.getAMESMarket().getGenActions();
-
-                Object[][] branchData = this.getBranchData();
-                int iBranchNumber = branchData.length;
-
-                Object[][] genData = this.getGeneratorData();
-                int iGenNumber = genData.length;
-
-                Object[][] lseHybridData = this.getLSEHybridDemandData();
-                int iLSENumber = lseHybridData.length;
-
-                String strTemp;
-
-                outputBufferWriter.write("// Output Data File:\n");
-                outputBufferWriter.write("//\n");
-                strTemp = "// FILENAME " + outputFile.getName() + "\n";
-                outputBufferWriter.write(strTemp);
-                outputBufferWriter.write("//\n");
-
-                strTemp = "// CASE FILENAME :\n";
-                outputBufferWriter.write(strTemp);
-                strTemp = this.caseFile.getName() + "\n";
-                outputBufferWriter.write(strTemp);
-                outputBufferWriter.write("\n");
-
-                strTemp = String.format("//%1$13s\t%2$15s\t%3$15s\t%4$15s\n", "iNodeNumber", "iBranchNumber", "iGenNumber", "iLSENumber");
-                outputBufferWriter.write(strTemp);
-                strTemp = String.format("%1$15d\t%2$15d\t%3$15d\t%4$15d\n", iNodeNumber, iBranchNumber, iGenNumber, iLSENumber);
-                outputBufferWriter.write(strTemp);
-
-//            strTemp = String.format("//%1$18s\t%2$25s\t%3$27s\t%4$20s\t%5$20s\t%6$25s\t%7$20s\t%8$20s\t%9$20s\t%10$20s\n", "iLMPWithTrueCost", "iGenCommitWithTrueCost", "iLSEPSDispatchWithTrueCost", "igenAgentSupplyOffer", "igenAgentCommitment",
-//                    "igenAgentProfitAndNetGain", "ilseAgentSurplus", "ipriceSensitive", "ibranchFlow", "iLMP");
-//            outputBufferWriter.write(strTemp);
-//            strTemp = String.format("%1$20d\t%2$25d\t%3$27d\t%4$20d\t%5$20d\t%6$25d\t%7$20d\t%8$20d\t%9$20d\t%10$20d\n", iLMPWithTrueCost, igenAgentCommitmentWithTrueCost, ilseAgentPriceSensitiveDemandWithTrueCost, igenAgentSupplyOfferByDay, igenAgentCommitmentByDay,
-//                    igenAgentProfitAndNetGainByDay, ilseAgentSurplusByDay, ipriceSensitiveByDay, ibranchFlowByDay, iLMPByDay);
-//            outputBufferWriter.write(strTemp);
-//                strTemp = String.format("//%1$18s\t%2$8s\t%3$25s\t%4$15s\t%5$15s\t%6$12s\t%7$12s\n", "RandomSeed", "iMaxDay", "dThresholdProbability", "dGenPriceCap", "dLSEPriceCap",
-//                        "bMaximumDay", "bThreshold");
-//                outputBufferWriter.write(strTemp);
-//                int MaximumDay;
-//                if (this.bMaximumDay) {
-//                    MaximumDay = 1;
-//                } else {
-//                    MaximumDay = 0;
-//                }
-//
-//                int Threshold;
-//                if (this.bThreshold) {
-//                    Threshold = 1;
-//                } else {
-//                    Threshold = 0;
-//                }
-//
-//                strTemp = String.format("%1$20d\t%2$8d\t%3$25f\t%4$15f\t%5$15f\t%6$12d\t%7$12d\n", this.RandomSeed, this.iMaxDay, this.dThresholdProbability, this.dGenPriceCap, this.dLSEPriceCap,
-//                        MaximumDay, Threshold);
-//                outputBufferWriter.write(strTemp);
-//
-//                strTemp = String.format("//%1$13s\t%2$15s\t%3$15s\t%4$15s\t%5$15s\t%6$15s\t%7$15s\t%8$15s\t%9$15s\t%10$15s\t%11$15s\t%12$15s\n",
-//                        "bActionProb",
-//                        "iStartDay",
-//                        "iDayLength",
-//                        "dActionProb",
-//                        "bLearnProb",
-//                        "iLearnStartDay",
-//                        "iLearnDayLength",
-//                        "dLearnProb",
-//                        "bNetEarning",
-//                        "iNEStartDay",
-//                        "iNEDayLength",
-//                        "dNEThreshold");
-//                outputBufferWriter.write(strTemp);
-//
-//                int bActionProb;
-//                if (this.bActionProbabilityCheck) {
-//                    bActionProb = 1;
-//                } else {
-//                    bActionProb = 0;
-//                }
-//
-//                int bLearnProb;
-//                if (this.bLearningCheck) {
-//                    bLearnProb = 1;
-//                } else {
-//                    bLearnProb = 0;
-//                }
-//
-//                int bNetEarning;
-//                if (this.bDailyNetEarningThreshold) {
-//                    bNetEarning = 1;
-//                } else {
-//                    bNetEarning = 0;
-//                }
-//
-//                strTemp = String.format("%1$15d\t%2$15d\t%3$15d\t%4$15f\t%5$15d\t%6$15d\t%7$15d\t%8$15f\t%9$15d\t%10$15d\t%11$15d\t%12$15f\n",
-//                        bActionProb,
-//                        this.iStartDay,
-//                        this.iCheckDayLength,
-//                        this.dActionProbability,
-//                        bLearnProb,
-//                        this.iLearningCheckStartDay,
-//                        this.iLearningCheckDayLength,
-//                        this.dLearningCheckDifference,
-//                        bNetEarning,
-//                        this.iDailyNetEarningStartDay,
-//                        this.iDailyNetEarningDayLength,
-//                        this.dDailyNetEarningThreshold);
-//
-//                outputBufferWriter.write(strTemp);
-                strTemp = String.format("//%1$8s\n", "iMaxDay");
-                outputBufferWriter.write(strTemp);
-                strTemp = String.format("%1$8d\n", this.iMaxDay);
-                outputBufferWriter.write(strTemp);
-
-                outputBufferWriter.write("#GeneratorSupplyOfferDataStart\n");
-                strTemp = String.format("//%1$5s\t%2$10s\t%3$15s\t%4$15s\t%5$15s\t%6$15s\n", "Day", "GenCo Name", "aR ($/MWh)", "bR ($/MW2h)", "CapRL (MW)", "CapRU (MW)");
-                outputBufferWriter.write(strTemp);
-
-                for (int i = 0; i < igenAgentSupplyOfferByDay; i++) {
-                    double[][] genOffer = (double[][]) genAgentSupplyOfferByDay.get(i);
-
-                    for (int j = 0; j < iGenNumber; j++) {
-                        strTemp = String.format("%1$5d\t%2$10s\t", i + 1, genData[j][0].toString());
-                        strTemp += String.format("%1$15f\t%2$15f\t%3$15f\t%4$15f\n", genOffer[j][0], genOffer[j][1], genOffer[j][2], genOffer[j][3]);
-
-                        outputBufferWriter.write(strTemp);
-                    }
-                }
-
-                outputBufferWriter.write("#GeneratorSupplyOfferDataEnd\n");
-                outputBufferWriter.write("\n");
-
-                outputBufferWriter.write("#GeneratorDAMDispatchDataStart\n");
-                strTemp = String.format("//%1$5s\t%2$5s", "Day", "Hour");
-                for (int i = 0; i < iGenNumber; i++) {
-                    String GenID = genData[i][0].toString();
-                    strTemp += String.format("\t%1$15s", GenID);
-                }
-                strTemp += "\n";
-                outputBufferWriter.write(strTemp);
-
-                for (int i = 0; i < igenAgentDispatchByDay; i++) {
-                    double[][] genDispatch = (double[][]) genAgentDAMDispatchByDay.get(i);
-
-                    for (int h = 0; h < 24; h++) {
-                        strTemp = String.format("%1$5d\t%2$5d", i + 1, (h+1));
-
-                        for (int j = 0; j < iGenNumber; j++) {
-                            strTemp += String.format("\t%1$6.2f", genDispatch[h][j]);
-                        }
-
-                        strTemp += "\n";
-                        outputBufferWriter.write(strTemp);
-                    }
-                }
-
-                outputBufferWriter.write("#GeneratorDAMDispatchDataEnd\n");
-                outputBufferWriter.write("\n");
-
-                outputBufferWriter.write("#GeneratorRealTimeDispatchDataStart\n");
-                strTemp = String.format("//%1$5s\t%2$5s", "Hour", "Interval");
-                for (int i = 0; i < iGenNumber; i++) {
-                    String GenID = genData[i][0].toString();
-                    strTemp += String.format("\t%1$15s", GenID);
-                }
-                strTemp += "\n";
-                outputBufferWriter.write(strTemp);
-
-                for (int i = 0; i < igenAgentRealTimeDispatchByDay; i++) {
-                    double[][] genRealTimeDispatch = (double[][]) genAgentRealTimeDispatchByDay.get(i);
-
-                    for (int h = 0; h < NIRTM; h++) {
-                        strTemp = String.format("%1$5d\t%2$5d", (i+1), (h+1));
-
-                        for (int j = 0; j < iGenNumber; j++) {
-                            strTemp += String.format("\t%1$6.2f", genRealTimeDispatch[h][j]);
-                        }
-
-                        strTemp += "\n";
-                        outputBufferWriter.write(strTemp);
-                    }
-                }
-
-                outputBufferWriter.write("#GeneratorRealTimeDispatchDataEnd\n");
-                outputBufferWriter.write("\n");
-
-                outputBufferWriter.write("#LSEPriceSensitiveDemandDataStart\n");
-                outputBufferWriter.write("Price sensitive demand data is currently not being written to the output file. Next AMES package release fixes this.   \n");
-                strTemp = String.format("//%1$5s\t%2$5s", "Day", "Hour");
-                for (int i = 0; i < iLSENumber; i++) {
-                    String LSEID = lseHybridData[i][0].toString();
-                    strTemp += String.format("\t%1$15s", LSEID);
-                }
-                strTemp += "\n";
-                outputBufferWriter.write(strTemp);
-
-                for (int i = 0; i < ipriceSensitiveByDay; i++) {
-                    double[][] priceSensitive = (double[][]) priceSensitiveByDay.get(i);
-
-                    for (int h = 0; h < 24; h++) {
-                        strTemp = String.format("%1$5d\t%2$5d", i + 1, h);
-                        int psLoadIndex = 0;
-
-                        for (int j = 0; j < iLSENumber; j++) {
-                            int hourlyLoadHybridFlagByLSE = Integer.parseInt(lseHybridData[j][h + 3].toString());
-
-                            if ((hourlyLoadHybridFlagByLSE & 2) == 2) {
-                                strTemp += String.format("\t%1$15f", priceSensitive[h][psLoadIndex++]);
-                            } else {
-                                strTemp += String.format("\t%1$15f", 0.0);
-                            }
-                        }
-
-                        strTemp += "\n";
-                        outputBufferWriter.write(strTemp);
-                    }
-                }
-                outputBufferWriter.write("#LSEPriceSensitiveDemandDataEnd\n");
-                outputBufferWriter.write("\n");
-
-                outputBufferWriter.write("#NodeLMPDataStart\n");
-                strTemp = String.format("//%1$5s\t%2$5s", "Day", "Hour");
-                for (int i = 0; i < iNodeNumber; i++) {
-                    String NodeID = nodeName[i];
-                    strTemp += String.format("\t%1$15s", NodeID);
+                    outputFile = this.getOutputFile();
+                    new OutputFileWriter(this.amesMarket, this.getOutputFileFormat()).write(outputFile);
                 }
-                strTemp += "\n";
-                outputBufferWriter.write(strTemp);
-
-                for (int i = 0; i < iLMPByDay; i++) {
-                    double[][] lmp = (double[][]) LMPByDay.get(i);
-
-                    for (int h = 0; h < 24; h++) {
-                        strTemp = String.format("%1$5d\t%2$5d", i + 1, (h+1));
-
-                        for (int j = 0; j < iNodeNumber; j++) {
-                            strTemp += String.format("\t%1$6.2f", lmp[h][j]);
-                        }
-
-                        strTemp += "\n";
-                        outputBufferWriter.write(strTemp);
-                    }
-                }
-
-                outputBufferWriter.write("#NodeLMPDataEnd\n");
-                outputBufferWriter.write("\n");
-
-            outputBufferWriter.write("#NodeRealTimeLMPDataStart\n");
-            strTemp = String.format("//%1$5s\t%2$5s", "Day", "Hour");
-            for (int i = 0; i < iNodeNumber; i++) {
-                String NodeID = nodeName[i];
-                strTemp += String.format("\t%1$15s", NodeID);
-            }
-            strTemp += "\n";
-            outputBufferWriter.write(strTemp);
-
-            for (int i = 0; i < iRealTimeLMPByDay; i++) {
-                double[][] realTimelmp = (double[][]) realTimeLMPByDay.get(i);
-
-                for (int h = 0; h < NIRTM; h++) {
-                    strTemp = String.format("%1$5d\t%2$5d", i + 1, h+1);
-
-                    for (int j = 0; j < iNodeNumber; j++) {
-                        strTemp += String.format("\t%1$6.2f", realTimelmp[h][j]);
-                    }
-
-                    strTemp += "\n";
-                    outputBufferWriter.write(strTemp);
-                }
-            }
-
-            outputBufferWriter.write("#NodeRealTimeLMPDataEnd\n");
-            outputBufferWriter.write("\n");
-//            outputBufferWriter.write("#NodeDifferenceBetweenLMPsStart\n");
-//            strTemp = String.format("//%1$5s\t%2$5s", "Day", "Hour");
-//            for (int i = 0; i < iNodeNumber; i++) {
-//                String NodeID = nodeName[i];
-//                strTemp += String.format("\t%1$15s", NodeID);
-//            }
-//            strTemp += "\n";
-//            outputBufferWriter.write(strTemp);
-//
-//            if (iRealTimeLMPByDay > 0) {
-//                for (int i = 0; i < iRealTimeLMPByDay; i++) {
-//                    double[][] realTimelmp = (double[][]) realTimeLMPByDay.get(i);
-//                    //guard against no DAM LMPs, and make sure we compare all of the days.
-//                    if ((iLMPByDay > 0) && (iLMPByDay >= i)) {
-//                        double[][] lmp = (double[][]) LMPByDay.get(i);
-//
-//                        for (int h = 0; h < 24; h++) {
-//                            strTemp = String.format("%1$5d\t%2$5d", i + 2, h);
-//
-//                            for (int j = 0; j < iNodeNumber; j++) {
-//                                strTemp += String.format("\t%1$15f", (lmp[h][j] - realTimelmp[h][j]));
-//                            }
-//
-//                            strTemp += "\n";
-//                            outputBufferWriter.write(strTemp);
-//                        }
-//                    } else {
-//                        outputBufferWriter.write(String.format(
-//                                "No day-ahead LMPs for day %d\n", i + 1));
-//                    }
-//                }
-//            } else {
-//                outputBufferWriter.write("NONE\n");
-//            }
-//            outputBufferWriter.write("#NodeDifferenceBetweenLMPsDataEnd\n");
-//            outputBufferWriter.write("\n");
-//
-//                outputBufferWriter.write("\n\n\n");
-//                strTemp = "StopCode=";
-//                strTemp += String.format("\t%1$15d", this.amesMarket.getStopCode());
-//                strTemp += "\n";
-//                outputBufferWriter.write(strTemp);
-//                outputBufferWriter.write("\n");
-
-                outputBufferWriter.close();
 
                 System.out.println("Save case output data file: " + outputFile.getPath());
 
@@ -2811,25 +2427,65 @@ public class AMESFrame extends JFrame {
                     long time_granted = 0;
                     long time_next = iMaxDay * 86400;
                     while (time_granted < time_next) {
-                        time_granted = JNIfncs.time_request(time_next);
+                        time_granted = amesMarket.getFNCS().time_request(time_next);
                     }
                     System.out.print("JNIFncs end is called");
-                    JNIfncs.end();
-                    assert !JNIfncs.is_initialized();
+                    amesMarket.getFNCS().end();
+                    assert !amesMarket.getFNCS().is_initialized();
                 }
             } catch (IOException ex) {
                 Logger.getLogger(AMESFrame.class.getName()).log(Level.SEVERE, null, ex);
             }
         } else {
+            if (outputWriter != null) {
+                try {
+                    outputWriter.close();
+                    System.out.println("Save partial case output data file: " + outputWriter.getOutputFile().getPath());
+                } catch (IOException ex) {
+                    Logger.getLogger(AMESFrame.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
             if (FNCSActive) {
                 System.out.print("JNIFncs end is called");
-                JNIfncs.end();
-                assert !JNIfncs.is_initialized();
+                amesMarket.getFNCS().end();
+                assert !amesMarket.getFNCS().is_initialized();
             }
         }
 
     }
 
+    /**
+     * @return output file of the current case and batch run.
+     */
+    private File getOutputFile() {
+        String caseFileName = this.caseFile.getName();
+        caseFileName = caseFileName.substring(0, caseFileName.length() - 4);
+        String outputFileName = "";
+
+        if (this.BatchMode == 1) { // for multiple random seeds batch mode
+            if (this.bMultiRandomSeeds) {
+                outputFileName = caseFileName + "_" + this.iCurrentRandomSeedsIndex + ".out";
+            } else if (this.bMultiCases && (!this.bMultiRandomSeeds)) {
+                outputFileName = caseFileName + ".out";
+            }
+        } else {
+            //Time stamp the output file.
+            //DateFormat df = new SimpleDateFormat("yyyy-MM-dd_Hm");
+            //switch(this.getAMESMarket().getSCUCType()) {
+            //case SCUC.SCUC_STOC : outputFileName=caseFileName+df.format(new Date())+ "Stochastic" + ".out"; break;
+            //case SCUC.SCUC_DETERM : outputFileName=caseFileName+df.format(new Date())+ "Deterministic" + ".out"; }
+            outputFileName = caseFileName + ".out";
+        }
+        File outdir = new File(this.caseFile.getParent(), "Output");
+        outdir.mkdir();
+        return new File(outdir, outputFileName);
+    }
+
+    private OutputFileFormat getOutputFileFormat() {
+        return new OutputFileFormat(this.caseFile.getName(), this.getNodeNameData(), this.getBranchData(),
+                this.getGeneratorData(), this.getLSEHybridDemandData(), this.iMaxDay, this.NIRTM);
+    }
+
     public void exitItemActionPerformed(java.awt.event.ActionEvent evt) {
         dispose();                    // Release resources
         System.out.println("Exit");
@@ -3208,6 +2864,7 @@ public class AMESFrame extends JFrame {
 
                         bCaseResult = true;
                         saveOutputData();
+                        amesMarket.getRunContext().close();
                         if (noGUI) {
                             exitItemActionPerformed(null);
                         }
@@ -3215,6 +2872,7 @@ public class AMESFrame extends JFrame {
                         enableViewMenu();
                     } else if (BatchMode == 1) {
                         saveOutputData();
+                        amesMarket.getRunContext().close();
                         System.gc();
 
                         if (bMultiRandomSeeds && (iCurrentRandomSeedsIndex < iRandomSeedsData - 1)) {
@@ -3270,7 +2928,14 @@ public class AMESFrame extends JFrame {
                 System.getProperty("DEL_INTER_FILES", "false")
         );
         //System.out.println("AMESFrame.java initializes AMESMarket object");
+        if (amesMarket != null) {
+            amesMarket.getResultStore().close();
+            if (amesMarket.getOutputWriter() != null) {
+                amesMarket.getOutputWriter().discard();
+            }
+        }
         amesMarket = new AMESMarket(delIntermediateFiles);
+        amesMarket.setRunContext(RunContext.create(new File(AMESMarket.DEFAULT_DATA_DIR)));
         double[][] bus = new double[1][2];
         bus[0][0] = Double.parseDouble(nodeData[0][0].toString());
         bus[0][1] = Double.parseDouble(nodeData[0][1].toString());
@@ -3356,6 +3021,14 @@ public class AMESFrame extends JFrame {
                 RandomSeed, priceSensitiveDemandFlag, this.testcaseConfig);
         amesMarket.AMESMarketSetupFromGUI(baseS, baseV, bus, branch, gen, lse, NDG, lsePriceSenData, lseHybrid,
                 gencoAlertMarkers, this.testcaseConfig.getSCUCInputData(), this.testcaseConfig.getStorageInputData(), hasStorage, hasNDG);
+
+        if (!this.isNewCase()) {
+            try {
+                amesMarket.setOutputWriter(new StreamingOutputWriter(this.getOutputFileFormat(), this.getOutputFile()));
+            } catch (IOException ex) {
+                Logger.getLogger(AMESFrame.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
     }
 
     public void startAMESMarket() {
@@ -3366,8 +3039,14 @@ public class AMESFrame extends JFrame {
     private void startItemActionPerformed(java.awt.event.ActionEvent evt) {
 
         if (FNCSActive) {
-            fncs.JNIfncs.initialize();
-            assert JNIfncs.is_initialized();
+            try {
+                amesMarket.setFNCS(LoopbackFNCSConnection.create());
+            } catch (IOException ex) {
+                Logger.getLogger(AMESFrame.class.getName()).log(Level.SEVERE, null, ex);
+                return;
+            }
+            amesMarket.getFNCS().initialize();
+            assert amesMarket.getFNCS().is_initialized();
         }
 
         amesMarket.Start();
@@ -4008,12 +3687,7 @@ public class AMESFrame extends JFrame {
     }
 
     public String[] getNodeNameData() {
-        String[] bus = new String[iNodeData];
-        for (int i = 0; i < iNodeData; i++) {
-            bus[i] = "Bus " + (i + 1);
-        }
-
-        return bus;
+        return OutputFileFormat.nodeNames(iNodeData);
     }
 
     public AMESMarket getAMESMarket() {
@@ -4126,8 +3800,8 @@ public class AMESFrame extends JFrame {
     private boolean bHybridDemand;
 
     private boolean isPU;
-    private static double baseS;
-    private static double baseV;
+    private double baseS;
+    private double baseV;
 
     // Learning and action domain parameters
     private double Default_Cooling;
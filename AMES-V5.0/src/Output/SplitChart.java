@@ -45,6 +45,7 @@ import org.jfree.chart.labels.XYToolTipGenerator;
 import org.jfree.chart.labels.CustomXYToolTipGenerator;
 
 import AMESGUIFrame.*;
+import amesmarket.ResultColumn;
 
 public class SplitChart  extends JFrame    {
     
@@ -336,7 +337,7 @@ public void drawGeneratorCommitmentWithTrueCostData(String outputTimeTypeSelect,
            };
       chartTitle="GenCo Commitments (Benchmark)";
       
-      ArrayList genAgentCommitmentWithTrueCost=amesFrame.getAMESMarket().getGenAgentDispatchWithTrueCost();
+      ResultColumn genAgentCommitmentWithTrueCost=amesFrame.getAMESMarket().getGenAgentDispatchWithTrueCost();
       
       boolean draw3DChart=false;
       dataset=new XYSeriesCollection();
@@ -347,7 +348,7 @@ public void drawGeneratorCommitmentWithTrueCostData(String outputTimeTypeSelect,
       
       if((selectIndex.length<1)||(selectIndex[0]==0)) {
              
-          double [][] genCommitmentWithTrueCost=(double [][])genAgentCommitmentWithTrueCost.get(0);
+          double [][] genCommitmentWithTrueCost=genAgentCommitmentWithTrueCost.get(0);
           for(int j=0; j<iGenNumber; j++){
               XYSeries series = new XYSeries((String)genData[j][0]);
 
@@ -362,7 +363,7 @@ public void drawGeneratorCommitmentWithTrueCostData(String outputTimeTypeSelect,
           int iDataNumber=selectIndex.length;
           int iField=names.length;
             
-          double [][] genCommitmentWithTrueCost=(double [][])genAgentCommitmentWithTrueCost.get(0);
+          double [][] genCommitmentWithTrueCost=genAgentCommitmentWithTrueCost.get(0);
           for(int j=0; j<iDataNumber; j++){
               XYSeries series = new XYSeries((String)genData[selectIndex[j]-1][0]);
 
@@ -414,7 +415,7 @@ public void drawGeneratorProfitWithTrueCostData(String outputTimeTypeSelect, int
     else
         chartTitle="GenCo Net Earnings (Benchmark)";
      
-      ArrayList genAgentProfitWithTrueCost=amesFrame.getAMESMarket().getGenAgentProfitAndNetGainWithTrueCost();
+      ResultColumn genAgentProfitWithTrueCost=amesFrame.getAMESMarket().getGenAgentProfitAndNetGainWithTrueCost();
       
       boolean draw3DChart=false;
       dataset=new XYSeriesCollection();
@@ -425,7 +426,7 @@ public void drawGeneratorProfitWithTrueCostData(String outputTimeTypeSelect, int
       
       if((selectIndex.length<1)||(selectIndex[0]==0)) {
              
-          double [][] genProfitWithTrueCost=(double [][])genAgentProfitWithTrueCost.get(0);
+          double [][] genProfitWithTrueCost=genAgentProfitWithTrueCost.get(0);
           for(int j=0; j<iGenNumber; j++){
               XYSeries series;
 /*              
@@ -490,7 +491,7 @@ public void drawGeneratorProfitWithTrueCostData(String outputTimeTypeSelect, int
       else {
           int iDataNumber=selectIndex.length;
             
-           double [][] genProfitWithTrueCost=(double [][])genAgentProfitWithTrueCost.get(0);
+           double [][] genProfitWithTrueCost=genAgentProfitWithTrueCost.get(0);
           for(int j=0; j<iDataNumber; j++){
               XYSeries series;
 /*              
@@ -595,10 +596,10 @@ public void drawPSDemandDispatchWithTrueCostData(String outputTimeTypeSelect, in
       Object [][] lseHybridData=amesFrame.getLSEHybridDemandData();
       int iLSENumber=lsePriceSensitiveData.length;
       
-      ArrayList LMPWithTrueCost=amesFrame.getAMESMarket().getLMPWithTrueCost();
-      double [][] lmp=(double [][])LMPWithTrueCost.get(0);
+      ResultColumn LMPWithTrueCost=amesFrame.getAMESMarket().getLMPWithTrueCost();
+      double [][] lmp=LMPWithTrueCost.get(0);
       
-      ArrayList priceSensitiveWithTrueCost=amesFrame.getAMESMarket().getLSEAgentPriceSensitiveDemandWithTrueCost();
+      ResultColumn priceSensitiveWithTrueCost=amesFrame.getAMESMarket().getLSEAgentPriceSensitiveDemandWithTrueCost();
       
       chartTitle="LSE Price-Sensitive Demand Function \nand Cleared Point (Benchmark)";
       String xLabel="Power (MWs)";
@@ -610,7 +611,7 @@ public void drawPSDemandDispatchWithTrueCostData(String outputTimeTypeSelect, in
           return;
       }
       
-      double [][] lsePS=(double [][])priceSensitiveWithTrueCost.get(0);
+      double [][] lsePS=priceSensitiveWithTrueCost.get(0);
 
       int lseIndex=selectIndex[0];
       int lseAtBus=Integer.parseInt(lseHybridData[lseIndex][2].toString());
@@ -685,7 +686,7 @@ public void drawPSDemandDispatchWithTrueCostData(String outputTimeTypeSelect, in
 public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iStartTime, int iEndTime, int iDayHour, int [] selectIndex) {
       chartTitle="LSE Net Earnings (Benchmark)";
       
-      ArrayList LSEAgentSurplusWithTrueCost=amesFrame.getAMESMarket().getLSEAgentSurplusWithTrueCost();
+      ResultColumn LSEAgentSurplusWithTrueCost=amesFrame.getAMESMarket().getLSEAgentSurplusWithTrueCost();
       Object [][] lseHybridData=amesFrame.getLSEHybridDemandData();
       int iLSENumber=lseHybridData.length;
       
@@ -695,7 +696,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
 
       if((selectIndex.length<1)||(selectIndex[0]==0)) {
              
-         double [][] surplus=(double [][])LSEAgentSurplusWithTrueCost.get(0);
+         double [][] surplus=LSEAgentSurplusWithTrueCost.get(0);
          for(int j=0; j<iLSENumber; j++){
               XYSeries series = new XYSeries((String)lseHybridData[j][0]);
 
@@ -719,7 +720,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
       else {
           int iDataNumber=selectIndex.length;
             
-         double [][] surplus=(double [][])LSEAgentSurplusWithTrueCost.get(0);
+         double [][] surplus=LSEAgentSurplusWithTrueCost.get(0);
           for(int j=0; j<iDataNumber; j++){
               XYSeries series = new XYSeries((String)lseHybridData[selectIndex[j]-1][0]);
 
@@ -781,7 +782,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
            };
       chartTitle="Locational Marginal Prices (Benchmark)";
       
-      ArrayList LMPWithTrueCost=amesFrame.getAMESMarket().getLMPWithTrueCost();
+      ResultColumn LMPWithTrueCost=amesFrame.getAMESMarket().getLMPWithTrueCost();
       
       String [] nodeName=amesFrame.getNodeNameData( );
       int iNodeNumber=nodeName.length;
@@ -792,7 +793,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
       
       if((selectIndex.length<1)||(selectIndex[0]==0)) {
                
-          double [][] lmp=(double [][])LMPWithTrueCost.get(0);
+          double [][] lmp=LMPWithTrueCost.get(0);
           for(int j=0; j<iNodeNumber; j++){
               XYSeries series = new XYSeries(nodeName[j]);
 
@@ -808,7 +809,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
           int iDataNumber=selectIndex.length;
           int iField=names.length;
             
-          double [][] lmp=(double [][])LMPWithTrueCost.get(0);
+          double [][] lmp=LMPWithTrueCost.get(0);
             for(int j=0; j<iDataNumber; j++){
               XYSeries series = new XYSeries(nodeName[selectIndex[j]-1]);
 
@@ -856,7 +857,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
 
 
      public void drawAggreagtedSupplyAndDemandWithTrueCostData(String outputTimeTypeSelect, int iStartTime, int iEndTime, int iDayHour, int [] selectIndex) {
-      ArrayList genAgentSupplyOfferByDay=amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
+      ResultColumn genAgentSupplyOfferByDay=amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
       
       Object [][] genData=amesFrame.getGeneratorData( );
       int iGenNumber=genData.length;
@@ -1232,8 +1233,8 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
  }
 
      public void drawAggreagtedSupplyAndDemandData(String outputTimeTypeSelect, int iStartTime, int iEndTime, int iDayHour, int [] selectIndex) {
-      ArrayList genAgentSupplyOfferByDay=amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
-      double [][] genOffer=(double [][])genAgentSupplyOfferByDay.get(iStartTime-2);
+      ResultColumn genAgentSupplyOfferByDay=amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
+      double [][] genOffer=genAgentSupplyOfferByDay.get(iStartTime-2);
 
       Object [][] genData=amesFrame.getGeneratorData( );
       int iGenNumber=genData.length;
@@ -1625,7 +1626,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                  "GenCo Name", "Day Index", "aR ($/MWh)", "bR ($/MW2h)", "CapRL (MW)", "CapRU (MW)",
            };
       
-      ArrayList genAgentSupplyOfferByDay=amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
+      ResultColumn genAgentSupplyOfferByDay=amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
       
       Object [][] genData=amesFrame.getGeneratorData( );
       int iGenNumber=genData.length;
@@ -1639,7 +1640,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
           return;
       }
       
-      double [][] genOffer=(double [][])genAgentSupplyOfferByDay.get(iStartTime-1);
+      double [][] genOffer=genAgentSupplyOfferByDay.get(iStartTime-1);
 
       int genIndex=selectIndex[0];
 
@@ -1708,7 +1709,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
       iStartTime=iStartTime-1;
       iEndTime=iEndTime-1;
       
-      ArrayList genAgentCommitmentByDay=amesFrame.getAMESMarket().getGenAgentDispatchByDay();
+      ResultColumn genAgentCommitmentByDay=amesFrame.getAMESMarket().getGenAgentDispatchByDay();
                  
       int[] hasSolutions;
       
@@ -1733,9 +1734,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                   XYSeries series = new XYSeries((String)genData[j][0]);
                  
                   for(int iDay=0; iDay<iDayNumber; iDay++) {
-                     genCommitment=(double [][])genAgentCommitmentByDay.get(iDay);
-                      
-                     series.add(iDay+2, (double)(Math.round(genCommitment[iDayHour][j]*1000))/1000.0);
+                     series.add(iDay+2, (double)(Math.round(genAgentCommitmentByDay.get(iDay, iDayHour, j)*1000))/1000.0);
                     
                 }
 
@@ -1760,9 +1759,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                   XYSeries series = new XYSeries((String)genData[j][0]);
                  
                   for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                     genCommitment=(double [][])genAgentCommitmentByDay.get(iDay);
-                     
-                     series.add(iDay+2, (double)(Math.round(genCommitment[iDayHour][j]*1000))/1000.0);
+                     series.add(iDay+2, (double)(Math.round(genAgentCommitmentByDay.get(iDay, iDayHour, j)*1000))/1000.0);
                     
                 }
 
@@ -1787,7 +1784,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                   XYSeries series = new XYSeries((String)genData[j][0]);
                  
                   for(int iDay=0; iDay<iDayNumber; iDay++) {
-                     genCommitment=(double [][])genAgentCommitmentByDay.get(iDay);
+                     genCommitment=genAgentCommitmentByDay.get(iDay);
                      
                      for(int i=0; i<24; i++) {
                         series.add(iDay+1+i/24.0, (double)(Math.round(genCommitment[i][j]*1000))/1000.0);
@@ -1816,7 +1813,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                   XYSeries series = new XYSeries((String)genData[j][0]);
                  
                   for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                     genCommitment=(double [][])genAgentCommitmentByDay.get(iDay);
+                     genCommitment=genAgentCommitmentByDay.get(iDay);
                      
                      for(int i=0; i<24; i++) {
                         series.add(iDay+1+i/24.0, (double)(Math.round(genCommitment[i][j]*1000))/1000.0);
@@ -1850,9 +1847,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                       XYSeries series = new XYSeries((String)genData[selectIndex[j]-1][0]);
 
                       for(int iDay=0; iDay<iDayNumber; iDay++) {
-                            genCommitment=(double [][])genAgentCommitmentByDay.get(iDay);
-
-                            series.add(iDay+1, (double)(Math.round(genCommitment[iDayHour][selectIndex[j]-1]*1000))/1000.0);
+                            series.add(iDay+1, (double)(Math.round(genAgentCommitmentByDay.get(iDay, iDayHour, selectIndex[j]-1)*1000))/1000.0);
                             
                             
                         }
@@ -1877,9 +1872,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                       XYSeries series = new XYSeries((String)genData[selectIndex[j]-1][0]);
 
                       for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                            genCommitment=(double [][])genAgentCommitmentByDay.get(iDay);
-
-                            series.add(iDay+2, (double)(Math.round(genCommitment[iDayHour][selectIndex[j]-1]*1000))/1000.0);
+                            series.add(iDay+2, (double)(Math.round(genAgentCommitmentByDay.get(iDay, iDayHour, selectIndex[j]-1)*1000))/1000.0);
                             
                         }
 
@@ -1903,7 +1896,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                       XYSeries series = new XYSeries((String)genData[selectIndex[j]-1][0]);
 
                       for(int iDay=0; iDay<iDayNumber; iDay++) {
-                         genCommitment=(double [][])genAgentCommitmentByDay.get(iDay);
+                         genCommitment=genAgentCommitmentByDay.get(iDay);
 
                          for(int i=0; i<24; i++) {
                             series.add(iDay+1+i/24.0, (double)(Math.round(genCommitment[i][selectIndex[j]-1]*1000))/1000.0);
@@ -1931,7 +1924,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                       XYSeries series = new XYSeries((String)genData[selectIndex[j]-1][0]);
 
                       for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                         genCommitment=(double [][])genAgentCommitmentByDay.get(iDay);
+                         genCommitment=genAgentCommitmentByDay.get(iDay);
 
                          for(int i=0; i<24; i++) {
                             series.add(iDay+1+i/24.0, (double)(Math.round(genCommitment[i][selectIndex[j]-1]*1000))/1000.0);
@@ -1988,7 +1981,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
       else
         chartTitle="GenCo Daily Net Earnings";
           
-      ArrayList genAgentProfitAndNetGainByDay=amesFrame.getAMESMarket().getGenAgentProfitAndNetGainByDay();
+      ResultColumn genAgentProfitAndNetGainByDay=amesFrame.getAMESMarket().getGenAgentProfitAndNetGainByDay();
       
       boolean draw3DChart=false;
       dataset=new XYSeriesCollection();
@@ -2012,7 +2005,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                 series1= new XYSeries(genName);
                
                 for(int iDay=0; iDay<iDayNumber; iDay++) {
-                      genProfit=(double [][])genAgentProfitAndNetGainByDay.get(iDay);
+                      genProfit=genAgentProfitAndNetGainByDay.get(iDay);
                  
                       if(bProfit)
                           series1.add(iDay+1, (double)(Math.round(genProfit[i][0]*1000))/1000.0);
@@ -2037,7 +2030,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                 series1= new XYSeries(genName);
 
                 for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                      genProfit=(double [][])genAgentProfitAndNetGainByDay.get(iDay);
+                      genProfit=genAgentProfitAndNetGainByDay.get(iDay);
                  
                       if(bProfit)
                           series1.add(iDay+1, (double)(Math.round(genProfit[i][0]*1000))/1000.0);
@@ -2066,7 +2059,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                         series1= new XYSeries(genName);
                          
                           for(int iDay=0; iDay<iDayNumber; iDay++) {
-                                genProfit=(double [][])genAgentProfitAndNetGainByDay.get(iDay);
+                                genProfit=genAgentProfitAndNetGainByDay.get(iDay);
 
                                  if(bProfit)
                                     series1.add(iDay+1, (double)(Math.round(genProfit[selectIndex[i]-1][0]*1000))/1000.0);
@@ -2091,7 +2084,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                           series1= new XYSeries(genName);
                          
                           for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                                genProfit=(double [][])genAgentProfitAndNetGainByDay.get(iDay);
+                                genProfit=genAgentProfitAndNetGainByDay.get(iDay);
 
                                 if(bProfit)
                                     series1.add(iDay+1, (double)(Math.round(genProfit[selectIndex[i]-1][0]*1000))/1000.0);
@@ -2167,7 +2160,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
            };
       
       chartTitle="LSE Daily Net Earnings";
-      ArrayList lseAgentSurplusByDay=amesFrame.getAMESMarket().getLSEAgentSurplusByDay();
+      ResultColumn lseAgentSurplusByDay=amesFrame.getAMESMarket().getLSEAgentSurplusByDay();
       
       boolean draw3DChart=false;
       dataset=new XYSeriesCollection();
@@ -2189,7 +2182,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                 XYSeries series1 = new XYSeries(lseName+" Surplus");
                
                 for(int iDay=0; iDay<iDayNumber; iDay++) {
-                      lseSurplus=(double [][])lseAgentSurplusByDay.get(iDay);
+                      lseSurplus=lseAgentSurplusByDay.get(iDay);
                  
                       series1.add(iDay+1, (double)(Math.round(lseSurplus[i][0]*1000))/1000.0);
                       }
@@ -2209,7 +2202,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                 XYSeries series1 = new XYSeries(lseName+" Surplus");
                
                 for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                      lseSurplus=(double [][])lseAgentSurplusByDay.get(iDay);
+                      lseSurplus=lseAgentSurplusByDay.get(iDay);
                  
                       series1.add(iDay+1, (double)(Math.round(lseSurplus[i][0]*1000))/1000.0);
                       }
@@ -2234,7 +2227,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                          XYSeries series1 = new XYSeries(lseName+" Surplus");
                          
                           for(int iDay=0; iDay<iDayNumber; iDay++) {
-                                lseSurplus=(double [][])lseAgentSurplusByDay.get(iDay);
+                                lseSurplus=lseAgentSurplusByDay.get(iDay);
 
                               series1.add(iDay+1, (double)(Math.round(lseSurplus[selectIndex[i]-1][0]*1000))/1000.0);
                               }
@@ -2254,7 +2247,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                          XYSeries series1 = new XYSeries(lseName+" Surplus");
                          
                           for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                                lseSurplus=(double [][])lseAgentSurplusByDay.get(iDay);
+                                lseSurplus=lseAgentSurplusByDay.get(iDay);
 
                               series1.add(iDay+1, (double)(Math.round(lseSurplus[selectIndex[i]-1][0]*1000))/1000.0);
                               }
@@ -2331,9 +2324,9 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
       Object [][] lseHybridData=amesFrame.getLSEHybridDemandData();
       int iLSENumber=lsePriceSensitiveData.length;
       
-      ArrayList LMPByDay=amesFrame.getAMESMarket().getLMPByDay();
+      ResultColumn LMPByDay=amesFrame.getAMESMarket().getLMPByDay();
       
-      ArrayList priceSensitiveByDay=amesFrame.getAMESMarket().getLSEAgenPriceSensitiveDemandByDay();
+      ResultColumn priceSensitiveByDay=amesFrame.getAMESMarket().getLSEAgenPriceSensitiveDemandByDay();
       
       chartTitle="LSE Price-Sensitive Demand Function and Cleared Point";
       String xLabel="Power (MWs)";
@@ -2345,8 +2338,8 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
           return;
       }
       
-      double [][] lsePS=(double [][])priceSensitiveByDay.get(iStartTime-2);
-      double [][] lmp=(double [][])LMPByDay.get(iStartTime-2);
+      double [][] lsePS=priceSensitiveByDay.get(iStartTime-2);
+      double [][] lmp=LMPByDay.get(iStartTime-2);
 
       int lseIndex=selectIndex[0];
       int lseAtBus=Integer.parseInt(lseHybridData[lseIndex][2].toString());
@@ -2430,7 +2423,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
       iStartTime=iStartTime-1;
       iEndTime=iEndTime-1;
       
-      ArrayList branchFlowByDay=amesFrame.getAMESMarket().getBranchFlowByDay();
+      ResultColumn branchFlowByDay=amesFrame.getAMESMarket().getBranchFlowByDay();
                  
       int[] hasSolutions;
       
@@ -2458,9 +2451,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                   XYSeries series = new XYSeries((String)branchData[j][0]);
                   
                   for(int iDay=0; iDay<iDayNumber; iDay++) {
-                     branchFlow=(double [][])branchFlowByDay.get(iDay);
-                     
-                     series.add(iDay+2, (double)(Math.round(branchFlow[iDayHour][j]*1000))/1000.0);
+                     series.add(iDay+2, (double)(Math.round(branchFlowByDay.get(iDay, iDayHour, j)*1000))/1000.0);
                     
                     
                 }
@@ -2484,9 +2475,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                   XYSeries series = new XYSeries((String)branchData[j][0]);
                  
                   for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                     branchFlow=(double [][])branchFlowByDay.get(iDay);
-                     
-                     series.add(iDay+2, (double)(Math.round(branchFlow[iDayHour][j]*1000))/1000.0);
+                     series.add(iDay+2, (double)(Math.round(branchFlowByDay.get(iDay, iDayHour, j)*1000))/1000.0);
                     
                     
                   }
@@ -2512,7 +2501,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                   XYSeries series = new XYSeries((String)branchData[j][0]);
                 
                   for(int iDay=0; iDay<iDayNumber; iDay++) {
-                     branchFlow=(double [][])branchFlowByDay.get(iDay);
+                     branchFlow=branchFlowByDay.get(iDay);
                      
                      for(int i=0; i<24; i++) {
                          series.add(iDay+1+i/24.0, (double)(Math.round(branchFlow[i][j]*1000))/1000.0);
@@ -2541,7 +2530,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                   XYSeries series = new XYSeries((String)branchData[j][0]);
                  
                   for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                     branchFlow=(double [][])branchFlowByDay.get(iDay);
+                     branchFlow=branchFlowByDay.get(iDay);
                      
                      for(int i=0; i<24; i++) {
                         series.add(iDay+1+i/24.0, (double)(Math.round(branchFlow[i][j]*1000))/1000.0);
@@ -2579,9 +2568,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                       subtitles+=branchData[selectIndex[j]-1][0]+" Thermal Limit: "+branchData[selectIndex[j]-1][3].toString()+"\n";                 
 
                       for(int iDay=0; iDay<iDayNumber; iDay++) {
-                            branchFlow=(double [][])branchFlowByDay.get(iDay);
-
-                            series.add(iDay+2, (double)(Math.round(branchFlow[iDayHour][selectIndex[j]-1]*1000))/1000.0);
+                            series.add(iDay+2, (double)(Math.round(branchFlowByDay.get(iDay, iDayHour, selectIndex[j]-1)*1000))/1000.0);
                              
                             
                       }
@@ -2607,9 +2594,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                       subtitles+=branchData[selectIndex[j]-1][0]+" Thermal Limit: "+branchData[selectIndex[j]-1][3].toString()+"\n";                 
 
                       for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                            branchFlow=(double [][])branchFlowByDay.get(iDay);
-
-                            series.add(iDay+2, (double)(Math.round(branchFlow[iDayHour][selectIndex[j]-1]*1000))/1000.0);
+                            series.add(iDay+2, (double)(Math.round(branchFlowByDay.get(iDay, iDayHour, selectIndex[j]-1)*1000))/1000.0);
                             
                       }
 
@@ -2635,7 +2620,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                       subtitles+=branchData[selectIndex[j]-1][0]+" Thermal Limit: "+branchData[selectIndex[j]-1][3].toString()+"\n";                 
 
                       for(int iDay=0; iDay<iDayNumber; iDay++) {
-                          branchFlow=(double [][])branchFlowByDay.get(iDay);
+                          branchFlow=branchFlowByDay.get(iDay);
 
                          for(int i=0; i<24; i++) {
                             series.add(iDay+1+i/24.0, (double)(Math.round(branchFlow[i][selectIndex[j]-1]*1000))/1000.0);
@@ -2665,7 +2650,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                       subtitles+=branchData[selectIndex[j]-1][0]+" Thermal Limit: "+branchData[selectIndex[j]-1][3].toString()+"\n";                 
 
                       for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                          branchFlow=(double [][])branchFlowByDay.get(iDay);
+                          branchFlow=branchFlowByDay.get(iDay);
 
                          for(int i=0; i<24; i++) {
                             series.add(iDay+1+i/24.0, (double)(Math.round(branchFlow[i][selectIndex[j]-1]*1000))/1000.0);
@@ -2734,7 +2719,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
       iStartTime=iStartTime-1;
       iEndTime=iEndTime-1;
       
-      ArrayList LMPByDay=amesFrame.getAMESMarket().getLMPByDay();
+      ResultColumn LMPByDay=amesFrame.getAMESMarket().getLMPByDay();
                  
       int[] hasSolutions;
       
@@ -2760,9 +2745,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                  XYSeries series = new XYSeries(nodeName[j]);
                  
                   for(int iDay=0; iDay<iDayNumber; iDay++) {
-                        lmp=(double [][])LMPByDay.get(iDay);
-                     
-                        series.add(iDay+2, (double)(Math.round(lmp[iDayHour][j]*1000))/1000.0);
+                        series.add(iDay+2, (double)(Math.round(LMPByDay.get(iDay, iDayHour, j)*1000))/1000.0);
                         
                 }
 
@@ -2786,9 +2769,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                  XYSeries series = new XYSeries(nodeName[j]);
                  
                   for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                        lmp=(double [][])LMPByDay.get(iDay);
-                     
-                        series.add(iDay+2, (double)(Math.round(lmp[iDayHour][j]*1000))/1000.0);
+                        series.add(iDay+2, (double)(Math.round(LMPByDay.get(iDay, iDayHour, j)*1000))/1000.0);
                         
                 }
 
@@ -2813,7 +2794,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                  XYSeries series = new XYSeries(nodeName[j]);
                  
                   for(int iDay=0; iDay<iDayNumber; iDay++) {
-                    lmp=(double [][])LMPByDay.get(iDay);
+                    lmp=LMPByDay.get(iDay);
                      
                      for(int i=0; i<24; i++) {
                         series.add(iDay+1+i/24.0, (double)(Math.round(lmp[i][j]*1000))/1000.0);
@@ -2841,7 +2822,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                  XYSeries series = new XYSeries(nodeName[j]);
                  
                   for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                    lmp=(double [][])LMPByDay.get(iDay);
+                    lmp=LMPByDay.get(iDay);
                      
                      for(int i=0; i<24; i++) {
                         series.add(iDay+1+i/24.0, (double)(Math.round(lmp[i][j]*1000))/1000.0);
@@ -2874,9 +2855,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                        XYSeries series = new XYSeries(nodeName[selectIndex[j]-1]);
 
                       for(int iDay=0; iDay<iDayNumber; iDay++) {
-                          lmp=(double [][])LMPByDay.get(iDay);
-
-                          series.add(iDay+2, (double)(Math.round(lmp[iDayHour][selectIndex[j]-1]*1000))/1000.0);
+                          series.add(iDay+2, (double)(Math.round(LMPByDay.get(iDay, iDayHour, selectIndex[j]-1)*1000))/1000.0);
 
                       }
 
@@ -2901,9 +2880,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                        XYSeries series = new XYSeries(nodeName[selectIndex[j]-1]);
 
                       for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                          lmp=(double [][])LMPByDay.get(iDay);
-
-                          series.add(iDay+2, (double)(Math.round(lmp[iDayHour][selectIndex[j]-1]*1000))/1000.0);
+                          series.add(iDay+2, (double)(Math.round(LMPByDay.get(iDay, iDayHour, selectIndex[j]-1)*1000))/1000.0);
 
                       }
 
@@ -2929,7 +2906,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                        XYSeries series = new XYSeries(nodeName[selectIndex[j]-1]);
 
                       for(int iDay=0; iDay<iDayNumber; iDay++) {
-                          lmp=(double [][])LMPByDay.get(iDay);
+                          lmp=LMPByDay.get(iDay);
 
                          for(int i=0; i<24; i++) {
                             series.add(iDay+1+i/24.0, (double)(Math.round(lmp[i][selectIndex[j]-1]*1000))/1000.0);
@@ -2958,7 +2935,7 @@ public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iSta
                        XYSeries series = new XYSeries(nodeName[selectIndex[j]-1]);
 
                       for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                          lmp=(double [][])LMPByDay.get(iDay);
+                          lmp=LMPByDay.get(iDay);
 
                          for(int i=0; i<24; i++) {
                             series.add(iDay+1+i/24.0, (double)(Math.round(lmp[i][selectIndex[j]-1]*1000))/1000.0);
@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.lang.Math;
 
 import AMESGUIFrame.*;
+import amesmarket.ResultColumn;
 import java.awt.Component;
 
 
@@ -441,7 +442,7 @@ public TableView(AMESFrame frame) {
                  " GenCo Name", "  Hour",  "Profit ($/H)", "Net Earnings ($/H)", "Revenues ($/H)"};
       int [] iColumnWidth={90, 90, 120, 120, 120};
       
-      ArrayList genAgentProfitWithTrueCost=amesFrame.getAMESMarket().getGenAgentProfitAndNetGainWithTrueCost();
+      ResultColumn genAgentProfitWithTrueCost=amesFrame.getAMESMarket().getGenAgentProfitAndNetGainWithTrueCost();
       
       Object [][] genData=amesFrame.getGeneratorData( );
       int iGenNumber=genData.length;
@@ -451,7 +452,7 @@ public TableView(AMESFrame frame) {
       if((selectIndex.length<1)||(selectIndex[0]==0)) {
           displayData=new Object [iGenNumber*(24+1)][5];
 
-          double [][] genProfittWithTrueCost=(double [][])genAgentProfitWithTrueCost.get(0);
+          double [][] genProfittWithTrueCost=genAgentProfitWithTrueCost.get(0);
           for(int i=0; i<24+1; i++) {
               for(int j=0; j<iGenNumber; j++){
                   int iStartIndex=i*iGenNumber;
@@ -481,7 +482,7 @@ public TableView(AMESFrame frame) {
             
           displayData=new Object [iDataNumber*(24+1)][5];
 
-          double [][] genProfittWithTrueCost=(double [][])genAgentProfitWithTrueCost.get(0);
+          double [][] genProfittWithTrueCost=genAgentProfitWithTrueCost.get(0);
           for(int i=0; i<24+1; i++) {
               for(int j=0; j<iDataNumber; j++){
                   int iStartIndex=i*iDataNumber;
@@ -534,7 +535,7 @@ public TableView(AMESFrame frame) {
            };
       int [] iColumnWidth={90, 90, 90, 90, 90};
       
-      ArrayList genAgentCommitmentWithTrueCost=amesFrame.getAMESMarket().getGenAgentDispatchWithTrueCost();
+      ResultColumn genAgentCommitmentWithTrueCost=amesFrame.getAMESMarket().getGenAgentDispatchWithTrueCost();
       
       Object [][] genData=amesFrame.getGeneratorData( );
       int iGenNumber=genData.length;
@@ -544,7 +545,7 @@ public TableView(AMESFrame frame) {
       if((selectIndex.length<1)||(selectIndex[0]==0)) {
           displayData=new Object [iGenNumber*24][5];
 
-          double [][] genCommitmentWithTrueCost=(double [][])genAgentCommitmentWithTrueCost.get(0);
+          double [][] genCommitmentWithTrueCost=genAgentCommitmentWithTrueCost.get(0);
           for(int i=0; i<24; i++) {
               for(int j=0; j<iGenNumber; j++){
                   int iStartIndex=i*iGenNumber;
@@ -563,7 +564,7 @@ public TableView(AMESFrame frame) {
             
           displayData=new Object [iDataNumber*24][5];
 
-          double [][] genCommitmentWithTrueCost=(double [][])genAgentCommitmentWithTrueCost.get(0);
+          double [][] genCommitmentWithTrueCost=genAgentCommitmentWithTrueCost.get(0);
           for(int i=0; i<24; i++) {
               for(int j=0; j<iDataNumber; j++){
                   int iStartIndex=i*iDataNumber;
@@ -613,7 +614,7 @@ public TableView(AMESFrame frame) {
            };
       int [] iColumnWidth={90, 90, 90, 90, 90, 200};
       
-      ArrayList LSEAgentPriceSensitiveDemandWithTrueCost=amesFrame.getAMESMarket().getLSEAgentPriceSensitiveDemandWithTrueCost();
+      ResultColumn LSEAgentPriceSensitiveDemandWithTrueCost=amesFrame.getAMESMarket().getLSEAgentPriceSensitiveDemandWithTrueCost();
       Object [][][] lsePriceSensitiveData=amesFrame.getLSEPriceSensitiveDemandData();
       Object [][] lseHybridData=amesFrame.getLSEHybridDemandData();
       int iLSENumber=lseHybridData.length;
@@ -623,7 +624,7 @@ public TableView(AMESFrame frame) {
       if((selectIndex.length<1)||(selectIndex[0]==0)) {
           displayData=new Object [iLSENumber*24][6];
 
-          double [][] priceSensitive=(double [][])LSEAgentPriceSensitiveDemandWithTrueCost.get(0);
+          double [][] priceSensitive=LSEAgentPriceSensitiveDemandWithTrueCost.get(0);
           
           for(int i=0; i<24; i++) {
               int iStartIndex=i*iLSENumber;
@@ -651,7 +652,7 @@ public TableView(AMESFrame frame) {
             
           displayData=new Object [iDataNumber*24][6];
 
-          double [][] priceSensitive=(double [][])LSEAgentPriceSensitiveDemandWithTrueCost.get(0);
+          double [][] priceSensitive=LSEAgentPriceSensitiveDemandWithTrueCost.get(0);
           for(int i=0; i<24; i++) {
               for(int j=0; j<iDataNumber; j++){
                   int psLoadIndex=0;
@@ -708,7 +709,7 @@ public TableView(AMESFrame frame) {
            };
       int [] iColumnWidth={90, 150, 150};
       
-      ArrayList LSEAgentSurplusWithTrueCost=amesFrame.getAMESMarket().getLSEAgentSurplusWithTrueCost();
+      ResultColumn LSEAgentSurplusWithTrueCost=amesFrame.getAMESMarket().getLSEAgentSurplusWithTrueCost();
       Object [][] lseHybridData=amesFrame.getLSEHybridDemandData();
       int iLSENumber=lseHybridData.length;
       
@@ -717,7 +718,7 @@ public TableView(AMESFrame frame) {
       if((selectIndex.length<1)||(selectIndex[0]==0)) {
           displayData=new Object [iLSENumber*(24+1)][3];
 
-          double [][] surplus=(double [][])LSEAgentSurplusWithTrueCost.get(0);
+          double [][] surplus=LSEAgentSurplusWithTrueCost.get(0);
           
           for(int i=0; i<24+1; i++) {
               
@@ -744,7 +745,7 @@ public TableView(AMESFrame frame) {
             
           displayData=new Object [iDataNumber*(24+1)][3];
 
-          double [][] surplus=(double [][])LSEAgentSurplusWithTrueCost.get(0);
+          double [][] surplus=LSEAgentSurplusWithTrueCost.get(0);
           for(int i=0; i<24+1; i++) {
               for(int j=0; j<iDataNumber; j++){
                   int iStartIndex=i*iDataNumber;
@@ -791,7 +792,7 @@ public TableView(AMESFrame frame) {
            };
        int [] iColumnWidth={90, 90, 90};
      
-      ArrayList LMPWithTrueCost=amesFrame.getAMESMarket().getLMPWithTrueCost();
+      ResultColumn LMPWithTrueCost=amesFrame.getAMESMarket().getLMPWithTrueCost();
       
       String [] nodeName=amesFrame.getNodeNameData( );
       int iNodeNumber=nodeName.length;
@@ -801,7 +802,7 @@ public TableView(AMESFrame frame) {
       if((selectIndex.length<1)||(selectIndex[0]==0)) {
           displayData=new Object [iNodeNumber*24][3];
 
-          double [][] lmp=(double [][])LMPWithTrueCost.get(0);
+          double [][] lmp=LMPWithTrueCost.get(0);
           for(int i=0; i<24; i++) {
               for(int j=0; j<iNodeNumber; j++){
                   int iStartIndex=i*iNodeNumber;
@@ -818,7 +819,7 @@ public TableView(AMESFrame frame) {
             
           displayData=new Object [iDataNumber*24][3];
 
-          double [][] lmp=(double [][])LMPWithTrueCost.get(0);
+          double [][] lmp=LMPWithTrueCost.get(0);
           for(int i=0; i<24; i++) {
               for(int j=0; j<iDataNumber; j++){
                   int iStartIndex=i*iDataNumber;
@@ -856,7 +857,7 @@ public TableView(AMESFrame frame) {
                  "GenCo Name", "Day Index", "aR ($/MWh)", "bR ($/MW2h)", "CapRL (MW)", "CapRU (MW)",
            };
       
-      ArrayList genAgentSupplyOfferByDay=amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
+      ResultColumn genAgentSupplyOfferByDay=amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
       
       Object [][] genData=amesFrame.getGeneratorData( );
       int iGenNumber=genData.length;
@@ -871,7 +872,7 @@ public TableView(AMESFrame frame) {
               double [][] genOffer;
               
               for(int iDay=0; iDay<iDayNumber; iDay++) {
-                 genOffer=(double [][])genAgentSupplyOfferByDay.get(iDay);
+                 genOffer=genAgentSupplyOfferByDay.get(iDay);
                  int iStartIndex=iDay*iGenNumber;
                  
                   for(int i=0; i<iGenNumber; i++) {
@@ -894,7 +895,7 @@ public TableView(AMESFrame frame) {
               double [][] genOffer;
               
               for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                 genOffer=(double [][])genAgentSupplyOfferByDay.get(iDay);
+                 genOffer=genAgentSupplyOfferByDay.get(iDay);
                  int iStartIndex=(iDay-(iStartTime-1))*iGenNumber;
                  
                   for(int i=0; i<iGenNumber; i++) {
@@ -917,7 +918,7 @@ public TableView(AMESFrame frame) {
               double [][] genOffer;
               
               for(int iDay=0; iDay<iDayNumber; iDay++) {
-                 genOffer=(double [][])genAgentSupplyOfferByDay.get(iDay);
+                 genOffer=genAgentSupplyOfferByDay.get(iDay);
                  int iStartIndex=iDay*iGenNumber;
                  
                   for(int i=0; i<iGenNumber; i++) {
@@ -940,7 +941,7 @@ public TableView(AMESFrame frame) {
               double [][] genOffer;
               
               for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                 genOffer=(double [][])genAgentSupplyOfferByDay.get(iDay);
+                 genOffer=genAgentSupplyOfferByDay.get(iDay);
                  int iStartIndex=(iDay-(iStartTime-1))*iGenNumber;
                  
                   for(int i=0; i<iGenNumber; i++) {
@@ -968,7 +969,7 @@ public TableView(AMESFrame frame) {
                   double [][] genOffer;
 
                   for(int iDay=0; iDay<iDayNumber; iDay++) {
-                     genOffer=(double [][])genAgentSupplyOfferByDay.get(iDay);
+                     genOffer=genAgentSupplyOfferByDay.get(iDay);
                      int iStartIndex=iDay*iDataNumber;
 
                       for(int i=0; i<iDataNumber; i++) {
@@ -991,7 +992,7 @@ public TableView(AMESFrame frame) {
                   double [][] genOffer;
 
                   for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                     genOffer=(double [][])genAgentSupplyOfferByDay.get(iDay);
+                     genOffer=genAgentSupplyOfferByDay.get(iDay);
                      int iStartIndex=(iDay-(iStartTime-1))*iDataNumber;
 
                       for(int i=0; i<iDataNumber; i++) {
@@ -1060,8 +1061,8 @@ public TableView(AMESFrame frame) {
       iStartTime=iStartTime-1;
       iEndTime=iEndTime-1;
       
-      ArrayList genAgentCommitmentByDay=amesFrame.getAMESMarket().getGenAgentDispatchByDay();
-      ArrayList genAgentSupplyOfferByDay=amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
+      ResultColumn genAgentCommitmentByDay=amesFrame.getAMESMarket().getGenAgentDispatchByDay();
+      ResultColumn genAgentSupplyOfferByDay=amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
       
       Object [][] genData=amesFrame.getGeneratorData( );
       int iGenNumber=genData.length;
@@ -1078,8 +1079,8 @@ public TableView(AMESFrame frame) {
               
               for(int iDay=0; iDay<iDayNumber; iDay++) {
                  
-                 genCommitment=(double [][])genAgentCommitmentByDay.get(iDay);
-                 genOffer=(double [][])genAgentSupplyOfferByDay.get(iDay);
+                 genCommitment=genAgentCommitmentByDay.get(iDay);
+                 genOffer=genAgentSupplyOfferByDay.get(iDay);
                  int iStartIndex=iDay*iGenNumber;
                  
                   for(int i=0; i<iGenNumber; i++) {
@@ -1105,8 +1106,8 @@ public TableView(AMESFrame frame) {
               double [][] genCommitment;
               
               for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                 genCommitment=(double [][])genAgentCommitmentByDay.get(iDay);
-                 genOffer=(double [][])genAgentSupplyOfferByDay.get(iDay);
+                 genCommitment=genAgentCommitmentByDay.get(iDay);
+                 genOffer=genAgentSupplyOfferByDay.get(iDay);
                  int iStartIndex=(iDay-(iStartTime-1))*iGenNumber;
                  
                   for(int i=0; i<iGenNumber; i++) {
@@ -1131,8 +1132,8 @@ public TableView(AMESFrame frame) {
               double [][] genCommitment;
               
               for(int iDay=0; iDay<iDayNumber; iDay++) {
-                 genCommitment=(double [][])genAgentCommitmentByDay.get(iDay);
-                 genOffer=(double [][])genAgentSupplyOfferByDay.get(iDay);
+                 genCommitment=genAgentCommitmentByDay.get(iDay);
+                 genOffer=genAgentSupplyOfferByDay.get(iDay);
                  int iDayStartIndex=iDay*iGenNumber*24;
                  
                   for(int i=0; i<24; i++) {
@@ -1161,8 +1162,8 @@ public TableView(AMESFrame frame) {
               double [][] genCommitment;
               
               for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                 genCommitment=(double [][])genAgentCommitmentByDay.get(iDay);
-                 genOffer=(double [][])genAgentSupplyOfferByDay.get(iDay);
+                 genCommitment=genAgentCommitmentByDay.get(iDay);
+                 genOffer=genAgentSupplyOfferByDay.get(iDay);
                  int iDayStartIndex=(iDay-(iStartTime-1))*iGenNumber*24;
                  
                   for(int i=0; i<24; i++) {
@@ -1196,8 +1197,8 @@ public TableView(AMESFrame frame) {
                   double [][] genCommitment;
 
                   for(int iDay=0; iDay<iDayNumber; iDay++) {
-                     genCommitment=(double [][])genAgentCommitmentByDay.get(iDay);
-                     genOffer=(double [][])genAgentSupplyOfferByDay.get(iDay);
+                     genCommitment=genAgentCommitmentByDay.get(iDay);
+                     genOffer=genAgentSupplyOfferByDay.get(iDay);
                      int iStartIndex=iDay*iDataNumber;
 
                       for(int i=0; i<iDataNumber; i++) {
@@ -1222,8 +1223,8 @@ public TableView(AMESFrame frame) {
                   double [][] genCommitment;
 
                   for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                     genCommitment=(double [][])genAgentCommitmentByDay.get(iDay);
-                     genOffer=(double [][])genAgentSupplyOfferByDay.get(iDay);
+                     genCommitment=genAgentCommitmentByDay.get(iDay);
+                     genOffer=genAgentSupplyOfferByDay.get(iDay);
                      int iStartIndex=(iDay-(iStartTime-1))*iDataNumber;
 
                       for(int i=0; i<iDataNumber; i++) {
@@ -1248,8 +1249,8 @@ public TableView(AMESFrame frame) {
                   double [][] genCommitment;
 
                   for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                     genCommitment=(double [][])genAgentCommitmentByDay.get(iDay);
-                     genOffer=(double [][])genAgentSupplyOfferByDay.get(iDay);
+                     genCommitment=genAgentCommitmentByDay.get(iDay);
+                     genOffer=genAgentSupplyOfferByDay.get(iDay);
                      int iDayStartIndex=(iDay-(iStartTime-1))*iDataNumber*24;
 
                       for(int i=0; i<24; i++) {
@@ -1279,8 +1280,8 @@ public TableView(AMESFrame frame) {
                   double [][] genCommitment;
 
                   for(int iDay=0; iDay<iDayNumber; iDay++) {
-                     genCommitment=(double [][])genAgentCommitmentByDay.get(iDay);
-                     genOffer=(double [][])genAgentSupplyOfferByDay.get(iDay);
+                     genCommitment=genAgentCommitmentByDay.get(iDay);
+                     genOffer=genAgentSupplyOfferByDay.get(iDay);
                      int iDayStartIndex=iDay*iDataNumber*24;
 
                       for(int i=0; i<24; i++) {
@@ -1387,7 +1388,7 @@ public TableView(AMESFrame frame) {
       
       int [] iColumnWidth={90, 90, 90, 120, 120};
 
-      ArrayList genAgentProfitAndNetGainByDay=amesFrame.getAMESMarket().getGenAgentProfitAndNetGainByDay();
+      ResultColumn genAgentProfitAndNetGainByDay=amesFrame.getAMESMarket().getGenAgentProfitAndNetGainByDay();
       
       Object [][] genData=amesFrame.getGeneratorData( );
       int iGenNumber=genData.length;
@@ -1402,7 +1403,7 @@ public TableView(AMESFrame frame) {
               double [][] genProfit;
               
               for(int iDay=0; iDay<iDayNumber; iDay++) {
-                 genProfit=(double [][])genAgentProfitAndNetGainByDay.get(iDay);
+                 genProfit=genAgentProfitAndNetGainByDay.get(iDay);
                  int iStartIndex=iDay*iGenNumber;
                  
                   for(int i=0; i<iGenNumber; i++) {
@@ -1424,7 +1425,7 @@ public TableView(AMESFrame frame) {
               double [][] genProfit;
               
               for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                 genProfit=(double [][])genAgentProfitAndNetGainByDay.get(iDay);
+                 genProfit=genAgentProfitAndNetGainByDay.get(iDay);
                  int iStartIndex=(iDay-(iStartTime-1))*iGenNumber;
                  
                   for(int i=0; i<iGenNumber; i++) {
@@ -1451,7 +1452,7 @@ public TableView(AMESFrame frame) {
                   double [][] genProfit;
 
                   for(int iDay=0; iDay<iDayNumber; iDay++) {
-                     genProfit=(double [][])genAgentProfitAndNetGainByDay.get(iDay);
+                     genProfit=genAgentProfitAndNetGainByDay.get(iDay);
                      int iStartIndex=iDay*iDataNumber;
 
                       for(int i=0; i<iDataNumber; i++) {
@@ -1473,7 +1474,7 @@ public TableView(AMESFrame frame) {
                   double [][] genProfit;
 
                   for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                     genProfit=(double [][])genAgentProfitAndNetGainByDay.get(iDay);
+                     genProfit=genAgentProfitAndNetGainByDay.get(iDay);
                      int iStartIndex=(iDay-(iStartTime-1))*iDataNumber;
 
                       for(int i=0; i<iDataNumber; i++) {
@@ -1514,7 +1515,7 @@ public TableView(AMESFrame frame) {
       
       int [] iColumnWidth={70, 90, 120};
 
-      ArrayList lseAgentSurplusByDay=amesFrame.getAMESMarket().getLSEAgentSurplusByDay();
+      ResultColumn lseAgentSurplusByDay=amesFrame.getAMESMarket().getLSEAgentSurplusByDay();
       
       Object [][] lseHybridData=amesFrame.getLSEHybridDemandData();
       int iLSENumber=lseHybridData.length;
@@ -1529,7 +1530,7 @@ public TableView(AMESFrame frame) {
               double [][] lseSurplus;
               
               for(int iDay=0; iDay<iDayNumber; iDay++) {
-                 lseSurplus=(double [][])lseAgentSurplusByDay.get(iDay);
+                 lseSurplus=lseAgentSurplusByDay.get(iDay);
                  int iStartIndex=iDay*iLSENumber;
                  
                   for(int i=0; i<iLSENumber; i++) {
@@ -1549,7 +1550,7 @@ public TableView(AMESFrame frame) {
               double [][] lseSurplus;
               
               for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                 lseSurplus=(double [][])lseAgentSurplusByDay.get(iDay);
+                 lseSurplus=lseAgentSurplusByDay.get(iDay);
                  int iStartIndex=(iDay-(iStartTime-1))*iLSENumber;
                  
                   for(int i=0; i<iLSENumber; i++) {
@@ -1574,7 +1575,7 @@ public TableView(AMESFrame frame) {
                   double [][] lseSurplus;
 
                   for(int iDay=0; iDay<iDayNumber; iDay++) {
-                     lseSurplus=(double [][])lseAgentSurplusByDay.get(iDay);
+                     lseSurplus=lseAgentSurplusByDay.get(iDay);
                      int iStartIndex=iDay*iDataNumber;
 
                       for(int i=0; i<iDataNumber; i++) {
@@ -1594,7 +1595,7 @@ public TableView(AMESFrame frame) {
                   double [][] lseSurplus;
 
                   for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                     lseSurplus=(double [][])lseAgentSurplusByDay.get(iDay);
+                     lseSurplus=lseAgentSurplusByDay.get(iDay);
                      int iStartIndex=(iDay-(iStartTime-1))*iDataNumber;
 
                       for(int i=0; i<iDataNumber; i++) {
@@ -1640,7 +1641,7 @@ public TableView(AMESFrame frame) {
       iStartTime=iStartTime-1;
       iEndTime=iEndTime-1;
       
-      ArrayList priceSensitiveByDay=amesFrame.getAMESMarket().getLSEAgenPriceSensitiveDemandByDay();
+      ResultColumn priceSensitiveByDay=amesFrame.getAMESMarket().getLSEAgenPriceSensitiveDemandByDay();
                  
       int[] hasSolutions;
       
@@ -1654,7 +1655,7 @@ public TableView(AMESFrame frame) {
               double [][] priceSensitive;
               
               for(int iDay=0; iDay<iDayNumber; iDay++) {
-                 priceSensitive=(double [][])priceSensitiveByDay.get(iDay);
+                 priceSensitive=priceSensitiveByDay.get(iDay);
                  int iStartIndex=iDay*iLSENumber;
                  int psLoadIndex=0;
                  
@@ -1686,7 +1687,7 @@ public TableView(AMESFrame frame) {
               double [][] priceSensitive;
               
               for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                 priceSensitive=(double [][])priceSensitiveByDay.get(iDay);
+                 priceSensitive=priceSensitiveByDay.get(iDay);
                  int iStartIndex=(iDay-(iStartTime-1))*iLSENumber;
                  int psLoadIndex=0;
                  
@@ -1719,7 +1720,7 @@ public TableView(AMESFrame frame) {
               double [][] priceSensitive;
               
               for(int iDay=0; iDay<iDayNumber; iDay++) {
-                 priceSensitive=(double [][])priceSensitiveByDay.get(iDay);
+                 priceSensitive=priceSensitiveByDay.get(iDay);
                  int iDayStartIndex=iDay*iLSENumber*24;
                  
                   for(int i=0; i<24; i++) {
@@ -1755,7 +1756,7 @@ public TableView(AMESFrame frame) {
               double [][] priceSensitive;
               
               for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                 priceSensitive=(double [][])priceSensitiveByDay.get(iDay);
+                 priceSensitive=priceSensitiveByDay.get(iDay);
                  int iDayStartIndex=(iDay-(iStartTime-1))*iLSENumber*24;
                  
                   for(int i=0; i<24; i++) {
@@ -1795,7 +1796,7 @@ public TableView(AMESFrame frame) {
                   double [][] priceSensitive;
 
                   for(int iDay=0; iDay<iDayNumber; iDay++) {
-                     priceSensitive=(double [][])priceSensitiveByDay.get(iDay);
+                     priceSensitive=priceSensitiveByDay.get(iDay);
                      int iStartIndex=iDay*iDataNumber;
 
                       for(int i=0; i<iDataNumber; i++) {
@@ -1832,7 +1833,7 @@ public TableView(AMESFrame frame) {
                   double [][] priceSensitive;
 
                   for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                     priceSensitive=(double [][])priceSensitiveByDay.get(iDay);
+                     priceSensitive=priceSensitiveByDay.get(iDay);
                      int iStartIndex=(iDay-(iStartTime-1))*iDataNumber;
 
                       for(int i=0; i<iDataNumber; i++) {
@@ -1868,7 +1869,7 @@ public TableView(AMESFrame frame) {
                   double [][] priceSensitive;
 
                   for(int iDay=0; iDay<iDayNumber; iDay++) {
-                     priceSensitive=(double [][])priceSensitiveByDay.get(iDay);
+                     priceSensitive=priceSensitiveByDay.get(iDay);
                      int iDayStartIndex=iDay*iDataNumber*24;
 
                       for(int i=0; i<24; i++) {
@@ -1909,7 +1910,7 @@ public TableView(AMESFrame frame) {
                   double [][] priceSensitive;
 
                   for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                     priceSensitive=(double [][])priceSensitiveByDay.get(iDay);
+                     priceSensitive=priceSensitiveByDay.get(iDay);
                      int iDayStartIndex=(iDay-(iStartTime-1))*iDataNumber*24;
 
                       for(int i=0; i<24; i++) {
@@ -1975,7 +1976,7 @@ public TableView(AMESFrame frame) {
       iStartTime=iStartTime-1;
       iEndTime=iEndTime-1;
       
-      ArrayList branchFlowByDay=amesFrame.getAMESMarket().getBranchFlowByDay();
+      ResultColumn branchFlowByDay=amesFrame.getAMESMarket().getBranchFlowByDay();
                  
       int[] hasSolutions;
       
@@ -1992,7 +1993,7 @@ public TableView(AMESFrame frame) {
               double [][] branchFlow;
               
               for(int iDay=0; iDay<iDayNumber; iDay++) {
-                 branchFlow=(double [][])branchFlowByDay.get(iDay);
+                 branchFlow=branchFlowByDay.get(iDay);
                  int iStartIndex=iDay*iBranchNumber;
                  
                   for(int i=0; i<iBranchNumber; i++) {
@@ -2016,7 +2017,7 @@ public TableView(AMESFrame frame) {
               double [][] branchFlow;
               
               for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                 branchFlow=(double [][])branchFlowByDay.get(iDay);
+                 branchFlow=branchFlowByDay.get(iDay);
                  int iStartIndex=(iDay-(iStartTime-1))*iBranchNumber;
                  
                   for(int i=0; i<iBranchNumber; i++) {
@@ -2040,7 +2041,7 @@ public TableView(AMESFrame frame) {
               double [][] branchFlow;
               
               for(int iDay=0; iDay<iDayNumber; iDay++) {
-                 branchFlow=(double [][])branchFlowByDay.get(iDay);
+                 branchFlow=branchFlowByDay.get(iDay);
                  int iDayStartIndex=iDay*iBranchNumber*24;
                  
                   for(int i=0; i<24; i++) {
@@ -2068,7 +2069,7 @@ public TableView(AMESFrame frame) {
               double [][] branchFlow;
               
               for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                 branchFlow=(double [][])branchFlowByDay.get(iDay);
+                 branchFlow=branchFlowByDay.get(iDay);
                  int iDayStartIndex=(iDay-(iStartTime-1))*iBranchNumber*24;
                  
                   for(int i=0; i<24; i++) {
@@ -2101,7 +2102,7 @@ public TableView(AMESFrame frame) {
                   double [][] branchFlow;
 
                   for(int iDay=0; iDay<iDayNumber; iDay++) {
-                     branchFlow=(double [][])branchFlowByDay.get(iDay);
+                     branchFlow=branchFlowByDay.get(iDay);
                      int iStartIndex=iDay*iDataNumber;
 
                       for(int i=0; i<iDataNumber; i++) {
@@ -2125,7 +2126,7 @@ public TableView(AMESFrame frame) {
                   double [][] branchFlow;
 
                   for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                     branchFlow=(double [][])branchFlowByDay.get(iDay);
+                     branchFlow=branchFlowByDay.get(iDay);
                      int iStartIndex=(iDay-(iStartTime-1))*iDataNumber;
 
                       for(int i=0; i<iDataNumber; i++) {
@@ -2149,7 +2150,7 @@ public TableView(AMESFrame frame) {
                   double [][] branchFlow;
 
                   for(int iDay=0; iDay<iDayNumber; iDay++) {
-                     branchFlow=(double [][])branchFlowByDay.get(iDay);
+                     branchFlow=branchFlowByDay.get(iDay);
                      int iDayStartIndex=iDay*iDataNumber*24;
 
                       for(int i=0; i<24; i++) {
@@ -2177,7 +2178,7 @@ public TableView(AMESFrame frame) {
                   double [][] branchFlow;
 
                   for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                     branchFlow=(double [][])branchFlowByDay.get(iDay);
+                     branchFlow=branchFlowByDay.get(iDay);
                      int iDayStartIndex=(iDay-(iStartTime-1))*iDataNumber*24;
 
                       for(int i=0; i<24; i++) {
@@ -2225,7 +2226,7 @@ public TableView(AMESFrame frame) {
       iStartTime=iStartTime-1;
       iEndTime=iEndTime-1;
       
-      ArrayList LMPByDay=amesFrame.getAMESMarket().getLMPByDay();
+      ResultColumn LMPByDay=amesFrame.getAMESMarket().getLMPByDay();
                  
       int[] hasSolutions;
       
@@ -2242,7 +2243,7 @@ public TableView(AMESFrame frame) {
               double [][] lmp;
               
               for(int iDay=0; iDay<iDayNumber; iDay++) {
-                 lmp=(double [][])LMPByDay.get(iDay);
+                 lmp=LMPByDay.get(iDay);
                  int iStartIndex=iDay*iNodeNumber;
                  
                   for(int i=0; i<iNodeNumber; i++) {
@@ -2264,7 +2265,7 @@ public TableView(AMESFrame frame) {
               double [][] lmp;
               
               for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                 lmp=(double [][])LMPByDay.get(iDay);
+                 lmp=LMPByDay.get(iDay);
                  int iStartIndex=(iDay-(iStartTime-1))*iNodeNumber;
                  
                   for(int i=0; i<iNodeNumber; i++) {
@@ -2286,7 +2287,7 @@ public TableView(AMESFrame frame) {
               double [][] lmp;
               
               for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                 lmp=(double [][])LMPByDay.get(iDay);
+                 lmp=LMPByDay.get(iDay);
                  int iDayStartIndex=(iDay-(iStartTime-1))*iNodeNumber*24;
                  
                   for(int i=0; i<24; i++) {
@@ -2312,7 +2313,7 @@ public TableView(AMESFrame frame) {
               double [][] lmp;
               
               for(int iDay=0; iDay<iDayNumber; iDay++) {
-                 lmp=(double [][])LMPByDay.get(iDay);
+                 lmp=LMPByDay.get(iDay);
                  int iDayStartIndex=iDay*iNodeNumber*24;
                  
                   for(int i=0; i<24; i++) {
@@ -2343,7 +2344,7 @@ public TableView(AMESFrame frame) {
                   double [][] lmp;
 
                   for(int iDay=0; iDay<iDayNumber; iDay++) {
-                     lmp=(double [][])LMPByDay.get(iDay);
+                     lmp=LMPByDay.get(iDay);
                      int iStartIndex=iDay*iDataNumber;
 
                       for(int i=0; i<iDataNumber; i++) {
@@ -2365,7 +2366,7 @@ public TableView(AMESFrame frame) {
                   double [][] lmp;
 
                   for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                     lmp=(double [][])LMPByDay.get(iDay);
+                     lmp=LMPByDay.get(iDay);
                      int iStartIndex=(iDay-(iStartTime-1))*iDataNumber;
 
                       for(int i=0; i<iDataNumber; i++) {
@@ -2387,7 +2388,7 @@ public TableView(AMESFrame frame) {
                   double [][] lmp;
 
                   for(int iDay=0; iDay<iDayNumber; iDay++) {
-                     lmp=(double [][])LMPByDay.get(iDay);
+                     lmp=LMPByDay.get(iDay);
                      int iDayStartIndex=iDay*iDataNumber*24;
 
                       for(int i=0; i<24; i++) {
@@ -2413,7 +2414,7 @@ public TableView(AMESFrame frame) {
                   double [][] lmp;
 
                   for(int iDay=iStartTime-1; iDay<iEndTime; iDay++) {
-                      lmp=(double [][])LMPByDay.get(iDay);
+                      lmp=LMPByDay.get(iDay);
                       int iDayStartIndex=(iDay-(iStartTime-1))*iDataNumber*24;
 
                       for(int i=0; i<24; i++) {
@@ -13,8 +13,9 @@ import uchicago.src.sim.engine.Schedule;
 import uchicago.src.sim.engine.SimInit;
 import uchicago.src.sim.engine.BasicAction;
 import uchicago.src.sim.gui.DisplaySurface;
-import uchicago.src.sim.util.Random;
 import uchicago.src.sim.engine.Controller;
+import uchicago.src.sim.engine.BaseController;
+import uchicago.src.sim.engine.ThinController;
 
 // JReLM
 import edu.iastate.jrelm.rl.rotherev.variant.VREParameters;
@@ -22,10 +23,13 @@ import edu.iastate.jrelm.core.BasicLearnerManager;
 import edu.iastate.jrelm.gui.BasicSettingsEditor;
 
 // Java
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.*;
-import fncs.JNIfncs;
 import java.text.DecimalFormat;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class AMESMarket extends SimModelImpl {
 
@@ -104,6 +108,7 @@ public class AMESMarket extends SimModelImpl {
     public int interval;
     private int hour;
     private int day;
+    private MarketCalendar calendar;
     private boolean isConverged; // used to determine if the model needs to be stopped
     private boolean isGenActionProbabilityConverged; // used to determine if the model needs to be stopped
     private boolean isGenLearningResultConverged; // another stopping rule, check is gen's learning results are stable
@@ -156,35 +161,50 @@ public class AMESMarket extends SimModelImpl {
     private double[] recencyOfGen;
     private int[] learningRandomSeedsOfGen;
 
-    private ArrayList genAgentSupplyOfferByDay;
-    private ArrayList lseAgentPriceSensitiveDemandByDay;
-    private ArrayList lseAgentSurplusByDay;
-    private ArrayList lseAgentSurplusWithTrueCost;
-    private ArrayList lseAgentPriceSensitiveDemandWithTrueCost;
-    private ArrayList genAgentProfitAndNetGainByDay;
-    private ArrayList genAgentActionPropensityAndProbilityByDay;
-    private ArrayList genAgentProfitAndNetGainWithTrueCost;
-    private ArrayList genAgentDispatchWithTrueCost;
-    private ArrayList genAgentDispatchByDay, genAgentRealTimeDispatchByInterval;
-
-    private ArrayList branchFlowByDay;
-    private ArrayList LMPByDay, realTimeLMPByInterval, realTimeBranchFlowByDay;
-    private ArrayList LMPWithTrueCost;
-    private ArrayList<double[][]> productionCostsByDay, startupCostsByDay, shutdownCostsByDay;
-
-    private ArrayList lastDayGenActions;
+    private final ResultStore resultStore;
+    private StreamingOutputWriter outputWriter;
+    private RunProfile runProfile = new RunProfile();
+    private File runProfileFile = RunProfile.reportFile();
+    private ResultColumn genAgentSupplyOfferByDay;
+    private ResultColumn lseAgentPriceSensitiveDemandByDay;
+    private ResultColumn lseAgentSurplusByDay;
+    private ResultColumn lseAgentSurplusWithTrueCost;
+    private ResultColumn lseAgentPriceSensitiveDemandWithTrueCost;
+    private ResultColumn genAgentProfitAndNetGainByDay;
+    private ResultColumn genAgentActionPropensityAndProbilityByDay;
+    private ResultColumn genAgentProfitAndNetGainWithTrueCost;
+    private ResultColumn genAgentDispatchWithTrueCost;
+    private ResultColumn genAgentDispatchByDay, genAgentRealTimeDispatchByInterval;
+
+    private ResultColumn branchFlowByDay;
+    private ResultColumn LMPByDay, realTimeLMPByInterval, realTimeBranchFlowByDay;
+    private ResultColumn LMPWithTrueCost;
+    private ResultColumn productionCostsByDay, startupCostsByDay, shutdownCostsByDay;
+
+    private ResultColumn lastDayGenActions;
 
     private CaseFileData testcaseConfig;
 
-    private static Controller ModelController = null;
+    /**
+     * Default directory for the files exchanged with the optimizers.
+     */
+    public static final String DEFAULT_DATA_DIR = "DataFiles";
+
+    private BaseController ModelController = null;
+    private boolean headless = false;
     private boolean bCalculationEnd = false;
 
     private String SolutionStatus = "optimal";
 
     private final boolean deleteIntermediateFiles;
+    private RunContext runContext = new RunContext(new File(DEFAULT_DATA_DIR));
 
     private long time_granted = 0;
     private long time_next = 0;
+    private FNCSConnection fncs = new JNIFNCSConnection();
+    private FNCSEventDispatcher fncsEvents;
+    private FNCSClock fncsClock;
+    private final LMPPublisher lmpPublisher = new LMPPublisher();
 
 // RePast required methods
     public String getName() {
@@ -270,38 +290,40 @@ public class AMESMarket extends SimModelImpl {
     public void begin() {
         buildModel();
         buildSchedule();
-        Random.createUniform();  // Create random uniform
     }
 
     public void buildModel() {
 
-        System.out.println("\nAMES V5.0 models the ISO and each DAM/RTM market participant (LSE, GenCo) by means of a separate Java class.");
+        log.info("\nAMES V5.0 models the ISO and each DAM/RTM market participant (LSE, GenCo) by means of a separate Java class.");
         Date sysDate = new Date();
-        System.out.println("\nSimulation Start time: " + sysDate.toString() + "\n");
+        log.info("\nSimulation Start time: " + sysDate.toString() + "\n");
         //System.out.println("Print the user-specified random seed: " + RANDOM_SEED + "\n");
 
         //System.out.println("Print structural parameters\n");
         //printStructuralParameters();
-        setRngSeed(RANDOM_SEED);
 
         min = 0;
         interval = 0;
         hour = 1;
         day = 1;
+        calendar = new MarketCalendar(M);
         isConverged = false;
         dayMax = DAY_MAX;
 
         NIRTM = M / getTestCaseConfig().RTKDur;
         RTMFrequencyPerHour = 60 / M;
 
+        runProfile = new RunProfile();
         transGrid = new TransGrid(nodeData, branchData, gridXSize, gridYSize);
 
-        java.util.Random randomSeed = new java.util.Random((int) this.getRngSeed());
+        java.util.Random randomSeed = new java.util.Random(RANDOM_SEED);
         addGenAgents(randomSeed);
         addLSEAgents();
         addNDGenAgents();
         addStorageAgents();
-        iso = new ISO(this);
+        iso = new ISO(this, runContext);
+        fncsEvents = new FNCSEventDispatcher(fncs, numLSEAgents, numNDGenAgents, NIRTM);
+        fncsClock = new FNCSClock(fncs, fncsEvents);
 
         String strTemp = String.format("%1$15.2f", dGenPriceCap);
         //System.out.println("\n Supply-Offer Price Cap:  " + strTemp + " ($/MWh) \n");
@@ -314,9 +336,9 @@ public class AMESMarket extends SimModelImpl {
         //System.out.println("Print the derived learning random seed for each GenAgent:" + "\n");
         //printLearningRandomSeeds();
         //System.out.println("M: "+ M);
-        System.out.println("Print the Stopping Rule:");
+        log.info("Print the Stopping Rule:");
         if (bMaximumDay) {
-            System.out.println("\t   (1) Maximum Day Check. The user-specified maximum day: " + DAY_MAX);
+            log.info("\t   (1) Maximum Day Check. The user-specified maximum day: " + DAY_MAX);
         }
     }
 
@@ -588,30 +610,16 @@ public class AMESMarket extends SimModelImpl {
         }
     }
 
-    //custom function to get strings
-    public static String getStrings(double[][] a, int index) {
-        //String[][] output = new String[a.length][];
-        //int i = 0;
-        String output = "";
-        DecimalFormat DAMLMPFormat = new DecimalFormat("###.##");
-        for (int i = 0; i < a.length; i++) {
-            String temp1 = DAMLMPFormat.format(a[i][index]);
-            output = output + temp1 + ", ";
-            //System.out.println("temp.."+temp1);
-            //output[i++] = Arrays.toString(d).replace("[", "").replace("]", "").split(",");
-        }
-
-        return output;
-    }
-
     double[][] RTLMP = new double[this.numHoursPerDay][8];
+    private final DecimalFormat RTMLMPFormat = new DecimalFormat("###.##");
+    private final MarketLog log = MarketLog.get(MarketLog.MARKET);
 
     public void buildSchedule() {
         //System.out.println("\n\n\t*******************************************************************************");
         //System.out.println("\t********* Wholesale power market with learning traders is now running *********");
         //System.out.println("\t*******************************************************************************\n\n");
 
-        System.out.println("\n\n\t********* Wholesale power market is now running *********\n\n");
+        log.info("\n\n\t********* Wholesale power market is now running *********\n\n");
 
         for (int h = 0; h < this.numHoursPerDay; h++) {
             for (int n = 0; n < 8; n++) {
@@ -622,88 +630,130 @@ public class AMESMarket extends SimModelImpl {
         class WPMarket extends BasicAction {
 
             public void execute() {
-                DecimalFormat RTMLMPFormat = new DecimalFormat("###.##");
+                try {
+                    operate();
+                } catch (RuntimeException e) {
+                    // Let whoever is waiting for the end of the run know
+                    // it is over.
+                    writeRunProfile();
+                    SolutionStatus = "failed";
+                    bCalculationEnd = true;
+                    throw e;
+                }
+            }
+
+            /**
+             * Jump to the next market event and run everything due then.
+             * Days without RTM (day 1) only take one step per DAM event.
+             */
+            private void operate() {
                 int day_len = 86400; //in sec
                 long hour_len = 3600; // in sec
                 int min_len = 60; // in sec
 
-                long t = (min_len * M) / 2;
+                long time = calendar.nextTime();
+                day = MarketCalendar.day(time);
+                hour = MarketCalendar.hour(time);
+                min = MarketCalendar.minute(time);
                 int NIH = (int) hour_len / (min_len * M); // number of intervals in an hour
                 interval = (hour - 1) * NIH + (int) min / M;
 
                 //System.out.println("\nMarket Operation for Day: " + day + " Hour: " + hour + " Interval: " + (interval));
 
                 if (day > 1) {
-                    if (min % M == 0) {
-                        time_next = (day - 1) * (day_len) + (hour - 1) * (hour_len) + min * (min_len) - M * min_len;
-                    }
+                    time_next = (day - 1) * (day_len) + (hour - 1) * (hour_len) + min * (min_len) - M * min_len;
                 }
                 //System.out.print("time requested: " + time_next);
 
                 if (FNCSActive) {
-                    while (time_granted < time_next) {
-                        time_granted = JNIfncs.time_request(time_next);
-                    }
+                    RunProfile.Timer wait = runProfile.start(RunProfile.FNCS_WAIT);
+                    time_granted = fncsClock.request(time_next);
+                    wait.stop();
                 }
 
                 //System.out.println("   time granted: " + time_granted);
-                iso.marketOperation(min, interval, hour, day, FNCSActive);
+                // The results are published at the next minute of the FNCS
+                // clock. That time is requested while the market clears.
+                long time_publish;
+                if (day > 1) {
+                    time_publish = (day - 1) * (day_len) + (hour - 1) * (hour_len) + min * (min_len) - M * min_len + 1 * min_len;
+                } else {
+                    time_publish = (day - 1) * (day_len) + (hour - 1) * (hour_len) + min * min_len;
+                }
+                if (FNCSActive) {
+                    fncsClock.requestAhead(time_publish);
+                }
+
+                boolean[] due = calendar.poll();
+                if (due[MarketCalendar.RT_CLEAR]) {
+                    iso.clearRTM(min, interval, hour, day, FNCSActive);
+                }
+                if (due[MarketCalendar.DAM_COLLECT]) {
+                    iso.collectDAMBidsAndOffers(hour, day, FNCSActive);
+                }
+                if (due[MarketCalendar.DAM_CLEAR]) {
+                    iso.clearDAM(hour, day);
+                }
+                if (due[MarketCalendar.END_OF_DAY]) {
+                    iso.endOfDay(day);
+                }
+                // The DAM LMPs are only needed now if they are published.
+                boolean publishDAM = due[MarketCalendar.DAM_PUBLISH] && (FNCSActive || log.isEnabled(MarketLog.DEBUG));
+                if (publishDAM) {
+                    iso.awaitDAM();
+                }
 
-                if (hour == 10 || day > 1) {
+                if (due[MarketCalendar.RT_CLEAR] || due[MarketCalendar.DAM_CLEAR]
+                        || due[MarketCalendar.END_OF_DAY] || publishDAM) {
                     SolutionStatus = iso.getSolutionStatus();
                     if (SolutionStatus.equals("infeasible")) {
                         stop();
-                        System.out.println("Simulation is stopped.");
+                        log.info("Simulation is stopped.");
+                        iso.closePSSTServer();
+                        writeRunProfile();
+                        MarketLog.flush();
                         bCalculationEnd = true;
                     }
                 }
 
-                if (!SolutionStatus.equals("infeasible")) {
-                    //requests time_request 
-                    if (day > 1) {
-                        if (min % M == 0) {
-                            time_next = (day - 1) * (day_len) + (hour - 1) * (hour_len) + min * (min_len) - M * min_len + 1 * min_len;
-                        }
-                    } else {
-                        if (min % M == 0) {
-                            time_next = (day - 1) * (day_len) + (hour - 1) * (hour_len) + min * min_len;
-                        }
-                    }
+                if (FNCSActive) {
+                    RunProfile.Timer wait = runProfile.start(RunProfile.FNCS_WAIT);
+                    time_granted = fncsClock.await();
+                    wait.stop();
+                }
 
-                    //System.out.print(" time_next: " + time_next);
-                    if (FNCSActive) {
-                        time_granted = JNIfncs.time_request(time_next);
-                        while (time_granted < time_next) {
-                            time_granted = JNIfncs.time_request(time_next);
-                        }
-                    }
+                if (!SolutionStatus.equals("infeasible")) {
+                    time_next = time_publish;
 
                     //System.out.println(" time_granted: " + time_granted);
                     int NumNodes = (int) nodeData[0][0];
-                    if (hour == 13 && min == 0) {
-                        System.out.println("");
-                        for (int n = 0; n < NumNodes; n++) {
-                            if (FNCSActive) {
-                                JNIfncs.publish("DailyLMP", getStrings(iso.getDAMLMP(), n));
+                    if (due[MarketCalendar.DAM_PUBLISH]) {
+                        if (FNCSActive) {
+                            lmpPublisher.publish(fncs, LMPPublisher.DAM_TOPIC, iso.getDAMLMP());
+                        }
+                        if (log.isEnabled(MarketLog.DEBUG)) {
+                            log.debug("");
+                            for (int n = 0; n < NumNodes; n++) {
+                                log.debug("Publishing DAM LMP values of Bus" + (n+1) + " : " + lmpPublisher.formatBus(iso.getDAMLMP(), n));
                             }
-                            System.out.println("Publishing DAM LMP values of Bus" + (n+1) + " : " +getStrings(iso.getDAMLMP(), n));
                         }
                     }
 
-                    if (day > 1 && min % M == 0) {
+                    if (due[MarketCalendar.RT_CLEAR]) {
 
                         if (FNCSActive) {
-                            JNIfncs.publish("RTLMP", String.valueOf(iso.getDailyRealTimeLMP()));
+                            lmpPublisher.publish(fncs, LMPPublisher.RT_TOPIC, iso.getDailyRealTimeLMP());
                         }
-                        System.out.println("");
+                        log.debug("");
                         for (int i = 0; i < getNumNodes(); i++) {
-                            System.out.print("RTLMP LMP for Bus " + (i + 1));
                             double AvgLMP = 0, sum = 0;
                             for (int m = 0; m < NIRTM; m++) {
                                 sum = sum + iso.getDailyRealTimeLMP()[m][i];
                             }
                             AvgLMP = sum / NIRTM;
-                            System.out.println(": " + RTMLMPFormat.format(AvgLMP));
+                            if (log.isEnabled(MarketLog.DEBUG)) {
+                                log.debug("RTLMP LMP for Bus " + (i + 1) + ": " + RTMLMPFormat.format(AvgLMP));
+                            }
                             RTLMP[hour - 1][i] = AvgLMP;
                         }
                     }
@@ -713,7 +763,7 @@ public class AMESMarket extends SimModelImpl {
 
                     if (bMaximumDay) {
 
-                        if ((hour == 24) && (day == dayMax)) {// Only dayMax has been reached
+                        if (due[MarketCalendar.END_OF_DAY] && (day == dayMax)) {// Only dayMax has been reached
                             //System.out.println("in STOPCODE: 1");
                             stop();
                             stopCode = stopCode | 0x1;   // first bit
@@ -723,10 +773,14 @@ public class AMESMarket extends SimModelImpl {
 
                     if (stopCode > 0) {
 
-                        bCalculationEnd = true;
+                        iso.closePSSTServer();
 
                         Date sysDate = new Date();
-                        System.out.println("\nSimulation End time: " + sysDate.toString() + "\n");
+                        log.info("\nSimulation End time: " + sysDate.toString() + "\n");
+                        log.info(iso.getSCEDStatistics() + "\n");
+                        if (runContext.getSolutionCache() != null) {
+                            log.info(runContext.getSolutionCache() + "\n");
+                        }
 
                         String stopStr = "";
                         int iStopNumber = 0;
@@ -762,20 +816,12 @@ public class AMESMarket extends SimModelImpl {
                             stopCode /= 2;
                         }
 
-                        System.out.println("\nThe current simulation run is concluded on Day " + day + "\n"); // + " in response to the activation of the following \nstopping rule:(" + stopStr + ")\n\n");
+                        log.info("\nThe current simulation run is concluded on Day " + day + "\n"); // + " in response to the activation of the following \nstopping rule:(" + stopStr + ")\n\n");
+                        writeRunProfile();
+                        MarketLog.flush();
+                        bCalculationEnd = true;
 
                     }
-
-                    min = min + M;
-                    if (min % min_len == 0) {
-                        hour++;
-                        min = 0;
-                        if (hour == 25) {
-                            min = 0;
-                            hour = 1;
-                            day++;
-                        }
-                    }
                 }
             }
         }
@@ -1077,7 +1123,16 @@ public class AMESMarket extends SimModelImpl {
         InitDataFromGUI(baseS, baseV, nodeData, branchDataData, genData, lseData, NDGData, lsePriceSenData, lseHybridData, gencoAlertMarkers,
                 extraGenCoParams, StorageParams, hasStorage, hasNDG);
 
-        ModelController = new Controller();
+        if (headless) {
+            ThinController batchController = new ThinController(false);
+            batchController.setExitOnExit(false);
+            ModelController = batchController;
+        } else {
+            Controller guiController = new Controller();
+            guiController.setConsoleOut(false);
+            guiController.setConsoleErr(false);
+            ModelController = guiController;
+        }
 
         this.setController(ModelController);
 
@@ -1085,15 +1140,25 @@ public class AMESMarket extends SimModelImpl {
 
         this.addSimEventListener(ModelController);
 
-        ModelController.setConsoleOut(false);
+    }
 
-        ModelController.setConsoleErr(false);
+    /**
+     * Run without the RePast control window. Must be called before
+     * {@link #AMESMarketSetupFromGUI}. Only {@link #Start()},
+     * {@link #Stop()} and {@link #Pause()} can be used then.
+     * @param headless
+     */
+    public void setHeadless(boolean headless) {
+        this.headless = headless;
+    }
 
+    private Controller guiController() {
+        return (Controller) ModelController;
     }
 
     public void Setup() {
         System.out.println("ModelController Setup Called?");
-        ModelController.setup();
+        guiController().setup();
     }
 
     public void Start() {
@@ -1104,7 +1169,7 @@ public class AMESMarket extends SimModelImpl {
 
     public void Step() {
         System.out.println("\nAMESMarket.java ModelController Step \n");
-        ModelController.stepSim();
+        guiController().stepSim();
     }
 
     public void Stop() {
@@ -1119,12 +1184,12 @@ public class AMESMarket extends SimModelImpl {
 
     public void Initialize() {
         System.out.println("\nAMESMarket.java ModelController Initialize \n");
-        ModelController.beginModel();
+        guiController().beginModel();
     }
 
     public void ViewSettings() {
         System.out.println("\nAMESMarket.java ModelController ViewSettings \n");
-        ModelController.showSettings();
+        guiController().showSettings();
     }
 
     public void InitDataFromGUI(double s, double v, double[][] nodeData, double[][] branchDataData, double[][] genData, double[][] lseData, double[][] NDGData, double[][][] lsePriceSenData, int[][] lseHybridData, boolean[] gencoAlertMarkers,
@@ -1197,20 +1262,27 @@ public class AMESMarket extends SimModelImpl {
         RANDOM_SEED = (int) lSeed;
     }
 
-    public void addGenAgentSupplyOfferByDay(double[][] supplyOffer) {
-        int iRow = supplyOffer.length;
-        int iCol = supplyOffer[0].length;
-        double[][] newObject = new double[iRow][iCol];
-        for (int i = 0; i < iRow; i++) {
-            for (int j = 0; j < iCol; j++) {
-                newObject[i][j] = supplyOffer[i][j];
-            }
-        }
+    /**
+     * Keep the seed in the market. SimModelImpl would reseed the RePast and
+     * Colt generators, which are static and shared by all the markets of the
+     * JVM. Nothing draws from them: the agents have their own generators,
+     * seeded from this seed in {@link #buildModel()}.
+     */
+    @Override
+    public void setRngSeed(long seed) {
+        RANDOM_SEED = (int) seed;
+    }
+
+    @Override
+    public long getRngSeed() {
+        return RANDOM_SEED;
+    }
 
-        genAgentSupplyOfferByDay.add(newObject);
+    public void addGenAgentSupplyOfferByDay(double[][] supplyOffer) {
+        genAgentSupplyOfferByDay.add(supplyOffer);
     }
 
-    public ArrayList getGenAgentSupplyOfferByDay() {
+    public ResultColumn getGenAgentSupplyOfferByDay() {
         return genAgentSupplyOfferByDay;
     }
 
@@ -1233,194 +1305,95 @@ public class AMESMarket extends SimModelImpl {
         lseAgentPriceSensitiveDemandByDay.add(newObject);
     }
 
-    public ArrayList getLSEAgenPriceSensitiveDemandByDay() {
+    public ResultColumn getLSEAgenPriceSensitiveDemandByDay() {
         return lseAgentPriceSensitiveDemandByDay;
     }
 
     public void addLSEAgentSurplusByDay(double[][] object) {
-        int iRow = object.length;
-        int iCol = object[0].length;
-        double[][] newObject = new double[iRow][iCol];
-        for (int i = 0; i < iRow; i++) {
-            for (int j = 0; j < iCol; j++) {
-                newObject[i][j] = object[i][j];
-            }
-        }
-
-        lseAgentSurplusByDay.add(newObject);
+        lseAgentSurplusByDay.add(object);
     }
 
-    public ArrayList getLSEAgentSurplusByDay() {
+    public ResultColumn getLSEAgentSurplusByDay() {
         return lseAgentSurplusByDay;
     }
 
     public void addGenAgentProfitAndNetGainByDay(double[][] object) {
-        int iRow = object.length;
-        int iCol = object[0].length;
-        double[][] newObject = new double[iRow][iCol];
-        for (int i = 0; i < iRow; i++) {
-            for (int j = 0; j < iCol; j++) {
-                newObject[i][j] = object[i][j];
-            }
-        }
-
-        genAgentProfitAndNetGainByDay.add(newObject);
+        genAgentProfitAndNetGainByDay.add(object);
     }
 
-    public ArrayList getGenAgentProfitAndNetGainByDay() {
+    public ResultColumn getGenAgentProfitAndNetGainByDay() {
         return genAgentProfitAndNetGainByDay;
     }
 
     public void addGenAgentActionPropensityAndProbilityByDay(double[][] object) {
-        int iRow = object.length;
-        int iCol = object[0].length;
-        double[][] newObject = new double[iRow][iCol];
-        for (int i = 0; i < iRow; i++) {
-            for (int j = 0; j < iCol; j++) {
-                newObject[i][j] = object[i][j];
-            }
-        }
-
-        genAgentActionPropensityAndProbilityByDay.add(newObject);
+        genAgentActionPropensityAndProbilityByDay.add(object);
     }
 
-    public ArrayList getGenAgentActionPropensityAndProbilityByDay() {
+    public ResultColumn getGenAgentActionPropensityAndProbilityByDay() {
         return genAgentActionPropensityAndProbilityByDay;
     }
 
     public void addLSEAgentPriceSensitiveDemandWithTrueCost(double[][] object) {
-        int iRow = object.length;
-        int iCol = object[0].length;
-        double[][] newObject = new double[iRow][iCol];
-        for (int i = 0; i < iRow; i++) {
-            for (int j = 0; j < iCol; j++) {
-                newObject[i][j] = object[i][j];
-            }
-        }
-
-        lseAgentPriceSensitiveDemandWithTrueCost.add(newObject);
+        lseAgentPriceSensitiveDemandWithTrueCost.add(object);
     }
 
-    public ArrayList getLSEAgentPriceSensitiveDemandWithTrueCost() {
+    public ResultColumn getLSEAgentPriceSensitiveDemandWithTrueCost() {
         return lseAgentPriceSensitiveDemandWithTrueCost;
     }
 
     public void addGenAgentDispatchWithTrueCost(double[][] object) {
-        int iRow = object.length;
-        int iCol = object[0].length;
-        double[][] newObject = new double[iRow][iCol];
-        for (int i = 0; i < iRow; i++) {
-            for (int j = 0; j < iCol; j++) {
-                newObject[i][j] = object[i][j];
-            }
-        }
-
-        genAgentDispatchWithTrueCost.add(newObject);
+        genAgentDispatchWithTrueCost.add(object);
     }
 
-    public ArrayList getGenAgentDispatchWithTrueCost() {
+    public ResultColumn getGenAgentDispatchWithTrueCost() {
         return genAgentDispatchWithTrueCost;
     }
 
     public void addGenAgentProfitAndNetGainWithTrueCost(double[][] object) {
-        int iRow = object.length;
-        int iCol = object[0].length;
-        double[][] newObject = new double[iRow][iCol];
-        for (int i = 0; i < iRow; i++) {
-            for (int j = 0; j < iCol; j++) {
-                newObject[i][j] = object[i][j];
-            }
-        }
-
-        genAgentProfitAndNetGainWithTrueCost.add(newObject);
+        genAgentProfitAndNetGainWithTrueCost.add(object);
     }
 
-    public ArrayList getGenAgentProfitAndNetGainWithTrueCost() {
+    public ResultColumn getGenAgentProfitAndNetGainWithTrueCost() {
         return genAgentProfitAndNetGainWithTrueCost;
     }
 
     public void addLSEAgentSurplusWithTrueCost(double[][] object) {
-        int iRow = object.length;
-        int iCol = object[0].length;
-        double[][] newObject = new double[iRow][iCol];
-        for (int i = 0; i < iRow; i++) {
-            for (int j = 0; j < iCol; j++) {
-                newObject[i][j] = object[i][j];
-            }
-        }
-
-        lseAgentSurplusWithTrueCost.add(newObject);
+        lseAgentSurplusWithTrueCost.add(object);
     }
 
-    public ArrayList getLSEAgentSurplusWithTrueCost() {
+    public ResultColumn getLSEAgentSurplusWithTrueCost() {
         return lseAgentSurplusWithTrueCost;
     }
 
     public void addGenAgentDispatchByDay(double[][] object) {
-        int iRow = object.length;
-        int iCol = object[0].length;
-        double[][] newObject = new double[iRow][iCol];
-        for (int i = 0; i < iRow; i++) {
-            for (int j = 0; j < iCol; j++) {
-                newObject[i][j] = object[i][j];
-            }
-        }
-
-        genAgentDispatchByDay.add(newObject);
+        genAgentDispatchByDay.add(object);
     }
 
-    public ArrayList getGenAgentDispatchByDay() {
+    public ResultColumn getGenAgentDispatchByDay() {
         return genAgentDispatchByDay;
     }
 
     public void addGenAgentRealTimeDispatchByInterval(double[][] object) {
-        int iRow = object.length;
-        int iCol = object[0].length;
-        double[][] newObject = new double[iRow][iCol];
-        for (int i = 0; i < iRow; i++) {
-            for (int j = 0; j < iCol; j++) {
-                newObject[i][j] = object[i][j];
-            }
-        }
-
-        genAgentRealTimeDispatchByInterval.add(newObject);
+        genAgentRealTimeDispatchByInterval.add(object);
     }
 
-    public ArrayList getGenAgentRealTimeDispatchByInterval() {
+    public ResultColumn getGenAgentRealTimeDispatchByInterval() {
         return genAgentRealTimeDispatchByInterval;
     }
 
     public void addBranchFlowByDay(double[][] object) {
-        int iRow = object.length;
-        int iCol = object[0].length;
-        double[][] newObject = new double[iRow][iCol];
-        for (int i = 0; i < iRow; i++) {
-            for (int j = 0; j < iCol; j++) {
-                newObject[i][j] = object[i][j];
-            }
-        }
-
-        branchFlowByDay.add(newObject);
+        branchFlowByDay.add(object);
     }
 
-    public ArrayList getBranchFlowByDay() {
+    public ResultColumn getBranchFlowByDay() {
         return branchFlowByDay;
     }
 
     public void addLMPByDay(double[][] object) {
-        int iRow = object.length;
-        int iCol = object[0].length;
-        double[][] newObject = new double[iRow][iCol];
-        for (int i = 0; i < iRow; i++) {
-            for (int j = 0; j < iCol; j++) {
-                newObject[i][j] = object[i][j];
-            }
-        }
-
-        LMPByDay.add(newObject);
+        LMPByDay.add(object);
     }
 
-    public ArrayList getLMPByDay() {
+    public ResultColumn getLMPByDay() {
         return LMPByDay;
     }
 
@@ -1428,49 +1401,25 @@ public class AMESMarket extends SimModelImpl {
         if (costs == null) {
             throw new IllegalArgumentException();
         }
-        double[][] costCopy = new double[costs.length][];
-        for (int i = 0; i < costs.length; i++) {
-            costCopy[i] = Arrays.copyOf(costs[i], costs[i].length);
-        }
-
-        startupCostsByDay.add(costCopy);
+        startupCostsByDay.add(costs);
     }
 
     public void addActualProductionCostsByDay(double[][] costs) {
         if (costs == null) {
             throw new IllegalArgumentException();
         }
-        double[][] costCopy = new double[costs.length][];
-        for (int i = 0; i < costs.length; i++) {
-            costCopy[i] = Arrays.copyOf(costs[i], costs[i].length);
-        }
-
-        productionCostsByDay.add(costCopy);
+        productionCostsByDay.add(costs);
     }
 
     public void addActualShutdownCostsByDay(double[][] costs) {
         if (costs == null) {
             throw new IllegalArgumentException();
         }
-        double[][] costCopy = new double[costs.length][];
-        for (int i = 0; i < costs.length; i++) {
-            costCopy[i] = Arrays.copyOf(costs[i], costs[i].length);
-        }
-
-        shutdownCostsByDay.add(costCopy);
+        shutdownCostsByDay.add(costs);
     }
 
     public void addRealTimeLMPByInterval(double[][] object) {
-        int iRow = object.length;
-        int iCol = object[0].length;
-        double[][] newObject = new double[iRow][iCol];
-        for (int i = 0; i < iRow; i++) {
-            for (int j = 0; j < iCol; j++) {
-                newObject[i][j] = object[i][j];
-            }
-        }
-
-        realTimeLMPByInterval.add(newObject);
+        realTimeLMPByInterval.add(object);
     }
 
 //    public void addRealTimeLMPByDay(double[] object) {
@@ -1483,70 +1432,119 @@ public class AMESMarket extends SimModelImpl {
 //
 //        realTimeLMPByDay.add(newObject);
 //    }
-    public ArrayList getRealTimeLMPByInterval() {
+    public ResultColumn getRealTimeLMPByInterval() {
         return realTimeLMPByInterval;
     }
 
     public void addRealTimeBranchFlowByDay(double[][] object) {
-        int iRow = object.length;
-        int iCol = object[0].length;
-        double[][] newObject = new double[iRow][iCol];
-        for (int i = 0; i < iRow; i++) {
-            for (int j = 0; j < iCol; j++) {
-                newObject[i][j] = object[i][j];
-            }
-        }
-
-        realTimeBranchFlowByDay.add(newObject);
+        realTimeBranchFlowByDay.add(object);
     }
 
-    public ArrayList getRealTimeBranchFlowByDay() {
+    public ResultColumn getRealTimeBranchFlowByDay() {
         return realTimeBranchFlowByDay;
     }
 
     public void addLMPWithTrueCost(double[][] object) {
-        int iRow = object.length;
-        int iCol = object[0].length;
-        double[][] newObject = new double[iRow][iCol];
-        for (int i = 0; i < iRow; i++) {
-            for (int j = 0; j < iCol; j++) {
-                newObject[i][j] = object[i][j];
-            }
-        }
-
-        LMPWithTrueCost.add(newObject);
+        LMPWithTrueCost.add(object);
     }
 
-    public ArrayList getLMPWithTrueCost() {
+    public ResultColumn getLMPWithTrueCost() {
         return LMPWithTrueCost;
     }
 
     public void addGenActions(double[][] object) {
-        int iRow = object.length;
+        lastDayGenActions.add(object);
+    }
 
-        double[][] newObject = new double[iRow][];
-        for (int i = 0; i < iRow; i++) {
-            int iCol = object[i].length;
+    public ResultColumn getGenActions() {
+        return lastDayGenActions;
+    }
 
-            double[] newCol = new double[iCol];
-            for (int j = 0; j < iCol; j++) {
-                newCol[j] = object[i][j];
-            }
+    /**
+     * @return the store behind the results collected by day and by interval.
+     */
+    public ResultStore getResultStore() {
+        return resultStore;
+    }
 
-            newObject[i] = newCol;
+    /**
+     * @return the timings of the phases of the current run.
+     */
+    public RunProfile getRunProfile() {
+        return runProfile;
+    }
+
+    /**
+     * Write the timings of the run to a file at its end, instead of the file
+     * of {@value RunProfile#REPORT_PROPERTY}.
+     * @param runProfileFile the file, or null for no report.
+     */
+    public void setRunProfileFile(File runProfileFile) {
+        this.runProfileFile = runProfileFile;
+    }
+
+    private void writeRunProfile() {
+        if (runProfileFile == null) {
+            return;
+        }
+        try {
+            runProfile.write(runProfileFile);
+            log.debug("Performance report of the run: " + runProfileFile.getPath());
+        } catch (IOException ex) {
+            Logger.getLogger(AMESMarket.class.getName()).log(Level.SEVERE, null, ex);
         }
+    }
 
-        lastDayGenActions.add(newObject);
+    public FNCSConnection getFNCS() {
+        return fncs;
     }
 
-    public ArrayList getGenActions() {
-        return lastDayGenActions;
+    /**
+     * Use another FNCS connection than the native one, for example a
+     * {@link LoopbackFNCSConnection}. To be set before the market starts.
+     * @param fncs
+     */
+    public void setFNCS(FNCSConnection fncs) {
+        this.fncs = fncs;
+    }
+
+    /**
+     * @return the FNCS events of the current time step.
+     */
+    public FNCSEventDispatcher getFNCSEvents() {
+        return fncsEvents;
     }
 
     public boolean isDeleteIntermediateFiles() {
         return deleteIntermediateFiles;
     }
 
+    public RunContext getRunContext() {
+        return runContext;
+    }
+
+    /**
+     * Use a different context, so several markets can run side by side.
+     * Must be called before the market is started.
+     * @param runContext
+     */
+    public void setRunContext(RunContext runContext) {
+        this.runContext = runContext;
+    }
+
+    public StreamingOutputWriter getOutputWriter() {
+        return outputWriter;
+    }
+
+    /**
+     * Stream the results to an output file while the market runs. The
+     * caller closes the writer once the run is over.
+     * @param outputWriter
+     */
+    public void setOutputWriter(StreamingOutputWriter outputWriter) {
+        this.outputWriter = outputWriter;
+    }
+
     public boolean IfCalculationEnd() {
         return bCalculationEnd;
     }
@@ -1563,37 +1561,41 @@ public class AMESMarket extends SimModelImpl {
         return time_granted;
     }
 
-    public ArrayList<double[][]> getActualStartupCostsByDay() {
+    public ResultColumn getActualStartupCostsByDay() {
         return startupCostsByDay;
     }
 
-    public ArrayList<double[][]> getActualShutdownCostsByDay() {
+    public ResultColumn getActualShutdownCostsByDay() {
         return shutdownCostsByDay;
     }
 
-    public ArrayList<double[][]> getActualProductionCostsByDay() {
+    public ResultColumn getActualProductionCostsByDay() {
         return productionCostsByDay;
     }
 
     //constructor
     public AMESMarket(boolean deleteIntermediateFiles) {
-        genAgentSupplyOfferByDay = new ArrayList();
-        lseAgentPriceSensitiveDemandByDay = new ArrayList();
-        lseAgentPriceSensitiveDemandWithTrueCost = new ArrayList();
-        lseAgentSurplusByDay = new ArrayList();
-        lseAgentSurplusWithTrueCost = new ArrayList();
-        genAgentProfitAndNetGainByDay = new ArrayList();
-        genAgentActionPropensityAndProbilityByDay = new ArrayList();
-        genAgentProfitAndNetGainWithTrueCost = new ArrayList();
-        genAgentDispatchWithTrueCost = new ArrayList();
-        genAgentDispatchByDay = new ArrayList();
-        genAgentRealTimeDispatchByInterval = new ArrayList();
-        branchFlowByDay = new ArrayList();
-        LMPByDay = new ArrayList();
-        realTimeLMPByInterval = new ArrayList();
-        realTimeBranchFlowByDay = new ArrayList();
-        LMPWithTrueCost = new ArrayList();
-        lastDayGenActions = new ArrayList();
+        resultStore = ResultStore.create();
+        genAgentSupplyOfferByDay = resultStore.newColumn("genAgentSupplyOfferByDay");
+        lseAgentPriceSensitiveDemandByDay = resultStore.newColumn("lseAgentPriceSensitiveDemandByDay");
+        lseAgentPriceSensitiveDemandWithTrueCost = resultStore.newColumn("lseAgentPriceSensitiveDemandWithTrueCost");
+        lseAgentSurplusByDay = resultStore.newColumn("lseAgentSurplusByDay");
+        lseAgentSurplusWithTrueCost = resultStore.newColumn("lseAgentSurplusWithTrueCost");
+        genAgentProfitAndNetGainByDay = resultStore.newColumn("genAgentProfitAndNetGainByDay");
+        genAgentActionPropensityAndProbilityByDay = resultStore.newColumn("genAgentActionPropensityAndProbilityByDay");
+        genAgentProfitAndNetGainWithTrueCost = resultStore.newColumn("genAgentProfitAndNetGainWithTrueCost");
+        genAgentDispatchWithTrueCost = resultStore.newColumn("genAgentDispatchWithTrueCost");
+        genAgentDispatchByDay = resultStore.newColumn("genAgentDispatchByDay");
+        genAgentRealTimeDispatchByInterval = resultStore.newColumn("genAgentRealTimeDispatchByInterval");
+        branchFlowByDay = resultStore.newColumn("branchFlowByDay");
+        LMPByDay = resultStore.newColumn("LMPByDay");
+        realTimeLMPByInterval = resultStore.newColumn("realTimeLMPByInterval");
+        realTimeBranchFlowByDay = resultStore.newColumn("realTimeBranchFlowByDay");
+        LMPWithTrueCost = resultStore.newColumn("LMPWithTrueCost");
+        productionCostsByDay = resultStore.newColumn("productionCostsByDay");
+        startupCostsByDay = resultStore.newColumn("startupCostsByDay");
+        shutdownCostsByDay = resultStore.newColumn("shutdownCostsByDay");
+        lastDayGenActions = resultStore.newColumn("lastDayGenActions");
         this.deleteIntermediateFiles = deleteIntermediateFiles;
     }
 
@@ -0,0 +1,383 @@
+package amesmarket;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import amesmarket.CaseFileData.GenData;
+import amesmarket.filereaders.CaseFileReader;
+
+/**
+ * Run a batch of cases and random seeds without the GUI.
+ *
+ * Reads the same batch (.bth) files as the GUI batch mode. Every case is run
+ * once for each random seed, or once with its own seed if the batch has no
+ * seeds. Each run has its own {@link AMESMarket} and {@link RunContext}, with
+ * a scratch directory under the work directory or on tmpfs, so the runs are
+ * done in parallel on a bounded pool instead of one after the other. The
+ * output files are written to the Output directory next to each case, with
+ * the same names as in the GUI batch mode.
+ *
+ * <pre>
+ * java amesmarket.BatchRunner [-threads n] [-work dir] batch.bth|case.dat ...
+ * </pre>
+ *
+ * Case files given on the command line are run with the seeds of all the
+ * batch files given. FNCS cases can't be run this way, they share the one
+ * FNCS connection of the JVM, unless they are run against the
+ * {@link LoopbackFNCSConnection}: each run then has its own loopback broker.
+ */
+public class BatchRunner {
+
+    /**
+     * How often a run is checked for the end of the simulation, in ms.
+     */
+    private static final long POLL_INTERVAL = 200;
+
+    private final File workDir;
+    private final int threads;
+    private final List<File> caseFiles = new ArrayList<File>();
+    private final List<Long> randomSeeds = new ArrayList<Long>();
+
+    /**
+     * @param workDir parent of the data directories of the runs.
+     * @param threads maximum number of runs at the same time.
+     */
+    public BatchRunner(File workDir, int threads) {
+        this.workDir = workDir;
+        this.threads = threads;
+    }
+
+    /**
+     * Add the random seeds and cases of a batch file. The case file names are
+     * relative to the batch file.
+     * @param batchFile
+     * @throws IOException
+     */
+    public void loadBatchFile(File batchFile) throws IOException {
+        BufferedReader in = new BufferedReader(new FileReader(batchFile));
+        try {
+            String strTemp;
+            boolean bRandomSeedsData = false;
+            boolean bMultiCasesData = false;
+
+            while ((strTemp = in.readLine()) != null) {
+                strTemp = strTemp.trim();
+                if (strTemp.length() == 0 || strTemp.startsWith("//")) {
+                    continue;
+                }
+
+                if (strTemp.startsWith("#RandomSeedsDataStart")) {
+                    bRandomSeedsData = true;
+                } else if (strTemp.startsWith("#RandomSeedsDataEnd")) {
+                    bRandomSeedsData = false;
+                } else if (strTemp.startsWith("#MultiCasesDataStart")) {
+                    bMultiCasesData = true;
+                } else if (strTemp.startsWith("#MultiCasesDataEnd")) {
+                    bMultiCasesData = false;
+                } else if (bRandomSeedsData) {
+                    this.randomSeeds.add(Long.parseLong(strTemp));
+                } else if (bMultiCasesData) {
+                    this.caseFiles.add(new File(batchFile.getParentFile(), strTemp));
+                }
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    public void addCaseFile(File caseFile) {
+        this.caseFiles.add(caseFile);
+    }
+
+    public void addRandomSeed(long seed) {
+        this.randomSeeds.add(seed);
+    }
+
+    /**
+     * Run every case with every seed and wait for all of them to finish.
+     * @return number of runs that failed or were infeasible.
+     * @throws InterruptedException
+     */
+    public int run() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        List<Future<Boolean>> runs = new ArrayList<Future<Boolean>>();
+        try {
+            for (File caseFile : this.caseFiles) {
+                if (this.randomSeeds.isEmpty()) {
+                    runs.add(pool.submit(this.createRun(caseFile, null, -1)));
+                } else {
+                    for (int i = 0; i < this.randomSeeds.size(); i++) {
+                        runs.add(pool.submit(this.createRun(caseFile, this.randomSeeds.get(i), i)));
+                    }
+                }
+            }
+
+            int failed = 0;
+            for (Future<Boolean> f : runs) {
+                try {
+                    if (!f.get()) {
+                        failed++;
+                    }
+                } catch (ExecutionException ex) {
+                    Logger.getLogger(BatchRunner.class.getName()).log(Level.SEVERE, null, ex.getCause());
+                    failed++;
+                }
+            }
+            return failed;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @param caseFile
+     * @param seed random seed, or null to use the one in the case file.
+     * @param seedIndex index of the seed in the batch, used to name the
+     * output file. Ignored if seed is null.
+     */
+    private Callable<Boolean> createRun(final File caseFile, final Long seed, final int seedIndex) {
+        return new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                String caseName = caseFile.getName();
+                if (caseName.lastIndexOf('.') > 0) {
+                    caseName = caseName.substring(0, caseName.lastIndexOf('.'));
+                }
+                String runName = seed == null ? caseName : caseName + "_" + seedIndex;
+
+                //Cases of the same name in different directories must not
+                //share a scratch directory.
+                workDir.mkdirs();
+                File dataDir = Files.createTempDirectory(workDir.toPath(), runName + "-").toFile();
+                return runCase(caseFile, seed, dataDir,
+                        new File(new File(caseFile.getAbsoluteFile().getParentFile(), "Output"), runName + ".out"));
+            }
+        };
+    }
+
+    /**
+     * Run one case to the end and write its output file.
+     * @param caseFile
+     * @param seed random seed, or null to use the one in the case file.
+     * @param dataDir scratch directory of the run, unless it is put on
+     * tmpfs, see {@link RunContext#create(File)}. Deleted then, if empty.
+     * @param outputFile written as the run goes on, see
+     * {@link StreamingOutputWriter}. The {@link RunProfile} of the run is
+     * written next to it, with the extension .perf.json added.
+     * @return true if the run was feasible to the end.
+     * @throws AMESMarketException
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public static boolean runCase(File caseFile, Long seed, File dataDir, File outputFile)
+            throws AMESMarketException, IOException, InterruptedException {
+        CaseFileData config = new CaseFileReader().loadCaseFileData(caseFile);
+        if (config.FNCSActive && System.getProperty(LoopbackFNCSConnection.REPLAY_PROPERTY) == null) {
+            throw new AMESMarketException("FNCS case " + caseFile.getPath() + " can't be run in a batch without "
+                    + LoopbackFNCSConnection.REPLAY_PROPERTY);
+        }
+
+        GenData[] genRows = config.genData;
+        Object[][] genData = new Object[genRows.length][];
+        for (int i = 0; i < genRows.length; i++) {
+            genData[i] = genRows[i].asArray();
+        }
+        OutputFileFormat format = new OutputFileFormat(caseFile.getName(), OutputFileFormat.nodeNames(config.iNodeData),
+                config.branchData, genData, config.lseHybridDemand, config.iMaxDay, config.RTOPDur / config.RTKDur);
+
+        RunContext runContext = RunContext.create(dataDir);
+        if (!runContext.getScratchDir().equals(dataDir)) {
+            dataDir.delete();
+        }
+        AMESMarket ames = createMarket(config, seed == null ? config.RandomSeed : seed);
+        ames.setRunContext(runContext);
+        String runName = caseFile.getName() + " in " + runContext.getScratchDir().getPath();
+        System.out.println("Batch run of " + runName);
+
+        if (config.FNCSActive) {
+            ames.setFNCS(LoopbackFNCSConnection.create());
+            ames.getFNCS().initialize();
+        }
+
+        outputFile.getParentFile().mkdirs();
+        StreamingOutputWriter outputWriter = new StreamingOutputWriter(format, outputFile);
+        ames.setOutputWriter(outputWriter);
+        ames.setRunProfileFile(new File(outputFile.getPath() + ".perf.json"));
+
+        try {
+            ames.Start();
+            while (!ames.IfCalculationEnd()) {
+                Thread.sleep(POLL_INTERVAL);
+            }
+        } finally {
+            MarketLog.flush();
+            outputWriter.close();
+            runContext.close();
+            ames.getResultStore().close();
+            if (config.FNCSActive) {
+                endFNCS(ames.getFNCS(), config.iMaxDay, runName);
+            }
+        }
+
+        if (!ames.SolutionStatus().equals("optimal")) {
+            System.out.println("Batch run of " + runName + " is " + ames.SolutionStatus()
+                    + ", partial output in " + outputFile.getPath());
+            return false;
+        }
+
+        System.out.println("Save case output data file: " + outputFile.getPath());
+        return true;
+    }
+
+    /**
+     * Let the other federates run to the end of the case, as the GUI does,
+     * and leave FNCS.
+     * @param fncs
+     * @param iMaxDay
+     * @param runName
+     */
+    private static void endFNCS(FNCSConnection fncs, int iMaxDay, String runName) {
+        long time_granted = 0;
+        long time_next = iMaxDay * 86400L;
+        while (time_granted < time_next) {
+            time_granted = fncs.time_request(time_next);
+        }
+        fncs.end();
+
+        if (fncs instanceof LoopbackFNCSConnection) {
+            LoopbackFNCSConnection loopback = (LoopbackFNCSConnection) fncs;
+            System.out.println("FNCS loopback of " + runName + ": " + loopback.getTimeRequests() + " time requests, "
+                    + loopback.getMessagesDelivered() + " messages delivered, "
+                    + loopback.getMessagesPublished() + " published");
+        }
+    }
+
+    /**
+     * Set up a market from the case file with the default simulation
+     * parameters, as the GUI does when a case is loaded.
+     * @param config
+     * @param seed
+     * @return market, ready to start.
+     */
+    public static AMESMarket createMarket(CaseFileData config, long seed) {
+        boolean delIntermediateFiles = Boolean.parseBoolean(
+                System.getProperty("DEL_INTER_FILES", "false")
+        );
+        DefaultSimulationParameters defaults = new DefaultSimulationParameters();
+        AMESMarket ames = new AMESMarket(delIntermediateFiles);
+        ames.setHeadless(true);
+
+        double[][] bus = new double[1][2];
+        bus[0][0] = Double.parseDouble(config.nodeData[0][0].toString());
+        bus[0][1] = Double.parseDouble(config.nodeData[0][1].toString());
+
+        double[][] branch = toDoubles(config.branchData);
+
+        //Skip the GenCo name and the 'canary' flag, parsed separately.
+        GenData[] genRows = config.genData;
+        double[][] gen = new double[genRows.length][];
+        boolean[] gencoAlertMarkers = new boolean[genRows.length];
+        for (int i = 0; i < genRows.length; i++) {
+            Object[] row = genRows[i].asArray();
+            gen[i] = new double[row.length - 2];
+            for (int j = 0; j < gen[i].length; j++) {
+                gen[i][j] = Support.parseDouble(row[j + 1].toString());
+            }
+            gencoAlertMarkers[i] = Boolean.parseBoolean(row[row.length - 1].toString());
+        }
+
+        double[][] lse = toDoubles(config.lseData);
+
+        Object[][][] psd = config.lsePriceSensitiveDemand;
+        double[][][] lsePriceSenData = new double[psd.length][24][];
+        for (int i = 0; i < psd.length; i++) {
+            lsePriceSenData[i] = toDoubles(psd[i]);
+        }
+
+        Object[][] hybrid = config.lseHybridDemand;
+        int[][] lseHybrid = new int[hybrid.length][];
+        for (int i = 0; i < hybrid.length; i++) {
+            lseHybrid[i] = new int[hybrid[i].length - 1];
+            for (int j = 0; j < lseHybrid[i].length; j++) {
+                lseHybrid[i][j] = Integer.parseInt(hybrid[i][j + 1].toString());
+            }
+        }
+
+        double[][] NDG = toDoubles(config.NDGData);
+
+        ames.InitLearningParameters(config.genLearningData);
+        ames.InitSimulationParameters(config.FNCSActive, config.RTOPDur, config.iMaxDay, config.DARRD, config.DARRU, config.RTRRD, config.RTRRU, defaults.Default_bMaximumDay,
+                config.dThresholdProbability, defaults.Default_bThreshold, defaults.Default_dDailyNetEarningThreshold,
+                defaults.Default_bDailyNetEarningThreshold, defaults.Default_iDailyNetEarningStartDay, defaults.Default_iDailyNetEarningDayLength,
+                defaults.Default_iStartDay, defaults.Default_iCheckDayLength, defaults.Default_dActionProbability,
+                defaults.Default_bActionProbabilityCheck, defaults.Default_iLearningCheckStartDay, defaults.Default_iLearningCheckDayLength,
+                defaults.Default_dLearningCheckDifference, defaults.Default_bLearningCheck, defaults.Default_dGenPriceCap, defaults.Default_dLSEPriceCap,
+                seed, config.priceSensitiveDemandFlag, config);
+        ames.AMESMarketSetupFromGUI(config.baseS, config.baseV, bus, branch, gen, lse, NDG, lsePriceSenData, lseHybrid,
+                gencoAlertMarkers, config.getSCUCInputData(), config.getStorageInputData(), config.hasStorage, config.hasNDG);
+        return ames;
+    }
+
+    /**
+     * @param rows case file rows, the first column is the name.
+     * @return the other columns as doubles.
+     */
+    private static double[][] toDoubles(Object[][] rows) {
+        double[][] d = new double[rows.length][];
+        for (int i = 0; i < rows.length; i++) {
+            d[i] = new double[rows[i].length - 1];
+            for (int j = 0; j < d[i].length; j++) {
+                d[i][j] = Double.parseDouble(rows[i][j + 1].toString());
+            }
+        }
+        return d;
+    }
+
+    public static void main(String[] args) throws Exception {
+        File workDir = new File(AMESMarket.DEFAULT_DATA_DIR);
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<File> batchFiles = new ArrayList<File>();
+        List<File> caseFiles = new ArrayList<File>();
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-work") && i + 1 < args.length) {
+                workDir = new File(args[++i]);
+            } else if (args[i].endsWith(".bth")) {
+                batchFiles.add(new File(args[i]));
+            } else {
+                caseFiles.add(new File(args[i]));
+            }
+        }
+
+        if (batchFiles.isEmpty() && caseFiles.isEmpty()) {
+            System.err.println("Usage: java amesmarket.BatchRunner [-threads n] [-work dir] batch.bth|case.dat ...");
+            System.exit(2);
+        }
+
+        BatchRunner runner = new BatchRunner(workDir, threads);
+        for (File f : batchFiles) {
+            runner.loadBatchFile(f);
+        }
+        for (File f : caseFiles) {
+            runner.addCaseFile(f);
+        }
+
+        int failed = runner.run();
+        System.out.println("Batch finished, " + failed + " run(s) failed.");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+}
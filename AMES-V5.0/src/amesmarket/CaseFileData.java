@@ -8,6 +8,7 @@ import java.util.ArrayList;
 
 
 import java.util.Arrays;
+import amesmarket.extern.psst.PSSTConfig;
 
 /**
  * Configuration parameters.
@@ -89,6 +90,10 @@ public class CaseFileData {
     public long RandomSeed;
     public boolean FNCSActive;
     public String Solver;
+    public String PSSTMode;
+    public String PSSTDataFormat;
+    public String SCEDEngine;
+    public String SCEDNetwork;
     public double DATDur;
     public int RTOPDur;
     public int RTKDur;
@@ -157,6 +162,10 @@ public class CaseFileData {
         baseV = 10;
         RandomSeed = 695672061;
         Solver = "cplex";
+        PSSTMode = PSSTConfig.ONE_SHOT_MODE;
+        PSSTDataFormat = PSSTConfig.TEXT_FORMAT;
+        SCEDEngine = SCED_ENGINE_PSST;
+        SCEDNetwork = SCED_NETWORK_ANGLES;
         DATDur = 1; 
         RTOPDur = 60;
         RTKDur = 5;
@@ -399,6 +408,25 @@ public class CaseFileData {
      * Use the LoadCase as the source of LSE demand data.
      */
     public static final int LSE_DEMAND_LOAD_CASE = 2;
+    /**
+     * Solve the RTM SCED with PSST.
+     */
+    public static final String SCED_ENGINE_PSST = "PSST";
+    /**
+     * Solve the RTM SCED in the JVM with {@link DCOPFJSCED}. Much slower
+     * than PSST on cases with many GenCos or RTKDur steps.
+     */
+    public static final String SCED_ENGINE_DCOPFJ = "DCOPFJ";
+    /**
+     * Model the network in the DCOPFJ SCED with bus voltage angles and a
+     * power balance at each bus.
+     */
+    public static final String SCED_NETWORK_ANGLES = "Angles";
+    /**
+     * Model the network in the DCOPFJ SCED with the shift factors of the
+     * monitored lines and a system power balance.
+     */
+    public static final String SCED_NETWORK_PTDF = "PTDF";
     ///////////////////////END CONSTANTS///////////////////////////////////////
 
     /**
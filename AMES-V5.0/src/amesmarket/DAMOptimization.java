@@ -8,6 +8,21 @@ import amesmarket.filereaders.BadDataFileFormatException;
 
 public interface DAMOptimization {
 
+	/**
+	 * Write whatever input the solver needs for the day.
+	 *
+	 * @param day
+	 * @param loadProfileByLSE
+	 * @param GenProfileByNDG
+	 * @param PSLdemandBidByLSE
+	 * @param supplyOfferByGen
+	 * @param numTimeSteps
+	 * @throws AMESMarketException
+	 */
+	public abstract void prepareDAMOptimization(int day, double[][] loadProfileByLSE,
+			double[][] GenProfileByNDG, double[][][] PSLdemandBidByLSE,
+			double[][] supplyOfferByGen, int numTimeSteps) throws AMESMarketException;
+
 	/**
 	 *
 	 * @param day
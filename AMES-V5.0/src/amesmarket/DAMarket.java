@@ -4,12 +4,10 @@
 package amesmarket;
 
 import amesmarket.extern.common.CommitmentDecision;
-import amesmarket.extern.psst.DataFileWriter;
 import amesmarket.extern.psst.PSSTDAMOpt;
 import java.util.ArrayList;
 import cern.colt.matrix.*;
 import cern.colt.matrix.impl.*;
-import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
@@ -21,6 +19,7 @@ public class DAMarket {
     private double CONVERGED_PROBABILITY;
 
     // Day-ahead market's data
+    private final MarketLog log = MarketLog.get(MarketLog.DAM);
     private AMESMarket ames;
     private ISO iso;
     
@@ -59,12 +58,13 @@ public class DAMarket {
     private String SolutionStatus;
     
     private final PSSTDAMOpt scuc;
-    private final File DAMReferenceModelFile = new File("DataFiles/DAMReferenceModel.dat");
 
     // constructor
-    public DAMarket(AMESMarket model) {
+    public DAMarket(ISO iso, AMESMarket model, RunContext runContext) {
         ames = model;
-        this.scuc = new PSSTDAMOpt(this.iso, this.ames);
+        this.iso = iso;
+        this.scuc = new PSSTDAMOpt(this.iso, this.ames, runContext);
+        this.scuc.setPSSTServer(iso.getPSSTServer());
         
         CONVERGED_PROBABILITY = ames.getThresholdProbability();
         genAgentList = ames.getGenAgentList();
@@ -91,7 +91,8 @@ public class DAMarket {
 
     public void DAMCollectBidsAndOffers(int h, int d, boolean FNCSActive) {
         
-        System.out.println("\nCollecting Bids and Offers at Hour " + h + " for Day " + (d) + " DAM operation");
+        log.debug("\nCollecting Bids and Offers at Hour " + h + " for Day " + (d) + " DAM operation");
+        FNCSEventDispatcher fncsEvents = FNCSActive ? ames.getFNCSEvents() : null;
 
         for (int i = 0; i < numGenAgents; i++) {
             GenAgent gen = (GenAgent) genAgentList.get(i);
@@ -107,11 +108,11 @@ public class DAMarket {
         for (int j = 0; j < numLSEAgents; j++) {
             LSEAgent lse = (LSEAgent) lseAgentList.get(j);
             //Receive fixed demand bid into loadProfile
-            loadProfile = lse.submitDAMFixedDemandBid(d, j, FNCSActive);
+            loadProfile = lse.submitDAMFixedDemandBid(d, j, fncsEvents);
             loadProfileByLSE[j] = loadProfile;  // Add each load profile from LSE_j to loadProfileByLSE in row j
 
             //Receive price sensitive demand bid into demandBid and then into demandBidbyLSE for each LSE
-            demandBid = lse.submitDAMPriceSensitiveDemandBid(d, j, ames.getPriceSensitiveDemandFlag(), FNCSActive);
+            demandBid = lse.submitDAMPriceSensitiveDemandBid(d, j, ames.getPriceSensitiveDemandFlag(), fncsEvents);
             demandBidByLSE[j] = demandBid;
 
             String lseName = String.format("%1$10d", lse.getID());
@@ -122,7 +123,7 @@ public class DAMarket {
         for (int j = 0; j < numNDGenAgents; j++) {
 
             NDGenAgent ndg = (NDGenAgent) NDGenAgentList.get(j);
-            NDGProfile = ndg.submitDAMNDGBid(d, j, FNCSActive);
+            NDGProfile = ndg.submitDAMNDGBid(d, j, fncsEvents);
             GenProfileByNDG[j] = NDGProfile;
 
         }
@@ -131,14 +132,33 @@ public class DAMarket {
     
     public void DAMarketOptimization(int day, double[][] loadProfileByLSE, double[][] GenProfileByNDG, double[][][] PSLdemandBidByLSE, double[][] supplyOfferByGen){
         
+        prepareDAMarketOptimization(day, loadProfileByLSE, GenProfileByNDG, PSLdemandBidByLSE, supplyOfferByGen);
+        solveDAMarketOptimization(day);
+    }
+
+    /**
+     * Write the SCUC of the day with the collected bids and offers. Everything
+     * the SCUC needs from the agents is read here.
+     */
+    public void prepareDAMarketOptimization(int day, double[][] loadProfileByLSE, double[][] GenProfileByNDG, double[][][] PSLdemandBidByLSE, double[][] supplyOfferByGen){
+        
         int numTimeSteps = (int) (this.ames.NUM_HOURS_PER_DAY_UC / this.ames.getTestCaseConfig().DATDur);
         
-        DataFileWriter dfw = new DataFileWriter();
         try {
-            dfw.writeScucScenDatFile(this.DAMReferenceModelFile, this.ames, day, loadProfileByLSE, GenProfileByNDG, PSLdemandBidByLSE, supplyOfferByGen, numTimeSteps);
+            this.scuc.prepareDAMOptimization(day, loadProfileByLSE, GenProfileByNDG, PSLdemandBidByLSE, supplyOfferByGen, numTimeSteps);
         } catch (AMESMarketException ex) {
             Logger.getLogger(DAMarket.class.getName()).log(Level.SEVERE, null, ex);
         }
+    }
+
+    /**
+     * Solve the SCUC written by
+     * {@link #prepareDAMarketOptimization(int, double[][], double[][], double[][][], double[][])}
+     * and pull its solution. Does not touch the agents, so it may run while
+     * the RTM clears: the ISO hands the solution to the GenCos when it posts
+     * it.
+     */
+    public void solveDAMarketOptimization(int day){
         
         try {
             this.scuc.solveDAMOptimization(day);
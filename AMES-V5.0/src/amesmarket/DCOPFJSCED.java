@@ -0,0 +1,960 @@
+// DCOPFJSCED.java
+// Real-time market SCED solved in the JVM with QuadProgJ.
+//
+// The formulation follows the RTM SCED model of the modified PSST (bus power
+// balance with penalized mismatch, line limits, ramping, price-sensitive load
+// and reserves) for a fixed set of unit commitments. The matrix layout follows
+// the DC-OPF paper: Junjie Sun and Leigh Tesfatsion, (2006) "DC OPF Formulation
+// and Solution Using QuadProgJ", ISU Econ Working Paper Series #06014
+
+package amesmarket;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import amesmarket.extern.common.CommitmentDecision;
+import cern.colt.matrix.DoubleMatrix1D;
+import cern.colt.matrix.DoubleMatrix2D;
+import cern.colt.matrix.impl.DenseDoubleMatrix1D;
+import cern.colt.matrix.impl.DenseDoubleMatrix2D;
+import quadprogj.QuadProgJ;
+
+/**
+ * SCED for the real-time market that runs in-process instead of going out to
+ * PSST.
+ *
+ * All NIRTM intervals of the RTM operating period, or of a window of several
+ * RTM intervals (see {@link RTMarket}), are solved as one strictly
+ * convex QP. Per interval the decision variables are the dispatch of each
+ * committed GenCo, the price-sensitive demand of each LSE, the voltage angles
+ * of buses 2..K (bus 1 is the angle reference) and a positive and negative
+ * load mismatch for each bus. Everything is in PU, like the PSST input file.
+ *
+ * With <code>SCEDNetwork PTDF</code> in the case file the network is modeled
+ * with the shift factors of the grid instead ({@link TransGrid#getShiftFactors()}):
+ * no angle variables, one system power balance per interval, and flow limits
+ * on the monitored lines only, the ones with a limit. The LMP of a bus is the
+ * system price plus the congestion cost of the lines it loads. The solution
+ * is the same, with a smaller QP.
+ *
+ * Differences from the PSST model:
+ * <ul>
+ * <li>Costs and benefits use the exact quadratic curve, not the NS-segment
+ * piecewise linearization, so prices can differ slightly.</li>
+ * <li>Reserve availability is the committed capacity, not the
+ * ramp-limited capacity.</li>
+ * <li>Zonal up reserves require the zone's committed capacity to cover the
+ * zone's load plus its up reserve, the same form as the global requirement.</li>
+ * </ul>
+ *
+ * Select it with <code>SCEDEngine DCOPFJ</code> in the case file. The QP is
+ * dense and QuadProgJ's work grows with the cube of its size at every
+ * active constraint, so a SCED of a case with many GenCos or RTKDur steps,
+ * 8BusERCOT for instance, takes minutes where PSST takes seconds. A warning
+ * with the size of the QP is logged when the engine is created.
+ */
+public class DCOPFJSCED implements RTMOptimization {
+
+    /**
+     * Smallest diagonal element allowed in G. QuadProgJ needs G to be
+     * positive definite, but angles, mismatches and GenCos with c = 0 have no
+     * quadratic cost.
+     */
+    private static final double MIN_DIAG = 1.0e-4;
+    /**
+     * Line limits at or below this are treated as unlimited, as in PSST.
+     */
+    private static final double LINE_CAP_EPS = 1.0e-6;
+    /**
+     * Ramp limit PSST uses in place of a zero ramp limit.
+     */
+    private static final double UNLIMITED_RAMP = 999999;
+
+    private static final int A_INDEX = 0;
+    private static final int B_INDEX = 1;
+    private static final int C_INDEX = 2;
+
+    private final MarketLog log = MarketLog.get(MarketLog.SOLVER);
+    private final AMESMarket ames;
+    private final double baseS;
+    private final int K, N, I, J, L;
+    private final int NIRTM;
+    private final int deltaK;
+    private final boolean ptdf;
+
+    //inputs of the current solve
+    private List<CommitmentDecision> genCoCommitments;
+    private double[][] rtDemand;
+    private double[][] rtNDG;
+    private double[][][] PSLdemandBidByLSE;
+    private int minute;
+    private int hour;
+
+    //solution
+    private double[][] RTMDispatch;
+    private double[] intervalGenDispatch;
+    private double[][] shutdownCost;
+    private double[][] startupCost;
+    private double[][] productionCost;
+    private double[][] RTMLMP;
+    private double[] intervalLMP;
+    private double[][] voltageAngles;
+    private double[][] dailyPriceSensitiveDemand;
+    private String SolutionStatus;
+
+    //variable layout of the current QP. -1 if the variable is not in the QP.
+    private int[] genVar;
+    private int[] pslVar;
+    private int[] angleVar;
+    private int posMismatchVar, negMismatchVar;
+    private int varsPerInterval;
+    //first of the two flow limit rows of each interval and line in Ciq, -1
+    //if the line is not monitored. Only with the PTDF network model.
+    private int[][] lineRow;
+
+    //Objective and constraint matrices of the last QP. They only depend on
+    //the commitments and the cost curves, so consecutive intervals usually
+    //only need new right hand sides.
+    private double[] cachedSignature;
+    private DoubleMatrix2D cachedG, cachedCeq, cachedCiq;
+    private DoubleMatrix1D cachedA;
+    private final SCEDStatistics scedStatistics = new SCEDStatistics();
+
+    /**
+     * @param ames market instance begin used.
+     */
+    public DCOPFJSCED(AMESMarket ames) {
+        this(ames, ames.NIRTM);
+    }
+
+    /**
+     * @param ames market instance begin used.
+     * @param numSteps number of RTKDur steps solved together.
+     */
+    public DCOPFJSCED(AMESMarket ames, int numSteps) {
+        this.ames = ames;
+        this.baseS = ames.getBaseS();
+        this.K = ames.getNumNodes();
+        this.N = ames.getNumBranches();
+        this.I = ames.getNumGenAgents();
+        this.J = ames.getNumLSEAgents();
+        this.L = ames.getNumNDGAgents();
+        this.deltaK = ames.getTestCaseConfig().RTKDur;
+        this.NIRTM = numSteps;
+        this.ptdf = CaseFileData.SCED_NETWORK_PTDF.equals(ames.getTestCaseConfig().SCEDNetwork);
+
+        int perStep = I + J + 2 * K + (this.ptdf ? 0 : K - 1);
+        log.warn(String.format("The DCOPFJ SCED solves a dense QP of up to %d variables with QuadProgJ."
+                + " This can take minutes per SCED, use SCEDEngine PSST for long runs.", NIRTM * perStep));
+    }
+
+    @Override
+    public void prepareRTMOptimization(List<CommitmentDecision> genCoCommitments,
+            double[][] rtDemand, double[][] rtNDG, double[][][] PSLdemandBidByLSE,
+            int m, int h, int d) throws AMESMarketException {
+        this.genCoCommitments = genCoCommitments;
+        this.rtDemand = rtDemand;
+        this.rtNDG = rtNDG;
+        this.PSLdemandBidByLSE = PSLdemandBidByLSE;
+        this.minute = m;
+        this.hour = h;
+    }
+
+    /**
+     * Allocate new space for each a solution. Must be called every time a new
+     * solution is created to prevent aliasing problems.
+     */
+    private void createSpaceForSols() {
+        this.RTMDispatch = new double[NIRTM][this.I];
+        this.intervalGenDispatch = new double[this.I];
+        this.shutdownCost = new double[NIRTM][this.I];
+        this.startupCost = new double[NIRTM][this.I];
+        this.productionCost = new double[NIRTM][this.I];
+        this.RTMLMP = new double[NIRTM][this.K];
+        this.intervalLMP = new double[this.K];
+        this.voltageAngles = new double[NIRTM][this.K];
+        this.dailyPriceSensitiveDemand = new double[NIRTM][this.J];
+    }
+
+    @Override
+    public void solveRTMOptimization(int interval) throws AMESMarketException {
+        RunProfile.Timer solve = this.ames.getRunProfile().start(RunProfile.SOLVE);
+        try {
+            this.solve(interval);
+        } finally {
+            solve.stop();
+        }
+    }
+
+    private void solve(int interval) throws AMESMarketException {
+        if (this.genCoCommitments == null) {
+            throw new AMESMarketException("No inputs for the RTM SCED in interval " + interval);
+        }
+
+        this.createSpaceForSols();
+
+        final List<GenAgent> gens = this.ames.getGenAgentList();
+        final List<LSEAgent> lses = this.ames.getLSEAgentList();
+        final boolean hasPSL = this.ames.getPriceSensitiveDemandFlag() > 0;
+
+        //commitment status for this hour and the one before it.
+        int[] unitOn = new int[I];
+        int[] unitOnT0 = new int[I];
+        for (CommitmentDecision cd : this.genCoCommitments) {
+            unitOn[cd.generatorIdx] = cd.commitmentDecisions[this.hour - 1];
+            if (this.hour == 1) {
+                unitOnT0[cd.generatorIdx] = gens.get(cd.generatorIdx).getUnitOnT0State() > 0 ? 1 : 0;
+            } else {
+                unitOnT0[cd.generatorIdx] = cd.commitmentDecisions[this.hour - 2];
+            }
+        }
+
+        //variable layout within one interval.
+        int n = 0;
+        this.genVar = new int[I];
+        for (int i = 0; i < I; i++) {
+            this.genVar[i] = unitOn[i] == 1 ? n++ : -1;
+        }
+        this.pslVar = new int[J];
+        for (int j = 0; j < J; j++) {
+            this.pslVar[j] = hasPSL ? n++ : -1;
+        }
+        this.angleVar = new int[K];
+        Arrays.fill(this.angleVar, -1);
+        if (!this.ptdf) {
+            for (int k = 1; k < K; k++) {
+                this.angleVar[k] = n++;
+            }
+        }
+        this.posMismatchVar = n;
+        n += K;
+        this.negMismatchVar = n;
+        n += K;
+        this.varsPerInterval = n;
+
+        final int numVars = NIRTM * this.varsPerInterval;
+
+        double[][] netFixedLoad = this.netFixedLoad();
+
+        //Reserve requirements that do not depend on any variable can be
+        //checked before building the QP.
+        if (!hasPSL && !this.reservesSatisfied(unitOn, netFixedLoad)) {
+            this.SolutionStatus = "infeasible";
+            log.warn("Solution is Infeasible because the reserve constraints are not satisfied.");
+            return;
+        }
+
+        double[][] supplyOffer = this.ames.getISO().getSupplyOfferByGenRT();
+        double[] signature = this.modelSignature(unitOn, supplyOffer);
+        final boolean reuse = Arrays.equals(signature, this.cachedSignature);
+
+        if (!reuse) {
+            this.buildObjective(numVars, supplyOffer);
+        }
+
+        //// Power balance: one equality per bus and interval, or one per
+        //// interval with the PTDF network model.
+        final double[][] branchData = this.ames.getBranchData();
+        final double baseV = this.ames.getBaseV();
+        double[] susceptance = new double[N];
+        for (int l = 0; l < N; l++) {
+            susceptance[l] = 1.0 / (branchData[l][3] * baseS / (baseV * baseV));
+        }
+        final ShiftFactors shiftFactors = this.ptdf ? this.shiftFactors() : null;
+
+        final int numEq = this.ptdf ? NIRTM : NIRTM * K;
+        DoubleMatrix2D Ceq = reuse ? null : new DenseDoubleMatrix2D(numVars, numEq);
+        DoubleMatrix1D beq = new DenseDoubleMatrix1D(numEq);
+        for (int t = 0; t < NIRTM; t++) {
+            for (int k = 0; k < K; k++) {
+                int c = this.balanceRow(t, k);
+                beq.setQuick(c, beq.getQuick(c) + netFixedLoad[k][t]);
+                set(Ceq, this.var(t, this.posMismatchVar + k), c, 1);
+                set(Ceq, this.var(t, this.negMismatchVar + k), c, -1);
+            }
+            for (int i = 0; i < I; i++) {
+                if (this.genVar[i] >= 0) {
+                    int k = gens.get(i).getAtNode() - 1;
+                    set(Ceq, this.var(t, this.genVar[i]), this.balanceRow(t, k), 1);
+                }
+            }
+            for (int j = 0; j < J; j++) {
+                if (this.pslVar[j] >= 0) {
+                    int k = lses.get(j).getAtNode() - 1;
+                    set(Ceq, this.var(t, this.pslVar[j]), this.balanceRow(t, k), -1);
+                }
+            }
+            if (this.ptdf) {
+                continue;
+            }
+            //line flow B(from - to) leaves 'from' and enters 'to'.
+            for (int l = 0; l < N; l++) {
+                int from = (int) branchData[l][0] - 1;
+                int to = (int) branchData[l][1] - 1;
+                this.addFlow(Ceq, t, t * K + from, from, to, -susceptance[l]);
+                this.addFlow(Ceq, t, t * K + to, from, to, susceptance[l]);
+            }
+        }
+
+        //// Inequalities, Ciq' x >= biq
+        final int numIneq = this.countInequalities(hasPSL, branchData);
+        DoubleMatrix2D Ciq = reuse ? null : new DenseDoubleMatrix2D(numVars, numIneq);
+        DoubleMatrix1D biq = new DenseDoubleMatrix1D(numIneq);
+        int c = 0;
+
+        final double rampScale = deltaK / baseS;
+        this.lineRow = new int[NIRTM][N];
+        for (int t = 0; t < NIRTM; t++) {
+            Arrays.fill(this.lineRow[t], -1);
+            for (int i = 0; i < I; i++) {
+                if (this.genVar[i] < 0) {
+                    continue;
+                }
+                GenAgent ga = gens.get(i);
+                double capMin = ga.getCapacityMin() / baseS;
+                double capMax = ga.getCapacityMax() / baseS;
+                int v = this.var(t, this.genVar[i]);
+
+                //capMin <= P <= capMax
+                set(Ciq, v, c, 1);
+                biq.setQuick(c++, capMin);
+                set(Ciq, v, c, -1);
+                biq.setQuick(c++, -capMax);
+
+                double rampUp = this.rampLimit(ga.getNominalRampUpLim(), rampScale);
+                double rampDown = this.rampLimit(ga.getNominalRampDownLim(), rampScale);
+                if (t == 0) {
+                    double powerT0 = this.powerT0(ga, capMin, capMax);
+                    double startUp = this.rampLimit(ga.getStartupRampLim(), rampScale);
+                    double shutDown = this.rampLimit(ga.getShutdownRampLim(), rampScale);
+                    //P(1) <= PT0 + RU u0 + SU (1 - u0)
+                    set(Ciq, v, c, -1);
+                    biq.setQuick(c++, -(powerT0 + rampUp * unitOnT0[i] + startUp * (1 - unitOnT0[i])));
+                    //PT0 - P(1) <= RD + (capMax - SD) (1 - u0)
+                    set(Ciq, v, c, 1);
+                    biq.setQuick(c++, powerT0 - rampDown - (capMax - shutDown) * (1 - unitOnT0[i]));
+                } else {
+                    int prev = this.var(t - 1, this.genVar[i]);
+                    //P(t) - P(t-1) <= RU
+                    set(Ciq, v, c, -1);
+                    set(Ciq, prev, c, 1);
+                    biq.setQuick(c++, -rampUp);
+                    //P(t-1) - P(t) <= RD
+                    set(Ciq, v, c, 1);
+                    set(Ciq, prev, c, -1);
+                    biq.setQuick(c++, -rampDown);
+                }
+            }
+
+            for (int j = 0; j < J; j++) {
+                if (this.pslVar[j] < 0) {
+                    continue;
+                }
+                int v = this.var(t, this.pslVar[j]);
+                //0 <= S <= SLMax
+                set(Ciq, v, c, 1);
+                biq.setQuick(c++, 0);
+                set(Ciq, v, c, -1);
+                biq.setQuick(c++, -this.PSLdemandBidByLSE[j][t][3] / baseS);
+            }
+
+            for (int k = 0; k < K; k++) {
+                set(Ciq, this.var(t, this.posMismatchVar + k), c, 1);
+                biq.setQuick(c++, 0);
+                set(Ciq, this.var(t, this.negMismatchVar + k), c, 1);
+                biq.setQuick(c++, 0);
+            }
+
+            for (int l = 0; l < N; l++) {
+                double cap = branchData[l][2] / baseS;
+                if (cap <= LINE_CAP_EPS) {
+                    continue;
+                }
+                if (this.ptdf) {
+                    //-cap <= PTDF (injection - load) <= cap
+                    double[] factors = shiftFactors.getRow(l);
+                    double loadFlow = 0;
+                    for (int k = 1; k < K; k++) {
+                        loadFlow += factors[k] * netFixedLoad[k][t];
+                    }
+                    this.lineRow[t][l] = c;
+                    this.addInjection(Ciq, t, c, factors, 1);
+                    biq.setQuick(c++, -cap + loadFlow);
+                    this.addInjection(Ciq, t, c, factors, -1);
+                    biq.setQuick(c++, -cap - loadFlow);
+                    continue;
+                }
+                int from = (int) branchData[l][0] - 1;
+                int to = (int) branchData[l][1] - 1;
+                //-cap <= B(from - to) <= cap
+                this.addFlow(Ciq, t, c, from, to, susceptance[l]);
+                biq.setQuick(c++, -cap);
+                this.addFlow(Ciq, t, c, from, to, -susceptance[l]);
+                biq.setQuick(c++, -cap);
+            }
+
+            if (hasPSL) {
+                c = this.addReserveConstraints(Ciq, biq, c, t, unitOn, netFixedLoad);
+            }
+        }
+
+        if (reuse) {
+            Ceq = this.cachedCeq;
+            Ciq = this.cachedCiq;
+        } else {
+            this.cachedCeq = Ceq;
+            this.cachedCiq = Ciq;
+            this.cachedSignature = signature;
+        }
+        this.scedStatistics.recordSolve(reuse);
+
+        //// Solve
+        QuadProgJ qpj = new QuadProgJ(this.cachedG, this.cachedA, Ceq, beq, Ciq, biq);
+        if (!qpj.getIsFeasibleAndOptimal()) {
+            this.SolutionStatus = "infeasible";
+            log.warn("Solution is Infeasible: QuadProgJ found no feasible solution of the SCED QP.");
+            return;
+        }
+        this.SolutionStatus = "optimal";
+
+        double[] x = qpj.getMinX();
+        double[] eqMultipliers = qpj.getEqMultipliers();
+        double[] ineqMultipliers = this.ptdf ? qpj.getIneqMultipiers() : null;
+
+        for (int t = 0; t < NIRTM; t++) {
+            for (int i = 0; i < I; i++) {
+                if (this.genVar[i] >= 0) {
+                    this.RTMDispatch[t][i] = x[this.var(t, this.genVar[i])] * baseS;
+                }
+            }
+            for (int j = 0; j < J; j++) {
+                if (this.pslVar[j] >= 0) {
+                    this.dailyPriceSensitiveDemand[t][j] = x[this.var(t, this.pslVar[j])] * baseS;
+                }
+            }
+            if (this.ptdf) {
+                this.ptdfSolution(t, x, eqMultipliers[t], ineqMultipliers, netFixedLoad, shiftFactors, baseV);
+            } else {
+                for (int k = 1; k < K; k++) {
+                    this.voltageAngles[t][k] = x[this.var(t, this.angleVar[k])];
+                }
+                for (int k = 0; k < K; k++) {
+                    this.RTMLMP[t][k] = eqMultipliers[t * K + k] / baseS;
+                }
+            }
+            for (int k = 0; k < K; k++) {
+                this.intervalLMP[k] += this.RTMLMP[t][k] / NIRTM;
+            }
+        }
+
+        for (int i = 0; i < I; i++) {
+            this.intervalGenDispatch[i] = this.RTMDispatch[NIRTM - 1][i];
+            gens.get(i).setPowerPrevInterval(this.intervalGenDispatch[i]);
+        }
+
+        this.computeCosts(unitOn, unitOnT0, supplyOffer);
+    }
+
+    /**
+     * Costs of each GenCo and step, as PSST reports them: the production
+     * cost is the cost of the dispatch above the cost at the minimum output,
+     * over RTKDur, and the startup and shutdown costs are charged in the
+     * first step of the hour the commitment changes in.
+     */
+    private void computeCosts(int[] unitOn, int[] unitOnT0, double[][] supplyOffer) {
+        final List<GenAgent> gens = this.ames.getGenAgentList();
+        final double stepHours = deltaK / 60.0;
+        for (int i = 0; i < I; i++) {
+            if (unitOn[i] != 1) {
+                continue;
+            }
+            double minCost = cost(supplyOffer[i], gens.get(i).getCapacityMin());
+            for (int t = 0; t < NIRTM; t++) {
+                this.productionCost[t][i] = stepHours * (cost(supplyOffer[i], this.RTMDispatch[t][i]) - minCost);
+            }
+        }
+
+        if (this.minute != 0) {
+            return;
+        }
+        for (int i = 0; i < I; i++) {
+            GenAgent ga = gens.get(i);
+            if (unitOn[i] == 1 && unitOnT0[i] == 0) {
+                this.startupCost[0][i] = this.hoursOff(i) < ga.getColdStartUpTime()
+                        ? ga.getHotStartUpCost() : ga.getColdStartUpCost();
+            } else if (unitOn[i] == 0 && unitOnT0[i] == 1) {
+                this.shutdownCost[0][i] = ga.getShutDownCost();
+            }
+        }
+    }
+
+    /**
+     * @return a + b p + c p^2, in $/h, for the supply offer and the power in MW.
+     */
+    private static double cost(double[] supplyOffer, double p) {
+        return supplyOffer[A_INDEX] + supplyOffer[B_INDEX] * p + supplyOffer[C_INDEX] * p * p;
+    }
+
+    /**
+     * @return hours GenCo i has been off before the current hour, going back
+     * through the day's commitments and then its state at the start of the day.
+     */
+    private int hoursOff(int i) {
+        int off = 0;
+        for (CommitmentDecision cd : this.genCoCommitments) {
+            if (cd.generatorIdx != i) {
+                continue;
+            }
+            for (int h = this.hour - 2; h >= 0; h--) {
+                if (cd.commitmentDecisions[h] != 0) {
+                    return off;
+                }
+                off++;
+            }
+        }
+        int state = this.ames.getGenAgentList().get(i).getUnitOnT0State();
+        return state < 0 ? off - state : off;
+    }
+
+    /**
+     * Objective: GenCo cost curves, minus price-sensitive load benefit, plus
+     * the mismatch penalties. Stored in cachedG and cachedA.
+     */
+    private void buildObjective(int numVars, double[][] supplyOffer) {
+        DoubleMatrix2D G = new DenseDoubleMatrix2D(numVars, numVars);
+        DoubleMatrix1D a = new DenseDoubleMatrix1D(numVars);
+        double balPenPos = this.ames.getTestCaseConfig().BalPenPos;
+        double balPenNeg = this.ames.getTestCaseConfig().BalPenNeg;
+
+        for (int t = 0; t < NIRTM; t++) {
+            for (int i = 0; i < I; i++) {
+                if (this.genVar[i] >= 0) {
+                    int v = this.var(t, this.genVar[i]);
+                    a.setQuick(v, supplyOffer[i][B_INDEX] * baseS);
+                    G.setQuick(v, v, 2 * supplyOffer[i][C_INDEX] * baseS * baseS);
+                }
+            }
+            for (int j = 0; j < J; j++) {
+                if (this.pslVar[j] >= 0) {
+                    double[] bid = this.PSLdemandBidByLSE[j][t];
+                    int v = this.var(t, this.pslVar[j]);
+                    //maximize d + e S - f S^2
+                    a.setQuick(v, -bid[1] * baseS);
+                    G.setQuick(v, v, 2 * bid[2] * baseS * baseS);
+                }
+            }
+            for (int k = 0; k < K; k++) {
+                a.setQuick(this.var(t, this.posMismatchVar + k), balPenPos);
+                a.setQuick(this.var(t, this.negMismatchVar + k), balPenNeg);
+            }
+        }
+        for (int v = 0; v < numVars; v++) {
+            if (G.getQuick(v, v) < MIN_DIAG) {
+                G.setQuick(v, v, MIN_DIAG);
+            }
+        }
+
+        this.cachedG = G;
+        this.cachedA = a;
+    }
+
+    /**
+     * Everything the objective and the constraint matrices depend on, apart
+     * from the network: the commitments, the GenCo cost curves and the
+     * price-sensitive load benefit curves. The right hand sides are rebuilt
+     * for every solve.
+     */
+    private double[] modelSignature(int[] unitOn, double[][] supplyOffer) {
+        final boolean hasPSL = this.ames.getPriceSensitiveDemandFlag() > 0;
+        double[] sig = new double[I * 3 + (hasPSL ? J * NIRTM * 2 : 0)];
+        int n = 0;
+        for (int i = 0; i < I; i++) {
+            sig[n++] = unitOn[i];
+            sig[n++] = supplyOffer[i][B_INDEX];
+            sig[n++] = supplyOffer[i][C_INDEX];
+        }
+        if (hasPSL) {
+            for (int j = 0; j < J; j++) {
+                for (int t = 0; t < NIRTM; t++) {
+                    sig[n++] = this.PSLdemandBidByLSE[j][t][1];
+                    sig[n++] = this.PSLdemandBidByLSE[j][t][2];
+                }
+            }
+        }
+        return sig;
+    }
+
+    /**
+     * C(r, c) = v, unless C is null because the cached matrix is reused.
+     */
+    private static void set(DoubleMatrix2D C, int r, int c, double v) {
+        if (C != null) {
+            C.setQuick(r, c, v);
+        }
+    }
+
+    /**
+     * @param t interval
+     * @param v variable within the interval
+     * @return index of the variable in the QP.
+     */
+    private int var(int t, int v) {
+        return t * this.varsPerInterval + v;
+    }
+
+    /**
+     * @return row of the power balance of bus k in interval t in Ceq.
+     */
+    private int balanceRow(int t, int k) {
+        return this.ptdf ? t : t * K + k;
+    }
+
+    private ShiftFactors shiftFactors() throws AMESMarketException {
+        try {
+            return this.ames.getTransGrid().getShiftFactors();
+        } catch (IllegalArgumentException ex) {
+            throw new AMESMarketException("No PTDF network model for the RTM SCED: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Add sign * factors[k] * (net injection of the variables at bus k),
+     * summed over the buses, to column c.
+     */
+    private void addInjection(DoubleMatrix2D C, int t, int c, double[] factors, double sign) {
+        if (C == null) {
+            return;
+        }
+        List<GenAgent> gens = this.ames.getGenAgentList();
+        List<LSEAgent> lses = this.ames.getLSEAgentList();
+        for (int i = 0; i < I; i++) {
+            if (this.genVar[i] >= 0) {
+                C.setQuick(this.var(t, this.genVar[i]), c, sign * factors[gens.get(i).getAtNode() - 1]);
+            }
+        }
+        for (int j = 0; j < J; j++) {
+            if (this.pslVar[j] >= 0) {
+                C.setQuick(this.var(t, this.pslVar[j]), c, -sign * factors[lses.get(j).getAtNode() - 1]);
+            }
+        }
+        for (int k = 0; k < K; k++) {
+            C.setQuick(this.var(t, this.posMismatchVar + k), c, sign * factors[k]);
+            C.setQuick(this.var(t, this.negMismatchVar + k), c, -sign * factors[k]);
+        }
+    }
+
+    /**
+     * LMPs and voltage angles of interval t with the PTDF network model. The
+     * LMP of bus k is the system price plus the shift factors of k times the
+     * multipliers of the flow limits.
+     */
+    private void ptdfSolution(int t, double[] x, double systemPrice, double[] ineqMultipliers,
+            double[][] netFixedLoad, ShiftFactors shiftFactors, double baseV) {
+        for (int k = 0; k < K; k++) {
+            this.RTMLMP[t][k] = systemPrice;
+        }
+        for (int l = 0; l < N; l++) {
+            int c = this.lineRow[t][l];
+            if (c < 0) {
+                continue;
+            }
+            double congestion = ineqMultipliers[c] - ineqMultipliers[c + 1];
+            if (congestion != 0) {
+                double[] factors = shiftFactors.getRow(l);
+                for (int k = 0; k < K; k++) {
+                    this.RTMLMP[t][k] += factors[k] * congestion;
+                }
+            }
+        }
+        for (int k = 0; k < K; k++) {
+            this.RTMLMP[t][k] /= baseS;
+        }
+
+        double[] injection = new double[K];
+        for (int k = 0; k < K; k++) {
+            injection[k] = x[this.var(t, this.posMismatchVar + k)] - x[this.var(t, this.negMismatchVar + k)]
+                    - netFixedLoad[k][t];
+        }
+        List<GenAgent> gens = this.ames.getGenAgentList();
+        for (int i = 0; i < I; i++) {
+            if (this.genVar[i] >= 0) {
+                injection[gens.get(i).getAtNode() - 1] += x[this.var(t, this.genVar[i])];
+            }
+        }
+        List<LSEAgent> lses = this.ames.getLSEAgentList();
+        for (int j = 0; j < J; j++) {
+            if (this.pslVar[j] >= 0) {
+                injection[lses.get(j).getAtNode() - 1] -= x[this.var(t, this.pslVar[j])];
+            }
+        }
+        //The grid reactances are in SI, the angles in PU.
+        double[] angles = shiftFactors.angles(injection);
+        for (int k = 0; k < K; k++) {
+            this.voltageAngles[t][k] = angles[k] * baseS / (baseV * baseV);
+        }
+    }
+
+    /**
+     * Add coef * (angle[from] - angle[to]) to column c.
+     */
+    private void addFlow(DoubleMatrix2D C, int t, int c, int from, int to, double coef) {
+        if (C == null) {
+            return;
+        }
+        if (this.angleVar[from] >= 0) {
+            int v = this.var(t, this.angleVar[from]);
+            C.setQuick(v, c, C.getQuick(v, c) + coef);
+        }
+        if (this.angleVar[to] >= 0) {
+            int v = this.var(t, this.angleVar[to]);
+            C.setQuick(v, c, C.getQuick(v, c) - coef);
+        }
+    }
+
+    /**
+     * Net fixed load (LSE fixed demand less NDG output) at each bus, in PU.
+     * @return [K][NIRTM]
+     */
+    private double[][] netFixedLoad() {
+        double[][] load = new double[K][NIRTM];
+        List<LSEAgent> lses = this.ames.getLSEAgentList();
+        for (int j = 0; j < J; j++) {
+            int k = lses.get(j).getAtNode() - 1;
+            for (int t = 0; t < NIRTM; t++) {
+                load[k][t] += this.rtDemand[j][t] / baseS;
+            }
+        }
+        List<NDGenAgent> ndgs = this.ames.getNDGenAgentList();
+        for (int l = 0; l < L; l++) {
+            int k = ndgs.get(l).getAtNode() - 1;
+            for (int t = 0; t < NIRTM; t++) {
+                load[k][t] -= this.rtNDG[l][t] / baseS;
+            }
+        }
+        return load;
+    }
+
+    /**
+     * Scale a ramp limit to PU per interval. PSST reads a limit of zero as
+     * no limit.
+     */
+    private double rampLimit(double limit, double rampScale) {
+        double scaled = limit * rampScale;
+        return scaled == 0 ? UNLIMITED_RAMP : scaled;
+    }
+
+    /**
+     * Same adjustment of the initial power PSST gets from the DataFileWriter.
+     */
+    private double powerT0(GenAgent ga, double capMin, double capMax) {
+        double powerT0 = ga.getPowerPrevInterval() / baseS;
+        if (powerT0 < capMin) {
+            powerT0 = capMin;
+        } else if (powerT0 > capMax) {
+            powerT0 = capMax;
+        }
+        return powerT0;
+    }
+
+    private int countInequalities(boolean hasPSL, double[][] branchData) {
+        int perInterval = 2 * K;
+        for (int i = 0; i < I; i++) {
+            if (this.genVar[i] >= 0) {
+                perInterval += 4;
+            }
+        }
+        if (hasPSL) {
+            perInterval += 2 * J;
+            perInterval += 2 * (1 + this.reserveZones().size());
+        }
+        for (int l = 0; l < N; l++) {
+            if (branchData[l][2] / baseS > LINE_CAP_EPS) {
+                perInterval += 2;
+            }
+        }
+        return NIRTM * perInterval;
+    }
+
+    private Map<String, CaseFileData.ZonalData> reserveZones() {
+        CaseFileData cfd = this.ames.getTestCaseConfig();
+        if (cfd.NumberOfReserveZones > 1) {
+            return cfd.getZonalData();
+        }
+        return Collections.<String, CaseFileData.ZonalData>emptyMap();
+    }
+
+    /**
+     * Check the reserve requirements when there is no price-sensitive load,
+     * in which case they only depend on the commitments and the fixed load.
+     */
+    private boolean reservesSatisfied(int[] unitOn, double[][] netFixedLoad) {
+        for (int t = 0; t < NIRTM; t++) {
+            double[] up = new double[1 + this.reserveZones().size()];
+            double[] down = new double[up.length];
+            double[] needUp = new double[up.length];
+            double[] needDown = new double[up.length];
+            this.reserveTerms(t, unitOn, netFixedLoad, up, down, needUp, needDown, null);
+            for (int z = 0; z < up.length; z++) {
+                if (up[z] < needUp[z] || down[z] > needDown[z]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reserve rows for interval t when there is price-sensitive load:
+     * committed capacity - up reserve >= fixed load + PSL, and
+     * committed minimum + down reserve <= fixed load + PSL,
+     * system wide and for each reserve zone.
+     * @return next free column in Ciq.
+     */
+    private int addReserveConstraints(DoubleMatrix2D Ciq, DoubleMatrix1D biq, int c,
+            int t, int[] unitOn, double[][] netFixedLoad) {
+        int numAreas = 1 + this.reserveZones().size();
+        double[] up = new double[numAreas];
+        double[] down = new double[numAreas];
+        double[] needUp = new double[numAreas];
+        double[] needDown = new double[numAreas];
+        boolean[][] lseInArea = new boolean[numAreas][J];
+        this.reserveTerms(t, unitOn, netFixedLoad, up, down, needUp, needDown, lseInArea);
+
+        for (int z = 0; z < numAreas; z++) {
+            //-S >= needUp - up
+            for (int j = 0; j < J; j++) {
+                if (lseInArea[z][j]) {
+                    set(Ciq, this.var(t, this.pslVar[j]), c, -1);
+                }
+            }
+            biq.setQuick(c++, needUp[z] - up[z]);
+            //S >= down - needDown
+            for (int j = 0; j < J; j++) {
+                if (lseInArea[z][j]) {
+                    set(Ciq, this.var(t, this.pslVar[j]), c, 1);
+                }
+            }
+            biq.setQuick(c++, down[z] - needDown[z]);
+        }
+        return c;
+    }
+
+    /**
+     * Fill in the constant parts of the reserve requirements for interval t.
+     * Area 0 is the whole system, area z &gt; 0 is the z-th reserve zone.
+     *
+     * @param up committed capacity in each area
+     * @param down committed minimum output in each area
+     * @param needUp fixed load plus up reserve in each area
+     * @param needDown fixed load less down reserve in each area
+     * @param lseInArea if not null, set to which LSEs are in each area.
+     */
+    private void reserveTerms(int t, int[] unitOn, double[][] netFixedLoad,
+            double[] up, double[] down, double[] needUp, double[] needDown,
+            boolean[][] lseInArea) {
+        boolean[][] busInArea = new boolean[up.length][K];
+        double[] upPercent = new double[up.length];
+        double[] downPercent = new double[up.length];
+
+        Arrays.fill(busInArea[0], true);
+        upPercent[0] = this.ames.getRTRRU();
+        downPercent[0] = this.ames.getRTRRD();
+        int z = 1;
+        for (CaseFileData.ZonalData zd : this.reserveZones().values()) {
+            for (int b : zd.getBuses()) {
+                busInArea[z][b - 1] = true;
+            }
+            upPercent[z] = zd.getZonalRTRRU();
+            downPercent[z] = zd.getZonalRTRRD();
+            z++;
+        }
+
+        List<GenAgent> gens = this.ames.getGenAgentList();
+        List<LSEAgent> lses = this.ames.getLSEAgentList();
+        for (z = 0; z < up.length; z++) {
+            double load = 0;
+            for (int k = 0; k < K; k++) {
+                if (busInArea[z][k]) {
+                    load += netFixedLoad[k][t];
+                }
+            }
+            for (int i = 0; i < I; i++) {
+                if (unitOn[i] == 1 && busInArea[z][gens.get(i).getAtNode() - 1]) {
+                    up[z] += gens.get(i).getCapacityMax() / baseS;
+                    down[z] += gens.get(i).getCapacityMin() / baseS;
+                }
+            }
+            needUp[z] = (1 + upPercent[z]) * load;
+            needDown[z] = (1 - downPercent[z]) * load;
+            if (lseInArea != null) {
+                for (int j = 0; j < J; j++) {
+                    lseInArea[z][j] = busInArea[z][lses.get(j).getAtNode() - 1];
+                }
+            }
+        }
+    }
+
+    @Override
+    public double[][] getRTMDispatchSolution() {
+        return this.RTMDispatch;
+    }
+
+    @Override
+    public double[] getIntervalGenDispatches() {
+        return this.intervalGenDispatch;
+    }
+
+    @Override
+    public double[][] getRTMLMPSolution() {
+        return this.RTMLMP;
+    }
+
+    @Override
+    public double[] getIntervalLMP() {
+        return this.intervalLMP;
+    }
+
+    @Override
+    public double[][] getRTMPriceSensitiveDemandSolution() {
+        return this.dailyPriceSensitiveDemand;
+    }
+
+    /**
+     * @return voltage angles, in radians, for each interval and bus.
+     */
+    public double[][] getVoltageAngles() {
+        return this.voltageAngles;
+    }
+
+    @Override
+    public double[][] getShutdownCost() {
+        return this.shutdownCost;
+    }
+
+    @Override
+    public double[][] getStartupCost() {
+        return this.startupCost;
+    }
+
+    @Override
+    public double[][] getProductionCost() {
+        return this.productionCost;
+    }
+
+    /**
+     * QuadProgJ cannot start from a previous solution, so a warm start here
+     * is a solve that reused the previous interval's objective and
+     * constraint matrices and only rebuilt the right hand sides.
+     */
+    @Override
+    public SCEDStatistics getSCEDStatistics() {
+        return this.scedStatistics;
+    }
+
+    @Override
+    public String getSolutionStatus() {
+        return this.SolutionStatus;
+    }
+}
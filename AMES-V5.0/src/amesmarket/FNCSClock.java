@@ -0,0 +1,133 @@
+package amesmarket;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time requests of the market to FNCS.
+ *
+ * A step of the market needs the grant of the time of its events before it
+ * runs them, and the grant of the time its results are published at before it
+ * publishes them. The second one doesn't depend on the results, so
+ * {@link #requestAhead(long)} asks for it on a background thread while the
+ * market clears, and reads the events that come with it. The market only
+ * waits for it, in {@link #await()}, when it has the results to publish.
+ *
+ * While a request is in flight the connection belongs to the background
+ * thread: the market must not use it, other than through the
+ * {@link FNCSEventDispatcher}, which holds the events of the grant before.
+ */
+public class FNCSClock {
+
+    private static final ThreadFactory THREADS = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "FNCS time request");
+            t.setDaemon(true);
+            return t;
+        }
+    };
+
+    private final FNCSConnection fncs;
+    private final FNCSEventDispatcher events;
+    // At most one thread, which ends when the market no longer requests.
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), THREADS);
+    private Future<FNCSEventDispatcher.Prefetched> pending;
+    private volatile long timeGranted;
+
+    /**
+     * @param fncs
+     * @param events dispatcher of the events of the market.
+     */
+    public FNCSClock(FNCSConnection fncs, FNCSEventDispatcher events) {
+        this.fncs = fncs;
+        this.events = events;
+    }
+
+    /**
+     * Wait until the time is granted. Does not request if it already is.
+     * @param time
+     * @return time granted
+     */
+    public long request(long time) {
+        await();
+        if (timeGranted < time) {
+            while (timeGranted < time) {
+                timeGranted = fncs.time_request(time);
+            }
+            events.invalidate();
+        }
+        return timeGranted;
+    }
+
+    /**
+     * Request the time on the background thread, at least once even if it
+     * is already granted. The events of the last grant are taken by the
+     * dispatcher first.
+     * @param time
+     */
+    public void requestAhead(final long time) {
+        await();
+        events.hold();
+        pending = executor.submit(new Callable<FNCSEventDispatcher.Prefetched>() {
+            @Override
+            public FNCSEventDispatcher.Prefetched call() {
+                long granted = fncs.time_request(time);
+                while (granted < time) {
+                    granted = fncs.time_request(time);
+                }
+                timeGranted = granted;
+                return events.prefetch();
+            }
+        });
+    }
+
+    /**
+     * Wait for the request in flight, if any, and hand its events to the
+     * dispatcher.
+     * @return time granted
+     */
+    public long await() {
+        if (pending == null) {
+            return timeGranted;
+        }
+        Future<FNCSEventDispatcher.Prefetched> request = pending;
+        pending = null;
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    events.invalidate(request.get());
+                    break;
+                } catch (InterruptedException ex) {
+                    // The connection is in use until the request is done.
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return timeGranted;
+    }
+
+    public long getTimeGranted() {
+        return timeGranted;
+    }
+}
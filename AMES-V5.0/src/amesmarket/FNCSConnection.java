@@ -0,0 +1,39 @@
+package amesmarket;
+
+/**
+ * Connection of the market to the FNCS co-simulation broker.
+ *
+ * The methods are those of {@link fncs.JNIfncs} the market uses, with the same
+ * names and meaning, so the market runs the same against the native FNCS
+ * library ({@link JNIFNCSConnection}) or against the in-process
+ * {@link LoopbackFNCSConnection}.
+ */
+public interface FNCSConnection {
+
+    public void initialize();
+
+    public boolean is_initialized();
+
+    /**
+     * Wait for the broker to grant a time.
+     * @param next requested time, in seconds.
+     * @return time granted, at most next.
+     */
+    public long time_request(long next);
+
+    public void publish(String key, String value);
+
+    /**
+     * @return topics of the messages received up to the last time granted,
+     * since the time granted before.
+     */
+    public String[] get_events();
+
+    /**
+     * @param key one of the events
+     * @return values received for the topic, in order.
+     */
+    public String[] get_values(String key);
+
+    public void end();
+}
@@ -0,0 +1,283 @@
+package amesmarket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the FNCS events of a time step once, and hands them to the agents.
+ *
+ * The forecasts and demand bids the market subscribes to arrive as events
+ * whose topic names carry the kind of message, the agent, the hour or RT
+ * interval and, for the price-sensitive demand bids, the bid field. The names
+ * of all the topics the market reads are indexed when the dispatcher is built.
+ * The first read after a time request drains {@code get_events()} through the
+ * index into a buffer per kind and agent, so each agent reads its values
+ * directly instead of scanning all the events of the step.
+ *
+ * Values that were not received in the step read as 0, as they did when the
+ * agents scanned the events themselves.
+ *
+ * The events of a grant can also be read as soon as it is granted, on another
+ * thread, with {@link #prefetch()}, and handed to the dispatcher later with
+ * {@link #invalidate(Prefetched)}; see {@link FNCSClock}.
+ */
+public class FNCSEventDispatcher {
+
+    public static final int DAM_LOAD_FORECAST = 0;
+    public static final int DAM_PSL_DEMAND_BID = 1;
+    public static final int RTM_PSL_DEMAND_BID = 2;
+    public static final int DAM_NDG_FORECAST = 3;
+    public static final int RTM_LOAD_FORECAST = 4;
+    public static final int RTM_NDG_FORECAST = 5;
+
+    // Fields of a price-sensitive demand bid, in the column order of the bid.
+    public static final int D = 0;
+    public static final int E = 1;
+    public static final int F = 2;
+    public static final int SL_MAX = 3;
+    public static final int NS = 4;
+    private static final String[] BID_FIELDS = {"dVal", "eVal", "fVal", "SLMaxVal", "NSVal"};
+
+    private static final int HOURS_PER_DAY = 24;
+
+    private final MarketLog log = MarketLog.get(MarketLog.FNCS);
+    private final FNCSConnection fncs;
+    private final Map<String, int[]> topics = new HashMap<String, int[]>();
+    private final double[][] damLoadForecast;
+    private final double[][][] damPSLDemandBid;
+    private final double[][][] rtmPSLDemandBid;
+    private final double[] damNDGForecast;
+    private final double[] rtmLoadForecast;
+    private final double[] rtmNDGForecast;
+    private boolean drained;
+    private Prefetched prefetched;
+
+    /**
+     * Index the topics of the market.
+     * @param fncs
+     * @param numLSEs
+     * @param numNDGs
+     * @param NIRTM number of RT intervals in an hour
+     */
+    public FNCSEventDispatcher(FNCSConnection fncs, int numLSEs, int numNDGs, int NIRTM) {
+        this.fncs = fncs;
+        damLoadForecast = new double[numLSEs][HOURS_PER_DAY];
+        damPSLDemandBid = new double[numLSEs][HOURS_PER_DAY][BID_FIELDS.length];
+        rtmPSLDemandBid = new double[numLSEs][NIRTM][BID_FIELDS.length];
+        damNDGForecast = new double[HOURS_PER_DAY];
+        rtmLoadForecast = new double[numLSEs];
+        rtmNDGForecast = new double[numNDGs];
+
+        for (int lse = 0; lse < numLSEs; lse++) {
+            for (int h = 0; h < HOURS_PER_DAY; h++) {
+                index("loadforecastDAM_LSE" + (lse + 1) + "_H" + h, DAM_LOAD_FORECAST, lse, h, 0);
+                for (int f = 0; f < BID_FIELDS.length; f++) {
+                    index("PSLDemandBidDAM_LSE" + (lse + 1) + "_" + BID_FIELDS[f] + "_H" + h, DAM_PSL_DEMAND_BID, lse, h, f);
+                }
+            }
+            for (int k = 0; k < NIRTM; k++) {
+                for (int f = 0; f < BID_FIELDS.length; f++) {
+                    // The RTM NS field has always been published per "H"our.
+                    String interval = (f == NS ? "_H" : "_I") + k;
+                    index("PSLDemandBidRTM_LSE" + (lse + 1) + "_" + BID_FIELDS[f] + interval, RTM_PSL_DEMAND_BID, lse, k, f);
+                }
+            }
+            index("loadforecastRTM_" + (lse + 1), RTM_LOAD_FORECAST, lse, 0, 0);
+        }
+        for (int h = 0; h < HOURS_PER_DAY; h++) {
+            index("ndgenforecastDAM_h" + h, DAM_NDG_FORECAST, 0, h, 0);
+        }
+        for (int ndg = 0; ndg < numNDGs; ndg++) {
+            index("ndgforecastRTM_" + (ndg + 1), RTM_NDG_FORECAST, ndg, 0, 0);
+        }
+    }
+
+    private void index(String topic, int kind, int agent, int hour, int field) {
+        topics.put(topic, new int[]{kind, agent, hour, field});
+    }
+
+    /**
+     * Forget the events read so far. To be called after each
+     * {@code time_request}, which replaces the events of the step.
+     */
+    public void invalidate() {
+        invalidate(null);
+    }
+
+    /**
+     * Forget the events read so far, for those of a later grant.
+     * @param events events of the grant, read by {@link #prefetch()}, or null
+     * to read them from the connection.
+     */
+    public void invalidate(Prefetched events) {
+        drained = false;
+        prefetched = events;
+    }
+
+    /**
+     * Read the events of the last grant from the connection, without
+     * touching the buffers. May be called from another thread than the one
+     * reading the dispatcher, as long as the connection isn't used meanwhile.
+     * @return the values of the topics of the market.
+     */
+    public Prefetched prefetch() {
+        String[] events = fncs.get_events();
+        List<String> keys = new ArrayList<String>(events.length);
+        List<String> values = new ArrayList<String>(events.length);
+        for (int i = 0; i < events.length; ++i) {
+            if (topics.containsKey(events[i])) {
+                keys.add(events[i]);
+                values.add(fncs.get_values(events[i])[0]);
+            }
+        }
+        return new Prefetched(keys.toArray(new String[keys.size()]), values.toArray(new String[values.size()]));
+    }
+
+    /**
+     * Take the events of the last grant from the connection, if not done yet,
+     * so that they can still be read after the next time request.
+     */
+    public void hold() {
+        if (!drained && prefetched == null) {
+            prefetched = prefetch();
+        }
+    }
+
+    /**
+     * Read the events of the step into the buffers, if not done yet.
+     */
+    private void drain() {
+        if (drained) {
+            return;
+        }
+        drained = true;
+        Prefetched events = prefetched != null ? prefetched : prefetch();
+        prefetched = null;
+
+        for (double[] row : damLoadForecast) {
+            Arrays.fill(row, 0);
+        }
+        for (double[][] bid : damPSLDemandBid) {
+            for (double[] row : bid) {
+                Arrays.fill(row, 0);
+            }
+        }
+        for (double[][] bid : rtmPSLDemandBid) {
+            for (double[] row : bid) {
+                Arrays.fill(row, 0);
+            }
+        }
+        Arrays.fill(damNDGForecast, 0);
+        Arrays.fill(rtmLoadForecast, 0);
+        Arrays.fill(rtmNDGForecast, 0);
+
+        for (int i = 0; i < events.keys.length; ++i) {
+            int[] key = topics.get(events.keys[i]);
+            String value = events.values[i];
+            int agent = key[1];
+            int hour = key[2];
+            int field = key[3];
+
+            switch (key[0]) {
+                case DAM_LOAD_FORECAST:
+                    log.debug("LSE" + (agent + 1) + " Received DAM loadforecast: " + value);
+                    damLoadForecast[agent][hour] = Double.parseDouble(value);
+                    break;
+                case DAM_PSL_DEMAND_BID:
+                    damPSLDemandBid[agent][hour][field] = field == NS ? Integer.parseInt(value) : Double.parseDouble(value);
+                    break;
+                case RTM_PSL_DEMAND_BID:
+                    rtmPSLDemandBid[agent][hour][field] = field == NS ? Integer.parseInt(value) : Double.parseDouble(value);
+                    break;
+                case DAM_NDG_FORECAST:
+                    log.debug("receiving DAM NDGForecast: " + value);
+                    damNDGForecast[hour] = Double.parseDouble(value);
+                    break;
+                case RTM_LOAD_FORECAST:
+                    log.debug("\nReceiving RTM loadforecast: " + value);
+                    rtmLoadForecast[agent] = Double.parseDouble(value);
+                    break;
+                case RTM_NDG_FORECAST:
+                    log.debug("receiving NDG forecast: " + value);
+                    rtmNDGForecast[agent] = Double.parseDouble(value);
+                    break;
+            }
+        }
+    }
+
+    /*
+     * The arrays returned below are the buffers of the dispatcher. They hold
+     * until the next time request and must not be modified by the callers.
+     */
+
+    /**
+     * @param lse from 0
+     * @return DAM load forecast of the LSE by hour.
+     */
+    public double[] getDAMLoadForecast(int lse) {
+        drain();
+        return damLoadForecast[lse];
+    }
+
+    /**
+     * @param lse from 0
+     * @return DAM price-sensitive demand bid of the LSE, by hour and field.
+     */
+    public double[][] getDAMPSLDemandBid(int lse) {
+        drain();
+        return damPSLDemandBid[lse];
+    }
+
+    /**
+     * @param lse from 0
+     * @return RTM price-sensitive demand bid of the LSE, by interval and
+     * field.
+     */
+    public double[][] getRTMPSLDemandBid(int lse) {
+        drain();
+        return rtmPSLDemandBid[lse];
+    }
+
+    /**
+     * @return DAM NDG forecast by hour, shared by all NDGs.
+     */
+    public double[] getDAMNDGForecast() {
+        drain();
+        return damNDGForecast;
+    }
+
+    /**
+     * @param lse from 0
+     * @return RTM load forecast of the LSE for the hour.
+     */
+    public double getRTMLoadForecast(int lse) {
+        drain();
+        return rtmLoadForecast[lse];
+    }
+
+    /**
+     * @param ndg from 0
+     * @return RTM forecast of the NDG for the hour.
+     */
+    public double getRTMNDGForecast(int ndg) {
+        drain();
+        return rtmNDGForecast[ndg];
+    }
+
+    /**
+     * Events of a grant, as read by {@link #prefetch()}.
+     */
+    public static class Prefetched {
+
+        private final String[] keys;
+        private final String[] values;
+
+        Prefetched(String[] keys, String[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+    }
+}
@@ -63,8 +63,8 @@ public class INIT {
   private double[][][] lseDataPriceSensitiveDemand; 
   private int   [][] lseDataHybridDemand; 
   private boolean isPU;
-  private static double baseS;
-  private static double baseV;
+  private double baseS;
+  private double baseV;
   //private double reserveRequirements;
 
   private double[][] NDGData;  // Combine 3-sectional to 24-hour NDG data
@@ -91,17 +91,17 @@ public class INIT {
   public String[][] getParamNames(){
     return paramNames;
   }
-  public static double getBaseS(){
+  public double getBaseS(){
     return baseS;
   }
-  public static double getBaseV(){
+  public double getBaseV(){
      return baseV;
    }
   
-  public static void setBaseS(double s){
+  public void setBaseS(double s){
     baseS=s;
   }
-  public static void setBaseV(double v){
+  public void setBaseV(double v){
      baseV=v;
    }
 
@@ -3,20 +3,44 @@
 package amesmarket;
 
 import amesmarket.extern.common.CommitmentDecision;
+import amesmarket.extern.psst.PSSTConfig;
 import amesmarket.extern.psst.PSSTDAMOpt;
+import amesmarket.extern.psst.PSSTServer;
 import java.util.ArrayList;
 import java.sql.*;
 import java.text.DecimalFormat;
-import fncs.JNIfncs;
+import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class ISO {
 
+    /**
+     * Set to false to solve the DAM SCUC on the market thread, before the
+     * RTM clears again.
+     */
+    public static final String ASYNC_DAM_PROPERTY = "AMES_ASYNC_DAM";
+
+    private static final ThreadFactory DAM_THREADS = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "DAM SCUC");
+            t.setDaemon(true);
+            return t;
+        }
+    };
+
     // ISO's data;
+    private final MarketLog log = MarketLog.get(MarketLog.MARKET);
     private double[][] supplyOfferByGen;
     public double[][] GenProfileByNDG, RTGenProfileforNDGs;
     public double[][] loadProfileByLSE, RTloadProfileforLSEs; // If ISO doesn't receive real-time load forecast, it uses previously obtained loadProfileByLSE that is copied into loadProfileRT
@@ -50,12 +74,22 @@ public class ISO {
     public DAMarket dam;
     private RTMarket rtm;
     private RTMOptimization RTMOpt;
+    private PSSTServer psstServer;
     private int H, I, J, K, L, M;
 
-    private String SolutionStatus;
+    private String SolutionStatus = "optimal";
+
+    // The SCUC cleared at hour 10 is solved in the background while the RTM
+    // keeps clearing, and its solution only posted when it is needed.
+    private final boolean asyncDAM;
+    // At most one thread, which ends when no SCUC is being solved.
+    private final ThreadPoolExecutor damExecutor = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), DAM_THREADS);
+    private Future<?> pendingDAM;
+    private int pendingDAMDay;
 
     // constructor
-    public ISO(AMESMarket model) {
+    public ISO(AMESMarket model, RunContext runContext) {
         //System.out.println("Creating the ISO object: iso \n");
         commitmentListByDay = new ArrayList();
         lmpListByDay = new ArrayList();
@@ -69,69 +103,238 @@ public class ISO {
         supplyOfferRT = new double[I][5];
         dailyPriceSensitiveDispatchRT = new double[H][J];
 
-        dam = new DAMarket(ames);
-        rtm = new RTMarket(this, ames);
+        if (PSSTConfig.SERVER_MODE.equals(ames.getTestCaseConfig().PSSTMode)) {
+            psstServer = new PSSTServer(runContext.getScratchDir());
+            try {
+                psstServer.start();
+            } catch (IOException ex) {
+                Logger.getLogger(ISO.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+
+        dam = new DAMarket(this, ames, runContext);
+        rtm = new RTMarket(this, ames, runContext);
+
+        // A PSST server runs one job at a time: a SCUC on it would hold up
+        // the PSST SCEDs anyway.
+        boolean sharedServer = psstServer != null
+                && !CaseFileData.SCED_ENGINE_DCOPFJ.equals(ames.getTestCaseConfig().SCEDEngine);
+        asyncDAM = Boolean.parseBoolean(System.getProperty(ASYNC_DAM_PROPERTY, "true")) && !sharedServer;
 
     }
 
-    
-    public void marketOperation(int m, int interval, int h, int day, boolean FNCSActive) {
+    /**
+     * @return the persistent PSST server, or null if PSST is run as a new
+     * process for each optimization.
+     */
+    public PSSTServer getPSSTServer() {
+        return psstServer;
+    }
+
+    /**
+     * @return solve and warm start counts of the RTM SCED.
+     */
+    public SCEDStatistics getSCEDStatistics() {
+        return rtm.getSCEDStatistics();
+    }
 
-        if (day > 1 && m % this.ames.M == 0) {
+    /**
+     * Stop the persistent PSST server, if one is running, and the SCUC
+     * still being solved, if any.
+     */
+    public void closePSSTServer() {
+        if (pendingDAM != null) {
+            pendingDAM.cancel(true);
+            pendingDAM = null;
+        }
+        damExecutor.shutdownNow();
+        if (psstServer != null) {
+            psstServer.close();
+        }
+    }
+
+    /**
+     * Collect the RT bids and forecasts and clear the RTM interval.
+     * @param m minute
+     * @param interval RT interval of the day
+     * @param h hour, from 1 to 24
+     * @param day
+     * @param FNCSActive
+     */
+    public void clearRTM(int m, int interval, int h, int day, boolean FNCSActive) {
+        RunProfile profile = this.ames.getRunProfile();
+        if (this.rtm.solvesInterval(m)) {
+            RunProfile.Timer collection = profile.start(RunProfile.BID_COLLECTION);
             rtm.RTMCollectBidsAndOffers(h, day-1, FNCSActive);
-            
+
             this.RTPSLdemandBidByLSE = this.rtm.getRTPSLDemandBidByLSE();
-            double[][] realtimeload = this.getRealTimeLoadForecast(h, FNCSActive); // fncs.get_events() is called to receive RT load forecast
-            double[][] realtimeNDG = this.getRealTimeNDGForecast(h, FNCSActive); // fncs.get_events() is called to receive RT NDG forecast
+            double[][] realtimeload = this.getRealTimeLoadForecast(h, FNCSActive); // RT load forecast received through fncs
+            double[][] realtimeNDG = this.getRealTimeNDGForecast(h, FNCSActive); // RT NDG forecast received through fncs
+            collection.stop();
 
-            System.out.println("\n\nRTM Optimization executing on Day " + (day-1) + " at Hour " + h + "- Interval " + (interval+1) + "\n");
+            log.debug("\n\nRTM Optimization executing on Day " + (day-1) + " at Hour " + h + "- Interval " + (interval+1) + "\n");
             this.rtm.RTMarketOptimization(this.genRTCommitmentVector,
                     realtimeload, realtimeNDG, RTPSLdemandBidByLSE, m, interval, h, day);
+        } else {
+            log.debug("\n\nRTM results of Day " + (day-1) + " at Hour " + h + "- Interval " + (interval+1) + " taken from the SCED of its window\n");
+            this.rtm.RTMarketWindowInterval(m);
+        }
 
-            SolutionStatus = this.rtm.getSolutionStatus();
+        SolutionStatus = this.rtm.getSolutionStatus();
 
-            if (!SolutionStatus.equals("infeasible")) {
-                this.RTMLMP = this.rtm.getRtLMPs();
-                this.RTMDispatch = this.rtm.getRtDispatches();
+        if (!SolutionStatus.equals("infeasible")) {
+            this.RTMLMP = this.rtm.getRtLMPs();
+            this.RTMDispatch = this.rtm.getRtDispatches();
 
-                this.ames.addRealTimeLMPByInterval(this.RTMLMP);
-                this.ames.addGenAgentRealTimeDispatchByInterval(this.RTMDispatch);
-                
-                this.postRealTimeSolutions(h, day-1);  
-            }
+            RunProfile.Timer accumulation = profile.start(RunProfile.RESULT_ACCUMULATION);
+            this.ames.addRealTimeLMPByInterval(this.RTMLMP);
+            this.ames.addGenAgentRealTimeDispatchByInterval(this.RTMDispatch);
+            this.streamOutput(OutputFileFormat.RT_DISPATCH, this.RTMDispatch);
+            this.streamOutput(OutputFileFormat.RT_LMP, this.RTMLMP);
+            accumulation.stop(RunProfile.sizeOf(this.RTMLMP) + RunProfile.sizeOf(this.RTMDispatch));
+
+            RunProfile.Timer posting = profile.start(RunProfile.POSTING);
+            this.postRealTimeSolutions(h, day-1);
+            posting.stop();
         }
+    }
 
-        if (h == 6 && m == 0) {
-            
-            dam.DAMCollectBidsAndOffers(h, day, FNCSActive);  // fncs.get_events() is called to receive DAM forecast
+    /**
+     * Collect the DAM supply offers, load profiles and demand bids.
+     * @param h hour, from 1 to 24
+     * @param day
+     * @param FNCSActive
+     */
+    public void collectDAMBidsAndOffers(int h, int day, boolean FNCSActive) {
+        RunProfile.Timer collection = this.ames.getRunProfile().start(RunProfile.BID_COLLECTION);
+        dam.DAMCollectBidsAndOffers(h, day, FNCSActive);  // DAM forecast received through fncs
+        collection.stop();
 
-            this.supplyOfferByGen = this.dam.getSupplyOfferByGen();
-            this.loadProfileByLSE = this.dam.getLoadProfileByLSE();
-            this.GenProfileByNDG = this.dam.getGenProfileByNDG();
+        this.supplyOfferByGen = this.dam.getSupplyOfferByGen();
+        this.streamOutput(OutputFileFormat.SUPPLY_OFFER, this.supplyOfferByGen);
+        this.loadProfileByLSE = this.dam.getLoadProfileByLSE();
+        this.GenProfileByNDG = this.dam.getGenProfileByNDG();
 
-            this.PSLdemandBidByLSE = dam.getDemandBidByLSE();
+        this.PSLdemandBidByLSE = dam.getDemandBidByLSE();
+    }
 
+    /**
+     * Clear the DAM for the next day with the collected bids and offers.
+     *
+     * The SCUC is written now, with the bids, offers and GenCo states of the
+     * cut-off. Unless {@value #ASYNC_DAM_PROPERTY} is false, it is then
+     * solved on a background thread while the RTM of the day keeps clearing,
+     * and {@link #awaitDAM()} waits for it.
+     * @param h hour, from 1 to 24
+     * @param day
+     */
+    public void clearDAM(int h, int day) {
+        log.info("\n\nDAM Optimization for Day " + day + " is executing at Hour: " + h + "\n");
+
+        awaitDAM();
+        this.dam.prepareDAMarketOptimization(day, loadProfileByLSE, GenProfileByNDG, PSLdemandBidByLSE, supplyOfferByGen);
+        if (this.asyncDAM) {
+            final int scucDay = day;
+            this.pendingDAMDay = day;
+            this.pendingDAM = this.damExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    dam.solveDAMarketOptimization(scucDay);
+                }
+            });
+        } else {
+            this.dam.solveDAMarketOptimization(day);
+            SolutionStatus = this.dam.getSolutionStatus();
+            postDAMSolution(day);
         }
+    }
 
-        if (h == 10 && m == 0) {
-            System.out.println("\n\nDAM Optimization for Day " + day + " is executing at Hour: " + h + "\n");
+    /**
+     * Wait for the SCUC being solved in the background, if any, and post its
+     * solution on the calling thread. The status of the market only changes if the SCUC is
+     * infeasible, so the status of an RTM interval cleared meanwhile is kept.
+     */
+    public void awaitDAM() {
+        if (this.pendingDAM == null) {
+            return;
+        }
+        Future<?> solve = this.pendingDAM;
+        this.pendingDAM = null;
+        RunProfile.Timer wait = this.ames.getRunProfile().start(RunProfile.DAM_WAIT);
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    solve.get();
+                    break;
+                } catch (InterruptedException ex) {
+                    // The DAM results are being written until the SCUC is done.
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            wait.stop();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
 
-            this.dam.DAMarketOptimization(day, loadProfileByLSE, GenProfileByNDG, PSLdemandBidByLSE, supplyOfferByGen);
+        if ("infeasible".equals(this.dam.getSolutionStatus())) {
             SolutionStatus = this.dam.getSolutionStatus();
+        }
+        postDAMSolution(this.pendingDAMDay);
+    }
 
-            if (!SolutionStatus.equals("infeasible")) {
-                this.genDAMCommitment = this.dam.getDAMCommitment();
-                this.DAMLMP = this.dam.getDAMLMPSolution();
-                this.GenDAMDispatch = this.dam.getDAMDispatchSolution();
-
-                ames.addGenAgentDispatchByDay(GenDAMDispatch); 
-                ames.addLMPByDay(DAMLMP);
-                // ames.addLSEAgenPriceSensitiveDemandByDay(dailyPriceSensitiveDispatch);
+    /**
+     * Store the solution of the last SCUC, if it is feasible, and set the
+     * initial power of the GenCos for the next day to their dispatch in the
+     * last hour. The SCUC of day 1 also sets the power the first RTM interval
+     * ramps from.
+     * @param day day of the SCUC
+     */
+    private void postDAMSolution(int day) {
+        if (!"infeasible".equals(this.dam.getSolutionStatus())) {
+            this.genDAMCommitment = this.dam.getDAMCommitment();
+            this.DAMLMP = this.dam.getDAMLMPSolution();
+            this.GenDAMDispatch = this.dam.getDAMDispatchSolution();
+
+            int lastHour = this.GenDAMDispatch.length - 1;
+            for (GenAgent gc : this.ames.getGenAgentList()) {
+                double power = this.GenDAMDispatch[lastHour][gc.getGenID() - 1];
+                if (day == 1) {
+                    gc.setPowerPrevInterval(power);
+                }
+                gc.setPowerT0NextDay(power);
             }
+
+            RunProfile.Timer accumulation = this.ames.getRunProfile().start(RunProfile.RESULT_ACCUMULATION);
+            ames.addGenAgentDispatchByDay(GenDAMDispatch);
+            ames.addLMPByDay(DAMLMP);
+            this.streamOutput(OutputFileFormat.DAM_DISPATCH, GenDAMDispatch);
+            this.streamOutput(OutputFileFormat.LMP, DAMLMP);
+            accumulation.stop(RunProfile.sizeOf(GenDAMDispatch) + RunProfile.sizeOf(DAMLMP));
+            // ames.addLSEAgenPriceSensitiveDemandByDay(dailyPriceSensitiveDispatch);
         }
+    }
 
-        if ((h == 24) && (day < this.ames.DAY_MAX) && m == 0) {
-            
+    /**
+     * Wait for the SCUC of the next day, hand its commitments to the GenCos,
+     * unless this is the last day, and flush the streamed output.
+     * @param day
+     */
+    public void endOfDay(int day) {
+        awaitDAM();
+        if (day < this.ames.DAY_MAX && !"infeasible".equals(this.dam.getSolutionStatus())) {
+            RunProfile.Timer posting = this.ames.getRunProfile().start(RunProfile.POSTING);
             ArrayList<GenAgent> genAgentList = this.ames.getGenAgentList();
             int[] tempVector = new int[this.ames.NUM_HOURS_PER_DAY];
             for (int j = 0; j < this.ames.getNumGenAgents(); j++) {
@@ -145,32 +348,47 @@ public class ISO {
 
             this.endOfDayCleanup();
             this.postScheduleToGenCos(day, this.genDAMCommitment);
+            posting.stop();
         }
 
+        if (this.ames.getOutputWriter() != null) {
+            try {
+                this.ames.getOutputWriter().flush();
+            } catch (IOException ex) {
+                Logger.getLogger(ISO.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+    }
+
+    /**
+     * Append the result of the day or interval to the output file, if the
+     * results are streamed.
+     * @param section
+     * @param record
+     */
+    private void streamOutput(int section, double[][] record) {
+        StreamingOutputWriter outputWriter = this.ames.getOutputWriter();
+        if (outputWriter != null) {
+            try {
+                outputWriter.append(section, record);
+            } catch (IOException ex) {
+                Logger.getLogger(ISO.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
     }
 
     private double[][] getRealTimeLoadForecast(int h, boolean FNCSActive) {
 
-        int ColSize = (int) this.ames.NIRTM;
+        int ColSize = this.rtm.getNumSteps();
 
         double[][] LoadProfileByLSE = new double[J][ColSize];
 
         //receiving load forecast for real time operation
         if (FNCSActive) {
-            String[] events = JNIfncs.get_events();
-            for (int i = 0; i < events.length; ++i) {
-                String[] values = JNIfncs.get_values(events[i]);
-
-                for (int j = 0; j < J; j++) {
-                    if (events[i].equals("loadforecastRTM_" + String.valueOf(j + 1))) {
-                        System.out.println("\nReceiving RTM loadforecast: " + values[0]);
-
-                        //Hourly forecast is converted uniformly into per interval forecast
-                        for (int k = 0; k < (ColSize); k++) {
-                            LoadProfileByLSE[j][k] = Double.parseDouble(values[0]);
-                        }
-                    }
-                }
+            FNCSEventDispatcher fncsEvents = this.ames.getFNCSEvents();
+            for (int j = 0; j < J; j++) {
+                //Hourly forecast is converted uniformly into per interval forecast
+                Arrays.fill(LoadProfileByLSE[j], fncsEvents.getRTMLoadForecast(j));
             }
         } else {
             for (int j = 0; j < J; j++) {
@@ -185,26 +403,16 @@ public class ISO {
 
     private double[][] getRealTimeNDGForecast(int h, boolean FNCSActive) {
 
-        int ColSize = (int) this.ames.NIRTM;
+        int ColSize = this.rtm.getNumSteps();
 
         double[][] hourlyNDGProfileByBus = new double[L][ColSize];
 
         //receiving NDG forecast for real time operation
         if (FNCSActive) {
-            String[] events = JNIfncs.get_events();
-            for (int i = 0; i < events.length; ++i) {
-                String[] values = JNIfncs.get_values(events[i]);
-
-                for (int j = 0; j < L; j++) {
-                    if (events[i].equals("ndgforecastRTM_" + String.valueOf(j + 1))) {
-                        System.out.println("receiving NDG forecast: " + values[0]);
-
-                        //Hourly forecast is converted uniformly into per interval forecast
-                        for (int k = 0; k < (ColSize); k++) {
-                            hourlyNDGProfileByBus[j][k] = Double.parseDouble(values[0]);
-                        }
-                    }
-                }
+            FNCSEventDispatcher fncsEvents = this.ames.getFNCSEvents();
+            for (int j = 0; j < L; j++) {
+                //Hourly forecast is converted uniformly into per interval forecast
+                Arrays.fill(hourlyNDGProfileByBus[j], fncsEvents.getRTMNDGForecast(j));
             }
         } else {
 
@@ -305,7 +513,7 @@ public class ISO {
 
 
     public void produceCommitmentSchedule(int h, int d) {
-        System.out.println("Hour " + h + " Day " + d
+        log.debug("Hour " + h + " Day " + d
                 + ": produce commitment schedule.");
     }
 
@@ -0,0 +1,45 @@
+package amesmarket;
+
+import fncs.JNIfncs;
+
+/**
+ * Connection to an FNCS broker through the native FNCS library. There is one
+ * such connection per JVM, all the instances share it.
+ */
+public class JNIFNCSConnection implements FNCSConnection {
+
+    @Override
+    public void initialize() {
+        JNIfncs.initialize();
+    }
+
+    @Override
+    public boolean is_initialized() {
+        return JNIfncs.is_initialized();
+    }
+
+    @Override
+    public long time_request(long next) {
+        return JNIfncs.time_request(next);
+    }
+
+    @Override
+    public void publish(String key, String value) {
+        JNIfncs.publish(key, value);
+    }
+
+    @Override
+    public String[] get_events() {
+        return JNIfncs.get_events();
+    }
+
+    @Override
+    public String[] get_values(String key) {
+        return JNIfncs.get_values(key);
+    }
+
+    @Override
+    public void end() {
+        JNIfncs.end();
+    }
+}
@@ -0,0 +1,77 @@
+package amesmarket;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.FieldPosition;
+import java.util.Locale;
+
+/**
+ * Publish the LMPs of the market to FNCS, one message per topic and market
+ * event.
+ *
+ * A message holds the whole LMP table of the event, bus by bus:
+ * <pre>
+ *   message = bus *( ";" bus )
+ *   bus     = lmp *( "," lmp )
+ * </pre>
+ * with the buses in order of their number and, for each bus, the LMPs of the
+ * hours ({@value #DAM_TOPIC}) or RT intervals ({@value #RT_TOPIC}) in order.
+ * An LMP is written in $/MWh with at most two decimals, a '.' decimal point
+ * and no grouping, for example "24.5". Two buses over three hours:
+ * "20.1,21,22.35;19,20.5,21".
+ *
+ * Messages are encoded into a buffer reused from one event to the next.
+ */
+public class LMPPublisher {
+
+    public static final String DAM_TOPIC = "DailyLMP";
+    public static final String RT_TOPIC = "RTLMP";
+
+    private final DecimalFormat format = new DecimalFormat("###.##", DecimalFormatSymbols.getInstance(Locale.ROOT));
+    private final FieldPosition position = new FieldPosition(0);
+    private final StringBuffer buffer = new StringBuffer();
+
+    /**
+     * @param lmp LMPs by hour or RT interval (rows) and bus (columns).
+     * @return the message for the table.
+     */
+    public String encode(double[][] lmp) {
+        buffer.setLength(0);
+        int numBuses = lmp.length == 0 ? 0 : lmp[0].length;
+        for (int n = 0; n < numBuses; n++) {
+            if (n > 0) {
+                buffer.append(';');
+            }
+            for (int i = 0; i < lmp.length; i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                format.format(lmp[i][n], buffer, position);
+            }
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * @param lmp LMPs by hour or RT interval (rows) and bus (columns).
+     * @param bus from 0
+     * @return the LMPs of the bus, as shown on the console.
+     */
+    public String formatBus(double[][] lmp, int bus) {
+        buffer.setLength(0);
+        for (int i = 0; i < lmp.length; i++) {
+            format.format(lmp[i][bus], buffer, position);
+            buffer.append(", ");
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * @param fncs
+     * @param topic {@link #DAM_TOPIC} or {@link #RT_TOPIC}
+     * @param lmp LMPs by hour or RT interval (rows) and bus (columns).
+     */
+    public void publish(FNCSConnection fncs, String topic, double[][] lmp) {
+        fncs.publish(topic, encode(lmp));
+    }
+}
@@ -2,7 +2,6 @@
 // Load serving entity (wholesale power buyer)
 package amesmarket;
 
-import fncs.JNIfncs;
 import java.awt.Color;
 
 import uchicago.src.sim.gui.Drawable;
@@ -98,23 +97,12 @@ public class LSEAgent implements Drawable {
     }
 //method
 
-    public double[] submitDAMFixedDemandBid(int day, int lse, boolean FNCSActive) {
+    public double[] submitDAMFixedDemandBid(int day, int lse, FNCSEventDispatcher fncsEvents) {
 
-        double[] load = new double[HOURS_PER_DAY];
         // Receives load forecast through fncs
         if (day > 1) {
-            if (FNCSActive) {
-                String[] events = JNIfncs.get_events();
-                for (int i = 0; i < events.length; ++i) {
-                    String[] values = JNIfncs.get_values(events[i]);
-
-                    for (int j = 0; j < HOURS_PER_DAY; j++) {
-                        if (events[i].equals("loadforecastDAM_LSE" + String.valueOf(lse + 1) + "_H" + String.valueOf(j))) {
-                            System.out.println("LSE" + (lse + 1) + " Received DAM loadforecast: " + values[0]);
-                            load[j] = Double.parseDouble(values[0]);
-                        }
-                    }
-                }
+            if (fncsEvents != null) {
+                double[] load = fncsEvents.getDAMLoadForecast(lse);
                 for (int i = 0; i < HOURS_PER_DAY; i++) {
                     loadForecast[i] = load[i];
                 }
@@ -128,50 +116,15 @@ public class LSEAgent implements Drawable {
         }
     }
 
-    public double[][] submitDAMPriceSensitiveDemandBid(int day, int lse, int PSLFlag, boolean FNCSActive) {
+    public double[][] submitDAMPriceSensitiveDemandBid(int day, int lse, int PSLFlag, FNCSEventDispatcher fncsEvents) {
         double[][] reportDemandBid = new double[HOURS_PER_DAY][PRICE_PARAM_LEN];
         //double[][] temp = new double[HOURS_PER_DAY][3];
 
         if (day > 1 && PSLFlag == 1) {
-            if (FNCSActive) {
-                String[] events = JNIfncs.get_events();
-                //System.out.println("DAM events.len: " + events.length);
-                for (int i = 0; i < events.length; ++i) {
-                    //String value = JNIfncs.get_value(events[i]);
-                    String[] values = JNIfncs.get_values(events[i]);
-
-                    for (int j = 0; j < HOURS_PER_DAY; j++) {
-                        if (events[i].equals("PSLDemandBidDAM_LSE" + String.valueOf(lse + 1) + "_dVal_H" + String.valueOf(j))) {
-                            //if (events[i].equals("loadforecastDAM_PS0_h" + String.valueOf(n))) {
-                            //System.out.println("receiving DAM PSL bid d: " + values[0]);
-                            //System.out.println("i:"+i);
-                            reportDemandBid[j][0] = Double.parseDouble(values[0]);
-                        }
-                        if (events[i].equals("PSLDemandBidDAM_LSE" + String.valueOf(lse + 1) + "_eVal_H" + String.valueOf(j))) {
-                            //if (events[i].equals("loadforecastDAM_PS1_h" + String.valueOf(n))) {
-                            //System.out.println("receiving DAM PSL bid e: " + values[0]);
-                            //System.out.println("i:"+i);
-                            reportDemandBid[j][1] = Double.parseDouble(values[0]);
-                        }
-                        if (events[i].equals("PSLDemandBidDAM_LSE" + String.valueOf(lse + 1) + "_fVal_H" + String.valueOf(j))) {
-                            //if (events[i].equals("loadforecastDAM_PS2_h" + String.valueOf(n))) {
-                            //System.out.println("receiving DAM PSL bid f: " + values[0]);
-                            //System.out.println("i:"+i);
-                            reportDemandBid[j][2] = Double.parseDouble(values[0]);
-                        }
-                        if (events[i].equals("PSLDemandBidDAM_LSE" + String.valueOf(lse + 1) + "_SLMaxVal_H" + String.valueOf(j))) {
-                            //if (events[i].equals("loadforecastDAM_PS2_h" + String.valueOf(n))) {
-                            //System.out.println("receiving DAM PSL bid SLMax: " + values[0]);
-                            //System.out.println("i:"+i);
-                            reportDemandBid[j][3] = Double.parseDouble(values[0]);
-                        }
-                        if (events[i].equals("PSLDemandBidDAM_LSE" + String.valueOf(lse + 1) + "_NSVal_H" + String.valueOf(j))) {
-                            //if (events[i].equals("loadforecastDAM_PS2_h" + String.valueOf(n))) {
-                            //System.out.println("receiving DAM PSL bid SLMax: " + values[0]);
-                            //System.out.println("i:"+i);
-                            reportDemandBid[j][4] = Integer.parseInt(values[0]);
-                        }
-                    }
+            if (fncsEvents != null) {
+                double[][] bid = fncsEvents.getDAMPSLDemandBid(lse);
+                for (int h = 0; h < HOURS_PER_DAY; h++) {
+                    System.arraycopy(bid[h], 0, reportDemandBid[h], 0, PRICE_PARAM_LEN);
                 }
 
                 for (int h = 0; h < HOURS_PER_DAY; h++) {
@@ -217,50 +170,15 @@ public class LSEAgent implements Drawable {
 
     }
 
-    public double[][] submitRTMPriceSensitiveDemandBid(int h, int day, int lse, int PSLFlag, int NIRTM, boolean FNCSActive) {
+    public double[][] submitRTMPriceSensitiveDemandBid(int h, int day, int lse, int PSLFlag, int NIRTM, FNCSEventDispatcher fncsEvents) {
         double[][] reportDemandBid = new double[NIRTM][PRICE_PARAM_LEN];
         //double[][] temp = new double[HOURS_PER_DAY][3];
 
         if (day > 0 && PSLFlag == 1) {
-            if (FNCSActive) {
-                String[] events = JNIfncs.get_events();
-                //System.out.println("DAM events.len: " + events.length);
-                for (int i = 0; i < events.length; ++i) {
-                    //String value = JNIfncs.get_value(events[i]);
-                    String[] values = JNIfncs.get_values(events[i]);
-
-                    for (int j = 0; j < NIRTM; j++) {
-                        if (events[i].equals("PSLDemandBidRTM_LSE" + String.valueOf(lse + 1) + "_dVal_I" + String.valueOf(j))) {
-                            //if (events[i].equals("loadforecastDAM_PS0_h" + String.valueOf(n))) {
-                            //System.out.println("receiving DAM PSL bid d: " + values[0]);
-                            //System.out.println("i:"+i);
-                            reportDemandBid[j][0] = Double.parseDouble(values[0]);
-                        }
-                        if (events[i].equals("PSLDemandBidRTM_LSE" + String.valueOf(lse + 1) + "_eVal_I" + String.valueOf(j))) {
-                            //if (events[i].equals("loadforecastDAM_PS1_h" + String.valueOf(n))) {
-                            //System.out.println("receiving DAM PSL bid e: " + values[0]);
-                            //System.out.println("i:"+i);
-                            reportDemandBid[j][1] = Double.parseDouble(values[0]);
-                        }
-                        if (events[i].equals("PSLDemandBidRTM_LSE" + String.valueOf(lse + 1) + "_fVal_I" + String.valueOf(j))) {
-                            //if (events[i].equals("loadforecastDAM_PS2_h" + String.valueOf(n))) {
-                            //System.out.println("receiving DAM PSL bid f: " + values[0]);
-                            //System.out.println("i:"+i);
-                            reportDemandBid[j][2] = Double.parseDouble(values[0]);
-                        }
-                        if (events[i].equals("PSLDemandBidRTM_LSE" + String.valueOf(lse + 1) + "_SLMaxVal_I" + String.valueOf(j))) {
-                            //if (events[i].equals("loadforecastDAM_PS2_h" + String.valueOf(n))) {
-                            //System.out.println("receiving DAM PSL bid SLMax: " + values[0]);
-                            //System.out.println("i:"+i);
-                            reportDemandBid[j][3] = Double.parseDouble(values[0]);
-                        }
-                        if (events[i].equals("PSLDemandBidRTM_LSE" + String.valueOf(lse + 1) + "_NSVal_H" + String.valueOf(j))) {
-                            //if (events[i].equals("loadforecastDAM_PS2_h" + String.valueOf(n))) {
-                            //System.out.println("receiving DAM PSL bid SLMax: " + values[0]);
-                            //System.out.println("i:"+i);
-                            reportDemandBid[j][4] = Integer.parseInt(values[0]);
-                        }
-                    }
+            if (fncsEvents != null) {
+                double[][] bid = fncsEvents.getRTMPSLDemandBid(lse);
+                for (int n = 0; n < NIRTM; n++) {
+                    System.arraycopy(bid[n], 0, reportDemandBid[n], 0, PRICE_PARAM_LEN);
                 }
 
                 for (int n = 0; n < NIRTM; n++) {
@@ -0,0 +1,195 @@
+package amesmarket;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * In-process stand-in for the FNCS broker and the other federates, to run
+ * and time FNCS cases without fncs_broker, the native library or the python
+ * TES agents.
+ *
+ * The other federates are replayed from recorded message streams: messages
+ * given to {@link #schedule(long, String, String)} and the
+ * {@link NetLoadScenarioReplay} streams, which schedule their messages a day
+ * at a time as the clock gets there. Every time requested is granted, as
+ * the broker does when the other federates step through every second, and
+ * the events of a grant are the messages scheduled after the previous grant
+ * and up to this one. The messages the market publishes are counted and the
+ * last value of each topic is kept.
+ *
+ * {@link #create()} uses a loopback connection when the system property
+ * {@value #REPLAY_PROPERTY} lists the net load files to replay, separated by
+ * the path separator.
+ */
+public class LoopbackFNCSConnection implements FNCSConnection {
+
+    public static final String REPLAY_PROPERTY = "AMES_FNCS_LOOPBACK";
+
+    private static final int DAY_LEN = 86400;
+
+    private final List<NetLoadScenarioReplay> replays = new ArrayList<NetLoadScenarioReplay>();
+    private final PriorityQueue<Message> scheduled = new PriorityQueue<Message>();
+    private Map<String, List<String>> events = new LinkedHashMap<String, List<String>>();
+    private final Map<String, String> published = new HashMap<String, String>();
+    private boolean initialized;
+    private long timeGranted;
+    private int daysScheduled;
+    private long sequence;
+    private long messagesDelivered;
+    private long messagesPublished;
+    private long timeRequests;
+
+    /**
+     * @return a loopback connection replaying the files of
+     * {@value #REPLAY_PROPERTY} if it is set, a connection through the native
+     * FNCS library otherwise.
+     * @throws IOException if a file can't be read.
+     */
+    public static FNCSConnection create() throws IOException {
+        String files = System.getProperty(REPLAY_PROPERTY);
+        if (files == null) {
+            return new JNIFNCSConnection();
+        }
+
+        LoopbackFNCSConnection loopback = new LoopbackFNCSConnection();
+        for (String file : files.split(File.pathSeparator)) {
+            if (!file.trim().isEmpty()) {
+                loopback.addReplay(NetLoadScenarioReplay.load(new File(file.trim())));
+            }
+        }
+        return loopback;
+    }
+
+    public synchronized void addReplay(NetLoadScenarioReplay replay) {
+        replays.add(replay);
+        for (int day = 0; day < daysScheduled; day++) {
+            replay.scheduleDay(day, this);
+        }
+    }
+
+    /**
+     * Schedule a message of another federate.
+     * @param time in seconds. Messages at or before the last time granted
+     * are delivered with the next grant.
+     * @param key
+     * @param value
+     */
+    public synchronized void schedule(long time, String key, String value) {
+        scheduled.add(new Message(time, sequence++, key, value));
+    }
+
+    @Override
+    public synchronized void initialize() {
+        initialized = true;
+    }
+
+    @Override
+    public synchronized boolean is_initialized() {
+        return initialized;
+    }
+
+    @Override
+    public synchronized long time_request(long next) {
+        timeRequests++;
+        if (next > timeGranted) {
+            timeGranted = next;
+        }
+        while ((long) daysScheduled * DAY_LEN <= timeGranted) {
+            for (NetLoadScenarioReplay replay : replays) {
+                replay.scheduleDay(daysScheduled, this);
+            }
+            daysScheduled++;
+        }
+
+        events = new LinkedHashMap<String, List<String>>();
+        while (!scheduled.isEmpty() && scheduled.peek().time <= timeGranted) {
+            Message message = scheduled.poll();
+            List<String> values = events.get(message.key);
+            if (values == null) {
+                values = new ArrayList<String>();
+                events.put(message.key, values);
+            }
+            values.add(message.value);
+            messagesDelivered++;
+        }
+        return timeGranted;
+    }
+
+    @Override
+    public synchronized void publish(String key, String value) {
+        published.put(key, value);
+        messagesPublished++;
+    }
+
+    @Override
+    public synchronized String[] get_events() {
+        return events.keySet().toArray(new String[events.size()]);
+    }
+
+    @Override
+    public synchronized String[] get_values(String key) {
+        List<String> values = events.get(key);
+        if (values == null) {
+            return new String[0];
+        }
+        return values.toArray(new String[values.size()]);
+    }
+
+    @Override
+    public synchronized void end() {
+        initialized = false;
+    }
+
+    public synchronized long getTimeGranted() {
+        return timeGranted;
+    }
+
+    /**
+     * @param key
+     * @return last value the market published for the topic, or null.
+     */
+    public synchronized String getPublished(String key) {
+        return published.get(key);
+    }
+
+    public synchronized long getTimeRequests() {
+        return timeRequests;
+    }
+
+    public synchronized long getMessagesDelivered() {
+        return messagesDelivered;
+    }
+
+    public synchronized long getMessagesPublished() {
+        return messagesPublished;
+    }
+
+    private static class Message implements Comparable<Message> {
+
+        final long time;
+        final long sequence;
+        final String key;
+        final String value;
+
+        Message(long time, long sequence, String key, String value) {
+            this.time = time;
+            this.sequence = sequence;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(Message o) {
+            if (this.time != o.time) {
+                return this.time < o.time ? -1 : 1;
+            }
+            return this.sequence < o.sequence ? -1 : (this.sequence == o.sequence ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package amesmarket;
+
+import java.util.PriorityQueue;
+
+/**
+ * Calendar of the market events, so the market clock can jump from one event
+ * to the next instead of stepping through every RT interval of the day.
+ *
+ * Times are in minutes from the start of day 1, hour 1. The daily events are
+ * the DAM bid and offer collection (hour 6), the DAM clearing (hour 10), the
+ * DAM LMP publication (hour 13) and the end of the day (hour 24). From day 2
+ * on, the RTM is cleared every M minutes. Each event schedules its next
+ * occurrence when it is taken from the calendar.
+ *
+ * Events due at the same time should be run in the order of their kind
+ * constants, which is the order in which the market used to run them within
+ * a step.
+ */
+public class MarketCalendar {
+
+    public static final int RT_CLEAR = 0;
+    public static final int DAM_COLLECT = 1;
+    public static final int DAM_CLEAR = 2;
+    public static final int END_OF_DAY = 3;
+    public static final int DAM_PUBLISH = 4;
+    private static final int NUM_KINDS = 5;
+
+    public static final int MINUTES_PER_HOUR = 60;
+    public static final int MINUTES_PER_DAY = 24 * MINUTES_PER_HOUR;
+
+    private final PriorityQueue<Event> events = new PriorityQueue<Event>();
+    private final int M;
+
+    /**
+     * @param M RT interval length, in minutes. Should divide 60.
+     */
+    public MarketCalendar(int M) {
+        this.M = M;
+        this.events.add(new Event(time(1, 6, 0), DAM_COLLECT));
+        this.events.add(new Event(time(1, 10, 0), DAM_CLEAR));
+        this.events.add(new Event(time(1, 13, 0), DAM_PUBLISH));
+        this.events.add(new Event(time(1, 24, 0), END_OF_DAY));
+        this.events.add(new Event(time(2, 1, 0), RT_CLEAR));
+    }
+
+    /**
+     * @param day from 1
+     * @param hour from 1 to 24
+     * @param minute
+     * @return time of the start of the minute.
+     */
+    public static long time(int day, int hour, int minute) {
+        return (long) (day - 1) * MINUTES_PER_DAY + (hour - 1) * MINUTES_PER_HOUR + minute;
+    }
+
+    public static int day(long time) {
+        return (int) (time / MINUTES_PER_DAY) + 1;
+    }
+
+    public static int hour(long time) {
+        return (int) (time % MINUTES_PER_DAY) / MINUTES_PER_HOUR + 1;
+    }
+
+    public static int minute(long time) {
+        return (int) (time % MINUTES_PER_HOUR);
+    }
+
+    /**
+     * @return time of the next event.
+     */
+    public long nextTime() {
+        return this.events.peek().time;
+    }
+
+    /**
+     * Take the events due at the next time, and schedule their next
+     * occurrences.
+     * @return for each kind of event, whether it is due.
+     */
+    public boolean[] poll() {
+        boolean[] due = new boolean[NUM_KINDS];
+        long time = nextTime();
+        while (!this.events.isEmpty() && this.events.peek().time == time) {
+            Event e = this.events.poll();
+            due[e.kind] = true;
+            this.events.add(new Event(e.time + (e.kind == RT_CLEAR ? this.M : MINUTES_PER_DAY), e.kind));
+        }
+        return due;
+    }
+
+    private static class Event implements Comparable<Event> {
+
+        final long time;
+        final int kind;
+
+        Event(long time, int kind) {
+            this.time = time;
+            this.kind = kind;
+        }
+
+        @Override
+        public int compareTo(Event o) {
+            if (this.time != o.time) {
+                return this.time < o.time ? -1 : 1;
+            }
+            return this.kind - o.kind;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package amesmarket;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Console messages of the market, by category and level.
+ *
+ * Each category ({@link #MARKET}, {@link #DAM}, {@link #RTM}, {@link #SOLVER},
+ * {@link #FNCS}) is the java.util.logging logger {@value #LOGGER_NAME} dot
+ * the category, and its level is configured like any other logger, in the
+ * logging.properties file given with {@code -Djava.util.logging.config.file}.
+ * The default level is INFO, the progress of the run: start, DAM days, end.
+ * For example
+ * <pre>
+ * amesmarket.log.level = WARNING
+ * amesmarket.log.solver.level = FINEST
+ * </pre>
+ * keeps only the warnings of the run and echoes the solver output. The
+ * levels of the methods map to SEVERE, WARNING, INFO, FINE and FINEST.
+ *
+ * Messages below the level cost a level check: the format methods only
+ * format enabled messages, and callers building a message themselves should
+ * check {@link #isEnabled(int)} first. The messages are not passed to the
+ * root handlers: they are written as they are to System.out by a background
+ * thread, unless the LogManager property {@value #LOGGER_NAME}.async is
+ * false. Everything printed directly to System.out around the messages of
+ * the run should be preceded by {@link #flush()} to stay in order.
+ */
+public final class MarketLog {
+
+    public static final int ERROR = 0;
+    public static final int WARN = 1;
+    public static final int INFO = 2;
+    public static final int DEBUG = 3;
+    public static final int TRACE = 4;
+    private static final Level[] LEVELS = {Level.SEVERE, Level.WARNING, Level.INFO, Level.FINE, Level.FINEST};
+
+    public static final String MARKET = "market";
+    public static final String DAM = "dam";
+    public static final String RTM = "rtm";
+    public static final String SOLVER = "solver";
+    public static final String FNCS = "fncs";
+
+    /**
+     * Parent logger of the categories.
+     */
+    public static final String LOGGER_NAME = "amesmarket.log";
+
+    private static final int QUEUE_SIZE = 8192;
+    private static final Map<String, MarketLog> LOGS = new HashMap<String, MarketLog>();
+    private static Logger parent;
+    private static Appender appender;
+
+    private final String category;
+    private final Logger logger;
+
+    private MarketLog(String category, Logger logger) {
+        this.category = category;
+        this.logger = logger;
+    }
+
+    /**
+     * @param category
+     * @return the log of the category.
+     */
+    public static synchronized MarketLog get(String category) {
+        MarketLog log = LOGS.get(category);
+        if (log == null) {
+            if (parent == null) {
+                parent = Logger.getLogger(LOGGER_NAME);
+                parent.setUseParentHandlers(false);
+                appender = new Appender(!"false".equalsIgnoreCase(
+                        LogManager.getLogManager().getProperty(LOGGER_NAME + ".async")));
+                parent.addHandler(appender);
+            }
+            log = new MarketLog(category, Logger.getLogger(LOGGER_NAME + "." + category));
+            LOGS.put(category, log);
+        }
+        return log;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public boolean isEnabled(int level) {
+        return logger.isLoggable(LEVELS[level]);
+    }
+
+    public void log(int level, String message) {
+        logger.log(LEVELS[level], message);
+    }
+
+    /**
+     * @param level
+     * @param format as {@link String#format(String, Object...)}, formatted
+     * only if the level is enabled.
+     * @param args
+     */
+    public void logf(int level, String format, Object... args) {
+        if (isEnabled(level)) {
+            logger.log(LEVELS[level], String.format(format, args));
+        }
+    }
+
+    public void error(String message) {
+        log(ERROR, message);
+    }
+
+    public void warn(String message) {
+        log(WARN, message);
+    }
+
+    public void info(String message) {
+        log(INFO, message);
+    }
+
+    public void debug(String message) {
+        log(DEBUG, message);
+    }
+
+    public void trace(String message) {
+        log(TRACE, message);
+    }
+
+    /**
+     * Wait until the messages logged so far are written.
+     */
+    public static void flush() {
+        Appender a;
+        synchronized (MarketLog.class) {
+            a = appender;
+        }
+        if (a != null) {
+            a.flush();
+        }
+    }
+
+    /**
+     * Writes the messages to System.out, as it is at the time of writing: the
+     * GUI redirects it to its output pane.
+     */
+    private static class Appender extends Handler implements Runnable {
+
+        private final BlockingQueue<Object> queue;
+
+        Appender(boolean async) {
+            if (!async) {
+                queue = null;
+                return;
+            }
+            queue = new ArrayBlockingQueue<Object>(QUEUE_SIZE);
+            Thread writer = new Thread(this, "AMES log writer");
+            writer.setDaemon(true);
+            writer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }, "AMES log flush"));
+        }
+
+        @Override
+        public void publish(LogRecord record) {
+            if (isLoggable(record)) {
+                append(record.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+
+        void append(String message) {
+            if (queue == null) {
+                System.out.println(message);
+                return;
+            }
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    queue.put(message);
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (queue == null) {
+                System.out.flush();
+                return;
+            }
+            CountDownLatch done = new CountDownLatch(1);
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    queue.put(done);
+                    done.await();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            List<Object> batch = new ArrayList<Object>();
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException ex) {
+                    continue;
+                }
+                queue.drainTo(batch);
+
+                PrintStream out = System.out;
+                for (Object o : batch) {
+                    if (o instanceof CountDownLatch) {
+                        out.print(sb);
+                        sb.setLength(0);
+                        out.flush();
+                        ((CountDownLatch) o).countDown();
+                    } else {
+                        sb.append(o).append(System.lineSeparator());
+                    }
+                }
+                out.print(sb);
+                sb.setLength(0);
+                batch.clear();
+            }
+        }
+    }
+}
@@ -3,7 +3,6 @@
 // Non Dispatchable Generator Agent
 package amesmarket;
 
-import fncs.JNIfncs;
 import java.awt.Color;
 
 import uchicago.src.sim.gui.Drawable;
@@ -71,28 +70,13 @@ public class NDGenAgent {
     }
 //method
 
-    public double[] submitDAMNDGBid(int day, int lse, boolean FNCSActive) {
+    public double[] submitDAMNDGBid(int day, int lse, FNCSEventDispatcher fncsEvents) {
 
-        double[] temp = new double[HOURS_PER_DAY];
         // Receives NDG forecast from fncs_player
         //System.out.println("In submitDAMforecast:");
         if (day > 1) { // previously day > 2
-            if (FNCSActive) {
-                String[] events = JNIfncs.get_events();
-                //System.out.println("DAM events.len: " + events.length);
-                for (int i = 0; i < events.length; ++i) {
-                    //String value = JNIfncs.get_value(events[i]);
-                    String[] values = JNIfncs.get_values(events[i]);
-
-                    for (int j = 0; j < HOURS_PER_DAY; j++) {
-                        if (events[i].equals("ndgenforecastDAM_h" + String.valueOf(j))) {
-                            System.out.println("receiving DAM NDGForecast: " + values[0]);
-                            //System.out.println("i:"+i);
-                            temp[j] = Double.parseDouble(values[0]);
-                        }
-                        //System.out.println("temp - NDGforecast: " + temp[j]);
-                    }
-                }
+            if (fncsEvents != null) {
+                double[] temp = fncsEvents.getDAMNDGForecast();
                 System.arraycopy(temp, 0, NDGForecast, 0, HOURS_PER_DAY);
 
                 return NDGForecast;
@@ -0,0 +1,219 @@
+package amesmarket;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Net load forecasts of the TES agents, replayed into a
+ * {@link LoopbackFNCSConnection}.
+ *
+ * Reads a NetLoadScData JSON file, as the NetLoadForecastDAM.py and
+ * NetLoadForecastRTM.py agents do: a list with one object per LSE, whose only
+ * member holds the hourly net load of the LSE, day by day. The messages are
+ * scheduled at the times and with the topics the agents publish them:
+ * <ul>
+ * <li>DAM: on each day d &gt; 0, at 4 h - 1 s, the
+ * "loadforecastDAM_LSE&lt;i&gt;_H&lt;h&gt;" forecasts of day d.</li>
+ * <li>RTM: at each hour h of day d, 1 h - 1 s after its start, the
+ * "loadforecastRTM_&lt;i&gt;" forecast of the hour two hours ahead.</li>
+ * </ul>
+ * Days past the end of the data wrap to the first day, as in the agents.
+ */
+public class NetLoadScenarioReplay {
+
+    public static final int DAM = 0;
+    public static final int RTM = 1;
+
+    private static final int HOUR_LEN = 3600;
+    private static final int DAY_LEN = 24 * HOUR_LEN;
+
+    private final int market;
+    /**
+     * Net load by LSE, day and hour.
+     */
+    private final double[][][] netLoad;
+
+    /**
+     * @param market {@link #DAM} or {@link #RTM}
+     * @param netLoad net load by LSE, day and hour.
+     */
+    public NetLoadScenarioReplay(int market, double[][][] netLoad) {
+        this.market = market;
+        this.netLoad = netLoad;
+    }
+
+    /**
+     * @param file NetLoadScData.&lt;case&gt;.DAM.json or .RTM.json file.
+     * @return the replay of the file, for the market in its name.
+     * @throws IOException
+     */
+    public static NetLoadScenarioReplay load(File file) throws IOException {
+        int market;
+        if (file.getName().endsWith(".DAM.json")) {
+            market = DAM;
+        } else if (file.getName().endsWith(".RTM.json")) {
+            market = RTM;
+        } else {
+            throw new IOException(file.getPath() + " is not a .DAM.json or .RTM.json net load file");
+        }
+
+        String text = new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8"));
+        try {
+            return new NetLoadScenarioReplay(market, new Parser(text).parse());
+        } catch (IllegalArgumentException ex) {
+            throw new IOException(file.getPath() + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Schedule the messages the agent publishes during a day.
+     * @param day from 0, the day of the FNCS clock.
+     * @param broker
+     */
+    public void scheduleDay(int day, LoopbackFNCSConnection broker) {
+        if (market == DAM) {
+            if (day == 0) {
+                return;
+            }
+            long time = (long) day * DAY_LEN + 4 * HOUR_LEN - 1;
+            for (int i = 0; i < netLoad.length; i++) {
+                double[] forecast = netLoad[i][day >= netLoad[i].length ? 0 : day];
+                for (int h = 0; h < forecast.length; h++) {
+                    broker.schedule(time, "loadforecastDAM_LSE" + (i + 1) + "_H" + h, String.valueOf(forecast[h]));
+                }
+            }
+        } else {
+            // The agent reacts to the change of hour, so there is nothing at
+            // the start of the simulation.
+            for (int h = (day == 0 ? 1 : 0); h < 24; h++) {
+                long time = (long) day * DAY_LEN + h * HOUR_LEN + HOUR_LEN - 1;
+                int aheadHour = (h + 2) % 24;
+                int aheadDay = h >= 22 ? day : day - 1;
+                for (int i = 0; i < netLoad.length; i++) {
+                    int days = netLoad[i].length;
+                    int d = aheadDay >= days ? 0 : aheadDay;
+                    if (d < 0) {
+                        // The agent indexes a python list: -1 is the last day.
+                        d += days;
+                    }
+                    broker.schedule(time, "loadforecastRTM_" + (i + 1), String.valueOf(netLoad[i][d][aheadHour]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Just enough JSON for the net load files: a list of objects, each with
+     * one member, a list of days of numbers.
+     */
+    private static class Parser {
+
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        double[][][] parse() {
+            List<double[][]> lses = new ArrayList<double[][]>();
+            expect('[');
+            if (!peek(']')) {
+                do {
+                    expect('{');
+                    string();
+                    expect(':');
+                    lses.add(matrix());
+                    expect('}');
+                } while (accept(','));
+            }
+            expect(']');
+            return lses.toArray(new double[lses.size()][][]);
+        }
+
+        private double[][] matrix() {
+            List<double[]> rows = new ArrayList<double[]>();
+            expect('[');
+            if (!peek(']')) {
+                do {
+                    rows.add(row());
+                } while (accept(','));
+            }
+            expect(']');
+            return rows.toArray(new double[rows.size()][]);
+        }
+
+        private double[] row() {
+            List<Double> values = new ArrayList<Double>();
+            expect('[');
+            if (!peek(']')) {
+                do {
+                    values.add(number());
+                } while (accept(','));
+            }
+            expect(']');
+            double[] row = new double[values.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = values.get(i);
+            }
+            return row;
+        }
+
+        private String string() {
+            expect('"');
+            int end = text.indexOf('"', pos);
+            if (end < 0) {
+                throw error("unterminated string");
+            }
+            String s = text.substring(pos, end);
+            pos = end + 1;
+            return s;
+        }
+
+        private double number() {
+            skipSpace();
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            try {
+                return Double.parseDouble(text.substring(start, pos));
+            } catch (NumberFormatException ex) {
+                throw error("number expected");
+            }
+        }
+
+        private boolean peek(char c) {
+            skipSpace();
+            return pos < text.length() && text.charAt(pos) == c;
+        }
+
+        private boolean accept(char c) {
+            if (peek(c)) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) {
+                throw error("'" + c + "' expected");
+            }
+        }
+
+        private void skipSpace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at offset " + pos);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package amesmarket;
+
+/**
+ * Layout of the case output (.out) file.
+ *
+ * The file is a header followed by one section per kind of result, in the
+ * order of the section constants. Each section has a start marker, a column
+ * header and the lines of each day, or RT interval, in order. The GUI loader
+ * finds the sections by their markers.
+ *
+ * Shared by {@link OutputFileWriter}, which writes a finished run, and
+ * {@link StreamingOutputWriter}, which writes the results as they come.
+ */
+public class OutputFileFormat {
+
+    public static final int SUPPLY_OFFER = 0;
+    public static final int DAM_DISPATCH = 1;
+    public static final int RT_DISPATCH = 2;
+    public static final int PRICE_SENSITIVE_DEMAND = 3;
+    public static final int LMP = 4;
+    public static final int RT_LMP = 5;
+    public static final int NUM_SECTIONS = 6;
+
+    private static final String[] SECTION_NAMES = {
+        "GeneratorSupplyOffer", "GeneratorDAMDispatch", "GeneratorRealTimeDispatch",
+        "LSEPriceSensitiveDemand", "NodeLMP", "NodeRealTimeLMP"
+    };
+
+    private final String caseFileName;
+    private final String[] nodeName;
+    private final Object[][] branchData;
+    private final Object[][] genData;
+    private final Object[][] lseHybridData;
+    private final int iMaxDay;
+    private final int NIRTM;
+
+    /**
+     * @param caseFileName name of the case file, written in the header.
+     * @param nodeName bus names
+     * @param branchData branch rows, as loaded from the case file.
+     * @param genData GenCo rows, the first column is the GenCo name.
+     * @param lseHybridData LSE hybrid demand flags, the first column is the
+     * LSE name.
+     * @param iMaxDay maximum day of the run
+     * @param NIRTM number of RT intervals in an hour
+     */
+    public OutputFileFormat(String caseFileName, String[] nodeName, Object[][] branchData,
+            Object[][] genData, Object[][] lseHybridData, int iMaxDay, int NIRTM) {
+        this.caseFileName = caseFileName;
+        this.nodeName = nodeName;
+        this.branchData = branchData;
+        this.genData = genData;
+        this.lseHybridData = lseHybridData;
+        this.iMaxDay = iMaxDay;
+        this.NIRTM = NIRTM;
+    }
+
+    /**
+     * @param nodeCount number of buses
+     * @return bus names as shown in the output file.
+     */
+    public static String[] nodeNames(int nodeCount) {
+        String[] bus = new String[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            bus[i] = "Bus " + (i + 1);
+        }
+
+        return bus;
+    }
+
+    /**
+     * @param outputFileName name of the file being written.
+     * @return the file header, up to the first section.
+     */
+    public String header(String outputFileName) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("// Output Data File:\n");
+        sb.append("//\n");
+        sb.append("// FILENAME ").append(outputFileName).append("\n");
+        sb.append("//\n");
+
+        sb.append("// CASE FILENAME :\n");
+        sb.append(this.caseFileName).append("\n");
+        sb.append("\n");
+
+        sb.append(String.format("//%1$13s\t%2$15s\t%3$15s\t%4$15s\n", "iNodeNumber", "iBranchNumber", "iGenNumber", "iLSENumber"));
+        sb.append(String.format("%1$15d\t%2$15d\t%3$15d\t%4$15d\n",
+                this.nodeName.length, this.branchData.length, this.genData.length, this.lseHybridData.length));
+
+        sb.append(String.format("//%1$8s\n", "iMaxDay"));
+        sb.append(String.format("%1$8d\n", this.iMaxDay));
+        return sb.toString();
+    }
+
+    /**
+     * @param section
+     * @return start marker and column header of the section.
+     */
+    public String sectionStart(int section) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("#").append(SECTION_NAMES[section]).append("DataStart\n");
+
+        switch (section) {
+            case SUPPLY_OFFER:
+                sb.append(String.format("//%1$5s\t%2$10s\t%3$15s\t%4$15s\t%5$15s\t%6$15s\n",
+                        "Day", "GenCo Name", "aR ($/MWh)", "bR ($/MW2h)", "CapRL (MW)", "CapRU (MW)"));
+                break;
+            case DAM_DISPATCH:
+            case RT_DISPATCH:
+                sb.append(String.format("//%1$5s\t%2$5s", section == DAM_DISPATCH ? "Day" : "Hour",
+                        section == DAM_DISPATCH ? "Hour" : "Interval"));
+                for (int i = 0; i < this.genData.length; i++) {
+                    sb.append(String.format("\t%1$15s", this.genData[i][0].toString()));
+                }
+                sb.append("\n");
+                break;
+            case PRICE_SENSITIVE_DEMAND:
+                sb.append("Price sensitive demand data is currently not being written to the output file. Next AMES package release fixes this.   \n");
+                sb.append(String.format("//%1$5s\t%2$5s", "Day", "Hour"));
+                for (int i = 0; i < this.lseHybridData.length; i++) {
+                    sb.append(String.format("\t%1$15s", this.lseHybridData[i][0].toString()));
+                }
+                sb.append("\n");
+                break;
+            default:
+                sb.append(String.format("//%1$5s\t%2$5s", "Day", "Hour"));
+                for (int i = 0; i < this.nodeName.length; i++) {
+                    sb.append(String.format("\t%1$15s", this.nodeName[i]));
+                }
+                sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param section
+     * @return end marker of the section.
+     */
+    public String sectionEnd(int section) {
+        return "#" + SECTION_NAMES[section] + "DataEnd\n\n";
+    }
+
+    /**
+     * @param section
+     * @param index day or RT interval of the record, from 0.
+     * @param record result of the day or interval, as kept by
+     * {@link AMESMarket}.
+     * @return the lines of the record.
+     */
+    public String lines(int section, int index, double[][] record) {
+        StringBuilder sb = new StringBuilder();
+        switch (section) {
+            case SUPPLY_OFFER:
+                for (int j = 0; j < this.genData.length; j++) {
+                    sb.append(String.format("%1$5d\t%2$10s\t", index + 1, this.genData[j][0].toString()));
+                    sb.append(String.format("%1$15f\t%2$15f\t%3$15f\t%4$15f\n", record[j][0], record[j][1], record[j][2], record[j][3]));
+                }
+                break;
+            case DAM_DISPATCH:
+            case LMP:
+                table(sb, index, record, 24, section == LMP ? this.nodeName.length : this.genData.length);
+                break;
+            case RT_DISPATCH:
+            case RT_LMP:
+                table(sb, index, record, this.NIRTM, section == RT_LMP ? this.nodeName.length : this.genData.length);
+                break;
+            case PRICE_SENSITIVE_DEMAND:
+                for (int h = 0; h < 24; h++) {
+                    sb.append(String.format("%1$5d\t%2$5d", index + 1, h));
+                    int psLoadIndex = 0;
+
+                    for (int j = 0; j < this.lseHybridData.length; j++) {
+                        int hourlyLoadHybridFlagByLSE = Integer.parseInt(this.lseHybridData[j][h + 3].toString());
+
+                        if ((hourlyLoadHybridFlagByLSE & 2) == 2) {
+                            sb.append(String.format("\t%1$15f", record[h][psLoadIndex++]));
+                        } else {
+                            sb.append(String.format("\t%1$15f", 0.0));
+                        }
+                    }
+                    sb.append("\n");
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown output section " + section);
+        }
+        return sb.toString();
+    }
+
+    private static void table(StringBuilder sb, int index, double[][] record, int rows, int cols) {
+        for (int h = 0; h < rows; h++) {
+            sb.append(String.format("%1$5d\t%2$5d", index + 1, h + 1));
+
+            for (int j = 0; j < cols; j++) {
+                sb.append(String.format("\t%1$6.2f", record[h][j]));
+            }
+            sb.append("\n");
+        }
+    }
+}
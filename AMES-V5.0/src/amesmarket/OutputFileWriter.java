@@ -0,0 +1,75 @@
+package amesmarket;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Write the results of a finished run to the case output (.out) file.
+ *
+ * Used by the GUI after each run and by {@link BatchRunner}, which has no
+ * frame to hold the case data. Runs that had a {@link StreamingOutputWriter}
+ * already have their output file.
+ */
+public class OutputFileWriter {
+
+    private final AMESMarket ames;
+    private final OutputFileFormat format;
+
+    /**
+     * @param ames finished market
+     * @param format
+     */
+    public OutputFileWriter(AMESMarket ames, OutputFileFormat format) {
+        this.ames = ames;
+        this.format = format;
+    }
+
+    /**
+     * @param ames finished market
+     * @param caseFileName name of the case file, written in the header.
+     * @param nodeName bus names
+     * @param branchData branch rows, as loaded from the case file.
+     * @param genData GenCo rows, the first column is the GenCo name.
+     * @param lseHybridData LSE hybrid demand flags, the first column is the
+     * LSE name.
+     * @param iMaxDay maximum day of the run
+     * @param NIRTM number of RT intervals in an hour
+     */
+    public OutputFileWriter(AMESMarket ames, String caseFileName, String[] nodeName, Object[][] branchData,
+            Object[][] genData, Object[][] lseHybridData, int iMaxDay, int NIRTM) {
+        this(ames, new OutputFileFormat(caseFileName, nodeName, branchData, genData, lseHybridData, iMaxDay, NIRTM));
+    }
+
+    /**
+     * Write the output file.
+     * @param outputFile
+     * @throws IOException
+     */
+    public void write(File outputFile) throws IOException {
+        ResultColumn[] sections = new ResultColumn[OutputFileFormat.NUM_SECTIONS];
+        sections[OutputFileFormat.SUPPLY_OFFER] = this.ames.getGenAgentSupplyOfferByDay();
+        sections[OutputFileFormat.DAM_DISPATCH] = this.ames.getGenAgentDispatchByDay();
+        sections[OutputFileFormat.RT_DISPATCH] = this.ames.getGenAgentRealTimeDispatchByInterval();
+        sections[OutputFileFormat.PRICE_SENSITIVE_DEMAND] = this.ames.getLSEAgenPriceSensitiveDemandByDay();
+        sections[OutputFileFormat.LMP] = this.ames.getLMPByDay();
+        sections[OutputFileFormat.RT_LMP] = this.ames.getRealTimeLMPByInterval();
+
+        BufferedWriter outputBufferWriter = new BufferedWriter(new FileWriter(outputFile));
+        try {
+            outputBufferWriter.write(this.format.header(outputFile.getName()));
+
+            for (int s = 0; s < sections.length; s++) {
+                outputBufferWriter.write(this.format.sectionStart(s));
+                int iRecords = sections[s].size();
+                for (int i = 0; i < iRecords; i++) {
+                    outputBufferWriter.write(this.format.lines(s, i, sections[s].get(i)));
+                }
+                outputBufferWriter.write(this.format.sectionEnd(s));
+            }
+        } finally {
+            outputBufferWriter.close();
+        }
+    }
+}
@@ -1,6 +1,9 @@
 
 package amesmarket;
 
+import amesmarket.extern.common.CommitmentDecision;
+import java.util.List;
+
 /**
  * Defines the methods for running a SCED computation
  * and getting the computed data back to the AMES simulation.
@@ -8,6 +11,20 @@ package amesmarket;
  *
  */
 public interface RTMOptimization {
+
+    /**
+     * Hand the inputs for the next RTM operating period to the solver.
+     * @param genCoCommitments
+     * @param rtDemand
+     * @param rtNDG
+     * @param PSLdemandBidByLSE
+     * @param m
+     * @param h
+     * @param d
+     */
+    public void prepareRTMOptimization(List<CommitmentDecision> genCoCommitments,
+            double[][] rtDemand, double[][] rtNDG, double[][][] PSLdemandBidByLSE,
+            int m, int h, int d) throws AMESMarketException;
     
     /**
      * Run the solver.
@@ -44,5 +61,45 @@ public interface RTMOptimization {
      * @return
      */
     public double[][] getRTMPriceSensitiveDemandSolution();
-    
+
+    /**
+     * 
+     * @return
+     */
+    public double[] getIntervalLMP();
+
+    /**
+     * 
+     * @return
+     */
+    public double[] getIntervalGenDispatches();
+
+    /**
+     * 
+     * @return
+     */
+    public double[][] getProductionCost();
+
+    /**
+     * 
+     * @return
+     */
+    public double[][] getStartupCost();
+
+    /**
+     * 
+     * @return
+     */
+    public double[][] getShutdownCost();
+
+    /**
+     * 
+     * @return optimal or infeasible
+     */
+    public String getSolutionStatus();
+
+    /**
+     * @return number of solves and warm starts so far.
+     */
+    public SCEDStatistics getSCEDStatistics();
 }
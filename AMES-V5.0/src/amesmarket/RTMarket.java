@@ -6,11 +6,12 @@ package amesmarket;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 import amesmarket.extern.common.CommitmentDecision;
-import amesmarket.extern.psst.DataFileWriter;
+import amesmarket.extern.psst.PSSTConfig;
 import amesmarket.extern.psst.PSSTRTMOpt;
 import amesmarket.filereaders.BadDataFileFormatException;
 import java.util.logging.Level;
@@ -18,9 +19,32 @@ import java.util.logging.Logger;
 
 /**
  * Real-time market.
+ *
+ * The SCEDs of an hour often see the same loads, offers and commitments, and
+ * only differ in the power of the GenCos at the end of the previous interval.
+ * When the inputs of an interval are those of the last SCED solved, and no
+ * ramp limit bounds its dispatch from either initial power, the dispatch and
+ * the LMPs of that SCED are still optimal, and are reused instead of solving.
+ * This only applies to SCEDs of a single step (RTKDur equal to the RTM
+ * interval), and is turned off by setting the system property
+ * {@value #REUSE_PROPERTY} to false. Skipped solves are counted in the
+ * {@link SCEDStatistics}.
+ *
+ * Without FNCS, the inputs of all the intervals of an hour are known when the
+ * first one clears. The system property {@value #WINDOW_PROPERTY} then sets
+ * how many consecutive RTM intervals (1 by default) are solved as a single
+ * multi-period SCED, of NIRTM steps each, when the first of them clears. The
+ * others post their slice of its solution. A window never spans two hours:
+ * it is cut down to a divisor of the number of RTM intervals in an hour.
  */
 public class RTMarket {
 
+    public static final String REUSE_PROPERTY = "AMES_SCED_REUSE";
+    public static final String WINDOW_PROPERTY = "AMES_RTM_WINDOW";
+
+    //Slack, in MW, a ramp limit must keep for a solution to be reused.
+    private static final double RAMP_MARGIN = 1.0e-3;
+
     //Real time market's data
     private AMESMarket ames;
     private ISO iso;
@@ -40,8 +64,6 @@ public class RTMarket {
     private double[][] rtProductionCost;
     private double[][] rtStartupCost;
     private double[][] rtShutdownCost;
-    
-    private double[] rtPrintGenCoDispatch;
 
     private double[][] supplyOfferByGen;
     private double[][] priceSensitiveDispatch;
@@ -59,20 +81,54 @@ public class RTMarket {
             
     private int numIntervalsInSim;
 
-    private final PSSTRTMOpt sced;
-
-    private final File RTUnitCommitmentsFile = new File("DataFiles/RTUnitCommitments.dat");
-    private final File RTMReferenceModelFile = new File("DataFiles/RTMReferenceModel.dat");// new File("SCUCresources/ScenarioData/RTRefernceModel.dat");
-    private final File RTMResultsFile = new File("DataFiles/RTMResults.dat");
+    private final RTMOptimization sced;
+
+    private final File RTUnitCommitmentsFile;
+    private final File RTMReferenceModelFile;// new File("SCUCresources/ScenarioData/RTRefernceModel.dat");
+    private final File RTMResultsFile;
+
+    //RTM intervals solved by one SCED, and its number of steps.
+    private final int window;
+    private final int numSteps;
+    //Solution of the SCED of the current window, all steps.
+    private double[][] windowDispatches;
+    private double[][] windowLMPs;
+    private double[][] windowProductionCost;
+    private double[][] windowStartupCost;
+    private double[][] windowShutdownCost;
+
+    private final boolean reuse;
+    //Inputs, initial power and dispatch of each GenCo (MW) of the last SCED
+    //solved, null if it was not solved to optimality.
+    private Object[] solvedInputs;
+    private double[] solvedPowerT0;
+    private double[] solvedPower;
 
     // constructor
-    public RTMarket(ISO iso, AMESMarket model) {
+    public RTMarket(ISO iso, AMESMarket model, RunContext runContext) {
+        this(iso, model, runContext, rtmWindow(model), null);
+    }
+
+    /**
+     * @param iso
+     * @param model
+     * @param runContext
+     * @param window RTM intervals per SCED.
+     * @param engine SCED of NIRTM times window steps, or null for the engine
+     * of the case.
+     */
+    RTMarket(ISO iso, AMESMarket model, RunContext runContext, int window, RTMOptimization engine) {
 
         //System.out.println("Created a RTMarket objecct");
         ames = model;
         this.iso = iso;
         
         lseAgentList = ames.getLSEAgentList();
+
+        String ext = PSSTConfig.fileExtension(ames.getTestCaseConfig().PSSTDataFormat);
+        RTUnitCommitmentsFile = runContext.getScratchFile("RTUnitCommitments.dat");
+        RTMReferenceModelFile = runContext.getScratchFile("RTMReferenceModel" + ext);
+        RTMResultsFile = runContext.getScratchFile("RTMResults" + ext);
         
         numGenAgents = ames.getNumGenAgents();
         numLSEAgents = ames.getNumLSEAgents();
@@ -86,21 +142,59 @@ public class RTMarket {
 
         priceSensitiveDispatch = new double[numHoursPerDay][numLSEAgents];
 
-        sced = new PSSTRTMOpt(model, model.getBaseS(),
-                RTUnitCommitmentsFile,
-                RTMReferenceModelFile,
-                RTMResultsFile);
+        this.window = window;
+        numSteps = model.NIRTM * window;
+
+        if (engine != null) {
+            sced = engine;
+        } else if (CaseFileData.SCED_ENGINE_DCOPFJ.equals(ames.getTestCaseConfig().SCEDEngine)) {
+            sced = new DCOPFJSCED(model, numSteps);
+        } else {
+            PSSTRTMOpt psstSced = new PSSTRTMOpt(model, runContext, model.getBaseS(),
+                    RTUnitCommitmentsFile,
+                    RTMReferenceModelFile,
+                    RTMResultsFile,
+                    numSteps);
+            psstSced.setPSSTServer(iso.getPSSTServer());
+            sced = psstSced;
+        }
+
+        reuse = numSteps == 1 && Boolean.parseBoolean(System.getProperty(REUSE_PROPERTY, "true"));
+    }
+
+    /**
+     * @return RTM intervals per SCED: {@value #WINDOW_PROPERTY}, within the
+     * hour. Always 1 with FNCS, whose forecasts come interval by interval.
+     */
+    private static int rtmWindow(AMESMarket model) {
+        if (model.FNCSActive) {
+            return 1;
+        }
+        int w = 1;
+        try {
+            w = Integer.parseInt(System.getProperty(WINDOW_PROPERTY, "1").trim());
+        } catch (NumberFormatException ex) {
+            Logger.getLogger(RTMarket.class.getName()).log(Level.WARNING,
+                    "Bad " + WINDOW_PROPERTY + ", solving one RTM interval per SCED", ex);
+        }
+        int perHour = model.RTMFrequencyPerHour;
+        w = Math.max(1, Math.min(w, perHour));
+        while (perHour % w != 0) {
+            w--;
+        }
+        return w;
     }
 
     public void RTMCollectBidsAndOffers(int h, int d, boolean FNCSActive) {
         //System.out.println("Hour " + h + " Day " + d + ": Real Time Market operation.");
         supplyOfferByGen = iso.getSupplyOfferByGenRT();
+        FNCSEventDispatcher fncsEvents = FNCSActive ? ames.getFNCSEvents() : null;
         
         for (int j = 0; j < numLSEAgents; j++) {
             LSEAgent lse = (LSEAgent) lseAgentList.get(j);
 
             //Receive price sensitive demand bid into demandBid and then into demandBidbyLSE for each LSE
-            RTPSLdemandBid = lse.submitRTMPriceSensitiveDemandBid(h, d, j, ames.getPriceSensitiveDemandFlag(), ames.NIRTM, FNCSActive);
+            RTPSLdemandBid = lse.submitRTMPriceSensitiveDemandBid(h, d, j, ames.getPriceSensitiveDemandFlag(), numSteps, fncsEvents);
             RTPSLdemandBidByLSE[j] = RTPSLdemandBid;
 
             //String lseName = String.format("%1$10d", lse.getID());
@@ -127,16 +221,26 @@ public class RTMarket {
 
         
         //double[][][] PSLDemandBidLSE= this.iso.getRTPSLDemandBidByLSE();
-        
-        DataFileWriter dfw = new DataFileWriter();
 
-        try {
-            dfw.writeGenCommitments(ames, ames.M, m, h, genCoCommitments, RTUnitCommitmentsFile);
-        } catch (AMESMarketException ex) {
-            Logger.getLogger(RTMarket.class.getName()).log(Level.SEVERE, null, ex);
+        Object[] inputs = null;
+        double[] powerT0 = null;
+        if (reuse) {
+            inputs = scedInputs(genCoCommitments, rtDemand, rtNDG, RTPSLdemandBidByLSE, h, d);
+            if (canReuse(inputs, genCoCommitments, h)) {
+                RunProfile.Timer reuseTimer = ames.getRunProfile().start(RunProfile.SCED_REUSE);
+                reuseSolution();
+                reuseTimer.stop();
+                sced.getSCEDStatistics().recordSkip();
+                return;
+            }
+            powerT0 = powerT0();
         }
+        solvedInputs = null;
+        boolean solved = false;
+
         try {
-            dfw.writeScedScenDatFile(ames, m, h, d, rtDemand, rtNDG, RTPSLdemandBidByLSE, ames.NIRTM, genCoCommitments, RTMReferenceModelFile);
+            sced.prepareRTMOptimization(genCoCommitments, rtDemand, rtNDG, RTPSLdemandBidByLSE, m, h, d);
+            solved = true;
         } catch (AMESMarketException ex) {
             Logger.getLogger(RTMarket.class.getName()).log(Level.SEVERE, null, ex);
         }
@@ -146,6 +250,7 @@ public class RTMarket {
             sced.solveRTMOptimization(interval);
             SolutionStatus = sced.getSolutionStatus();
         } catch (AMESMarketException ex) {
+            solved = false;
             Logger.getLogger(RTMarket.class.getName()).log(Level.SEVERE, null, ex);
         }
 
@@ -159,7 +264,191 @@ public class RTMarket {
         rtProductionCost = sced.getProductionCost();
         rtStartupCost = sced.getStartupCost();
         rtShutdownCost = sced.getShutdownCost();
-        rtPrintGenCoDispatch = sced.getPrintGenCoDispatch();
+
+        if (window > 1) {
+            windowDispatches = rtDispatches;
+            windowLMPs = rtLMPs;
+            windowProductionCost = rtProductionCost;
+            windowStartupCost = rtStartupCost;
+            windowShutdownCost = rtShutdownCost;
+            selectInterval(0);
+        }
+
+        if (reuse && solved && "optimal".equals(SolutionStatus)) {
+            solvedInputs = inputs;
+            solvedPowerT0 = powerT0;
+            solvedPower = new double[numGenAgents];
+            for (int i = 0; i < numGenAgents; i++) {
+                solvedPower[i] = ames.getGenAgentList().get(i).getPowerPrevInterval();
+            }
+        }
+    }
+
+    /**
+     * @param m minute
+     * @return true if the RTM interval at the minute starts a window, and
+     * needs a SCED.
+     */
+    public boolean solvesInterval(int m) {
+        return (m / ames.M) % window == 0;
+    }
+
+    /**
+     * Take the results of the RTM interval at the minute from the SCED of its
+     * window, solved by {@link #RTMarketOptimization}.
+     * @param m minute
+     */
+    public void RTMarketWindowInterval(int m) {
+        selectInterval((m / ames.M) % window);
+    }
+
+    /**
+     * Point the results at the NIRTM steps of an interval of the window.
+     * @param p index of the interval in the window.
+     */
+    private void selectInterval(int p) {
+        int from = p * ames.NIRTM;
+        int to = from + ames.NIRTM;
+        rtDispatches = slice(windowDispatches, from, to);
+        rtLMPs = slice(windowLMPs, from, to);
+        rtProductionCost = slice(windowProductionCost, from, to);
+        rtStartupCost = slice(windowStartupCost, from, to);
+        rtShutdownCost = slice(windowShutdownCost, from, to);
+        if (rtLMPs != null) {
+            intervalRTLMPs = new double[rtLMPs[0].length];
+            for (double[] lmp : rtLMPs) {
+                for (int k = 0; k < lmp.length; k++) {
+                    intervalRTLMPs[k] += lmp[k] / rtLMPs.length;
+                }
+            }
+        }
+        if (rtDispatches != null) {
+            intervalRtDispatches = rtDispatches[rtDispatches.length - 1].clone();
+        }
+    }
+
+    private static double[][] slice(double[][] a, int from, int to) {
+        return a == null ? null : Arrays.copyOfRange(a, from, to);
+    }
+
+    /**
+     * @return number of RTKDur steps of each SCED, NIRTM times the RTM
+     * intervals of a window.
+     */
+    public int getNumSteps() {
+        return numSteps;
+    }
+
+    /**
+     * @return copies of everything the SCED of the interval depends on,
+     * except the initial power of the GenCos.
+     */
+    private Object[] scedInputs(List<CommitmentDecision> genCoCommitments,
+            double[][] rtDemand, double[][] rtNDG, double[][][] RTPSLdemandBidByLSE, int h, int d) {
+        int[][] commitments = new int[genCoCommitments.size()][];
+        for (int c = 0; c < commitments.length; c++) {
+            CommitmentDecision cd = genCoCommitments.get(c);
+            commitments[c] = Arrays.copyOf(cd.commitmentDecisions, cd.commitmentDecisions.length + 1);
+            commitments[c][cd.commitmentDecisions.length] = cd.generatorIdx;
+        }
+        int[] unitOnT0 = new int[numGenAgents];
+        for (int i = 0; i < numGenAgents; i++) {
+            unitOnT0[i] = ames.getGenAgentList().get(i).getUnitOnT0State();
+        }
+        return new Object[]{new int[]{h, d}, commitments, unitOnT0,
+            copy(rtDemand), copy(rtNDG), copy(RTPSLdemandBidByLSE), copy(iso.getSupplyOfferByGenRT())};
+    }
+
+    /**
+     * The last solution holds if the SCED has the same inputs, and no ramp
+     * limit of a committed GenCo binds it, from the initial power it was
+     * solved with or from the one of this interval. Uncommitted GenCos must
+     * start from the same power.
+     */
+    private boolean canReuse(Object[] inputs, List<CommitmentDecision> genCoCommitments, int h) {
+        if (solvedInputs == null || !Arrays.deepEquals(inputs, solvedInputs)) {
+            return false;
+        }
+        boolean[] unitOn = new boolean[numGenAgents];
+        for (CommitmentDecision cd : genCoCommitments) {
+            unitOn[cd.generatorIdx] = cd.commitmentDecisions[h - 1] > 0;
+        }
+        double[] powerT0 = powerT0();
+        int deltaK = ames.getTestCaseConfig().RTKDur;
+        for (int i = 0; i < numGenAgents; i++) {
+            if (!unitOn[i]) {
+                if (powerT0[i] != solvedPowerT0[i]) {
+                    return false;
+                }
+                continue;
+            }
+            GenAgent ga = ames.getGenAgentList().get(i);
+            double ramp = Double.POSITIVE_INFINITY;
+            for (double limit : new double[]{ga.getNominalRampUpLim(), ga.getNominalRampDownLim(),
+                ga.getStartupRampLim(), ga.getShutdownRampLim()}) {
+                //PSST reads a limit of zero as no limit.
+                if (limit > 0) {
+                    ramp = Math.min(ramp, limit * deltaK);
+                }
+            }
+            if (Math.abs(solvedPower[i] - solvedPowerT0[i]) > ramp - RAMP_MARGIN
+                    || Math.abs(solvedPower[i] - powerT0[i]) > ramp - RAMP_MARGIN) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return initial power of each GenCo, within its capacities as the SCEDs
+     * take it.
+     */
+    private double[] powerT0() {
+        double[] powerT0 = new double[numGenAgents];
+        for (int i = 0; i < numGenAgents; i++) {
+            GenAgent ga = ames.getGenAgentList().get(i);
+            powerT0[i] = Math.min(ga.getCapacityMax(), Math.max(ga.getCapacityMin(), ga.getPowerPrevInterval()));
+        }
+        return powerT0;
+    }
+
+    /**
+     * Post the last solution again, in fresh arrays as a solve would, and
+     * move the GenCos to its dispatch.
+     */
+    private void reuseSolution() {
+        rtDispatches = copy(rtDispatches);
+        rtLMPs = copy(rtLMPs);
+        intervalRTLMPs = intervalRTLMPs == null ? null : intervalRTLMPs.clone();
+        intervalRtDispatches = intervalRtDispatches == null ? null : intervalRtDispatches.clone();
+        rtProductionCost = copy(rtProductionCost);
+        rtStartupCost = copy(rtStartupCost);
+        rtShutdownCost = copy(rtShutdownCost);
+        for (int i = 0; i < numGenAgents; i++) {
+            ames.getGenAgentList().get(i).setPowerPrevInterval(solvedPower[i]);
+        }
+    }
+
+    private static double[][] copy(double[][] a) {
+        if (a == null) {
+            return null;
+        }
+        double[][] c = new double[a.length][];
+        for (int i = 0; i < a.length; i++) {
+            c[i] = a[i] == null ? null : a[i].clone();
+        }
+        return c;
+    }
+
+    private static double[][][] copy(double[][][] a) {
+        if (a == null) {
+            return null;
+        }
+        double[][][] c = new double[a.length][][];
+        for (int i = 0; i < a.length; i++) {
+            c[i] = copy(a[i]);
+        }
+        return c;
     }
 
 //    public double[][] getSupplyOfferByGen() {
@@ -219,12 +508,12 @@ public class RTMarket {
     public double[][] getRtShutdownCost() {
         return rtShutdownCost;
     }
-    
+
     /**
-     * @return the rtShutdownCost
+     * @return solve and warm start counts of the SCED.
      */
-    public double[] getRtPrintGenCoDispatch() {
-        return rtPrintGenCoDispatch;
+    public SCEDStatistics getSCEDStatistics() {
+        return sced.getSCEDStatistics();
     }
 
     /**
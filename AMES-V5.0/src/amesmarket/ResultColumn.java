@@ -0,0 +1,280 @@
+package amesmarket;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One metric of a {@link ResultStore}: a double[][] per day or per interval,
+ * indexed by entity (or hour) and by value.
+ *
+ * The values of all the records are kept one after the other in fixed size
+ * chunks of doubles outside the heap; the heap only holds the offset and the
+ * row layout of each record, and the layout is shared by consecutive records
+ * of the same shape. A record is only rebuilt as a double[][] when it is read
+ * with {@link #get(int)}. {@link #get(int, int, int)} and
+ * {@link #read(int, int, int, int)} read single values, without rebuilding
+ * anything.
+ *
+ * The column is a read-only list, apart from {@link #add} and
+ * {@link #clear}, so it can be used wherever the results used to be kept in
+ * an ArrayList.
+ */
+public class ResultColumn extends AbstractList<double[][]> {
+
+    private static final int CHUNK_SHIFT = 14;
+    private static final int CHUNK_DOUBLES = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_DOUBLES - 1;
+    private static final int CHUNK_BYTES = CHUNK_DOUBLES * 8;
+
+    private final ResultStore store;
+    private final String name;
+    private final List<DoubleBuffer> chunks = new ArrayList<DoubleBuffer>();
+    private int directChunks;
+
+    private File spillFile;
+    private RandomAccessFile spill;
+    private int spillChunks;
+
+    /**
+     * Start of each record in the chunks.
+     */
+    private long[] offsets = new long[16];
+    /**
+     * Start of each row of each record, relative to the record start, plus
+     * the record length.
+     */
+    private int[][] rowStarts = new int[16][];
+    private int size;
+    private long length;
+
+    ResultColumn(ResultStore store, String name) {
+        this.store = store;
+        this.name = name;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * Append a copy of the record.
+     * @param record
+     * @return true
+     */
+    @Override
+    public synchronized boolean add(double[][] record) {
+        if (record == null) {
+            throw new IllegalArgumentException();
+        }
+        int[] starts = layout(record);
+        int recordLength = starts[record.length];
+        ensureCapacity(this.length + recordLength);
+
+        if (this.size == this.offsets.length) {
+            this.offsets = Arrays.copyOf(this.offsets, this.size * 2);
+            this.rowStarts = Arrays.copyOf(this.rowStarts, this.size * 2);
+        }
+        this.offsets[this.size] = this.length;
+        this.rowStarts[this.size] = starts;
+
+        long pos = this.length;
+        for (double[] row : record) {
+            write(pos, row);
+            pos += row.length;
+        }
+        this.length = pos;
+        this.size++;
+        this.modCount++;
+        return true;
+    }
+
+    /**
+     * @param index
+     * @return a copy of the record.
+     */
+    @Override
+    public synchronized double[][] get(int index) {
+        checkIndex(index);
+        int[] starts = this.rowStarts[index];
+        double[][] record = new double[starts.length - 1][];
+        for (int i = 0; i < record.length; i++) {
+            record[i] = new double[starts[i + 1] - starts[i]];
+            read(this.offsets[index] + starts[i], record[i]);
+        }
+        return record;
+    }
+
+    /**
+     * @param index record
+     * @param row
+     * @param col
+     * @return the value at [row][col] of the record.
+     */
+    public synchronized double get(int index, int row, int col) {
+        return valueAt(position(index, row, col));
+    }
+
+    /**
+     * Range query over the records.
+     * @param row
+     * @param col
+     * @param from first record, inclusive.
+     * @param to last record, exclusive.
+     * @return the value at [row][col] of each record in the range.
+     */
+    public synchronized double[] read(int row, int col, int from, int to) {
+        double[] values = new double[to - from];
+        for (int i = from; i < to; i++) {
+            values[i - from] = valueAt(position(i, row, col));
+        }
+        return values;
+    }
+
+    /**
+     * Range query over the records.
+     * @param from first record, inclusive.
+     * @param to last record, exclusive.
+     * @return copies of the records in the range.
+     */
+    public synchronized List<double[][]> read(int from, int to) {
+        List<double[][]> records = new ArrayList<double[][]>(to - from);
+        for (int i = from; i < to; i++) {
+            records.add(get(i));
+        }
+        return records;
+    }
+
+    /**
+     * Forget the records. The chunks are kept and reused.
+     */
+    @Override
+    public synchronized void clear() {
+        this.size = 0;
+        this.length = 0;
+        Arrays.fill(this.rowStarts, null);
+        this.modCount++;
+    }
+
+    /**
+     * Clear the column and free its chunks and spill file.
+     */
+    synchronized void close() {
+        clear();
+        this.chunks.clear();
+        this.store.release((long) this.directChunks * CHUNK_BYTES);
+        this.directChunks = 0;
+        if (this.spill != null) {
+            try {
+                this.spill.close();
+            } catch (IOException ex) {
+                // Nothing left to do with it.
+            }
+            this.spillFile.delete();
+            this.spill = null;
+            this.spillFile = null;
+            this.spillChunks = 0;
+        }
+    }
+
+    private int[] layout(double[][] record) {
+        int[] starts = new int[record.length + 1];
+        for (int i = 0; i < record.length; i++) {
+            starts[i + 1] = starts[i] + record[i].length;
+        }
+        // Most metrics keep the same shape from day to day.
+        if (this.size > 0 && Arrays.equals(starts, this.rowStarts[this.size - 1])) {
+            return this.rowStarts[this.size - 1];
+        }
+        return starts;
+    }
+
+    private long position(int index, int row, int col) {
+        checkIndex(index);
+        int[] starts = this.rowStarts[index];
+        if (row < 0 || row >= starts.length - 1 || col < 0 || col >= starts[row + 1] - starts[row]) {
+            throw new IndexOutOfBoundsException("[" + row + "][" + col + "] of " + this.name + " record " + index);
+        }
+        return this.offsets[index] + starts[row] + col;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+    }
+
+    private double valueAt(long pos) {
+        return this.chunks.get((int) (pos >>> CHUNK_SHIFT)).get((int) (pos & CHUNK_MASK));
+    }
+
+    private void read(long pos, double[] dst) {
+        int done = 0;
+        while (done < dst.length) {
+            DoubleBuffer chunk = this.chunks.get((int) (pos >>> CHUNK_SHIFT)).duplicate();
+            chunk.position((int) (pos & CHUNK_MASK));
+            int n = Math.min(chunk.remaining(), dst.length - done);
+            chunk.get(dst, done, n);
+            done += n;
+            pos += n;
+        }
+    }
+
+    private void write(long pos, double[] src) {
+        int done = 0;
+        while (done < src.length) {
+            DoubleBuffer chunk = this.chunks.get((int) (pos >>> CHUNK_SHIFT)).duplicate();
+            chunk.position((int) (pos & CHUNK_MASK));
+            int n = Math.min(chunk.remaining(), src.length - done);
+            chunk.put(src, done, n);
+            done += n;
+            pos += n;
+        }
+    }
+
+    private void ensureCapacity(long capacity) {
+        while ((long) this.chunks.size() * CHUNK_DOUBLES < capacity) {
+            this.chunks.add(newChunk());
+        }
+    }
+
+    private DoubleBuffer newChunk() {
+        ByteBuffer buffer;
+        if (this.store.reserve(CHUNK_BYTES)) {
+            buffer = ByteBuffer.allocateDirect(CHUNK_BYTES);
+            this.directChunks++;
+        } else {
+            buffer = spillChunk();
+        }
+        return buffer.order(ByteOrder.nativeOrder()).asDoubleBuffer();
+    }
+
+    private ByteBuffer spillChunk() {
+        try {
+            if (this.spill == null) {
+                this.spillFile = File.createTempFile("ames-" + this.name + "-", ".col", this.store.getSpillDir());
+                this.spillFile.deleteOnExit();
+                this.spill = new RandomAccessFile(this.spillFile, "rw");
+            }
+            ByteBuffer buffer = this.spill.getChannel().map(FileChannel.MapMode.READ_WRITE,
+                    (long) this.spillChunks * CHUNK_BYTES, CHUNK_BYTES);
+            this.spillChunks++;
+            return buffer;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not spill " + this.name + " to " + this.store.getSpillDir(), ex);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package amesmarket;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Storage for the results a market collects day by day and interval by
+ * interval.
+ *
+ * Each metric is a {@link ResultColumn} of doubles kept outside the Java heap,
+ * in direct buffers, so a long run neither grows the heap nor slows the
+ * garbage collector. The direct buffers of all the columns share a budget.
+ * Beyond it, new chunks are memory-mapped from spill files, which lets the
+ * operating system page the history out to disk.
+ *
+ * The budget, in megabytes, is read from the system property
+ * {@value #BUDGET_PROPERTY}. The spill files go to the directory given by
+ * {@value #SPILL_DIR_PROPERTY}, the system temporary directory by default.
+ */
+public class ResultStore {
+
+    public static final String BUDGET_PROPERTY = "AMES_RESULT_STORE_BUDGET_MB";
+    public static final String SPILL_DIR_PROPERTY = "AMES_RESULT_STORE_SPILL_DIR";
+    public static final long DEFAULT_BUDGET_MB = 64;
+
+    private final long budget;
+    private final File spillDir;
+    private final List<ResultColumn> columns = new ArrayList<ResultColumn>();
+    private long used;
+
+    /**
+     * @param budget bytes of direct memory the columns may use before they
+     * spill.
+     * @param spillDir directory for the spill files.
+     */
+    public ResultStore(long budget, File spillDir) {
+        this.budget = budget;
+        this.spillDir = spillDir;
+    }
+
+    /**
+     * Store configured from the system properties.
+     * @return the store
+     */
+    public static ResultStore create() {
+        long budgetMB = DEFAULT_BUDGET_MB;
+        String value = System.getProperty(BUDGET_PROPERTY);
+        if (value != null) {
+            budgetMB = Long.parseLong(value.trim());
+        }
+        return new ResultStore(budgetMB * 1024 * 1024,
+                new File(System.getProperty(SPILL_DIR_PROPERTY, System.getProperty("java.io.tmpdir"))));
+    }
+
+    /**
+     * @param name metric name, used to name the spill file.
+     * @return a new, empty column.
+     */
+    public synchronized ResultColumn newColumn(String name) {
+        ResultColumn column = new ResultColumn(this, name);
+        this.columns.add(column);
+        return column;
+    }
+
+    public File getSpillDir() {
+        return this.spillDir;
+    }
+
+    public long getBudget() {
+        return this.budget;
+    }
+
+    /**
+     * @return bytes of direct memory used by the columns.
+     */
+    public synchronized long getUsed() {
+        return this.used;
+    }
+
+    /**
+     * Take bytes from the budget.
+     * @param bytes
+     * @return false if the budget doesn't have that many bytes left; the
+     * caller should spill.
+     */
+    synchronized boolean reserve(long bytes) {
+        if (this.used + bytes > this.budget) {
+            return false;
+        }
+        this.used += bytes;
+        return true;
+    }
+
+    synchronized void release(long bytes) {
+        this.used -= bytes;
+    }
+
+    /**
+     * Free the memory and delete the spill files of all the columns. The
+     * columns can't be read afterwards.
+     */
+    public void close() {
+        List<ResultColumn> closing;
+        // Columns take the store lock to reserve memory, so they are closed
+        // outside of it.
+        synchronized (this) {
+            closing = new ArrayList<ResultColumn>(this.columns);
+            this.columns.clear();
+        }
+        for (ResultColumn column : closing) {
+            column.close();
+        }
+    }
+}
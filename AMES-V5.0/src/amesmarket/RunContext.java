@@ -0,0 +1,119 @@
+package amesmarket;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import amesmarket.extern.psst.SolutionCache;
+
+/**
+ * State that belongs to one simulation run rather than to the JVM.
+ *
+ * Owns the scratch directory for the reference models, commitments and
+ * results exchanged with the optimizers. The market classes get their files
+ * from here, so runs with different contexts can share a JVM or a host
+ * without overwriting each other's files. Also owns the run's view of the
+ * {@link SolutionCache}, if it is on.
+ *
+ * Setting the system property {@value #TMPFS_PROPERTY} to true puts the
+ * scratch directory on tmpfs ({@value #TMPFS_DIR}), if there is one, so the
+ * intermediate files never reach the disk. Such a directory is temporary and
+ * is deleted by {@link #close()}.
+ */
+public class RunContext {
+
+    public static final String TMPFS_PROPERTY = "AMES_SCRATCH_TMPFS";
+    public static final String TMPFS_DIR = "/dev/shm";
+
+    private final File scratchDir;
+    private final boolean temporary;
+    private SolutionCache solutionCache;
+    private boolean solutionCacheOpened;
+
+    /**
+     * Context using the given scratch directory, as is.
+     * @param scratchDir
+     */
+    public RunContext(File scratchDir) {
+        this(scratchDir, false);
+    }
+
+    private RunContext(File scratchDir, boolean temporary) {
+        this.scratchDir = scratchDir;
+        this.temporary = temporary;
+    }
+
+    /**
+     * Context for a run, on tmpfs if {@value #TMPFS_PROPERTY} is set.
+     * @param dir scratch directory to use if not on tmpfs. Its name is also
+     * used to name the temporary directory.
+     * @return the context
+     */
+    public static RunContext create(File dir) {
+        File tmpfs = new File(TMPFS_DIR);
+        if (Boolean.parseBoolean(System.getProperty(TMPFS_PROPERTY, "false")) && tmpfs.isDirectory()) {
+            try {
+                return new RunContext(Files.createTempDirectory(tmpfs.toPath(), "ames-" + dir.getName() + "-").toFile(), true);
+            } catch (IOException ex) {
+                Logger.getLogger(RunContext.class.getName()).log(Level.WARNING,
+                        "Could not create a scratch directory in " + TMPFS_DIR + ", using " + dir.getPath(), ex);
+            }
+        }
+        return new RunContext(dir);
+    }
+
+    /**
+     * @return directory for the files exchanged with the optimizers.
+     */
+    public File getScratchDir() {
+        return this.scratchDir;
+    }
+
+    /**
+     * @param name
+     * @return file with the given name in the scratch directory.
+     */
+    public File getScratchFile(String name) {
+        return new File(this.scratchDir, name);
+    }
+
+    /**
+     * @return cache of the PSST results, or null if it is off.
+     */
+    public synchronized SolutionCache getSolutionCache() {
+        if (!this.solutionCacheOpened) {
+            this.solutionCache = SolutionCache.open();
+            this.solutionCacheOpened = true;
+        }
+        return this.solutionCache;
+    }
+
+    /**
+     * @return true if the scratch directory is deleted when the run is
+     * over.
+     */
+    public boolean isTemporary() {
+        return this.temporary;
+    }
+
+    /**
+     * End of the run. Deletes the scratch directory if it is temporary.
+     */
+    public void close() {
+        if (this.temporary) {
+            delete(this.scratchDir);
+        }
+    }
+
+    private static void delete(File f) {
+        File[] children = f.listFiles();
+        if (children != null) {
+            for (File c : children) {
+                delete(c);
+            }
+        }
+        f.delete();
+    }
+}
@@ -0,0 +1,289 @@
+package amesmarket;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Where the time of a run goes, phase by phase.
+ *
+ * The market stages time themselves with {@link #start(int)} and
+ * {@link Timer#stop()}, which record the wall clock and the CPU time of the
+ * calling thread. Phases can nest: the solver spawn and the result parse are
+ * part of the optimization of the market they belong to, but each phase is
+ * only timed by its own timers. Phases that move data also count the bytes
+ * written or read.
+ *
+ * At the end of the run {@link #write(File)} saves the count, the totals and
+ * the wall clock percentiles of each phase as JSON. The report goes to the
+ * file given by the system property {@value #REPORT_PROPERTY}, if set; batch
+ * runs write one next to each output file.
+ */
+public class RunProfile {
+
+    public static final String REPORT_PROPERTY = "AMES_PERF_REPORT";
+
+    /**
+     * Collection of the bids, offers and forecasts of the DAM and the RTM.
+     */
+    public static final int BID_COLLECTION = 0;
+    /**
+     * Writing of the unit commitments and reference models for the solver.
+     */
+    public static final int DATA_FILE_WRITE = 1;
+    /**
+     * Start of a PSST process.
+     */
+    public static final int SOLVER_SPAWN = 2;
+    /**
+     * Optimization, from the request to the solver to its end.
+     */
+    public static final int SOLVE = 3;
+    /**
+     * Reading of the results of the solver.
+     */
+    public static final int RESULT_PARSE = 4;
+    /**
+     * Handing of the commitments and dispatches to the agents.
+     */
+    public static final int POSTING = 5;
+    /**
+     * Storing and streaming of the results of the market.
+     */
+    public static final int RESULT_ACCUMULATION = 6;
+    /**
+     * Waiting for FNCS to grant a time.
+     */
+    public static final int FNCS_WAIT = 7;
+    /**
+     * Waiting for a DAM SCUC solved in the background while the RTM cleared.
+     */
+    public static final int DAM_WAIT = 8;
+    /**
+     * Reuse of the previous interval's SCED solution instead of a solve. The
+     * count is the number of SCEDs skipped.
+     */
+    public static final int SCED_REUSE = 9;
+    private static final String[] PHASE_NAMES = {"bidCollection", "dataFileWrite", "solverSpawn", "solve",
+        "resultParse", "posting", "resultAccumulation", "fncsWait", "damWait", "scedReuse"};
+
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported();
+
+    private final long[][] wallSamples = new long[PHASE_NAMES.length][64];
+    private final int[] counts = new int[PHASE_NAMES.length];
+    private final long[] wallTotal = new long[PHASE_NAMES.length];
+    private final long[] cpuTotal = new long[PHASE_NAMES.length];
+    private final long[] bytes = new long[PHASE_NAMES.length];
+    private final long startTime = System.nanoTime();
+
+    /**
+     * @return the report file of {@value #REPORT_PROPERTY}, or null.
+     */
+    public static File reportFile() {
+        String path = System.getProperty(REPORT_PROPERTY);
+        return path == null || path.trim().isEmpty() ? null : new File(path.trim());
+    }
+
+    /**
+     * Start timing a phase on the current thread.
+     * @param phase
+     * @return the timer, to stop on the same thread.
+     */
+    public Timer start(int phase) {
+        return new Timer(phase);
+    }
+
+    /**
+     * Count bytes written or read in a phase, outside of a timer.
+     * @param phase
+     * @param n
+     */
+    public synchronized void addBytes(int phase, long n) {
+        this.bytes[phase] += n;
+    }
+
+    /**
+     * @param record
+     * @return size of the values of a result record, in bytes.
+     */
+    public static long sizeOf(double[][] record) {
+        long n = 0;
+        for (double[] row : record) {
+            n += row.length;
+        }
+        return n * 8;
+    }
+
+    /**
+     * @param files
+     * @return total length of the files that exist.
+     */
+    public static long sizeOf(File... files) {
+        long n = 0;
+        for (File f : files) {
+            if (f != null) {
+                n += f.length();
+            }
+        }
+        return n;
+    }
+
+    private synchronized void record(int phase, long wall, long cpu) {
+        int c = this.counts[phase];
+        if (c == this.wallSamples[phase].length) {
+            this.wallSamples[phase] = Arrays.copyOf(this.wallSamples[phase], 2 * c);
+        }
+        this.wallSamples[phase][c] = wall;
+        this.counts[phase] = c + 1;
+        this.wallTotal[phase] += wall;
+        this.cpuTotal[phase] += cpu;
+    }
+
+    public synchronized int getCount(int phase) {
+        return this.counts[phase];
+    }
+
+    /**
+     * @param phase
+     * @return wall clock time of the phase, in ns.
+     */
+    public synchronized long getWallTime(int phase) {
+        return this.wallTotal[phase];
+    }
+
+    /**
+     * @param phase
+     * @return CPU time of the threads in the phase, in ns. 0 if the JVM can't
+     * measure it.
+     */
+    public synchronized long getCPUTime(int phase) {
+        return this.cpuTotal[phase];
+    }
+
+    public synchronized long getBytes(int phase) {
+        return this.bytes[phase];
+    }
+
+    /**
+     * @param phase
+     * @param percentile from 0 to 100
+     * @return wall clock time of the phase at the percentile, nearest rank,
+     * in ns. 0 if the phase never ran.
+     */
+    public synchronized long getWallTimePercentile(int phase, double percentile) {
+        int c = this.counts[phase];
+        if (c == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(this.wallSamples[phase], c);
+        Arrays.sort(sorted);
+        return sorted[percentileIndex(c, percentile)];
+    }
+
+    private static int percentileIndex(int count, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return Math.min(count - 1, Math.max(0, rank - 1));
+    }
+
+    /**
+     * Write the report of the run.
+     * @param file
+     * @throws IOException
+     */
+    public void write(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null) {
+            dir.mkdirs();
+        }
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+        try {
+            out.write(toJSON());
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * @return the report, as a JSON object. Times are in ms.
+     */
+    public synchronized String toJSON() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"wallMs\": ").append(ms(System.nanoTime() - this.startTime)).append(",\n");
+        sb.append("  \"cpuTimeMeasured\": ").append(CPU_TIME).append(",\n");
+        sb.append("  \"phases\": {");
+        for (int p = 0; p < PHASE_NAMES.length; p++) {
+            int c = this.counts[p];
+            long[] sorted = Arrays.copyOf(this.wallSamples[p], c);
+            Arrays.sort(sorted);
+
+            sb.append(p == 0 ? "\n" : ",\n");
+            sb.append("    \"").append(PHASE_NAMES[p]).append("\": {");
+            sb.append("\"count\": ").append(c);
+            sb.append(", \"wallMs\": ").append(ms(this.wallTotal[p]));
+            sb.append(", \"cpuMs\": ").append(ms(this.cpuTotal[p]));
+            for (double pct : PERCENTILES) {
+                sb.append(", \"p").append((int) pct).append("Ms\": ")
+                        .append(ms(c == 0 ? 0 : sorted[percentileIndex(c, pct)]));
+            }
+            sb.append(", \"maxMs\": ").append(ms(c == 0 ? 0 : sorted[c - 1]));
+            sb.append(", \"bytes\": ").append(this.bytes[p]);
+            sb.append("}");
+        }
+        sb.append("\n  }\n}\n");
+        return sb.toString();
+    }
+
+    private static String ms(long ns) {
+        return String.format(Locale.ROOT, "%.3f", ns / 1e6);
+    }
+
+    /**
+     * One timing of a phase.
+     */
+    public class Timer {
+
+        private final int phase;
+        private final long wallStart;
+        private final long cpuStart;
+        private boolean stopped;
+
+        private Timer(int phase) {
+            this.phase = phase;
+            this.cpuStart = CPU_TIME ? THREADS.getCurrentThreadCpuTime() : 0;
+            this.wallStart = System.nanoTime();
+        }
+
+        /**
+         * Record the time since the start. Only the first call counts.
+         */
+        public void stop() {
+            long wall = System.nanoTime() - this.wallStart;
+            if (this.stopped) {
+                return;
+            }
+            this.stopped = true;
+            long cpu = CPU_TIME ? THREADS.getCurrentThreadCpuTime() - this.cpuStart : 0;
+            record(this.phase, wall, cpu);
+        }
+
+        /**
+         * Record the time since the start and the bytes moved in the phase.
+         * @param n
+         */
+        public void stop(long n) {
+            stop();
+            addBytes(this.phase, n);
+        }
+    }
+}
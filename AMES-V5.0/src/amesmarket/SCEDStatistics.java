@@ -0,0 +1,61 @@
+package amesmarket;
+
+/**
+ * Counts of the SCEDs solved in a run, how many of them could start from
+ * the previous interval's model or solution, and how many were not solved at
+ * all because the previous interval's solution still held.
+ */
+public class SCEDStatistics {
+
+    private int solveCount;
+    private int warmStartCount;
+    private int skipCount;
+
+    /**
+     * @param warmStarted true if the solve reused the previous interval's
+     * model or solution.
+     */
+    public synchronized void recordSolve(boolean warmStarted) {
+        this.solveCount++;
+        if (warmStarted) {
+            this.warmStartCount++;
+        }
+    }
+
+    /**
+     * Count an interval that reused the previous interval's solution
+     * instead of solving.
+     */
+    public synchronized void recordSkip() {
+        this.skipCount++;
+    }
+
+    public synchronized int getSolveCount() {
+        return this.solveCount;
+    }
+
+    public synchronized int getWarmStartCount() {
+        return this.warmStartCount;
+    }
+
+    public synchronized int getSkipCount() {
+        return this.skipCount;
+    }
+
+    /**
+     * @return fraction of the solves that were warm started, 0 if nothing
+     * was solved.
+     */
+    public synchronized double getWarmStartHitRate() {
+        if (this.solveCount == 0) {
+            return 0;
+        }
+        return (double) this.warmStartCount / this.solveCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("SCED solves: %d, warm starts: %d (%.1f%%), skipped: %d",
+                this.solveCount, this.warmStartCount, 100 * this.getWarmStartHitRate(), this.skipCount);
+    }
+}
@@ -0,0 +1,317 @@
+package amesmarket;
+
+import java.util.Arrays;
+
+/**
+ * Power transfer distribution factors (PTDF, or shift factors) of a
+ * transmission grid, with bus 1 as the reference bus.
+ *
+ * The PTDF of branch l for bus k is the flow on l caused by injecting 1 at k
+ * and withdrawing it at the reference bus. With the reduced bus admittance
+ * Br' and the adjacency A of the grid, the factors are D A Br'^-1, see the
+ * DC-OPF paper (Eq 50 to 55).
+ *
+ * Br' is factored once, as L D L' with a sparse up-looking factorization in
+ * reverse Cuthill-McKee order, which keeps the fill of L low for meshed
+ * grids. The row of factors of a branch then takes one solve, and is only
+ * computed the first time it is asked for. The flows of all the branches for
+ * an injection take one solve too, through the voltage angles, without
+ * computing any factor.
+ *
+ * Flows are in the unit of the injections. Angles are in radians when the
+ * reactances are in PU.
+ */
+public class ShiftFactors {
+
+    private static final double SINGULAR_TOL = 1.0e-10;
+
+    private final int numNodes;
+    private final int numBranches;
+    private final int[] from;
+    private final int[] to;
+    private final double[] reactance;
+
+    //Factorization of the reduced bus admittance, in the permuted order.
+    private final int n;
+    private final int[] perm;
+    private final int[] Lp;
+    private final int[] Li;
+    private final double[] Lx;
+    private final double[] D;
+
+    private final double[][] rows;
+
+    /**
+     * @param busAdmittance B' (KxK) of the grid.
+     * @param branchIndex from and to bus of each branch, from 1.
+     * @param reactance of each branch.
+     * @throws IllegalArgumentException if the grid is not connected.
+     */
+    ShiftFactors(SparseMatrix busAdmittance, double[][] branchIndex, double[] reactance) {
+        this.numNodes = busAdmittance.getNumRows();
+        this.numBranches = branchIndex.length;
+        this.from = new int[numBranches];
+        this.to = new int[numBranches];
+        for (int l = 0; l < numBranches; l++) {
+            this.from[l] = (int) branchIndex[l][0] - 1;
+            this.to[l] = (int) branchIndex[l][1] - 1;
+        }
+        this.reactance = reactance.clone();
+        this.rows = new double[numBranches][];
+
+        //Reduced bus admittance, without the reference bus, permuted.
+        this.n = numNodes - 1;
+        this.perm = reverseCuthillMcKee(busAdmittance);
+        int[] inverse = new int[n];
+        for (int i = 0; i < n; i++) {
+            inverse[perm[i]] = i;
+        }
+        SparseMatrix.Builder Bb = new SparseMatrix.Builder(n, n, busAdmittance.getNumNonZeros());
+        for (int i = 1; i < numNodes; i++) {
+            for (int p = busAdmittance.rowStart(i); p < busAdmittance.rowStart(i + 1); p++) {
+                int k = busAdmittance.colIndex(p);
+                if (k > 0) {
+                    Bb.add(inverse[i - 1], inverse[k - 1], busAdmittance.value(p));
+                }
+            }
+        }
+        SparseMatrix B = Bb.build();
+
+        //Symbolic factorization: elimination tree and column counts of L.
+        int[] parent = new int[n];
+        int[] flag = new int[n];
+        int[] lnz = new int[n];
+        for (int k = 0; k < n; k++) {
+            parent[k] = -1;
+            flag[k] = k;
+            for (int p = B.rowStart(k); p < B.rowStart(k + 1); p++) {
+                for (int i = B.colIndex(p); i < k && flag[i] != k; i = parent[i]) {
+                    if (parent[i] == -1) {
+                        parent[i] = k;
+                    }
+                    lnz[i]++;
+                    flag[i] = k;
+                }
+            }
+        }
+        this.Lp = new int[n + 1];
+        for (int k = 0; k < n; k++) {
+            Lp[k + 1] = Lp[k] + lnz[k];
+        }
+        this.Li = new int[Lp[n]];
+        this.Lx = new double[Lp[n]];
+        this.D = new double[n];
+
+        //Numeric factorization, one row of L at a time.
+        Arrays.fill(flag, -1);
+        double[] y = new double[n];
+        int[] pattern = new int[n];
+        for (int k = 0; k < n; k++) {
+            int top = n;
+            flag[k] = k;
+            lnz[k] = 0;
+            for (int p = B.rowStart(k); p < B.rowStart(k + 1); p++) {
+                int i = B.colIndex(p);
+                if (i > k) {
+                    continue;
+                }
+                y[i] += B.value(p);
+                int len = 0;
+                for (; flag[i] != k; i = parent[i]) {
+                    pattern[len++] = i;
+                    flag[i] = k;
+                }
+                while (len > 0) {
+                    pattern[--top] = pattern[--len];
+                }
+            }
+            double diagonal = y[k];
+            D[k] = y[k];
+            y[k] = 0;
+            for (; top < n; top++) {
+                int i = pattern[top];
+                double yi = y[i];
+                y[i] = 0;
+                int end = Lp[i] + lnz[i];
+                for (int p = Lp[i]; p < end; p++) {
+                    y[Li[p]] -= Lx[p] * yi;
+                }
+                double lki = yi / D[i];
+                D[k] -= lki * yi;
+                Li[end] = k;
+                Lx[end] = lki;
+                lnz[i]++;
+            }
+            //A pivot that vanishes against the diagonal: part of the grid
+            //has no path to the reference bus.
+            if (!(D[k] > SINGULAR_TOL * diagonal)) {
+                throw new IllegalArgumentException("The grid is not connected: bus "
+                        + (perm[k] + 2) + " can't be reached from the reference bus");
+            }
+        }
+    }
+
+    /**
+     * Reverse Cuthill-McKee order of buses 2..K, as indexes from 0 into the
+     * reduced matrix.
+     */
+    private static int[] reverseCuthillMcKee(SparseMatrix B) {
+        int K = B.getNumRows();
+        int[] degree = new int[K];
+        for (int i = 1; i < K; i++) {
+            for (int p = B.rowStart(i); p < B.rowStart(i + 1); p++) {
+                if (B.colIndex(p) > 0 && B.colIndex(p) != i) {
+                    degree[i]++;
+                }
+            }
+        }
+        int[] order = new int[K - 1];
+        boolean[] visited = new boolean[K];
+        visited[0] = true;
+        int head = 0, tail = 0;
+        while (tail < K - 1) {
+            //Start each connected part from a bus of lowest degree.
+            int start = -1;
+            for (int i = 1; i < K; i++) {
+                if (!visited[i] && (start < 0 || degree[i] < degree[start])) {
+                    start = i;
+                }
+            }
+            visited[start] = true;
+            order[tail++] = start;
+            while (head < tail) {
+                int i = order[head++];
+                int first = tail;
+                for (int p = B.rowStart(i); p < B.rowStart(i + 1); p++) {
+                    int k = B.colIndex(p);
+                    if (!visited[k]) {
+                        visited[k] = true;
+                        order[tail++] = k;
+                    }
+                }
+                //Neighbors by increasing degree.
+                for (int a = first + 1; a < tail; a++) {
+                    int v = order[a];
+                    int b = a - 1;
+                    for (; b >= first && degree[order[b]] > degree[v]; b--) {
+                        order[b + 1] = order[b];
+                    }
+                    order[b + 1] = v;
+                }
+            }
+        }
+        int[] perm = new int[K - 1];
+        for (int i = 0; i < K - 1; i++) {
+            perm[i] = order[K - 2 - i] - 1;
+        }
+        return perm;
+    }
+
+    public int getNumNodes() {
+        return numNodes;
+    }
+
+    public int getNumBranches() {
+        return numBranches;
+    }
+
+    /**
+     * @param branch from 0
+     * @return factors of the branch for each bus, from 0. The factor of the
+     * reference bus is 0. Must not be modified.
+     */
+    public synchronized double[] getRow(int branch) {
+        if (rows[branch] == null) {
+            double[] b = new double[numNodes];
+            b[from[branch]] += 1;
+            b[to[branch]] -= 1;
+            double[] row = solve(b);
+            for (int k = 0; k < numNodes; k++) {
+                row[k] /= reactance[branch];
+            }
+            rows[branch] = row;
+        }
+        return rows[branch];
+    }
+
+    /**
+     * @param branch from 0
+     * @param bus from 0
+     * @return factor of the branch for the bus.
+     */
+    public double get(int branch, int bus) {
+        return getRow(branch)[bus];
+    }
+
+    /**
+     * @param branch from 0
+     * @param injection net injection at each bus.
+     * @return flow on the branch, from its from bus to its to bus.
+     */
+    public double flow(int branch, double[] injection) {
+        double[] row = getRow(branch);
+        double f = 0;
+        for (int k = 1; k < numNodes; k++) {
+            f += row[k] * injection[k];
+        }
+        return f;
+    }
+
+    /**
+     * @param injection net injection at each bus. The one of the reference
+     * bus is ignored: it balances the others.
+     * @return flow on each branch, from its from bus to its to bus.
+     */
+    public double[] flows(double[] injection) {
+        double[] angles = angles(injection);
+        double[] flows = new double[numBranches];
+        for (int l = 0; l < numBranches; l++) {
+            flows[l] = (angles[from[l]] - angles[to[l]]) / reactance[l];
+        }
+        return flows;
+    }
+
+    /**
+     * @param injection net injection at each bus.
+     * @return voltage angle of each bus, 0 at the reference bus.
+     */
+    public double[] angles(double[] injection) {
+        return solve(injection);
+    }
+
+    /**
+     * @param b right hand side for each bus
+     * @return Br'^-1 b for buses 2..K, 0 for bus 1.
+     */
+    private double[] solve(double[] b) {
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = b[perm[i] + 1];
+        }
+        for (int j = 0; j < n; j++) {
+            for (int p = Lp[j]; p < Lp[j + 1]; p++) {
+                x[Li[p]] -= Lx[p] * x[j];
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            x[j] /= D[j];
+        }
+        for (int j = n - 1; j >= 0; j--) {
+            for (int p = Lp[j]; p < Lp[j + 1]; p++) {
+                x[j] -= Lx[p] * x[Li[p]];
+            }
+        }
+        double[] result = new double[numNodes];
+        for (int i = 0; i < n; i++) {
+            result[perm[i] + 1] = x[i];
+        }
+        return result;
+    }
+
+    /**
+     * @return number of non-zeros of the factor L.
+     */
+    public int getFactorNonZeros() {
+        return Lp[n];
+    }
+}
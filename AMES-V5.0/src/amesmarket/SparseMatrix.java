@@ -0,0 +1,223 @@
+package amesmarket;
+
+import java.util.Arrays;
+
+/**
+ * An immutable sparse matrix, in compressed sparse row (CSR) form.
+ *
+ * The matrix is built from (row, column, value) triplets with a
+ * {@link Builder}. The triplets are sorted by row, then column, with two
+ * counting sorts, and the values of repeated entries are summed, so a matrix
+ * with nnz triplets is built in O(nnz + rows + columns).
+ *
+ * The non-zeros of row i are at positions {@link #rowStart(int) rowStart(i)}
+ * to rowStart(i + 1) - 1, in increasing column order.
+ */
+public class SparseMatrix {
+
+    private final int numRows;
+    private final int numCols;
+    private final int[] rowStart;
+    private final int[] colIndex;
+    private final double[] values;
+
+    private SparseMatrix(int numRows, int numCols, int[] rowStart, int[] colIndex, double[] values) {
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.rowStart = rowStart;
+        this.colIndex = colIndex;
+        this.values = values;
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public int getNumCols() {
+        return numCols;
+    }
+
+    /**
+     * @return number of stored entries.
+     */
+    public int getNumNonZeros() {
+        return rowStart[numRows];
+    }
+
+    /**
+     * @param row
+     * @return position of the first entry of the row.
+     */
+    public int rowStart(int row) {
+        return rowStart[row];
+    }
+
+    /**
+     * @param p position of an entry
+     * @return column of the entry.
+     */
+    public int colIndex(int p) {
+        return colIndex[p];
+    }
+
+    /**
+     * @param p position of an entry
+     * @return value of the entry.
+     */
+    public double value(int p) {
+        return values[p];
+    }
+
+    /**
+     * @param row
+     * @param col
+     * @return value at (row, col), 0 if not stored.
+     */
+    public double get(int row, int col) {
+        int p = Arrays.binarySearch(colIndex, rowStart[row], rowStart[row + 1], col);
+        return p < 0 ? 0 : values[p];
+    }
+
+    /**
+     * @param x vector of {@link #getNumCols()} values
+     * @return the product of the matrix and x.
+     */
+    public double[] multiply(double[] x) {
+        double[] y = new double[numRows];
+        for (int i = 0; i < numRows; i++) {
+            double sum = 0;
+            for (int p = rowStart[i]; p < rowStart[i + 1]; p++) {
+                sum += values[p] * x[colIndex[p]];
+            }
+            y[i] = sum;
+        }
+        return y;
+    }
+
+    /**
+     * @return the matrix, as a dense array.
+     */
+    public double[][] toDense() {
+        return toDense(0, 0);
+    }
+
+    /**
+     * @param firstRow
+     * @param firstCol
+     * @return the lower right part of the matrix from (firstRow, firstCol),
+     * as a dense array.
+     */
+    public double[][] toDense(int firstRow, int firstCol) {
+        double[][] dense = new double[numRows - firstRow][numCols - firstCol];
+        for (int i = firstRow; i < numRows; i++) {
+            for (int p = rowStart[i]; p < rowStart[i + 1]; p++) {
+                if (colIndex[p] >= firstCol) {
+                    dense[i - firstRow][colIndex[p] - firstCol] = values[p];
+                }
+            }
+        }
+        return dense;
+    }
+
+    /**
+     * Collects the entries of a matrix as (row, column, value) triplets.
+     */
+    public static class Builder {
+
+        private final int numRows;
+        private final int numCols;
+        private int[] rows;
+        private int[] cols;
+        private double[] vals;
+        private int size;
+
+        /**
+         * @param numRows
+         * @param numCols
+         * @param capacity expected number of triplets.
+         */
+        public Builder(int numRows, int numCols, int capacity) {
+            this.numRows = numRows;
+            this.numCols = numCols;
+            this.rows = new int[Math.max(capacity, 1)];
+            this.cols = new int[this.rows.length];
+            this.vals = new double[this.rows.length];
+        }
+
+        /**
+         * Add a value at (row, col), to the ones already added there.
+         * @param row
+         * @param col
+         * @param value
+         * @return this builder.
+         */
+        public Builder add(int row, int col, double value) {
+            if (row < 0 || row >= numRows || col < 0 || col >= numCols) {
+                throw new IndexOutOfBoundsException("(" + row + ", " + col + ") outside of a "
+                        + numRows + "x" + numCols + " matrix");
+            }
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, 2 * size);
+                cols = Arrays.copyOf(cols, 2 * size);
+                vals = Arrays.copyOf(vals, 2 * size);
+            }
+            rows[size] = row;
+            cols[size] = col;
+            vals[size] = value;
+            size++;
+            return this;
+        }
+
+        public SparseMatrix build() {
+            //Stable counting sort by column, then by row: row major order,
+            //columns increasing within each row.
+            int[] byCol = new int[size];
+            int[] colStart = new int[numCols + 1];
+            for (int e = 0; e < size; e++) {
+                colStart[cols[e] + 1]++;
+            }
+            for (int j = 0; j < numCols; j++) {
+                colStart[j + 1] += colStart[j];
+            }
+            for (int e = 0; e < size; e++) {
+                byCol[colStart[cols[e]]++] = e;
+            }
+
+            int[] sorted = new int[size];
+            int[] next = new int[numRows + 1];
+            for (int e = 0; e < size; e++) {
+                next[rows[e] + 1]++;
+            }
+            for (int i = 0; i < numRows; i++) {
+                next[i + 1] += next[i];
+            }
+            for (int e : byCol) {
+                sorted[next[rows[e]]++] = e;
+            }
+
+            //Sum the repeated entries.
+            int[] rowStart = new int[numRows + 1];
+            int[] colIndex = new int[size];
+            double[] values = new double[size];
+            int n = 0;
+            int prevRow = -1, prevCol = -1;
+            for (int e : sorted) {
+                if (rows[e] == prevRow && cols[e] == prevCol) {
+                    values[n - 1] += vals[e];
+                } else {
+                    colIndex[n] = cols[e];
+                    values[n] = vals[e];
+                    rowStart[rows[e] + 1]++;
+                    n++;
+                    prevRow = rows[e];
+                    prevCol = cols[e];
+                }
+            }
+            for (int i = 0; i < numRows; i++) {
+                rowStart[i + 1] += rowStart[i];
+            }
+            return new SparseMatrix(numRows, numCols, rowStart,
+                    Arrays.copyOf(colIndex, n), Arrays.copyOf(values, n));
+        }
+    }
+}
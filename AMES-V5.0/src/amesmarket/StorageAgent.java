@@ -3,7 +3,6 @@
 // Storage Unit Agent (wholesale power buyer)
 package amesmarket;
 
-import fncs.JNIfncs;
 import java.awt.Color;
 
 import uchicago.src.sim.gui.Drawable;
@@ -0,0 +1,189 @@
+package amesmarket;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+
+/**
+ * Write the case output (.out) file while the run goes on.
+ *
+ * The {@link ISO} appends the results of each DAM day and RT
+ * interval as soon as they are known. Each section of the output file goes to
+ * its own part file next to the output file, through a buffer that is written
+ * out when it is full, at least every {@link #FLUSH_INTERVAL} ms and at the
+ * end of each day ({@link #flush()}). The part files start with their
+ * section header, so if the run dies they still hold the results up to the
+ * last flush. {@link #close()} puts the header and the parts together into
+ * the output file, in the layout of {@link OutputFileWriter}, and deletes
+ * the parts.
+ */
+public class StreamingOutputWriter {
+
+    public static final long FLUSH_INTERVAL = 5000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputFileFormat format;
+    private final File outputFile;
+    private final File[] partFiles = new File[OutputFileFormat.NUM_SECTIONS];
+    private final FileChannel[] parts = new FileChannel[OutputFileFormat.NUM_SECTIONS];
+    private final ByteBuffer[] buffers = new ByteBuffer[OutputFileFormat.NUM_SECTIONS];
+    private final int[] records = new int[OutputFileFormat.NUM_SECTIONS];
+    private final CharsetEncoder encoder = Charset.defaultCharset().newEncoder();
+    private long lastFlush;
+    private boolean closed;
+
+    /**
+     * Create the part files.
+     * @param format
+     * @param outputFile
+     * @throws IOException
+     */
+    public StreamingOutputWriter(OutputFileFormat format, File outputFile) throws IOException {
+        this.format = format;
+        this.outputFile = outputFile;
+        try {
+            for (int s = 0; s < OutputFileFormat.NUM_SECTIONS; s++) {
+                this.partFiles[s] = new File(outputFile.getPath() + "." + s + ".part");
+                this.parts[s] = new FileOutputStream(this.partFiles[s]).getChannel();
+                this.buffers[s] = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                put(s, format.sectionStart(s));
+            }
+        } catch (IOException ex) {
+            closeParts();
+            throw ex;
+        }
+        this.lastFlush = System.currentTimeMillis();
+    }
+
+    public File getOutputFile() {
+        return this.outputFile;
+    }
+
+    /**
+     * Append the next day, or RT interval, of a section.
+     * @param section one of the {@link OutputFileFormat} sections.
+     * @param record
+     * @throws IOException
+     */
+    public synchronized void append(int section, double[][] record) throws IOException {
+        if (this.closed) {
+            throw new IOException(this.outputFile.getPath() + " is closed");
+        }
+        put(section, this.format.lines(section, this.records[section]++, record));
+
+        if (System.currentTimeMillis() - this.lastFlush >= FLUSH_INTERVAL) {
+            flush();
+        }
+    }
+
+    /**
+     * Write the buffered lines to the part files.
+     * @throws IOException
+     */
+    public synchronized void flush() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        for (int s = 0; s < OutputFileFormat.NUM_SECTIONS; s++) {
+            drain(s);
+        }
+        this.lastFlush = System.currentTimeMillis();
+    }
+
+    /**
+     * Write the output file and delete the part files. Does nothing if
+     * already closed.
+     * @throws IOException
+     */
+    public synchronized void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        flush();
+        this.closed = true;
+
+        FileChannel out = new FileOutputStream(this.outputFile).getChannel();
+        try {
+            out.write(this.encoder.encode(CharBuffer.wrap(this.format.header(this.outputFile.getName()))));
+            for (int s = 0; s < OutputFileFormat.NUM_SECTIONS; s++) {
+                long size = this.parts[s].position();
+                long done = 0;
+                this.parts[s].close();
+                FileChannel in = new FileInputStream(this.partFiles[s]).getChannel();
+                try {
+                    while (done < size) {
+                        done += in.transferTo(done, size - done, out);
+                    }
+                } finally {
+                    in.close();
+                }
+                out.write(this.encoder.encode(CharBuffer.wrap(this.format.sectionEnd(s))));
+            }
+        } finally {
+            out.close();
+            closeParts();
+        }
+        for (File part : this.partFiles) {
+            part.delete();
+        }
+    }
+
+    /**
+     * Delete the part files without writing the output file, for a run that
+     * is given up. Does nothing if already closed.
+     */
+    public synchronized void discard() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        closeParts();
+        for (File part : this.partFiles) {
+            part.delete();
+        }
+    }
+
+    private void put(int section, String text) throws IOException {
+        ByteBuffer buffer = this.buffers[section];
+        CharBuffer chars = CharBuffer.wrap(text);
+        this.encoder.reset();
+        while (true) {
+            CoderResult result = this.encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                drain(section);
+            } else if (result.isError()) {
+                result.throwException();
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void drain(int section) throws IOException {
+        ByteBuffer buffer = this.buffers[section];
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            this.parts[section].write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void closeParts() {
+        for (FileChannel part : this.parts) {
+            if (part != null) {
+                try {
+                    part.close();
+                } catch (IOException ex) {
+                    // Already failing, or the data is already in the output.
+                }
+            }
+        }
+    }
+}
@@ -10,6 +10,8 @@
 
 package amesmarket;
 
+import java.util.Arrays;
+
 import uchicago.src.sim.space.Object2DGrid;
 import cern.colt.matrix.*;
 import cern.colt.matrix.impl.*;
@@ -44,26 +46,31 @@ public class TransGrid {
 
   private int numNodes;                        // K   (1x1)
   private double penaltyCoeff;                 // pi  (1x1)
-  private double[][] vadWeight;                // W   (KxK)  ~ Eq(42)
+  private SparseMatrix sparseVADWeight;        // W   (KxK)  ~ Eq(42)
     // vad = voltage angle difference
-  private double[][] reducedVADWeight;         // Wrr (K-1)x(K-1) ~ Eq(45)
   private int numBranches;                     // N   (1x1)
   private double[][] branchIndex;              // BI  (Nx2)
   private double[] MaxCap;                    // T   (Nx1)
-  private double[][] negativeSusceptance;      // B   (KxK)   ~ Eq(16)
-  private double[][] busAdmittance;            // B'  (KxK)   ~ Eq(50)
+  private SparseMatrix sparseNegativeSusceptance;  // B   (KxK)   ~ Eq(16)
+  private SparseMatrix sparseBusAdmittance;    // B'  (KxK)   ~ Eq(50)
+  private SparseMatrix sparseDiagonalAdmittance;   // D   (NxN)   ~ Eq(55)
+  private SparseMatrix sparseAdjacency;        // A   (NxK)   ~ Eq(52)
+  private double[] reactance; //Nx1
+
+  // Dense views of the matrices, made on first use.
+  private double[][] vadWeight;                // W   (KxK)
+  private double[][] reducedVADWeight;         // Wrr (K-1)x(K-1) ~ Eq(45)
+  private double[][] negativeSusceptance;      // B   (KxK)
+  private double[][] busAdmittance;            // B'  (KxK)
   private double[][] reducedBusAdmittance;     // Br' (K-1)xK ~ Eq(51)
-  private double[][] diagonalAdmittance;       // D   (NxN)   ~ Eq(55)
-  private double[][] adjacency;                // A   (NxK)   ~ Eq(52)
+  private double[][] diagonalAdmittance;       // D   (NxN)
+  private double[][] adjacency;                // A   (NxK)
   private double[][] reducedAdjacency;         // Ar  Nx(K-1) ~ Eq(53)
-  private double[] reactance; //Nx1
+
+  private ShiftFactors shiftFactors;           // PTDF (NxK), made on first use
 
   private DoubleMatrix2D ndata;  // to hold nodeData
   private DoubleMatrix2D bdata;  // to hold branchData
-  private DoubleFactory2D fac2d = DoubleFactory2D.dense;
-    // for using Colt's methods e.g. diagonal(), identity(), etc.
-  private cern.jet.math.Functions F = cern.jet.math.Functions.functions;
-    // F: Naming shortcut to save some keystrokes for calling Colt's functions
 
   private Object2DGrid powerSpace;
   private Object2DGrid genSpace;
@@ -85,27 +92,11 @@ public class TransGrid {
 //      branchData[n][3]
 //          = (branchData[n][3]*INIT.getBaseS())/(INIT.getBaseV()*INIT.getBaseV());
 //    }
-    branchData = Support.correctRoundingError(branchData);
-
     numNodes = (int) nodeData[0][NN];
     penaltyCoeff = nodeData[0][PENALTY_COEFF];
-    vadWeight = new double[numNodes][numNodes];
-    reducedVADWeight = new double[numNodes-1][numNodes-1];
-    numBranches = branchData.length;
-    branchIndex = new double[numBranches][2];  //e.g., {{1,2},{1,4},{2,3},...}
-    MaxCap = new double[numBranches];
-    negativeSusceptance = new double[numNodes][numNodes];
-    busAdmittance = new double[numNodes][numNodes];
-    reducedBusAdmittance = new double[numNodes-1][numNodes];
-    diagonalAdmittance = new double[numBranches][numBranches];
-    adjacency = new double[numBranches][numNodes];
-    reducedAdjacency = new double[numBranches][numNodes-1];
-    reactance = new double[numBranches];
 
     ndata = new DenseDoubleMatrix2D(nodeData);
-    bdata = new DenseDoubleMatrix2D(branchData);
-
-    formMatrices();
+    setBranchData(branchData);
 
     powerSpace = new Object2DGrid(xSize,ySize);
     genSpace   = new Object2DGrid(xSize, ySize);
@@ -120,130 +111,202 @@ public class TransGrid {
     }
   }
 
+  // Replace the branches of the grid. The network matrices are rebuilt, and
+  // the shift factors dropped, only if the branches are not the same as the
+  // current ones.
+  public void setBranchData(double[][] branchData){
+    branchData = Support.correctRoundingError(branchData);
+    if(bdata != null && Arrays.deepEquals(bdata.toArray(), branchData)){
+      return;
+    }
+
+    numBranches = branchData.length;
+    branchIndex = new double[numBranches][2];  //e.g., {{1,2},{1,4},{2,3},...}
+    MaxCap = new double[numBranches];
+    reactance = new double[numBranches];
+    bdata = new DenseDoubleMatrix2D(branchData);
+
+    vadWeight = null;
+    reducedVADWeight = null;
+    negativeSusceptance = null;
+    busAdmittance = null;
+    reducedBusAdmittance = null;
+    diagonalAdmittance = null;
+    adjacency = null;
+    reducedAdjacency = null;
+    shiftFactors = null;
+
+    formMatrices();
+  }
+
+  // The network matrices are sparse, each built in O(N+K). The dense arrays
+  // of the getters are only made when asked for.
   private void formMatrices(){
     setBranchIndex();
-//    //setVADWeight();
-//    setReducedVADWeight();
-//    setLineCap();
-//    //setNegativeSusceptance();
-//    setBusAdmittance();
-//    setReducedBusAdmittance();
-//    setDiagonalAdmittance();
-//    setAdjacency();
-//    setReducedAdjacency();
     setReactance();
+    setNegativeSusceptance();
+    setBusAdmittance();
+    setVADWeight();
+    setDiagonalAdmittance();
+    setAdjacency();
   }
 
   private void setBranchIndex(){
     branchIndex = bdata.viewPart(0,FROM,numBranches,2).toArray();
   }
 
+  // W: -2*pi between connected buses, parallel branches counted once, and
+  // minus the sum of the row on the diagonal.
   private void setVADWeight(){
-
-    for(int n=0; n<numBranches; n++){
-      vadWeight[(int)branchIndex[n][0]-1][(int)branchIndex[n][1]-1]
-          = -2*penaltyCoeff;  //NOTE: there should be a factor 2 in front of penaltyCoeff
-      vadWeight[(int)branchIndex[n][1]-1][(int)branchIndex[n][0]-1]
-          = -2*penaltyCoeff;
-    }
+    double w = Support.correctRoundingError(-2*penaltyCoeff);  //NOTE: there should be a factor 2 in front of penaltyCoeff
+    SparseMatrix.Builder W = new SparseMatrix.Builder(numNodes, numNodes,
+        sparseNegativeSusceptance.getNumNonZeros() + numNodes);
     for(int i=0; i<numNodes; i++){
-      for(int j=0; j<numNodes; j++){
-        if(j==i){
-          for(int k=0; k<numNodes; k++){
-            if(k!=i){
-              vadWeight[i][j] = vadWeight[i][j] - vadWeight[i][k];
-            }
-          }
+      int degree = 0;
+      for(int p=sparseNegativeSusceptance.rowStart(i); p<sparseNegativeSusceptance.rowStart(i+1); p++){
+        if(sparseNegativeSusceptance.colIndex(p) != i){
+          W.add(i, sparseNegativeSusceptance.colIndex(p), w);
+          degree++;
         }
       }
-    }
-    vadWeight = Support.correctRoundingError(vadWeight);
-  }
-
-  private void setReducedVADWeight(){
-    for(int i=0; i<numNodes-1; i++){
-      for(int j=0; j<numNodes-1; j++){
-        reducedVADWeight[i][j] = vadWeight[i+1][j+1];
+      if(degree > 0){
+        W.add(i, i, Support.correctRoundingError(2*penaltyCoeff*degree));
       }
     }
-
+    sparseVADWeight = W.build();
   }
 
   private void setLineCap(){
     MaxCap = bdata.viewColumn(LINE_CAP).toArray();
   }
+
+  // B: 1/x between the ends of each branch; parallel branches add up.
   private void setNegativeSusceptance(){
+    SparseMatrix.Builder B = new SparseMatrix.Builder(numNodes, numNodes, 2*numBranches);
     for(int n=0; n<numBranches; n++){
-      negativeSusceptance[(int)branchIndex[n][0]-1][(int)branchIndex[n][1]-1]
-          = 1/bdata.viewColumn(REACTANCE).toArray()[n];
-      negativeSusceptance[(int)branchIndex[n][1]-1][(int)branchIndex[n][0]-1]
-          = 1/bdata.viewColumn(REACTANCE).toArray()[n];
-
+      int from = (int)branchIndex[n][0]-1;
+      int to = (int)branchIndex[n][1]-1;
+      B.add(from, to, 1/reactance[n]);
+      B.add(to, from, 1/reactance[n]);
     }
+    sparseNegativeSusceptance = B.build();
   }
 
+  // B': -B off the diagonal and the sum of the row of B on it.
   private void setBusAdmittance(){
+    SparseMatrix.Builder Bp = new SparseMatrix.Builder(numNodes, numNodes,
+        sparseNegativeSusceptance.getNumNonZeros() + numNodes);
     for(int i=0; i<numNodes; i++){
-      for(int j=0; j<numNodes; j++){
-        if(j==i){
-          for(int k=0; k<numNodes; k++){
-            if(k!=i){
-              busAdmittance[i][j] = busAdmittance[i][j] + negativeSusceptance[i][k];
-            }
-          }
+      double diagonal = 0;
+      boolean connected = false;
+      for(int p=sparseNegativeSusceptance.rowStart(i); p<sparseNegativeSusceptance.rowStart(i+1); p++){
+        int k = sparseNegativeSusceptance.colIndex(p);
+        if(k != i){
+          Bp.add(i, k, -sparseNegativeSusceptance.value(p));
+          diagonal = diagonal + sparseNegativeSusceptance.value(p);
+          connected = true;
         }
-        else
-          busAdmittance[i][j] = - negativeSusceptance[i][j];
+      }
+      if(connected){
+        Bp.add(i, i, diagonal);
       }
     }
+    sparseBusAdmittance = Bp.build();
   }
-  private void setReducedBusAdmittance(){
-    DoubleMatrix2D na = new DenseDoubleMatrix2D(busAdmittance);
-    reducedBusAdmittance = na.viewPart(1,0,numNodes-1,numNodes).toArray();
-  }
+
   private void setDiagonalAdmittance(){
-    diagonalAdmittance = fac2d.diagonal(bdata.copy().viewColumn(REACTANCE)
-                                      .assign(F.inv)).toArray();
-    //NOTE: Have to keep .copy(), otherwise reactance will be 1/reactance
+    SparseMatrix.Builder D = new SparseMatrix.Builder(numBranches, numBranches, numBranches);
+    for(int n=0; n<numBranches; n++){
+      D.add(n, n, 1/reactance[n]);
+    }
+    sparseDiagonalAdmittance = D.build();
   }
+
   private void setAdjacency(){
+    SparseMatrix.Builder A = new SparseMatrix.Builder(numBranches, numNodes, 2*numBranches);
     for(int n=0; n<numBranches; n++){
-      for(int k=0; k<numNodes; k++){
-        if(k == branchIndex[n][0]-1){
-          adjacency[n][k] = 1;
-        }
-        else if (k == branchIndex[n][1]-1){
-          adjacency[n][k] = -1;
-        }
-        else{
-          adjacency[n][k] = 0;
-        }
-      }
+      A.add(n, (int)branchIndex[n][0]-1, 1);
+      A.add(n, (int)branchIndex[n][1]-1, -1);
     }
+    sparseAdjacency = A.build();
   }
-  private void setReducedAdjacency(){
-    DoubleMatrix2D adj = new DenseDoubleMatrix2D(adjacency);
-    reducedAdjacency = adj.viewPart(0,1,numBranches,numNodes-1).toArray();
-  }
+
   private void setReactance(){
     reactance = bdata.viewColumn(REACTANCE).toArray();
   }
 
   public int getNumNodes(){ return numNodes; }
   public double getPenaltyCoeff(){ return penaltyCoeff; }
-  public double[][] getVADWeight(){return vadWeight;}
-  public double[][] getReducedVADWeight(){return reducedVADWeight;}
   public int getNumBranches(){ return numBranches; }
   public double[][] getBranchIndex(){ return branchIndex; }
   public double[] getLineCap(){ return MaxCap; }
-  public double[][] getNegativeSusceptance(){ return negativeSusceptance; }
-  public double[][] getBusAdmittance(){ return busAdmittance; }
-  public double[][] getReducedBusAdmittance(){ return reducedBusAdmittance;}
-  public double[][] getDiagonalAdmittance(){ return diagonalAdmittance; }
-  public double[][] getAdjacency(){ return adjacency; }
-  public double[][] getReducedAdjacency(){ return reducedAdjacency; }
   public double[] getReactance(){ return reactance;}
 
+  public SparseMatrix getSparseVADWeight(){ return sparseVADWeight; }
+  public SparseMatrix getSparseNegativeSusceptance(){ return sparseNegativeSusceptance; }
+  public SparseMatrix getSparseBusAdmittance(){ return sparseBusAdmittance; }
+  public SparseMatrix getSparseDiagonalAdmittance(){ return sparseDiagonalAdmittance; }
+  public SparseMatrix getSparseAdjacency(){ return sparseAdjacency; }
+
+  // Shift factors of the branches, with bus 1 as the reference. Factored on
+  // first use and kept until the branches change.
+  public ShiftFactors getShiftFactors(){
+    if(shiftFactors == null){
+      shiftFactors = new ShiftFactors(sparseBusAdmittance, branchIndex, reactance);
+    }
+    return shiftFactors;
+  }
+
+  // Dense views, O(K^2) or O(NK) memory each: for small grids only.
+  public double[][] getVADWeight(){
+    if(vadWeight == null){
+      vadWeight = sparseVADWeight.toDense();
+    }
+    return vadWeight;
+  }
+  public double[][] getReducedVADWeight(){
+    if(reducedVADWeight == null){
+      reducedVADWeight = sparseVADWeight.toDense(1, 1);
+    }
+    return reducedVADWeight;
+  }
+  public double[][] getNegativeSusceptance(){
+    if(negativeSusceptance == null){
+      negativeSusceptance = sparseNegativeSusceptance.toDense();
+    }
+    return negativeSusceptance;
+  }
+  public double[][] getBusAdmittance(){
+    if(busAdmittance == null){
+      busAdmittance = sparseBusAdmittance.toDense();
+    }
+    return busAdmittance;
+  }
+  public double[][] getReducedBusAdmittance(){
+    if(reducedBusAdmittance == null){
+      reducedBusAdmittance = sparseBusAdmittance.toDense(1, 0);
+    }
+    return reducedBusAdmittance;
+  }
+  public double[][] getDiagonalAdmittance(){
+    if(diagonalAdmittance == null){
+      diagonalAdmittance = sparseDiagonalAdmittance.toDense();
+    }
+    return diagonalAdmittance;
+  }
+  public double[][] getAdjacency(){
+    if(adjacency == null){
+      adjacency = sparseAdjacency.toDense();
+    }
+    return adjacency;
+  }
+  public double[][] getReducedAdjacency(){
+    if(reducedAdjacency == null){
+      reducedAdjacency = sparseAdjacency.toDense(0, 1);
+    }
+    return reducedAdjacency;
+  }
+
 
   public Object2DGrid getCurrentPowerSpace(){
     return powerSpace;
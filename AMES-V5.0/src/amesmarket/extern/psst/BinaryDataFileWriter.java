@@ -0,0 +1,274 @@
+package amesmarket.extern.psst;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import amesmarket.AMESMarket;
+import amesmarket.AMESMarketException;
+import amesmarket.CaseFileData;
+import amesmarket.GenAgent;
+import amesmarket.LSEAgent;
+import amesmarket.extern.common.CommitmentDecision;
+
+/**
+ * Write the SCUC/SCED reference model in the binary format read by
+ * psst/binary.py.
+ *
+ * Holds the same values as the text reference model written by
+ * {@link DataFileWriter}, already in PU, so neither side has to format or
+ * tokenize numbers. Everything is little endian. Strings are an int byte
+ * count followed by UTF-8 bytes.
+ *
+ * <pre>
+ * int magic, int version
+ * int K
+ * int N, N x (int from, int to, double thermalLimit, double reactance)
+ * int I, I x (string name, int atBus, double[16] generator params, double a, double b, double c, int NS)
+ * double BalPenPos, double BalPenNeg, double TimePeriodLength, int NumTimePeriods
+ * double PriceSenLoadFlag, double StorageFlag, double DownReservePercent, double UpReservePercent
+ * int Z, Z x (string name, int nb, nb x int bus, double down, double up)
+ * double[K x NumTimePeriods] NetFixedLoadForecast, by bus
+ * int P, P x (string name, int ID, int atBus, int hourIndex, double d, double e, double f, double SLMax, int NS)
+ * </pre>
+ */
+public class BinaryDataFileWriter {
+
+    /**
+     * "AMSB"
+     */
+    public static final int MODEL_MAGIC = 0x414D5342;
+    public static final int VERSION = 1;
+
+    private final DataFileWriter dfw = new DataFileWriter();
+
+    /**
+     * Binary version of {@link DataFileWriter#writeScucScenDatFile}.
+     * @throws AMESMarketException
+     */
+    public void writeScucScenBinFile(File fileObj, AMESMarket ames, int day, double[][] LoadProfileLSE, double[][] GenProfileNDG, double[][][] PSLDemandBidLSE, double[][] supplyOfferByGen, int numTimeSteps) throws AMESMarketException {
+        final double baseS = ames.getBaseS();
+        final double DeltaT = ames.getTestCaseConfig().DATDur;
+
+        double[][] genParams = new double[ames.getNumGenAgents()][];
+        for (int i = 0; i < genParams.length; i++) {
+            genParams[i] = this.dfw.genAgentToSCUCParams(ames.getGenAgentList().get(i), day, DeltaT, numTimeSteps, baseS);
+        }
+
+        ModelBuffer buf = new ModelBuffer();
+        this.writeNetwork(buf, ames, genParams, supplyOfferByGen);
+        this.writeParams(buf, ames, DeltaT, numTimeSteps, ames.getDARRD(), ames.getDARRU());
+
+        int numZones = this.numZones(ames);
+        buf.putInt(numZones);
+        if (numZones > 0) {
+            for (String zName : ames.getTestCaseConfig().getZonalData().keySet()) {
+                CaseFileData.ZonalData zd = ames.getTestCaseConfig().getZonalData().get(zName);
+                this.writeZone(buf, zName, zd.getBuses(), zd.getZonalDARRD(), zd.getZonalDARRU());
+            }
+        }
+
+        this.writeLoad(buf, this.dfw.netFixedLoadForecast(ames, LoadProfileLSE, GenProfileNDG, numTimeSteps), baseS);
+        this.writePSL(buf, ames, PSLDemandBidLSE, -1);
+
+        this.writeFile(fileObj, buf);
+    }
+
+    /**
+     * Binary version of {@link DataFileWriter#writeScedScenDatFile}.
+     * @throws AMESMarketException
+     */
+    public void writeScedScenBinFile(AMESMarket ames, int min, int hour, int day, double[][] LoadProfileLSE, double[][] GenProfileNDG, double[][][] PSLDemandBidLSE, int numTimeSteps, List<CommitmentDecision> gencoCommitments, File fileObj) throws AMESMarketException {
+        final double baseS = ames.getBaseS();
+        final int DeltaK = ames.getTestCaseConfig().RTKDur;
+
+        double[][] genParams = new double[ames.getNumGenAgents()][];
+        for (int i = 0; i < genParams.length; i++) {
+            genParams[i] = this.dfw.genAgentToSCEDParams(ames.getGenAgentList().get(i), hour, DeltaK, numTimeSteps, baseS, gencoCommitments);
+        }
+
+        ModelBuffer buf = new ModelBuffer();
+        this.writeNetwork(buf, ames, genParams, ames.getISO().getSupplyOfferByGenRT());
+        this.writeParams(buf, ames, (double) DeltaK / 60, numTimeSteps, ames.getRTRRD(), ames.getRTRRU());
+
+        int numZones = this.numZones(ames);
+        buf.putInt(numZones);
+        if (numZones > 0) {
+            for (String zName : ames.getTestCaseConfig().getZonalData().keySet()) {
+                CaseFileData.ZonalData zd = ames.getTestCaseConfig().getZonalData().get(zName);
+                this.writeZone(buf, zName, zd.getBuses(), zd.getZonalRTRRD(), zd.getZonalRTRRU());
+            }
+        }
+
+        this.writeLoad(buf, this.dfw.netFixedLoadForecast(ames, LoadProfileLSE, GenProfileNDG, numTimeSteps), baseS);
+        this.writePSL(buf, ames, PSLDemandBidLSE, numTimeSteps);
+
+        this.writeFile(fileObj, buf);
+    }
+
+    private void writeNetwork(ModelBuffer buf, AMESMarket ames, double[][] genParams, double[][] supplyOfferByGen) {
+        final double baseS = ames.getBaseS();
+        final double baseV = ames.getBaseV();
+        final double[][] branchData = ames.getBranchData();
+
+        buf.putInt(MODEL_MAGIC);
+        buf.putInt(VERSION);
+        buf.putInt(ames.getNumNodes());
+
+        buf.putInt(branchData.length);
+        for (double[] br : branchData) {
+            buf.putInt((int) br[0]);
+            buf.putInt((int) br[1]);
+            buf.putDouble(br[2] / baseS);
+            buf.putDouble(br[3] * baseS / (baseV * baseV));
+        }
+
+        List<GenAgent> gens = ames.getGenAgentList();
+        buf.putInt(gens.size());
+        for (int i = 0; i < gens.size(); i++) {
+            GenAgent ga = gens.get(i);
+            buf.putString(ga.getID());
+            buf.putInt(ga.getAtNode());
+            for (double p : genParams[i]) {
+                buf.putDouble(p);
+            }
+            buf.putDouble(supplyOfferByGen[i][0]);
+            buf.putDouble(supplyOfferByGen[i][1] * baseS);
+            buf.putDouble(supplyOfferByGen[i][2] * baseS * baseS);
+            buf.putInt((int) supplyOfferByGen[i][3]);
+        }
+    }
+
+    private void writeParams(ModelBuffer buf, AMESMarket ames, double TimePeriodLength, int numTimeSteps, double DownReservePercent, double UpReservePercent) {
+        buf.putDouble(ames.getTestCaseConfig().BalPenPos);
+        buf.putDouble(ames.getTestCaseConfig().BalPenNeg);
+        buf.putDouble(TimePeriodLength);
+        buf.putInt(numTimeSteps);
+        buf.putDouble(ames.getPriceSensitiveDemandFlag());
+        buf.putDouble(ames.gethasStorage());
+        buf.putDouble(DownReservePercent);
+        buf.putDouble(UpReservePercent);
+    }
+
+    private int numZones(AMESMarket ames) {
+        if (ames.getTestCaseConfig().NumberOfReserveZones > 1) {
+            return ames.getTestCaseConfig().getZonalData().size();
+        }
+        return 0;
+    }
+
+    private void writeZone(ModelBuffer buf, String zName, int[] buses, double down, double up) {
+        buf.putString(zName);
+        buf.putInt(buses.length);
+        for (int b : buses) {
+            buf.putInt(b);
+        }
+        buf.putDouble(down);
+        buf.putDouble(up);
+    }
+
+    private void writeLoad(ModelBuffer buf, double[][] NetFixedLoadForecast, double baseS) {
+        for (double[] busLoad : NetFixedLoadForecast) {
+            for (double l : busLoad) {
+                buf.putDouble(l / baseS);
+            }
+        }
+    }
+
+    /**
+     * @param numPeriods number of bids to write for each LSE, or -1 for all
+     * of them.
+     */
+    private void writePSL(ModelBuffer buf, AMESMarket ames, double[][][] PSLDemandBidLSE, int numPeriods) {
+        if (ames.getPriceSensitiveDemandFlag() <= 0) {
+            buf.putInt(0);
+            return;
+        }
+
+        final double baseS = ames.getBaseS();
+        final List<LSEAgent> lses = ames.getLSEAgentList();
+        int count = 0;
+        for (int i = 0; i < lses.size(); i++) {
+            count += numPeriods < 0 ? PSLDemandBidLSE[i].length : numPeriods;
+        }
+
+        buf.putInt(count);
+        for (int i = 0; i < lses.size(); i++) {
+            LSEAgent lse = lses.get(i);
+            double[][] bid = PSLDemandBidLSE[i];
+            int n = numPeriods < 0 ? bid.length : numPeriods;
+            for (int h = 0; h < n; h++) {
+                buf.putString("LSE" + lse.getID());
+                buf.putInt(lse.getID());
+                buf.putInt(lse.getAtNode());
+                buf.putInt(h + 1);
+                buf.putDouble(bid[h][0]);
+                buf.putDouble(bid[h][1] * baseS);
+                buf.putDouble(bid[h][2] * baseS * baseS);
+                buf.putDouble(bid[h][3] / baseS);
+                buf.putInt((int) bid[h][4]);
+            }
+        }
+    }
+
+    private void writeFile(File fileObj, ModelBuffer buf) throws AMESMarketException {
+        if (!this.dfw.ensureFileParentExists(fileObj)) {
+            throw new AMESMarketException("Could not create the directory for " + fileObj.getPath());
+        }
+
+        ByteBuffer bb = buf.flip();
+        try (FileOutputStream out = new FileOutputStream(fileObj);
+                FileChannel ch = out.getChannel()) {
+            while (bb.hasRemaining()) {
+                ch.write(bb);
+            }
+        } catch (IOException e) {
+            throw new AMESMarketException("Unable to write the reference model.", e);
+        }
+    }
+
+    /**
+     * Growable little endian buffer.
+     */
+    private static class ModelBuffer {
+
+        private ByteBuffer bb = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+        private void ensure(int n) {
+            if (this.bb.remaining() < n) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(this.bb.capacity() * 2, this.bb.position() + n))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                this.bb.flip();
+                bigger.put(this.bb);
+                this.bb = bigger;
+            }
+        }
+
+        void putInt(int v) {
+            this.ensure(4);
+            this.bb.putInt(v);
+        }
+
+        void putDouble(double v) {
+            this.ensure(8);
+            this.bb.putDouble(v);
+        }
+
+        void putString(String s) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            this.putInt(b.length);
+            this.ensure(b.length);
+            this.bb.put(b);
+        }
+
+        ByteBuffer flip() {
+            this.bb.flip();
+            return this.bb;
+        }
+    }
+}
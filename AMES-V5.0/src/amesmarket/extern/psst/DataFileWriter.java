@@ -239,29 +239,8 @@ public class DataFileWriter {
             refBufferWriter.write("param: NetFixedLoadForecast :=\n");
 
             //System.out.println("LoadProfileLSE length: " + LoadProfileLSE[0].length);
-            double[][] NetFixedLoadForecast = new double[numNodes][numTimeSteps];
+            double[][] NetFixedLoadForecast = netFixedLoadForecast(ames, LoadProfileLSE, GenProfileNDG, numTimeSteps);
             for (int n = 0; n < numNodes; n++) {
-                for (int i = 0; i < numLSEAgents; i++) {
-                    LSEAgent lse = ames.getLSEAgentList().get(i);
-                    int lseNode = lse.getAtNode();
-                    if ((n + 1) == lseNode) {
-                        for (int h = 0; h < numTimeSteps; h++) {
-                            NetFixedLoadForecast[n][h] = NetFixedLoadForecast[n][h] + LoadProfileLSE[i][h];
-                        }
-                    }
-                }
-
-                for (int i = 0; i < numNDGAgents; i++) {
-                    NDGenAgent ndg = ames.getNDGenAgentList().get(i);
-                    int ndgNode = ndg.getAtNode();
-                    if ((n + 1) == ndgNode) {
-                        for (int h = 0; h < numTimeSteps; h++) {
-//                            NetDemand[n][h] = NetDemand[n][h]; // - GenProfileNDG[i][h];
-                            NetFixedLoadForecast[n][h] = NetFixedLoadForecast[n][h] - GenProfileNDG[i][h];
-                        }
-                    }
-                }
-
                 for (int h = 0; h < numTimeSteps; h++) {
                     refBufferWriter.write("Bus" + (n + 1) + " " + (h + 1) + " "
                             + (NetFixedLoadForecast[n][h] / baseS) + "\n");
@@ -339,289 +318,317 @@ public class DataFileWriter {
      * @throws AMESMarketException
      */
     public void writeScedScenDatFile(AMESMarket ames, int min, int hour, int day, double[][] LoadProfileLSE, double[][] GenProfileNDG, double[][][] PSLDemandBidLSE, int numTimeSteps, List<CommitmentDecision> gencoCommitments, File fileObj) throws AMESMarketException {
-        //set up all the elements we need.
-        // Important: Resolve the minimum up time and minimum down time values of the generators
-
-        //final int numHoursPerDay = ames.NUM_HOURS_PER_DAY;
-//        final int numIntervalsInSim = ames.NUM_HOURS_PER_DAY_UC;
-        final ISO iso = ames.getISO();
-        final int numNodes = ames.getNumNodes();
-        final double baseS = ames.getBaseS();
-        final double baseV = ames.getBaseV();
-        final int numGenAgents = ames.getNumGenAgents();
-        final int numLSEAgents = ames.getNumLSEAgents();
-        final int numNDGAgents = ames.getNumNDGAgents();
+        if (!ensureFileParentExists(fileObj)) {
+            throw new AMESMarketException("Could not create the directory for " + fileObj.getPath());
+        }
 
-        final double[][] branchIndex;
-        final double[][] numBranchData;
-        final double DownReservePercent;
-        final double UpReservePercent;
-        final double hasStorage;
-        final double hasNDG;
+        try {
+            BufferedWriter refBufferWriter = new BufferedWriter(new FileWriter(fileObj));
+            writeHeader(refBufferWriter);
+            writeScedStaticSection(refBufferWriter, ames, day, numTimeSteps);
+            writeScedIntervalSection(refBufferWriter, ames, hour, LoadProfileLSE, GenProfileNDG, PSLDemandBidLSE, numTimeSteps, gencoCommitments);
+            refBufferWriter.close();
+        } catch (IOException e) {
+            throw new AMESMarketException("Unable to write the reference model.", e);
+        }
+    }
 
+    /**
+     * Write the part of the SCED reference model that does not change
+     * during a day: buses, branches, generator placement and costs, storage
+     * and reserve data. Used with {@link #writeScedIntervalDatFile}.
+     *
+     * @param ames
+     * @param day
+     * @param numTimeSteps
+     * @param fileObj
+     * @throws AMESMarketException
+     */
+    public void writeScedStaticDatFile(AMESMarket ames, int day, int numTimeSteps, File fileObj) throws AMESMarketException {
         if (!ensureFileParentExists(fileObj)) {
             throw new AMESMarketException("Could not create the directory for " + fileObj.getPath());
         }
 
-        numBranchData = ames.getBranchData();
-        DownReservePercent = ames.getRTRRD();
-        UpReservePercent = ames.getRTRRU();
-        branchIndex = ames.getTransGrid().getBranchIndex();
-        hasStorage = ames.gethasStorage();
-        hasNDG = 0; //ames.gethasNDG();
-
-        //Now that we have all the parameters. Write it out.
         try {
+            BufferedWriter refBufferWriter = new BufferedWriter(new FileWriter(fileObj));
+            writeHeader(refBufferWriter);
+            writeScedStaticSection(refBufferWriter, ames, day, numTimeSteps);
+            refBufferWriter.close();
+        } catch (IOException e) {
+            throw new AMESMarketException("Unable to write the reference model.", e);
+        }
+    }
+
+    /**
+     * Write the part of the SCED reference model that changes every
+     * interval: generator T0 state and limits, net fixed load and price
+     * sensitive load. PSST reads it on top of the file written by
+     * {@link #writeScedStaticDatFile}.
+     *
+     * @param ames
+     * @param hour
+     * @param LoadProfileLSE
+     * @param GenProfileNDG
+     * @param PSLDemandBidLSE
+     * @param numTimeSteps
+     * @param gencoCommitments
+     * @param fileObj
+     * @throws AMESMarketException
+     */
+    public void writeScedIntervalDatFile(AMESMarket ames, int hour, double[][] LoadProfileLSE, double[][] GenProfileNDG, double[][][] PSLDemandBidLSE, int numTimeSteps, List<CommitmentDecision> gencoCommitments, File fileObj) throws AMESMarketException {
+        if (!ensureFileParentExists(fileObj)) {
+            throw new AMESMarketException("Could not create the directory for " + fileObj.getPath());
+        }
 
+        try {
             BufferedWriter refBufferWriter = new BufferedWriter(new FileWriter(fileObj));
+            writeHeader(refBufferWriter);
+            writeScedIntervalSection(refBufferWriter, ames, hour, LoadProfileLSE, GenProfileNDG, PSLDemandBidLSE, numTimeSteps, gencoCommitments);
+            refBufferWriter.close();
+        } catch (IOException e) {
+            throw new AMESMarketException("Unable to write the reference model.", e);
+        }
+    }
 
-            refBufferWriter.write("# Written by AMES per unit ");
-            SimpleDateFormat dateFormat = new SimpleDateFormat(
-                    "MM/dd/yyyy HH:mm:ss\n\n");
-            Date date = new Date();
-            refBufferWriter.write(dateFormat.format(date));
+    private void writeHeader(BufferedWriter refBufferWriter) throws IOException {
+        refBufferWriter.write("# Written by AMES per unit ");
+        SimpleDateFormat dateFormat = new SimpleDateFormat(
+                "MM/dd/yyyy HH:mm:ss\n\n");
+        Date date = new Date();
+        refBufferWriter.write(dateFormat.format(date));
+    }
 
-            refBufferWriter.write("set Buses := ");
+    private void writeScedStaticSection(BufferedWriter refBufferWriter, AMESMarket ames, int day, int numTimeSteps) throws IOException {
+        final ISO iso = ames.getISO();
+        final int numNodes = ames.getNumNodes();
+        final double baseS = ames.getBaseS();
+        final double baseV = ames.getBaseV();
+        final int numGenAgents = ames.getNumGenAgents();
 
-            for (int i = 0; i < numNodes; i++) {
-                refBufferWriter.write("Bus" + (i + 1) + " ");
-            }
-            refBufferWriter.write(";\n\n");
+        final double[][] branchIndex = ames.getTransGrid().getBranchIndex();
+        final double[][] numBranchData = ames.getBranchData();
+        final double DownReservePercent = ames.getRTRRD();
+        final double UpReservePercent = ames.getRTRRU();
+        final double hasStorage = ames.gethasStorage();
 
-            refBufferWriter.write("set TransmissionLines :=\n");
+        refBufferWriter.write("set Buses := ");
 
-            for (int i = 0; i < branchIndex.length; i++) {
-                refBufferWriter.write("Bus" + (int) branchIndex[i][0] + " Bus"
-                        + (int) branchIndex[i][1] + "\n");
-            }
+        for (int i = 0; i < numNodes; i++) {
+            refBufferWriter.write("Bus" + (i + 1) + " ");
+        }
+        refBufferWriter.write(";\n\n");
 
-            refBufferWriter.write(";\n\n");
+        refBufferWriter.write("set TransmissionLines :=\n");
 
-            refBufferWriter.write("param NumTransmissionLines := "
-                    + branchIndex.length + " ;\n\n");
+        for (int i = 0; i < branchIndex.length; i++) {
+            refBufferWriter.write("Bus" + (int) branchIndex[i][0] + " Bus"
+                    + (int) branchIndex[i][1] + "\n");
+        }
 
-            refBufferWriter
-                    .write("param: BusFrom BusTo ThermalLimit Reactance :=\n");
+        refBufferWriter.write(";\n\n");
 
-            for (int i = 0; i < branchIndex.length; i++) {
-                refBufferWriter.write((i + 1) + " Bus"
-                        + (int) numBranchData[i][0] + " Bus"
-                        + (int) numBranchData[i][1] + " " + numBranchData[i][2] / baseS
-                        + " " + (numBranchData[i][3] * baseS / (baseV * baseV)) + "\n"); //(branchData[n][3]*INIT.getBaseS())/(INIT.getBaseV()*INIT.getBaseV())
-            }
-            refBufferWriter.write(";\n\n");
+        refBufferWriter.write("param NumTransmissionLines := "
+                + branchIndex.length + " ;\n\n");
 
-            refBufferWriter.write("set ThermalGenerators := ");
+        refBufferWriter
+                .write("param: BusFrom BusTo ThermalLimit Reactance :=\n");
 
-            for (GenAgent gc : ames.getGenAgentList()) {
-                refBufferWriter.write(gc.getID() + " ");
-            }
+        for (int i = 0; i < branchIndex.length; i++) {
+            refBufferWriter.write((i + 1) + " Bus"
+                    + (int) numBranchData[i][0] + " Bus"
+                    + (int) numBranchData[i][1] + " " + numBranchData[i][2] / baseS
+                    + " " + (numBranchData[i][3] * baseS / (baseV * baseV)) + "\n"); //(branchData[n][3]*INIT.getBaseS())/(INIT.getBaseV()*INIT.getBaseV())
+        }
+        refBufferWriter.write(";\n\n");
 
-            refBufferWriter.write(";\n\n");
+        refBufferWriter.write("set ThermalGenerators := ");
 
-            GenAgent[][] genNodeBusTable = new GenAgent[numNodes][numGenAgents];
-            for (int i = 0; i < numNodes; i++) {
-                for (int j = 0; j < numGenAgents; j++) {
-                    GenAgent gen = (GenAgent) ames.getGenAgentList().get(j);
-                    //System.out.println(gen.getAtNode());
+        for (GenAgent gc : ames.getGenAgentList()) {
+            refBufferWriter.write(gc.getID() + " ");
+        }
 
-                    if (gen.getAtNode() - 1 == i) {
-                        genNodeBusTable[i][j] = gen;
-                    } else {
-                        genNodeBusTable[i][j] = null;
-                    }
+        refBufferWriter.write(";\n\n");
+
+        GenAgent[][] genNodeBusTable = new GenAgent[numNodes][numGenAgents];
+        for (int i = 0; i < numNodes; i++) {
+            for (int j = 0; j < numGenAgents; j++) {
+                GenAgent gen = (GenAgent) ames.getGenAgentList().get(j);
+                //System.out.println(gen.getAtNode());
+
+                if (gen.getAtNode() - 1 == i) {
+                    genNodeBusTable[i][j] = gen;
+                } else {
+                    genNodeBusTable[i][j] = null;
                 }
             }
+        }
 
-            for (int i = 0; i < numNodes; i++) {
-                refBufferWriter.write("set ThermalGeneratorsAtBus[Bus"
-                        + (i + 1) + "] := ");
-
-                for (int j = 0; j < numGenAgents; j++) {
-                    if (genNodeBusTable[i][j] != null) {
-                        refBufferWriter.write(genNodeBusTable[i][j].getID() + " ");
-                    }
+        for (int i = 0; i < numNodes; i++) {
+            refBufferWriter.write("set ThermalGeneratorsAtBus[Bus"
+                    + (i + 1) + "] := ");
 
+            for (int j = 0; j < numGenAgents; j++) {
+                if (genNodeBusTable[i][j] != null) {
+                    refBufferWriter.write(genNodeBusTable[i][j].getID() + " ");
                 }
 
-                refBufferWriter.write(" ;\n");
             }
 
-            double TimePeriodLength = (double) ames.getTestCaseConfig().RTKDur / 60;
-
-            int BalPenPos = ames.getTestCaseConfig().BalPenPos;
-            int BalPenNeg = ames.getTestCaseConfig().BalPenNeg;
-
-            refBufferWriter.write("\nparam BalPenPos := " + BalPenPos
-                    + " ;\n\n");
+            refBufferWriter.write(" ;\n");
+        }
 
-            refBufferWriter.write("\nparam BalPenNeg := " + BalPenNeg
-                    + " ;\n\n");
+        double TimePeriodLength = (double) ames.getTestCaseConfig().RTKDur / 60;
 
-            refBufferWriter.write("\nparam TimePeriodLength := " + TimePeriodLength
-                    + " ;\n\n");
+        int BalPenPos = ames.getTestCaseConfig().BalPenPos;
+        int BalPenNeg = ames.getTestCaseConfig().BalPenNeg;
 
-            refBufferWriter.write("\nparam NumTimePeriods := " + (numTimeSteps)
-                    + " ;\n\n");
-//           refBufferWriter.write("\nparam Interval := " + interval
-//                    + " ;\n\n");
+        refBufferWriter.write("\nparam BalPenPos := " + BalPenPos
+                + " ;\n\n");
 
-            refBufferWriter
-                    .write("param: PowerGeneratedT0 ScaledUnitOnT0State InitialTimeON InitialTimeOFF MinimumPowerOutput MaximumPowerOutput ScaledMinimumUpTime ScaledMinimumDownTime ScaledRampUpLimit ScaledRampDownLimit ScaledStartupRampLimit ScaledShutdownRampLimit ScaledColdStartTime ColdStartCost HotStartCost ShutdownCost :=\n");
+        refBufferWriter.write("\nparam BalPenNeg := " + BalPenNeg
+                + " ;\n\n");
 
-            for (GenAgent ga : ames.getGenAgentList()) {
-                refBufferWriter.write(genAgentToSCEDDesc(ga, hour, ames.getTestCaseConfig().RTKDur, numTimeSteps, baseS, false, gencoCommitments));
-                refBufferWriter.write("\n");
-            }
+        refBufferWriter.write("\nparam TimePeriodLength := " + TimePeriodLength
+                + " ;\n\n");
 
-            refBufferWriter.write(" ;\n");
+        refBufferWriter.write("\nparam NumTimePeriods := " + (numTimeSteps)
+                + " ;\n\n");
 
-            refBufferWriter
-                    .write("param: ID atBus EndPointSoc MaximumEnergy ScaledRampDownInput ScaledRampUpInput ScaledRampDownOutput ScaledRampUpOutput MaximumPowerInput MinimumPowerInput MaximumPowerOutput MinimumPowerOutput MinimumSoc EfficiencyEnergy :=\n");
+        refBufferWriter
+                .write("param: ID atBus EndPointSoc MaximumEnergy ScaledRampDownInput ScaledRampUpInput ScaledRampDownOutput ScaledRampUpOutput MaximumPowerInput MinimumPowerInput MaximumPowerOutput MinimumPowerOutput MinimumSoc EfficiencyEnergy :=\n");
 
-            for (StorageAgent su : ames.getStorageAgentList()) {
-                refBufferWriter.write(StorageAgentScedToFile(ames.getTestCaseConfig().RTKDur, su, day, baseS));
-                refBufferWriter.write("\n");
-            }
+        for (StorageAgent su : ames.getStorageAgentList()) {
+            refBufferWriter.write(StorageAgentScedToFile(ames.getTestCaseConfig().RTKDur, su, day, baseS));
+            refBufferWriter.write("\n");
+        }
 
-            refBufferWriter.write(" ;\n");
+        refBufferWriter.write(" ;\n");
 
-            refBufferWriter.write("param PriceSenLoadFlag := "
-                    + ames.getPriceSensitiveDemandFlag() + " ;\n\n");
+        refBufferWriter.write("param PriceSenLoadFlag := "
+                + ames.getPriceSensitiveDemandFlag() + " ;\n\n");
 
-            refBufferWriter.write("param StorageFlag := "
-                    + hasStorage + " ;\n\n");
+        refBufferWriter.write("param StorageFlag := "
+                + hasStorage + " ;\n\n");
 
-            refBufferWriter.write("param DownReservePercent := "
-                    + DownReservePercent + " ;\n\n");
+        refBufferWriter.write("param DownReservePercent := "
+                + DownReservePercent + " ;\n\n");
 
-            refBufferWriter.write("param UpReservePercent := "
-                    + UpReservePercent + " ;\n\n");
+        refBufferWriter.write("param UpReservePercent := "
+                + UpReservePercent + " ;\n\n");
 
-            boolean HasZonalReserves = false;
-            if (ames.getTestCaseConfig().NumberOfReserveZones > 1) {
-                HasZonalReserves = true;
-            }
-
-            if (HasZonalReserves) {
-                refBufferWriter.write("param HasZonalReserves := "
-                        + HasZonalReserves + " ;\n\n");
-                refBufferWriter.write("param NumberOfZones := "
-                        + ames.getTestCaseConfig().NumberOfReserveZones + " ;\n\n");
+        boolean HasZonalReserves = false;
+        if (ames.getTestCaseConfig().NumberOfReserveZones > 1) {
+            HasZonalReserves = true;
+        }
 
-                refBufferWriter.write("set Zones := ");
+        if (HasZonalReserves) {
+            refBufferWriter.write("param HasZonalReserves := "
+                    + HasZonalReserves + " ;\n\n");
+            refBufferWriter.write("param NumberOfZones := "
+                    + ames.getTestCaseConfig().NumberOfReserveZones + " ;\n\n");
 
-                for (int i = 0; i < ames.getTestCaseConfig().NumberOfReserveZones; i++) {
-                    refBufferWriter.write("Zone" + (i + 1) + " ");
-                }
-                refBufferWriter.write(";\n\n");
+            refBufferWriter.write("set Zones := ");
 
-                refBufferWriter
-                        .write("param: Buses ZonalDownReservePercent ZonalUpReservePercent :=\n");
+            for (int i = 0; i < ames.getTestCaseConfig().NumberOfReserveZones; i++) {
+                refBufferWriter.write("Zone" + (i + 1) + " ");
+            }
+            refBufferWriter.write(";\n\n");
 
-                for (String zName : ames.getTestCaseConfig().getZonalData().keySet()) {
-                    CaseFileData.ZonalData ZoneData = ames.getTestCaseConfig().getZonalData().get(zName);
-                    int[] buses = ZoneData.getBuses();
-                    String stemp = "";
-                    for (int i = 0; i < buses.length; i++) {
-                        stemp = stemp + "Bus" + buses[i] + ",";
-                    }
-                    refBufferWriter.write(zName + " " + stemp + " " + ZoneData.getZonalRTRRD() + " " + ZoneData.getZonalRTRRU());
-                    refBufferWriter.write("\n");
+            refBufferWriter
+                    .write("param: Buses ZonalDownReservePercent ZonalUpReservePercent :=\n");
+
+            for (String zName : ames.getTestCaseConfig().getZonalData().keySet()) {
+                CaseFileData.ZonalData ZoneData = ames.getTestCaseConfig().getZonalData().get(zName);
+                int[] buses = ZoneData.getBuses();
+                String stemp = "";
+                for (int i = 0; i < buses.length; i++) {
+                    stemp = stemp + "Bus" + buses[i] + ",";
                 }
+                refBufferWriter.write(zName + " " + stemp + " " + ZoneData.getZonalRTRRD() + " " + ZoneData.getZonalRTRRU());
+                refBufferWriter.write("\n");
+            }
 
-                refBufferWriter.write(";\n\n");
+            refBufferWriter.write(";\n\n");
 
-            }
+        }
 
-            refBufferWriter.write("param: NetFixedLoadForecast :=\n");
+        refBufferWriter
+                .write("param: a b c NS :=\n");
 
-            double[][] NetFixedLoadForecast = new double[numNodes][numTimeSteps];
-            for (int n = 0; n < numNodes; n++) {
-                for (int i = 0; i < numLSEAgents; i++) {
-                    LSEAgent lse = ames.getLSEAgentList().get(i);
-                    int lseNode = lse.getAtNode();
-                    if ((n + 1) == lseNode) {
-                        for (int h = 0; h < numTimeSteps; h++) {
-//                            NetDemand[n][h] = NetDemand[n][h]; // + LoadProfileLSE[i][min+h];
-                            NetFixedLoadForecast[n][h] = NetFixedLoadForecast[n][h] + LoadProfileLSE[i][h];
-                        }
-                    }
-                }
+        double[][] supplyOfferByGen = iso.getSupplyOfferByGenRT();
 
-                for (int i = 0; i < numNDGAgents; i++) {
-                    NDGenAgent ndg = ames.getNDGenAgentList().get(i);
-                    int ndgNode = ndg.getAtNode();
-                    if ((n + 1) == ndgNode) {
-                        for (int h = 0; h < numTimeSteps; h++) {
-//                            NetDemand[n][h] = NetDemand[n][h]; // - GenProfileNDG[i][min+h];
-                            NetFixedLoadForecast[n][h] = NetFixedLoadForecast[n][h] - GenProfileNDG[i][h];
-                        }
-                    }
-                }
+        final ArrayList<GenAgent> genagents = ames.getGenAgentList();
+        for (int i = 0; i < numGenAgents; i++) {
+            GenAgent ga = genagents.get(i);
+            refBufferWriter.write(
+                    ga.getID() + " "
+                    + supplyOfferByGen[i][0] + " "
+                    + (supplyOfferByGen[i][1] * baseS) + " "
+                    + (supplyOfferByGen[i][2] * baseS * baseS) + " "
+                    + (int) supplyOfferByGen[i][3] + " " + "\n");
+        }
 
-                for (int h = 0; h < numTimeSteps; h++) {
-                    refBufferWriter.write("Bus" + (n + 1) + " " + (h + 1) + " "
-                            + (NetFixedLoadForecast[n][h] / baseS) + "\n");
-                }
-                refBufferWriter.write("\n");
-            }
+        refBufferWriter.write("; \n\n");
+    }
 
-            refBufferWriter.write("; \n\n");
+    private void writeScedIntervalSection(BufferedWriter refBufferWriter, AMESMarket ames, int hour, double[][] LoadProfileLSE, double[][] GenProfileNDG, double[][][] PSLDemandBidLSE, int numTimeSteps, List<CommitmentDecision> gencoCommitments) throws IOException {
+        final int numNodes = ames.getNumNodes();
+        final double baseS = ames.getBaseS();
+        final int numLSEAgents = ames.getNumLSEAgents();
 
-            if (ames.getPriceSensitiveDemandFlag() > 0) {
-                refBufferWriter.write("set PricesSensitiveLoadNames :=");
-                for (int i = 0; i < numLSEAgents; i++) {
-                    LSEAgent lse = ames.getLSEAgentList().get(i);
-                    int lseNode = lse.getAtNode();
-                    if (i > 0) {
-                        refBufferWriter.write(", ");
-                    }
-                    refBufferWriter.write("LSE" + lseNode);
-                }
-                refBufferWriter.write(";\n");
+        refBufferWriter
+                .write("param: PowerGeneratedT0 ScaledUnitOnT0State InitialTimeON InitialTimeOFF MinimumPowerOutput MaximumPowerOutput ScaledMinimumUpTime ScaledMinimumDownTime ScaledRampUpLimit ScaledRampDownLimit ScaledStartupRampLimit ScaledShutdownRampLimit ScaledColdStartTime ColdStartCost HotStartCost ShutdownCost :=\n");
 
-                refBufferWriter.write("param: Name ID atBus hourIndex d e f SLMax NS :=\n");
-                for (int i = 0; i < numLSEAgents; i++) {
-                    LSEAgent lse = ames.getLSEAgentList().get(i);
-                    int lseID = lse.getID();
-                    int TAU = (int) (ames.M / ames.getTestCaseConfig().RTKDur);
-                    double[][] bid = PSLDemandBidLSE[i];
-                    for (int k = 0; k < TAU; k++) {
-                        // System.out.print(" k: "+ k);
-                        refBufferWriter.write("LSE" + lseID + " " + lseID + " Bus" + lse.getAtNode() + " " + (k + 1) + " "
-                                + bid[k][0] + " "
-                                + bid[k][1] * baseS + " "
-                                + bid[k][2] * baseS * baseS + " "
-                                + bid[k][3] / baseS + " "
-                                + (int) bid[k][4] + "\n");
-                    }
-                    refBufferWriter.write("\n");
-                }
-                refBufferWriter.write(";\n\n");
-            }
+        for (GenAgent ga : ames.getGenAgentList()) {
+            refBufferWriter.write(genAgentToSCEDDesc(ga, hour, ames.getTestCaseConfig().RTKDur, numTimeSteps, baseS, false, gencoCommitments));
+            refBufferWriter.write("\n");
+        }
 
-            refBufferWriter
-                    .write("param: a b c NS :=\n");
+        refBufferWriter.write(" ;\n");
 
-            double[][] supplyOfferByGen = iso.getSupplyOfferByGenRT();
+        refBufferWriter.write("param: NetFixedLoadForecast :=\n");
 
-            final ArrayList<GenAgent> genagents = ames.getGenAgentList();
-            for (int i = 0; i < numGenAgents; i++) {
-                GenAgent ga = genagents.get(i);
-                refBufferWriter.write(
-                        ga.getID() + " "
-                        + supplyOfferByGen[i][0] + " "
-                        + (supplyOfferByGen[i][1] * baseS) + " "
-                        + (supplyOfferByGen[i][2] * baseS * baseS) + " "
-                        + (int) supplyOfferByGen[i][3] + " " + "\n");
+        double[][] NetFixedLoadForecast = netFixedLoadForecast(ames, LoadProfileLSE, GenProfileNDG, numTimeSteps);
+        for (int n = 0; n < numNodes; n++) {
+            for (int h = 0; h < numTimeSteps; h++) {
+                refBufferWriter.write("Bus" + (n + 1) + " " + (h + 1) + " "
+                        + (NetFixedLoadForecast[n][h] / baseS) + "\n");
             }
+            refBufferWriter.write("\n");
+        }
 
-            refBufferWriter.write("; \n");
+        refBufferWriter.write("; \n\n");
 
-            refBufferWriter.close();
-        } catch (IOException e) {
-            throw new AMESMarketException("Unable to write the reference model.", e);
+        if (ames.getPriceSensitiveDemandFlag() > 0) {
+            refBufferWriter.write("set PricesSensitiveLoadNames :=");
+            for (int i = 0; i < numLSEAgents; i++) {
+                LSEAgent lse = ames.getLSEAgentList().get(i);
+                int lseNode = lse.getAtNode();
+                if (i > 0) {
+                    refBufferWriter.write(", ");
+                }
+                refBufferWriter.write("LSE" + lseNode);
+            }
+            refBufferWriter.write(";\n");
+
+            refBufferWriter.write("param: Name ID atBus hourIndex d e f SLMax NS :=\n");
+            for (int i = 0; i < numLSEAgents; i++) {
+                LSEAgent lse = ames.getLSEAgentList().get(i);
+                int lseID = lse.getID();
+                int TAU = numTimeSteps;
+                double[][] bid = PSLDemandBidLSE[i];
+                for (int k = 0; k < TAU; k++) {
+                    // System.out.print(" k: "+ k);
+                    refBufferWriter.write("LSE" + lseID + " " + lseID + " Bus" + lse.getAtNode() + " " + (k + 1) + " "
+                            + bid[k][0] + " "
+                            + bid[k][1] * baseS + " "
+                            + bid[k][2] * baseS * baseS + " "
+                            + bid[k][3] / baseS + " "
+                            + (int) bid[k][4] + "\n");
+                }
+                refBufferWriter.write("\n");
+            }
+            refBufferWriter.write(";\n\n");
         }
     }
 
@@ -637,6 +644,14 @@ public class DataFileWriter {
         if (ga == null) {
             return "";
         }
+        return genParamsToDesc(ga, genAgentToSCUCParams(ga, day, DeltaT, numTimeSteps, baseS));
+    }
+
+    /**
+     * Compute the SCUC parameters of the genco, in the column order of the
+     * generator param section of the reference model.
+     */
+    double[] genAgentToSCUCParams(GenAgent ga, int day, double DeltaT, int numTimeSteps, double baseS) {
 
         int UnitONT0State = ga.getUnitOnT0State();
         int SUnitONT0State = 1;
@@ -710,47 +725,24 @@ public class DataFileWriter {
             powerT0 = capMax;
         }
         // System.out.print(ga.getMinUpTime());
-        return String.format(// 1     2          3       4       5       6       7       8               9               10          11
-                //Name, powerTO, On/OffT0, InitialTimeON, InitialTimeOFF, MinPow, MaxPow, ScaledMinUp, ScaledMinDown, ScaledRampUp, ScaledRampDown, ScaledStartupLim, ScaledShutdownLim, ScaledColdStartTime, ColdStartupCost, HotStartupCost, ShutDownCost
-                "%1$s %2$.15f %3$d %4$d %5$d %6$.15f %7$.15f %8$d %9$d %10$.15f %11$.15f %12$.15f %13$.15f %14$d %15$.15f %16$.15f %17$.15f",
-                ga.getID() //1
-                ,
-                 powerT0 //2
-                ,
-                 SUnitONT0State//3
-                ,
-                 InitialTimeON,
-                InitialTimeOFF,
-                capMin //4
-                ,
-                 capMax//5
-                ,
-                 ScaledMinUpTime //6
-                ,
-                 ScaledMinDownTime //7
-                ,
-                 ScaledRampUpLimit //8
-                ,
-                 ScaledRampDownLimit//9
-                ,
-                 ScaledStartUpRampLimit//10
-                ,
-                 ScaledShutDownRampLimit//11
-                ,
-                 ScaledColdStartTime //12
-                ,
-                 coldstartupcost //13
-                ,
-                 hotstartupcost //14
-                ,
-                 shutdowncost //15
-        );
+        return new double[]{powerT0, SUnitONT0State, InitialTimeON, InitialTimeOFF,
+            capMin, capMax, ScaledMinUpTime, ScaledMinDownTime,
+            ScaledRampUpLimit, ScaledRampDownLimit, ScaledStartUpRampLimit, ScaledShutDownRampLimit,
+            ScaledColdStartTime, coldstartupcost, hotstartupcost, shutdowncost};
     }
 
     private String genAgentToSCEDDesc(GenAgent ga, int hour, int DeltaK, int numTimeSteps, double baseS, boolean scuctype, List<CommitmentDecision> gencoCommitments) {
         if (ga == null) {
             return "";
         }
+        return genParamsToDesc(ga, genAgentToSCEDParams(ga, hour, DeltaK, numTimeSteps, baseS, gencoCommitments));
+    }
+
+    /**
+     * Compute the SCED parameters of the genco, in the column order of the
+     * generator param section of the reference model.
+     */
+    double[] genAgentToSCEDParams(GenAgent ga, int hour, int DeltaK, int numTimeSteps, double baseS, List<CommitmentDecision> gencoCommitments) {
         int UnitONT0State = -1;
         int lastHourState = 0;
         int numHourSame = 0;
@@ -855,41 +847,24 @@ public class DataFileWriter {
             powerT0 = capMax;
         }
         //System.out.println("");
+        return new double[]{powerT0, SUnitONT0State, InitialTimeON, InitialTimeOFF,
+            capMin, capMax, ScaledMinUpTime, ScaledMinDownTime,
+            ScaledRampUpLimit, ScaledRampDownLimit, ScaledStartUpRampLimit, ScaledShutDownRampLimit,
+            ScaledColdStartTime, coldstartupcost, hotstartupcost, shutdowncost};
+    }
+
+    /**
+     * Format the genco parameters the way the reference model expects them.
+     */
+    private String genParamsToDesc(GenAgent ga, double[] p) {
         return String.format(// 1     2          3       4       5       6       7       8               9               10          11
                 //Name, powerTO, On/OffT0, InitialTimeON, InitialTimeOFF, MinPow, MaxPow, ScaledMinUp, ScaledMinDown, ScaledRampUp, ScaledRampDown, ScaledStartupLim, ScaledShutdownLim, ScaledColdStartTime, ColdStartupCost, HotStartupCost, ShutDownCost
                 "%1$s %2$.15f %3$d %4$d %5$d %6$.15f %7$.15f %8$d %9$d %10$.15f %11$.15f %12$.15f %13$.15f %14$d %15$.15f %16$.15f %17$.15f",
-                ga.getID() //1
-                ,
-                 powerT0 //2
-                ,
-                 SUnitONT0State//3
-                ,
-                 InitialTimeON,
-                InitialTimeOFF,
-                capMin //4
-                ,
-                 capMax//5
-                ,
-                 ScaledMinUpTime//6
-                ,
-                 ScaledMinDownTime//7
-                ,
-                 ScaledRampUpLimit//8
-                ,
-                 ScaledRampDownLimit//9
-                ,
-                 ScaledStartUpRampLimit//10
-                ,
-                 ScaledShutDownRampLimit//11
-                ,
-                 ScaledColdStartTime//12
-                ,
-                 coldstartupcost //13
-                ,
-                 hotstartupcost //14
-                ,
-                 shutdowncost //15
-        );
+                ga.getID(),
+                p[0], (int) p[1], (int) p[2], (int) p[3],
+                p[4], p[5], (int) p[6], (int) p[7],
+                p[8], p[9], p[10], p[11],
+                (int) p[12], p[13], p[14], p[15]);
     }
 
     /**
@@ -1090,7 +1065,29 @@ public class DataFileWriter {
         }
     }
 
-    private boolean ensureFileParentExists(File f) {
+    /**
+     * Fixed LSE load less NDG output at each bus, in SI.
+     *
+     * @return [numNodes][numTimeSteps]
+     */
+    double[][] netFixedLoadForecast(AMESMarket ames, double[][] LoadProfileLSE, double[][] GenProfileNDG, int numTimeSteps) {
+        double[][] NetFixedLoadForecast = new double[ames.getNumNodes()][numTimeSteps];
+        for (int i = 0; i < ames.getNumLSEAgents(); i++) {
+            int lseNode = ames.getLSEAgentList().get(i).getAtNode();
+            for (int h = 0; h < numTimeSteps; h++) {
+                NetFixedLoadForecast[lseNode - 1][h] += LoadProfileLSE[i][h];
+            }
+        }
+        for (int i = 0; i < ames.getNumNDGAgents(); i++) {
+            int ndgNode = ames.getNDGenAgentList().get(i).getAtNode();
+            for (int h = 0; h < numTimeSteps; h++) {
+                NetFixedLoadForecast[ndgNode - 1][h] -= GenProfileNDG[i][h];
+            }
+        }
+        return NetFixedLoadForecast;
+    }
+
+    boolean ensureFileParentExists(File f) {
         File parent = f.getParentFile();
         if (parent == null) {
             return true; //no parent file. nothing to be done
@@ -0,0 +1,195 @@
+package amesmarket.extern.psst;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import amesmarket.filereaders.BadDataFileFormatException;
+
+/**
+ * SCUC/SCED results written by psst/binary.py.
+ *
+ * Everything is little endian and in PU, exactly as PSST reports it.
+ * Strings are an int byte count followed by UTF-8 bytes.
+ *
+ * <pre>
+ * int magic, int version, int status (1 optimal, 0 infeasible)
+ * -- only if optimal --
+ * int T, int G, G x (string name, T x int unitOn, T x double power)
+ * int K, double[T x K] LMP, by time period
+ * int P, P x (string name, T x double demand)
+ * double[K x T] voltage angles, by bus
+ * </pre>
+ */
+public class PSSTBinaryResults {
+
+    /**
+     * "AMSR"
+     */
+    public static final int RESULTS_MAGIC = 0x414D5352;
+    public static final String OPTIMAL = "optimal";
+    public static final String INFEASIBLE = "infeasible";
+
+    private String solutionStatus;
+    private int numTimePeriods;
+    private String[] genNames;
+    private int[][] unitOn;
+    private double[][] power;
+    private double[][] lmp;
+    private String[] pslNames;
+    private double[][] psl;
+    private double[][] voltageAngles;
+
+    /**
+     * Read the results.
+     * @param in results file
+     * @return the results
+     * @throws BadDataFileFormatException if the file is missing, truncated or
+     * not a results file.
+     */
+    public static PSSTBinaryResults read(File in) throws BadDataFileFormatException {
+        try (RandomAccessFile raf = new RandomAccessFile(in, "r");
+                FileChannel ch = raf.getChannel()) {
+            MappedByteBuffer bb = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            bb.order(ByteOrder.LITTLE_ENDIAN);
+
+            PSSTBinaryResults res = new PSSTBinaryResults();
+            res.parse(bb, in);
+            return res;
+        } catch (IOException e) {
+            throw new BadDataFileFormatException(e);
+        } catch (BufferUnderflowException e) {
+            throw new BadDataFileFormatException("Truncated PSST results in " + in.getPath());
+        }
+    }
+
+    private void parse(MappedByteBuffer bb, File in) throws BadDataFileFormatException {
+        if (bb.getInt() != RESULTS_MAGIC) {
+            throw new BadDataFileFormatException(in.getPath() + " is not a binary PSST results file");
+        }
+        int version = bb.getInt();
+        if (version != BinaryDataFileWriter.VERSION) {
+            throw new BadDataFileFormatException("Unsupported PSST results version " + version + " in " + in.getPath());
+        }
+
+        if (bb.getInt() != 1) {
+            this.solutionStatus = INFEASIBLE;
+            return;
+        }
+        this.solutionStatus = OPTIMAL;
+
+        final int T = bb.getInt();
+        this.numTimePeriods = T;
+
+        final int G = bb.getInt();
+        this.genNames = new String[G];
+        this.unitOn = new int[G][T];
+        this.power = new double[G][T];
+        for (int g = 0; g < G; g++) {
+            this.genNames[g] = getString(bb);
+            for (int t = 0; t < T; t++) {
+                this.unitOn[g][t] = bb.getInt();
+            }
+            for (int t = 0; t < T; t++) {
+                this.power[g][t] = bb.getDouble();
+            }
+        }
+
+        final int K = bb.getInt();
+        this.lmp = new double[T][K];
+        for (int t = 0; t < T; t++) {
+            for (int k = 0; k < K; k++) {
+                this.lmp[t][k] = bb.getDouble();
+            }
+        }
+
+        final int P = bb.getInt();
+        this.pslNames = new String[P];
+        this.psl = new double[P][T];
+        for (int p = 0; p < P; p++) {
+            this.pslNames[p] = getString(bb);
+            for (int t = 0; t < T; t++) {
+                this.psl[p][t] = bb.getDouble();
+            }
+        }
+
+        this.voltageAngles = new double[K][T];
+        for (int k = 0; k < K; k++) {
+            for (int t = 0; t < T; t++) {
+                this.voltageAngles[k][t] = bb.getDouble();
+            }
+        }
+    }
+
+    private static String getString(MappedByteBuffer bb) {
+        byte[] b = new byte[bb.getInt()];
+        bb.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return {@link #OPTIMAL} or {@link #INFEASIBLE}
+     */
+    public String getSolutionStatus() {
+        return this.solutionStatus;
+    }
+
+    public boolean isOptimal() {
+        return OPTIMAL.equals(this.solutionStatus);
+    }
+
+    public int getNumTimePeriods() {
+        return this.numTimePeriods;
+    }
+
+    /**
+     * @return generator names, in the order PSST reported them.
+     */
+    public String[] getGenNames() {
+        return this.genNames;
+    }
+
+    /**
+     * @return commitment status [gen][t]
+     */
+    public int[][] getUnitOn() {
+        return this.unitOn;
+    }
+
+    /**
+     * @return power generated [gen][t], in PU
+     */
+    public double[][] getPower() {
+        return this.power;
+    }
+
+    /**
+     * @return LMP [t][bus], as reported by PSST.
+     */
+    public double[][] getLMP() {
+        return this.lmp;
+    }
+
+    public String[] getPSLNames() {
+        return this.pslNames;
+    }
+
+    /**
+     * @return price sensitive demand [load][t], in PU
+     */
+    public double[][] getPSL() {
+        return this.psl;
+    }
+
+    /**
+     * @return voltage angles [bus][t], in radians
+     */
+    public double[][] getVoltageAngles() {
+        return this.voltageAngles;
+    }
+}
@@ -2,6 +2,8 @@ package amesmarket.extern.psst;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -14,14 +16,47 @@ import java.util.Map;
  */
 public class PSSTConfig {
 
+	/**
+	 * Start a new psst process for every optimization.
+	 */
+	public static final String ONE_SHOT_MODE = "OneShot";
+	/**
+	 * Send every optimization to a persistent {@link PSSTServer}.
+	 */
+	public static final String SERVER_MODE = "Server";
+	/**
+	 * Exchange the reference model and results as text .dat files.
+	 */
+	public static final String TEXT_FORMAT = "Text";
+	/**
+	 * Exchange the reference model and results as binary .bin files.
+	 */
+	public static final String BINARY_FORMAT = "Binary";
+	/**
+	 * System property that also writes the text reference model when
+	 * using the binary format, so the model can be inspected.
+	 */
+	public static final String WRITE_DAT_PROPERTY = "PSST_WRITE_DAT";
 
 	private final String[] args;
+	private final String op;
+	private final File ucFile, referenceModelFile, resultsFile;
+	private final File staticModelFile;
+	private final String solver;
+	private PSSTServer server;
+
 	/**
 	 * Create a psst program.
 	 * @param psstProg
 	 * @param solutionWriter
 	 */
-	private PSSTConfig(String ... psstProgArgs) {
+	private PSSTConfig(String op, File ucFile, File staticModelFile, File referenceModelFile, File resultsFile, String solver, String ... psstProgArgs) {
+		this.op = op;
+		this.ucFile = ucFile;
+		this.staticModelFile = staticModelFile;
+		this.referenceModelFile = referenceModelFile;
+		this.resultsFile = resultsFile;
+		this.solver = solver;
 		this.args = psstProgArgs;
 	}
 
@@ -35,13 +70,85 @@ public class PSSTConfig {
 	 * @return
 	 */
 	public static PSSTConfig createDeterministicPSST(String MarketOp, File UCFile, File ReferenceModelFile, File ResultsFile, String solver) {
-		return new PSSTConfig("psst", MarketOp,
+		return new PSSTConfig(MarketOp, UCFile, null, ReferenceModelFile, ResultsFile, solver,
+                                "psst", MarketOp,
+                                "--uc", UCFile.getAbsolutePath(),
+				"--data", ReferenceModelFile.getAbsolutePath(),
+				"--output", ResultsFile.getAbsolutePath(),
+                                "--solver", solver);
+	}
+
+	/**
+	 * Like {@link #createDeterministicPSST}, but the reference model is
+	 * split in a static part, written once a day, and a per interval part.
+	 * PSST caches the static part between calls.
+	 *
+         * @param MarketOp
+         * @param UCFile
+         * @param StaticModelFile
+         * @param ReferenceModelFile
+         * @param ResultsFile
+         * @param solver
+	 * @return
+	 */
+	public static PSSTConfig createIncrementalPSST(String MarketOp, File UCFile, File StaticModelFile, File ReferenceModelFile, File ResultsFile, String solver) {
+		return new PSSTConfig(MarketOp, UCFile, StaticModelFile, ReferenceModelFile, ResultsFile, solver,
+                                "psst", MarketOp,
                                 "--uc", UCFile.getAbsolutePath(),
+				"--static", StaticModelFile.getAbsolutePath(),
 				"--data", ReferenceModelFile.getAbsolutePath(),
 				"--output", ResultsFile.getAbsolutePath(),
                                 "--solver", solver);
 	}
 
+	/**
+	 * @return true if the text reference model should be written even
+	 * though the binary format is used.
+	 */
+	public static boolean writeDebugDatFile() {
+		return Boolean.parseBoolean(System.getProperty(WRITE_DAT_PROPERTY, "false"));
+	}
+
+	/**
+	 * @param dataFormat {@link #TEXT_FORMAT} or {@link #BINARY_FORMAT}
+	 * @return file extension used for the reference model and results.
+	 */
+	public static String fileExtension(String dataFormat) {
+		return BINARY_FORMAT.equals(dataFormat) ? ".bin" : ".dat";
+	}
+
+	public String getOp() {
+		return this.op;
+	}
+
+	public String getSolver() {
+		return this.solver;
+	}
+
+	/**
+	 * @return the files PSST reads: the unit commitments of a SCED (a SCUC
+	 * writes them), the static part of the reference model, if it is split,
+	 * and the reference model.
+	 */
+	public List<File> getInputFiles() {
+		List<File> files = new ArrayList<File>();
+		if (!"scuc".equals(this.op)) {
+			files.add(this.ucFile);
+		}
+		if (this.staticModelFile != null) {
+			files.add(this.staticModelFile);
+		}
+		files.add(this.referenceModelFile);
+		return files;
+	}
+
+	/**
+	 * @return the file PSST writes the results to.
+	 */
+	public File getResultsFile() {
+		return this.resultsFile;
+	}
+
 	/**
 	 * Get the arguments that will on invoked to start the process.
 	 * @return
@@ -62,5 +169,39 @@ public class PSSTConfig {
 		return pb.start();
 	}
 
-}
+	/**
+	 * Run the optimizations on a persistent server instead of starting
+	 * a new process each time.
+	 * @param server server to use, or null for one-shot processes.
+	 */
+	public void setServer(PSSTServer server) {
+		this.server = server;
+	}
+
+	/**
+	 * @return true if the optimizations are sent to a {@link PSSTServer}.
+	 */
+	public boolean usesServer() {
+		return this.server != null;
+	}
+
+	/**
+	 * Run the optimization on the server.
+	 * @param echoPrefix prefix for the server output echoed to the console.
+	 * @return result code of the job
+	 * @throws IOException
+	 */
+	public int submitToServer(String echoPrefix) throws IOException {
+		return this.server.submit(this.op, this.ucFile, this.staticModelFile,
+				this.referenceModelFile, this.resultsFile, this.solver, echoPrefix);
+	}
+
+	/**
+	 * @return true if the last optimization was run on the server and
+	 * warm started from the previous one.
+	 */
+	public boolean lastSubmitWarmStarted() {
+		return this.server != null && this.server.lastJobWarmStarted();
+	}
 
+}
@@ -21,6 +21,9 @@ import amesmarket.AMESMarket;
 import amesmarket.AMESMarketException;
 import amesmarket.GenAgent;
 import amesmarket.ISO;
+import amesmarket.MarketLog;
+import amesmarket.RunContext;
+import amesmarket.RunProfile;
 //import amesmarket.LoadCaseControl;
 //import amesmarket.LoadProfileCollection;
 import amesmarket.DAMOptimization;
@@ -40,6 +43,7 @@ public class PSSTDAMOpt implements DAMOptimization {
     private final boolean deleteFiles;
 
     private final AMESMarket ames;
+    private final MarketLog log = MarketLog.get(MarketLog.SOLVER);
     private final ISO iso;
     private List<CommitmentDecision> genDAMCommitment;
     private double[][] DAMLMP;
@@ -50,14 +54,16 @@ public class PSSTDAMOpt implements DAMOptimization {
     private final int numGenAgents, numLSEAgents, numHours, numIntervals; // numGenAgents;
 
     private final File MarketDir, TempDir, DAUnitCommitmentsFile, DAMResultsFile, DAMReferenceModelFile;
+    private final boolean binaryFormat;
 
     /**
      * Configuration for external coopr call.
      */
     private final PSSTConfig PSSTExt;
+    private final SolutionCache solutionCache;
     DecimalFormat Format = new DecimalFormat("###.####");
 
-    public PSSTDAMOpt(ISO independentSystemOperator, AMESMarket model) {
+    public PSSTDAMOpt(ISO independentSystemOperator, AMESMarket model, RunContext runContext) {
         this.ames = model;
         this.iso = independentSystemOperator;
         this.numGenAgents = this.ames.getNumGenAgents();
@@ -68,28 +74,56 @@ public class PSSTDAMOpt implements DAMOptimization {
         this.GenDAMCommitmentStatusNextDay = new int[this.numHours][this.numGenAgents];
         this.GenDAMCommitmentStatusPresentDay = new int[this.numHours][this.numGenAgents];
         //genSchedule=new int[numGenAgents][numHoursPerDay];
-        this.MarketDir = new File("DataFiles");
-        this.TempDir = new File("DataFiles/PyomoTempFiles");
+        this.MarketDir = runContext.getScratchDir();
+        this.TempDir = runContext.getScratchFile("PyomoTempFiles");
         this.MarketDir.mkdirs();
         this.TempDir.mkdirs();
-        this.DAUnitCommitmentsFile = new File("DataFiles/DAUnitCommitments.dat");
-        this.DAMReferenceModelFile = new File("DataFiles/DAMReferenceModel.dat");
-        this.DAMResultsFile = new File("DataFiles/DAMResults.dat");
+        this.binaryFormat = PSSTConfig.BINARY_FORMAT.equals(this.ames.getTestCaseConfig().PSSTDataFormat);
+        String ext = PSSTConfig.fileExtension(this.ames.getTestCaseConfig().PSSTDataFormat);
+        this.DAUnitCommitmentsFile = runContext.getScratchFile("DAUnitCommitments.dat");
+        this.DAMReferenceModelFile = runContext.getScratchFile("DAMReferenceModel" + ext);
+        this.DAMResultsFile = runContext.getScratchFile("DAMResults" + ext);
 
         this.PSSTExt = PSSTConfig.createDeterministicPSST("scuc", this.DAUnitCommitmentsFile, this.DAMReferenceModelFile, this.DAMResultsFile, this.ames.getTestCaseConfig().Solver);
 
+        this.solutionCache = runContext.getSolutionCache();
         this.deleteFiles = model.isDeleteIntermediateFiles();
     }
 
+    /**
+     * Write the reference model for the SCUC.
+     */
+    @Override
+    public void prepareDAMOptimization(int day, double[][] loadProfileByLSE, double[][] GenProfileByNDG,
+            double[][][] PSLdemandBidByLSE, double[][] supplyOfferByGen, int numTimeSteps) throws AMESMarketException {
+        RunProfile.Timer write = this.ames.getRunProfile().start(RunProfile.DATA_FILE_WRITE);
+        File datFile = new File(this.MarketDir, "DAMReferenceModel.dat");
+        if (this.binaryFormat) {
+            new BinaryDataFileWriter().writeScucScenBinFile(this.DAMReferenceModelFile, this.ames, day, loadProfileByLSE, GenProfileByNDG, PSLdemandBidByLSE, supplyOfferByGen, numTimeSteps);
+        }
+        if (!this.binaryFormat || PSSTConfig.writeDebugDatFile()) {
+            new DataFileWriter().writeScucScenDatFile(datFile, this.ames, day, loadProfileByLSE, GenProfileByNDG, PSLdemandBidByLSE, supplyOfferByGen, numTimeSteps);
+        }
+        write.stop(this.binaryFormat ? RunProfile.sizeOf(this.DAMReferenceModelFile) : RunProfile.sizeOf(datFile));
+    }
+
     /* (non-Javadoc)
 	 * @see amesmarket.extern.coopr.SCUC#calcSchedule(int)
      */
     @Override
     public void solveDAMOptimization(int day) throws IOException, AMESMarketException, BadDataFileFormatException {
 
-        String strTemp = "";
-
-        this.syscall(this.PSSTExt);
+        String key = this.solutionCache == null ? null : this.solutionCache.key(this.PSSTExt);
+        if (key == null || !this.solutionCache.fetch(key, this.DAMResultsFile)) {
+            if (key != null) {
+                //Results of an earlier SCUC must not be cached as these.
+                this.DAMResultsFile.delete();
+            }
+            this.syscall(this.PSSTExt);
+            if (key != null && this.DAMResultsFile.exists()) {
+                this.solutionCache.store(key, this.DAMResultsFile);
+            }
+        }
 
         //Read the data file back in to get the GenCo commitments.
         if (!this.DAMResultsFile.exists()) {
@@ -97,6 +131,25 @@ public class PSSTDAMOpt implements DAMOptimization {
                     this.DAMResultsFile.getPath()));
         }
 
+        RunProfile.Timer parse = this.ames.getRunProfile().start(RunProfile.RESULT_PARSE);
+        long resultsSize = RunProfile.sizeOf(this.DAMResultsFile);
+        try {
+            if (this.binaryFormat) {
+                this.readBinaryResults();
+            } else {
+                this.readTextResults();
+            }
+        } finally {
+            parse.stop(resultsSize);
+        }
+    }
+
+    /**
+     * Read the SCUC results written in the text format.
+     */
+    private void readTextResults() throws IOException, BadDataFileFormatException {
+        String strTemp = "";
+
         //System.out.println("Reading Solution Status from " + this.DAMResultsFile.getPath());
         java.util.Scanner raf = new Scanner(this.DAMResultsFile);
 
@@ -153,13 +206,6 @@ public class PSSTDAMOpt implements DAMOptimization {
                     GenDAMDispatch[i][gc.getGenID() - 1] = value;
                     GenDAMCommitmentStatusNextDay[i][gc.getGenID() - 1] = Integer.parseInt(values[1]);
                     i++;
-
-                    if (i == this.numHours) {
-                        if (day == 1) {
-                            gc.setPowerPrevInterval(value);
-                        }
-                        gc.setPowerT0NextDay(value);
-                    }
                     //System.out.println("");
                 }
                 //System.out.println("");
@@ -195,65 +241,139 @@ public class PSSTDAMOpt implements DAMOptimization {
                 }
 
             }
-            DecimalFormat LMPFormat = new DecimalFormat("###.##");
-            System.out.println("DAM LMP Outcomes:");
-            System.out.print("Hour");
+            this.printAndSortResults();
+        } else if (SolutionStatus.equals("infeasible")) {
+            log.warn("Solution is Infeasible because the reserve constraints are not satisfied.");
+        }
+        raf.close();
 
-            for (int n = 0; n < ames.getNumNodes(); n++) {
-                System.out.print("  Bus" + (n + 1));
+    }
+
+    /**
+     * Read the SCUC results written in the binary format. Fills the same
+     * solution arrays as the text results.
+     */
+    private void readBinaryResults() throws BadDataFileFormatException {
+        PSSTBinaryResults res = PSSTBinaryResults.read(this.DAMResultsFile);
+        this.SolutionStatus = res.getSolutionStatus();
+
+        if (res.isOptimal()) {
+            this.genDAMCommitment = new ArrayList<CommitmentDecision>();
+            this.GenDAMCommitmentStatusPresentDay = this.GenDAMCommitmentStatusNextDay;
+            this.GenDAMCommitmentStatusNextDay = new int[this.numHours][this.numGenAgents];
+            this.GenDAMDispatch = new double[this.numHours][this.numGenAgents];
+
+            String[] genNames = res.getGenNames();
+            int[][] unitOn = res.getUnitOn();
+            double[][] power = res.getPower();
+            for (int g = 0; g < genNames.length; g++) {
+                GenAgent gc = this.ames.getGenAgentByName(genNames[g]);
+                if (gc == null) {
+                    throw new BadDataFileFormatException("Unknown GenAgent, "
+                            + genNames[g] + ", in SCUC results");
+                }
+                if (unitOn[g].length < this.numHours) {
+                    throw new BadDataFileFormatException(
+                            "No schedule for " + gc.getID() + " hour " + unitOn[g].length);
+                }
+
+                int[] commitmentschedule = new int[this.numHours];
+                for (int h = 0; h < this.numHours; h++) {
+                    double value = power[g][h] * ames.getBaseS();
+                    commitmentschedule[h] = unitOn[g][h];
+                    GenDAMDispatch[h][gc.getGenID() - 1] = value;
+                    GenDAMCommitmentStatusNextDay[h][gc.getGenID() - 1] = unitOn[g][h];
+                }
+
+                this.genDAMCommitment.add(new CommitmentDecision(gc.getID(), gc.getIndex(), commitmentschedule));
             }
-            System.out.println("");
 
+            this.cleanup();
+
+            double[][] lmp = res.getLMP();
+            this.DAMLMP = new double[this.numHours][ames.getNumNodes()];
             for (int h = 0; h < this.numHours; h++) {
-                System.out.print("" + (h + 1));
                 for (int n = 0; n < ames.getNumNodes(); n++) {
-                    System.out.print("  " + LMPFormat.format(this.DAMLMP[h][n]));
+                    this.DAMLMP[h][n] = lmp[h][n] / ames.getBaseS();
                 }
-                System.out.println("");
             }
-            System.out.println("");
-            //Sort the collection by array index. Keeps the list
-            //in the 'expected' order for ames. The output from the external
-            //solver is sorted by name, which means GenCo10 comes after GenCo1
-            Collections.sort(this.genDAMCommitment, new Comparator<CommitmentDecision>() {
-                @Override
-                public int compare(CommitmentDecision o1, CommitmentDecision o2) {
-                    if (o1.generatorIdx < o2.generatorIdx) {
-                        return -1;
-                    }
-                    if (o1.generatorIdx == o2.generatorIdx) {
-                        return 0;
-                    }
-                    return 1;
-                }
-            });
-        } else if (SolutionStatus.equals("infeasible")) {
-            System.out.println("Solution is Infeasible because the reserve constraints are not satisfied.");
-        }
-        raf.close();
 
+            this.printAndSortResults();
+        } else {
+            log.warn("Solution is Infeasible because the reserve constraints are not satisfied.");
+        }
     }
 
-    public void syscall(PSSTConfig runefConfig) throws IOException {
-
-        System.out.println(" AMES V5.0 SCUC and SCED operations are performed using an external call to a Modified version of PSST. ");
-
-        System.out.println(" PSST (Power System Simulation Toolbox) is a Python-based wrapper developed by Dheepak Krishnamurthy.  ");
+    /**
+     * Print the DAM LMPs and put the commitments in index order.
+     */
+    private void printAndSortResults() {
+        MarketLog damLog = MarketLog.get(MarketLog.DAM);
+        if (damLog.isEnabled(MarketLog.DEBUG)) {
+            DecimalFormat LMPFormat = new DecimalFormat("###.##");
+            StringBuilder sb = new StringBuilder("DAM LMP Outcomes:\n");
+            sb.append("Hour");
 
-        System.out.println("\n The following user-accessible data files function as input and output data files for PSST operations: \n");
+            for (int n = 0; n < ames.getNumNodes(); n++) {
+                sb.append("  Bus").append(n + 1);
+            }
+            sb.append("\n");
 
-        System.out.println(" # 'DAMReferenceModel.dat' is an input data file for PSST obtained from the DataFileWriter.java file; PSST uses this input data file to perform combined DAM SCUC/SCED operations.");
-        System.out.println(" # 'DAUnitCommitments.dat' is an output data file by PSST that contains generator unit commitment data; it is used by PSST to perform DAM SCED operations. ");
+            for (int h = 0; h < this.numHours; h++) {
+                sb.append(h + 1);
+                for (int n = 0; n < ames.getNumNodes(); n++) {
+                    sb.append("  ").append(LMPFormat.format(this.DAMLMP[h][n]));
+                }
+                sb.append("\n");
+            }
+            damLog.debug(sb.toString());
+        }
+        //Sort the collection by array index. Keeps the list
+        //in the 'expected' order for ames. The output from the external
+        //solver is sorted by name, which means GenCo10 comes after GenCo1
+        Collections.sort(this.genDAMCommitment, new Comparator<CommitmentDecision>() {
+            @Override
+            public int compare(CommitmentDecision o1, CommitmentDecision o2) {
+                if (o1.generatorIdx < o2.generatorIdx) {
+                    return -1;
+                }
+                if (o1.generatorIdx == o2.generatorIdx) {
+                    return 0;
+                }
+                return 1;
+            }
+        });
+    }
 
-        System.out.println(" # 'RTMReferenceModel.dat' is an input data file for PSST obtained from the DataFileWriter.java file; PSST uses this input data file to perform RTM SCED operations.");
-        System.out.println(" # 'RTUnitCommitments.dat' is an input data file for PSST that contains generator unit commitment data; it is used by PSST to perform RTM SCED operations. ");
+    public void syscall(PSSTConfig runefConfig) throws IOException {
 
-        System.out.println(" # 'DAMResults.dat' is an output data file generated by PSST after performing DAM operations; the contents of this output data file are read back into the .java files.");
-        System.out.println(" # 'RTMResults.dat' is an output data file generated by PSST after performing RTM operations; the contents of this output data file are read back into the .java files. ");
+        if (log.isEnabled(MarketLog.DEBUG)) {
+            log.debug(" AMES V5.0 SCUC and SCED operations are performed using an external call to a Modified version of PSST. \n"
+                    + " PSST (Power System Simulation Toolbox) is a Python-based wrapper developed by Dheepak Krishnamurthy.  \n"
+                    + "\n The following user-accessible data files function as input and output data files for PSST operations: \n\n"
+                    + " # 'DAMReferenceModel.dat' is an input data file for PSST obtained from the DataFileWriter.java file; PSST uses this input data file to perform combined DAM SCUC/SCED operations.\n"
+                    + " # 'DAUnitCommitments.dat' is an output data file by PSST that contains generator unit commitment data; it is used by PSST to perform DAM SCED operations. \n"
+                    + " # 'RTMReferenceModel.dat' is an input data file for PSST obtained from the DataFileWriter.java file; PSST uses this input data file to perform RTM SCED operations.\n"
+                    + " # 'RTUnitCommitments.dat' is an input data file for PSST that contains generator unit commitment data; it is used by PSST to perform RTM SCED operations. \n"
+                    + " # 'DAMResults.dat' is an output data file generated by PSST after performing DAM operations; the contents of this output data file are read back into the .java files.\n"
+                    + " # 'RTMResults.dat' is an output data file generated by PSST after performing RTM operations; the contents of this output data file are read back into the .java files. \n");
+        }
 
-        System.out.println("");
+        RunProfile profile = this.ames.getRunProfile();
+        if (runefConfig.usesServer()) {
+            RunProfile.Timer solve = profile.start(RunProfile.SOLVE);
+            int resCode = runefConfig.submitToServer("SCUC output: ");
+            solve.stop();
+            if (resCode != 0) {
+                log.error("There is error with SCUC: result code " + resCode);
+            }
+            return;
+        }
 
+        RunProfile.Timer solve = profile.start(RunProfile.SOLVE);
+        RunProfile.Timer spawn = profile.start(RunProfile.SOLVER_SPAWN);
         Process p = runefConfig.createPSSTProcess(this.MarketDir);
+        spawn.stop();
 
         BufferedReader stdInput = new BufferedReader(new InputStreamReader(p.getInputStream()));
 
@@ -261,16 +381,24 @@ public class PSSTDAMOpt implements DAMOptimization {
 
         // read the output from the command
         String s = null;
-        System.out.println("Here is the standard output of the command with SCUC:\n");
+        log.trace("Here is the standard output of the command with SCUC:\n");
         while ((s = stdInput.readLine()) != null) {
-            System.out.println("SCUC output: " + s);
+            log.trace("SCUC output: " + s);
         }
 
         // read any errors from the attempted command
         while ((s = stdError.readLine()) != null) {
-            System.out.println("There is error with SCUC: ");
-            System.out.println(s);
+            log.error("There is error with SCUC: \n" + s);
         }
+        solve.stop();
+    }
+
+    /**
+     * Send the SCUC to a persistent PSST server.
+     * @param server server to use, or null to start a process per SCUC.
+     */
+    public void setPSSTServer(PSSTServer server) {
+        this.PSSTExt.setServer(server);
     }
 
     /**
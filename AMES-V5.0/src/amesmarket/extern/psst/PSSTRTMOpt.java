@@ -11,9 +11,14 @@ import amesmarket.AMESMarket;
 import amesmarket.AMESMarketException;
 import amesmarket.GenAgent;
 import amesmarket.INIT;
+import amesmarket.MarketLog;
 import amesmarket.RTMOptimization;
+import amesmarket.RunContext;
+import amesmarket.RunProfile;
+import amesmarket.SCEDStatistics;
 import amesmarket.Support;
 import amesmarket.TransGrid;
+import amesmarket.extern.common.CommitmentDecision;
 import amesmarket.filereaders.AbstractConfigFileReader;
 import amesmarket.filereaders.BadDataFileFormatException;
 import java.text.DecimalFormat;
@@ -25,10 +30,12 @@ import java.text.DecimalFormat;
  */
 public class PSSTRTMOpt implements RTMOptimization {
 
-    private final File MarketDir = new File("DataFiles");
+    private final MarketLog log = MarketLog.get(MarketLog.SOLVER);
+    private final File MarketDir;
     private final File RTUnitCommitmentsFile;
     private final File RTMReferenceModelFile;
     private final File RTMResultsFile;
+    private final File RTMStaticModelFile;
 
     private final AMESMarket ames;
 
@@ -41,8 +48,6 @@ public class PSSTRTMOpt implements RTMOptimization {
     private double[][] startupCost;
     private double[][] productionCost;
 
-    private double[] PrintGenCoDispatch;
-
     private int[][] GenUnitON;
 
     // previous initialization
@@ -68,33 +73,61 @@ public class PSSTRTMOpt implements RTMOptimization {
     private final int H;
     private final int NIRTM; // Number of intervals in RTOPDur
     private final boolean deleteFiles;
+    private final boolean binaryFormat;
     //private final int interval;
     private final PSSTConfig PSSTExt;
+    private final SCEDStatistics scedStatistics = new SCEDStatistics();
+    private final SolutionCache solutionCache;
+
+    /**
+     * Day and RT supply offers the static model file was last written for.
+     */
+    private int staticModelDay = -1;
+    private double[][] staticSupplyOffer;
 
     /**
      * @param ames market instance begin used.
+     * @param runContext context of the run, owns the scratch directory.
      * @param init init instance -- used to get the BaseS for PU/SI conversions.
      * @param ucVectorFile File the SCUC writes with the unit commitment
      * information
      * @param refModelFile ReferenceModel file
      * @param outFile output file for the SCED
      */
-    public PSSTRTMOpt(AMESMarket ames, INIT init, File ucVectorFile, File refModelFile, File outFile) {
-        this(ames, init.getBaseS(), ucVectorFile, refModelFile, outFile);
+    public PSSTRTMOpt(AMESMarket ames, RunContext runContext, INIT init, File ucVectorFile, File refModelFile, File outFile) {
+        this(ames, runContext, init.getBaseS(), ucVectorFile, refModelFile, outFile);
+    }
+
+    /**
+     * @param ames market instance begin used.
+     * @param runContext context of the run, owns the scratch directory.
+     * @param baseS value for PU/SI conversions.
+     * @param RTUnitCommitmentsFile File the SCUC writes with the unit
+     * commitment information
+     * @param RTMReferenceModelFile ReferenceModel file
+     * @param RTMResultsFile output file for the SCED
+     */
+    public PSSTRTMOpt(AMESMarket ames, RunContext runContext, double baseS, File RTUnitCommitmentsFile, File RTMReferenceModelFile, File RTMResultsFile) {
+        this(ames, runContext, baseS, RTUnitCommitmentsFile, RTMReferenceModelFile, RTMResultsFile, ames.NIRTM);
     }
 
     /**
      * @param ames market instance begin used.
+     * @param runContext context of the run, owns the scratch directory.
      * @param baseS value for PU/SI conversions.
      * @param RTUnitCommitmentsFile File the SCUC writes with the unit
      * commitment information
      * @param RTMReferenceModelFile ReferenceModel file
      * @param RTMResultsFile output file for the SCED
+     * @param numSteps number of RTKDur steps solved together.
      */
-    public PSSTRTMOpt(AMESMarket ames, double baseS, File RTUnitCommitmentsFile, File RTMReferenceModelFile, File RTMResultsFile) {
+    public PSSTRTMOpt(AMESMarket ames, RunContext runContext, double baseS, File RTUnitCommitmentsFile, File RTMReferenceModelFile, File RTMResultsFile, int numSteps) {
+        this.MarketDir = runContext.getScratchDir();
         this.RTUnitCommitmentsFile = RTUnitCommitmentsFile;
         this.RTMReferenceModelFile = RTMReferenceModelFile;
         this.RTMResultsFile = RTMResultsFile;
+        this.RTMStaticModelFile = runContext.getScratchFile("RTMStaticModel.dat");
+        this.solutionCache = runContext.getSolutionCache();
         this.baseS = baseS;
         this.grid = ames.getTransGrid();
         this.ames = ames;
@@ -108,12 +141,52 @@ public class PSSTRTMOpt implements RTMOptimization {
         this.I = ames.getNumGenAgents();
         this.J = ames.getNumLSEAgents();
         this.H = this.hoursPerDay; //shorter name for local refs.
-        this.NIRTM = ames.M / ames.getTestCaseConfig().RTKDur;
+        this.NIRTM = numSteps;
         this.deleteFiles = ames.isDeleteIntermediateFiles();
-        this.PSSTExt = PSSTConfig.createDeterministicPSST("sced", this.RTUnitCommitmentsFile, this.RTMReferenceModelFile, this.RTMResultsFile, this.ames.getTestCaseConfig().Solver);
+        this.binaryFormat = PSSTConfig.BINARY_FORMAT.equals(ames.getTestCaseConfig().PSSTDataFormat);
+        if (this.binaryFormat) {
+            this.PSSTExt = PSSTConfig.createDeterministicPSST("sced", this.RTUnitCommitmentsFile, this.RTMReferenceModelFile, this.RTMResultsFile, this.ames.getTestCaseConfig().Solver);
+        } else {
+            this.PSSTExt = PSSTConfig.createIncrementalPSST("sced", this.RTUnitCommitmentsFile, this.RTMStaticModelFile, this.RTMReferenceModelFile, this.RTMResultsFile, this.ames.getTestCaseConfig().Solver);
+        }
 
     }
 
+    /**
+     * Write the unit commitment and reference model files for the SCED.
+     * With the text format the static part of the model is only rewritten
+     * when the day or the RT supply offers change.
+     */
+    @Override
+    public void prepareRTMOptimization(List<CommitmentDecision> genCoCommitments,
+            double[][] rtDemand, double[][] rtNDG, double[][][] PSLdemandBidByLSE,
+            int m, int h, int d) throws AMESMarketException {
+        RunProfile.Timer write = this.ames.getRunProfile().start(RunProfile.DATA_FILE_WRITE);
+        long staticSize = 0;
+        DataFileWriter dfw = new DataFileWriter();
+        dfw.writeGenCommitments(this.ames, NIRTM * this.ames.getTestCaseConfig().RTKDur, m, h, genCoCommitments, this.RTUnitCommitmentsFile);
+        if (this.binaryFormat) {
+            new BinaryDataFileWriter().writeScedScenBinFile(this.ames, m, h, d, rtDemand, rtNDG, PSLdemandBidByLSE, NIRTM, genCoCommitments, this.RTMReferenceModelFile);
+            if (PSSTConfig.writeDebugDatFile()) {
+                File datFile = new File(this.RTMReferenceModelFile.getParentFile(), "RTMReferenceModel.dat");
+                dfw.writeScedScenDatFile(this.ames, m, h, d, rtDemand, rtNDG, PSLdemandBidByLSE, NIRTM, genCoCommitments, datFile);
+            }
+        } else {
+            double[][] supplyOffer = this.ames.getISO().getSupplyOfferByGenRT();
+            if (d != this.staticModelDay || !Arrays.deepEquals(supplyOffer, this.staticSupplyOffer)) {
+                dfw.writeScedStaticDatFile(this.ames, d, NIRTM, this.RTMStaticModelFile);
+                staticSize = RunProfile.sizeOf(this.RTMStaticModelFile);
+                this.staticModelDay = d;
+                this.staticSupplyOffer = new double[supplyOffer.length][];
+                for (int i = 0; i < supplyOffer.length; i++) {
+                    this.staticSupplyOffer[i] = supplyOffer[i].clone();
+                }
+            }
+            dfw.writeScedIntervalDatFile(this.ames, h, rtDemand, rtNDG, PSLdemandBidByLSE, NIRTM, genCoCommitments, this.RTMReferenceModelFile);
+        }
+        write.stop(staticSize + RunProfile.sizeOf(this.RTUnitCommitmentsFile, this.RTMReferenceModelFile));
+    }
+
     /**
      * Allocate new space for each a solution. Must be called every time a new
      * solution is created to prevent aliasing problems.
@@ -132,8 +205,6 @@ public class PSSTRTMOpt implements RTMOptimization {
         this.voltageAngles = new double[NIRTM][this.K];  // N is changed to K 
         //this.branchFlow = new double[NIRTM][this.N];
         this.dailyPriceSensitiveDemand = new double[NIRTM][this.J];
-
-        this.PrintGenCoDispatch = new double[this.I];
     }
 
     /**
@@ -237,19 +308,35 @@ public class PSSTRTMOpt implements RTMOptimization {
         this.createSpaceForSols();
 
         try {
-            int resCode = this.syscall(interval);
-            //System.out.println("SCED Result code: " + resCode +"\n");
-            if (resCode != 0) {
-                throw new RuntimeException(
-                        "External SCEC exited with non-zero result code "
-                        + resCode);
+            String key = this.solutionCache == null ? null : this.solutionCache.key(this.PSSTExt);
+            if (key == null || !this.solutionCache.fetch(key, this.RTMResultsFile)) {
+                if (key != null) {
+                    //Results of an earlier SCED must not be cached as these.
+                    this.RTMResultsFile.delete();
+                }
+                int resCode = this.syscall(interval);
+                this.scedStatistics.recordSolve(this.PSSTExt.lastSubmitWarmStarted());
+                //System.out.println("SCED Result code: " + resCode +"\n");
+                if (resCode != 0) {
+                    throw new RuntimeException(
+                            "External SCEC exited with non-zero result code "
+                            + resCode);
+                }
+                if (key != null && this.RTMResultsFile.exists()) {
+                    this.solutionCache.store(key, this.RTMResultsFile);
+                }
             }
         } catch (IOException | InterruptedException e1) {
             throw new AMESMarketException(e1);
         }
 
         //read result file
-        this.readResults(this.RTMResultsFile, interval);
+        RunProfile.Timer parse = this.ames.getRunProfile().start(RunProfile.RESULT_PARSE);
+        try {
+            this.readResults(this.RTMResultsFile, interval);
+        } finally {
+            parse.stop(RunProfile.sizeOf(this.RTMResultsFile));
+        }
         this.convertToSI();
 
         this.cleanup();
@@ -257,7 +344,23 @@ public class PSSTRTMOpt implements RTMOptimization {
 
     private int syscall(int interval) throws IOException, InterruptedException {
 
+        RunProfile profile = this.ames.getRunProfile();
+        RunProfile.Timer solve = profile.start(RunProfile.SOLVE);
+        try {
+            if (this.PSSTExt.usesServer()) {
+                log.trace("\nHere is the standard output of the command with SCED:\n");
+                return this.PSSTExt.submitToServer("SCED: ");
+            }
+            return this.runPSST(profile);
+        } finally {
+            solve.stop();
+        }
+    }
+
+    private int runPSST(RunProfile profile) throws IOException, InterruptedException {
+        RunProfile.Timer spawn = profile.start(RunProfile.SOLVER_SPAWN);
         Process p = this.PSSTExt.createPSSTProcess(this.MarketDir);
+        spawn.stop();
 
         BufferedReader stdInput = new BufferedReader(new InputStreamReader(p.getInputStream()));
 
@@ -265,15 +368,14 @@ public class PSSTRTMOpt implements RTMOptimization {
 
         // read the output from the command
         String s = null;
-        System.out.println("\nHere is the standard output of the command with SCED:\n");
+        log.trace("\nHere is the standard output of the command with SCED:\n");
         while ((s = stdInput.readLine()) != null) {
-            System.out.println("SCED: " + s);
+            log.trace("SCED: " + s);
         }
 
         // read any errors from the attempted command
         while ((s = stdError.readLine()) != null) {
-            System.out.println("There is error with SCED: ");
-            System.out.println(s);
+            log.error("There is error with SCED: \n" + s);
         }
 
         int resCode = p.waitFor();
@@ -281,6 +383,14 @@ public class PSSTRTMOpt implements RTMOptimization {
         return resCode;
     }
 
+    /**
+     * Send the SCED to a persistent PSST server.
+     * @param server server to use, or null to start a process per SCED.
+     */
+    public void setPSSTServer(PSSTServer server) {
+        this.PSSTExt.setServer(server);
+    }
+
     private void cleanup() {
         if (this.deleteFiles) {
             List<File> filesToRm = Arrays.asList(this.RTUnitCommitmentsFile,
@@ -292,10 +402,65 @@ public class PSSTRTMOpt implements RTMOptimization {
     }
 
     private void readResults(File in, int interval) throws BadDataFileFormatException {
+        if (this.binaryFormat) {
+            this.readBinaryResults(in);
+            return;
+        }
         SCEDReader scedr = new SCEDReader();
         scedr.read(in, interval);
     }
 
+    /**
+     * Binary counterpart of {@link SCEDReader}. Leaves the solution in PU,
+     * like the text reader, for {@link #convertToSI()}.
+     */
+    private void readBinaryResults(File in) throws BadDataFileFormatException {
+        PSSTBinaryResults res = PSSTBinaryResults.read(in);
+        this.SolutionStatus = res.getSolutionStatus();
+        if (!res.isOptimal()) {
+            log.warn("Solution is Infeasible because the reserve constraints are not satisfied.");
+            return;
+        }
+
+        final int T = Math.min(res.getNumTimePeriods(), NIRTM);
+        final double lmpScale = 60.0 / this.ames.getTestCaseConfig().RTKDur;
+
+        double[][] lmp = res.getLMP();
+        for (int b = 0; b < K; b++) {
+            double Temp = 0;
+            for (int i = 0; i < T; i++) {
+                this.RTMLMP[i][b] = lmp[i][b] * lmpScale;
+                Temp = Temp + lmp[i][b];
+            }
+            this.intervalLMP[b] = Temp / NIRTM * lmpScale;
+        }
+
+        String[] genNames = res.getGenNames();
+        double[][] power = res.getPower();
+        for (int g = 0; g < genNames.length; g++) {
+            GenAgent ga = this.ames.getGenAgentByName(genNames[g]);
+            if (ga == null) {
+                throw new BadDataFileFormatException(
+                        "Unknown GenCo " + genNames[g] + " in " + in.getPath());
+            }
+            int idx = ga.getIndex();
+            for (int i = 0; i < T; i++) {
+                this.RTMDispatch[i][idx] = power[g][i];
+            }
+            if (T > 0) {
+                this.intervalGenDispatch[idx] = power[g][T - 1];
+                ga.setPowerPrevInterval(power[g][T - 1] * baseS);
+            }
+        }
+
+        double[][] angles = res.getVoltageAngles();
+        for (int b = 0; b < K && b < angles.length; b++) {
+            for (int i = 0; i < T; i++) {
+                this.voltageAngles[i][b] = angles[b][i];
+            }
+        }
+    }
+
     /**
      * @return the RTUnitCommitmentsFile
      */
@@ -310,6 +475,13 @@ public class PSSTRTMOpt implements RTMOptimization {
         return this.RTMReferenceModelFile;
     }
 
+    /**
+     * @return the RTMStaticModelFile
+     */
+    public File getStaticModelFile() {
+        return this.RTMStaticModelFile;
+    }
+
     /**
      * @return the RTMResultsFile
      */
@@ -326,6 +498,7 @@ public class PSSTRTMOpt implements RTMOptimization {
         return this.RTMDispatch;
     }
 
+    @Override
     public double[] getIntervalGenDispatches() {
         return this.intervalGenDispatch;
     }
@@ -340,6 +513,7 @@ public class PSSTRTMOpt implements RTMOptimization {
     }
 //
 
+    @Override
     public double[] getIntervalLMP() {
         return this.intervalLMP;
     }
@@ -363,6 +537,7 @@ public class PSSTRTMOpt implements RTMOptimization {
     /**
      * @return the shutdownCost
      */
+    @Override
     public double[][] getShutdownCost() {
         return this.shutdownCost;
     }
@@ -370,6 +545,7 @@ public class PSSTRTMOpt implements RTMOptimization {
     /**
      * @return the startupCost
      */
+    @Override
     public double[][] getStartupCost() {
         return this.startupCost;
     }
@@ -377,21 +553,25 @@ public class PSSTRTMOpt implements RTMOptimization {
     /**
      * @return the productionCost
      */
+    @Override
     public double[][] getProductionCost() {
         return this.productionCost;
     }
 
-    /**
-     * @return the productionCost
-     */
-    public double[] getPrintGenCoDispatch() {
-        return this.PrintGenCoDispatch;
-    }
-
+    @Override
     public String getSolutionStatus() {
         return this.SolutionStatus;
     }
 
+    /**
+     * Warm starts need the solution of the previous SCED, so they only
+     * happen in Server mode.
+     */
+    @Override
+    public SCEDStatistics getSCEDStatistics() {
+        return this.scedStatistics;
+    }
+
     ////////////////////END SCED///////////////////////////
     /**
      * Helper class to read the data file. It modifies the fields of the its
@@ -488,7 +668,6 @@ public class PSSTRTMOpt implements RTMOptimization {
                         } else if (POWER_GEN.equals(keyAndValue[KIDX])) {  //PowerGenerated
                             dispatch[curInterval][curGenCoIdx] = Support.parseDouble(keyAndValue[VIDX]);
                             PSSTRTMOpt.this.intervalGenDispatch[curGenCoIdx] = dispatch[curInterval][curGenCoIdx];
-                            PrintGenCoDispatch[curGenCoIdx] = (baseS * dispatch[curInterval][curGenCoIdx]);
                             //System.out.print(" : "+(baseS* dispatch[curInterval][curGenCoIdx]));
                             ga.setPowerPrevInterval(dispatch[curInterval][curGenCoIdx] * baseS);
                         } else {
@@ -622,11 +801,11 @@ public class PSSTRTMOpt implements RTMOptimization {
                     } else if (PRICE_SENSITIVE_DEMAND.equals(this.currentLine)) {
                         this.readPriceSensitiveDemand();
                     } else {
-                        System.out.println("" + this.currentLine);
+                        log.error("" + this.currentLine);
                         throw new BadDataFileFormatException(this.lineNum, this.currentLine);
                     }
                 } else if (SolutionStatus.equals("infeasible")) {
-                    System.out.println("Solution is Infeasible because the reserve constraints are not satisfied.");
+                    log.warn("Solution is Infeasible because the reserve constraints are not satisfied.");
                 }
             }
 
@@ -0,0 +1,221 @@
+package amesmarket.extern.psst;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import amesmarket.MarketLog;
+
+/**
+ * A long running 'psst server' process.
+ *
+ * Starting python and importing pyomo for every SCUC/SCED dominates the
+ * cost of small cases. The server keeps one interpreter alive for the
+ * whole simulation and runs each job it is sent over stdin. Jobs are the
+ * same scuc/sced calls the one-shot mode makes and read/write the same
+ * files, so the result readers do not change.
+ *
+ * If the process dies it is restarted and the job is submitted once more.
+ */
+public class PSSTServer {
+
+    /**
+     * Must match SERVER_DONE_MARKER in psst/cli.py.
+     */
+    private static final String DONE_MARKER = "PSST_JOB_DONE";
+    /**
+     * Must match WARM_START_MARKER in psst/cli.py.
+     */
+    private static final String WARM_START_MARKER = "PSST_WARM_START";
+    private static final String JOB_SEP = "\t";
+    /**
+     * Seconds {@link #close()} waits for the server to exit before killing it.
+     */
+    private static final long CLOSE_TIMEOUT = 10;
+
+    private final MarketLog log = MarketLog.get(MarketLog.SOLVER);
+    private final File dir;
+    //Volatile for the shutdown hook, which kills it without the lock.
+    private volatile Process proc;
+    private volatile boolean shuttingDown;
+    private BufferedReader fromServer;
+    private BufferedWriter toServer;
+    private int restarts;
+    private boolean lastJobWarmStarted;
+    private Thread shutdownHook;
+
+    /**
+     * @param dir working directory of the server process.
+     */
+    public PSSTServer(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Start the server process, if it isn't already running.
+     * @throws IOException
+     */
+    public synchronized void start() throws IOException {
+        if (isAlive()) {
+            return;
+        }
+        if (this.shuttingDown) {
+            throw new IOException("JVM shutting down, PSST server not started");
+        }
+
+        this.dir.mkdirs();
+        ProcessBuilder pb = new ProcessBuilder("psst", "server");
+        pb.directory(this.dir);
+        pb.redirectErrorStream(true);
+        this.proc = pb.start();
+        this.fromServer = new BufferedReader(new InputStreamReader(this.proc.getInputStream()));
+        this.toServer = new BufferedWriter(new OutputStreamWriter(this.proc.getOutputStream()));
+
+        if (this.shutdownHook == null) {
+            //Not destroy(): submit() holds the lock for the whole solve.
+            this.shutdownHook = new Thread() {
+                @Override
+                public void run() {
+                    shuttingDown = true;
+                    Process p = proc;
+                    if (p != null) {
+                        p.destroyForcibly();
+                    }
+                }
+            };
+            Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+        }
+    }
+
+    /**
+     * @return true if the server process is running.
+     */
+    public synchronized boolean isAlive() {
+        return this.proc != null && this.proc.isAlive();
+    }
+
+    /**
+     * @return number of times the server had to be restarted.
+     */
+    public synchronized int getRestarts() {
+        return this.restarts;
+    }
+
+    /**
+     * Run one job on the server and wait for it to finish.
+     *
+     * @param op psst operation, 'scuc' or 'sced'.
+     * @param uc unit commitment file
+     * @param staticData static part of the reference model, or null if
+     * data holds the whole model.
+     * @param data reference model file
+     * @param output results file
+     * @param solver solver name
+     * @param echoPrefix prefix for echoing the server's output.
+     * @return result code of the job. 0 on success.
+     * @throws IOException if the server could not be (re)started.
+     */
+    public synchronized int submit(String op, File uc, File staticData, File data,
+            File output, String solver, String echoPrefix) throws IOException {
+        String job = op + JOB_SEP + uc.getAbsolutePath()
+                + JOB_SEP + data.getAbsolutePath()
+                + JOB_SEP + output.getAbsolutePath()
+                + JOB_SEP + solver;
+        if (staticData != null) {
+            job += JOB_SEP + staticData.getAbsolutePath();
+        }
+
+        try {
+            return runJob(job, echoPrefix);
+        } catch (IOException ex) {
+            if (this.shuttingDown) {
+                throw ex;
+            }
+            Logger.getLogger(PSSTServer.class.getName()).log(Level.WARNING,
+                    "PSST server failed, restarting it", ex);
+            restart();
+            return runJob(job, echoPrefix);
+        }
+    }
+
+    private int runJob(String job, String echoPrefix) throws IOException {
+        start();
+        this.lastJobWarmStarted = false;
+
+        this.toServer.write(job);
+        this.toServer.newLine();
+        this.toServer.flush();
+
+        String s;
+        while ((s = this.fromServer.readLine()) != null) {
+            if (s.startsWith(DONE_MARKER)) {
+                return Integer.parseInt(s.substring(DONE_MARKER.length()).trim());
+            }
+            if (s.startsWith(WARM_START_MARKER)) {
+                this.lastJobWarmStarted = "1".equals(s.substring(WARM_START_MARKER.length()).trim());
+                continue;
+            }
+            log.trace(echoPrefix + s);
+        }
+
+        throw new IOException("PSST server exited while running: " + job);
+    }
+
+    /**
+     * @return true if the last job was solved starting from the solution of
+     * the job before it.
+     */
+    public synchronized boolean lastJobWarmStarted() {
+        return this.lastJobWarmStarted;
+    }
+
+    private void restart() throws IOException {
+        destroy();
+        this.restarts++;
+        start();
+    }
+
+    /**
+     * Ask the server to exit and release the process. The process is killed
+     * if it has not exited after {@value #CLOSE_TIMEOUT} seconds.
+     */
+    public synchronized void close() {
+        if (this.proc == null) {
+            return;
+        }
+        try {
+            this.toServer.close();
+            if (!this.proc.waitFor(CLOSE_TIMEOUT, TimeUnit.SECONDS)) {
+                log.warn("PSST server did not exit, killing it");
+                this.proc.destroyForcibly();
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(PSSTServer.class.getName()).log(Level.SEVERE, null, ex);
+        } catch (InterruptedException ex) {
+            this.proc.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        destroy();
+        if (this.shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+            } catch (IllegalStateException ex) {
+                //already shutting down.
+            }
+            this.shutdownHook = null;
+        }
+    }
+
+    private synchronized void destroy() {
+        if (this.proc != null) {
+            this.proc.destroy();
+            this.proc = null;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package amesmarket.extern.psst;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Results of the SCUCs and SCEDs solved before, kept on disk across runs.
+ *
+ * Runs that differ only in their seed or in their post-processing, or the
+ * first days of runs before the learning of the agents diverges, send PSST
+ * the very same optimizations. The cache keys a result by a SHA-256 hash of
+ * what PSST solves: the operation, the solver and the contents of the input
+ * files (see {@link PSSTConfig#getInputFiles()}). When the key is in the
+ * cache, the results file is copied from it instead of running PSST.
+ *
+ * The cache is off by default, and turned on by setting the system property
+ * {@value #CACHE_PROPERTY} to true. It lives in the directory given by
+ * {@value #DIR_PROPERTY} (ames-solution-cache in the temporary directory by
+ * default), which several runs, in one JVM or not, may share. It holds at
+ * most {@value #SIZE_PROPERTY} MB ({@value #DEFAULT_SIZE_MB} by default) of
+ * results: past that, the results used the longest ago are deleted. The last
+ * use of a result is the modification time of its file, so the order of use
+ * carries over to the next run.
+ *
+ * Each run has its own instance, which counts the hits and misses of the run.
+ * The runs of a JVM that use the same directory share one {@link Store},
+ * which keeps the size of the directory under the limit for all of them; the
+ * limit is the one of the first run that opened the directory. A key missing
+ * from the store is looked up on disk, to find the results stored by runs of
+ * other JVMs.
+ */
+public class SolutionCache {
+
+    public static final String CACHE_PROPERTY = "AMES_SOLUTION_CACHE";
+    public static final String DIR_PROPERTY = "AMES_SOLUTION_CACHE_DIR";
+    public static final String SIZE_PROPERTY = "AMES_SOLUTION_CACHE_MB";
+    public static final int DEFAULT_SIZE_MB = 256;
+
+    private static final String SUFFIX = ".result";
+
+    // Store of each cache directory, by canonical path.
+    private static final Map<File, Store> STORES = new HashMap<File, Store>();
+
+    private final Store store;
+    private int hits;
+    private int misses;
+
+    /**
+     * @param dir directory of the cache. Created if needed.
+     * @param maxBytes limit of the directory, unless another run of the JVM
+     * opened it first.
+     */
+    public SolutionCache(File dir, long maxBytes) {
+        this.store = store(dir, maxBytes);
+    }
+
+    private static Store store(File dir, long maxBytes) {
+        dir.mkdirs();
+        File canonical;
+        try {
+            canonical = dir.getCanonicalFile();
+        } catch (IOException ex) {
+            canonical = dir.getAbsoluteFile();
+        }
+        synchronized (STORES) {
+            Store store = STORES.get(canonical);
+            if (store == null) {
+                store = new Store(canonical, maxBytes);
+                STORES.put(canonical, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * @return the cache configured by the system properties, or null if it
+     * is off.
+     */
+    public static SolutionCache open() {
+        if (!Boolean.parseBoolean(System.getProperty(CACHE_PROPERTY, "false"))) {
+            return null;
+        }
+        String dirName = System.getProperty(DIR_PROPERTY);
+        File dir = dirName == null || dirName.trim().isEmpty()
+                ? new File(System.getProperty("java.io.tmpdir"), "ames-solution-cache")
+                : new File(dirName.trim());
+        long sizeMB = DEFAULT_SIZE_MB;
+        try {
+            sizeMB = Long.parseLong(System.getProperty(SIZE_PROPERTY, Integer.toString(DEFAULT_SIZE_MB)).trim());
+        } catch (NumberFormatException ex) {
+            Logger.getLogger(SolutionCache.class.getName()).log(Level.WARNING,
+                    "Bad " + SIZE_PROPERTY + ", using " + DEFAULT_SIZE_MB + " MB", ex);
+        }
+        return new SolutionCache(dir, sizeMB * 1024 * 1024);
+    }
+
+    /**
+     * @param psst optimization, with its input files written.
+     * @return key of the results of the optimization.
+     * @throws IOException if an input file can't be read.
+     */
+    public String key(PSSTConfig psst) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            //Every JVM has SHA-256.
+            throw new IllegalStateException(ex);
+        }
+        md.update((psst.getOp() + "\n" + psst.getSolver() + "\n").getBytes(StandardCharsets.UTF_8));
+        for (File f : psst.getInputFiles()) {
+            byte[] content = Files.readAllBytes(f.toPath());
+            md.update((content.length + "\n").getBytes(StandardCharsets.UTF_8));
+            md.update(content);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : md.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Copy the cached results of the key, if any, to the results file.
+     * @param key
+     * @param results
+     * @return true on a hit.
+     */
+    public boolean fetch(String key, File results) {
+        boolean hit = this.store.fetch(key, results);
+        synchronized (this) {
+            if (hit) {
+                this.hits++;
+            } else {
+                this.misses++;
+            }
+        }
+        return hit;
+    }
+
+    /**
+     * Keep the results file as the results of the key. The copy is written
+     * to a temporary file first, so that other runs never read half of it.
+     * @param key
+     * @param results
+     */
+    public void store(String key, File results) {
+        this.store.store(key, results);
+    }
+
+    public File getDir() {
+        return this.store.dir;
+    }
+
+    public synchronized int getHits() {
+        return this.hits;
+    }
+
+    public synchronized int getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * @return results deleted from the directory by the runs of the JVM.
+     */
+    public int getEvictions() {
+        return this.store.getEvictions();
+    }
+
+    /**
+     * @return bytes of results in the cache, as far as the JVM knows.
+     */
+    public long getSize() {
+        return this.store.getSize();
+    }
+
+    /**
+     * @return fraction of the lookups that were hits, 0 if there were none.
+     */
+    public synchronized double getHitRate() {
+        int lookups = this.hits + this.misses;
+        return lookups == 0 ? 0 : (double) this.hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Solution cache: %d hits, %d misses (%.1f%% hits), %d evictions, %.1f MB in %s",
+                this.hits, this.misses, 100 * getHitRate(), getEvictions(),
+                getSize() / (1024.0 * 1024.0), getDir().getPath());
+    }
+
+    /**
+     * Results in a cache directory, shared by the runs of the JVM that use
+     * it.
+     */
+    private static final class Store {
+
+        private final File dir;
+        private final long maxBytes;
+        // Size of each cached result, by key, the least recently used first.
+        private final LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+        private long totalBytes;
+        private int evictions;
+
+        Store(File dir, long maxBytes) {
+            this.dir = dir;
+            this.maxBytes = maxBytes;
+
+            File[] files = this.dir.listFiles();
+            if (files == null) {
+                return;
+            }
+            Arrays.sort(files, new Comparator<File>() {
+                @Override
+                public int compare(File f1, File f2) {
+                    return Long.compare(f1.lastModified(), f2.lastModified());
+                }
+            });
+            for (File f : files) {
+                String name = f.getName();
+                if (f.isFile() && name.endsWith(SUFFIX)) {
+                    this.entries.put(name.substring(0, name.length() - SUFFIX.length()), f.length());
+                    this.totalBytes += f.length();
+                }
+            }
+            evict();
+        }
+
+        synchronized boolean fetch(String key, File results) {
+            File f = file(key);
+            if (this.entries.get(key) == null) {
+                //Stored by a run of another JVM since the store was opened.
+                if (!f.isFile()) {
+                    return false;
+                }
+                add(key, f.length());
+            }
+            try {
+                Files.copy(f.toPath(), results.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                f.setLastModified(System.currentTimeMillis());
+                return true;
+            } catch (IOException ex) {
+                //Evicted by a run of another JVM sharing the directory.
+                Long bytes = this.entries.remove(key);
+                if (bytes != null) {
+                    this.totalBytes -= bytes;
+                }
+                return false;
+            }
+        }
+
+        synchronized void store(String key, File results) {
+            File tmp = null;
+            try {
+                tmp = File.createTempFile(key, ".tmp", this.dir);
+                Files.copy(results.toPath(), tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmp.toPath(), file(key).toPath(), StandardCopyOption.REPLACE_EXISTING);
+                tmp = null;
+            } catch (IOException ex) {
+                Logger.getLogger(SolutionCache.class.getName()).log(Level.WARNING,
+                        "Can't cache " + results.getPath(), ex);
+                return;
+            } finally {
+                if (tmp != null) {
+                    tmp.delete();
+                }
+            }
+            add(key, results.length());
+        }
+
+        private void add(String key, long bytes) {
+            Long previous = this.entries.put(key, bytes);
+            this.totalBytes += bytes - (previous == null ? 0 : previous);
+            evict();
+        }
+
+        /**
+         * Delete the least recently used results until the cache fits.
+         */
+        private void evict() {
+            Iterator<Map.Entry<String, Long>> it = this.entries.entrySet().iterator();
+            while (this.totalBytes > this.maxBytes && it.hasNext()) {
+                Map.Entry<String, Long> e = it.next();
+                file(e.getKey()).delete();
+                this.totalBytes -= e.getValue();
+                it.remove();
+                this.evictions++;
+            }
+        }
+
+        private File file(String key) {
+            return new File(this.dir, key + SUFFIX);
+        }
+
+        synchronized int getEvictions() {
+            return this.evictions;
+        }
+
+        synchronized long getSize() {
+            return this.totalBytes;
+        }
+    }
+}
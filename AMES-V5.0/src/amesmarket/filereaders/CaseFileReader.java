@@ -15,6 +15,7 @@ import amesmarket.CaseFileData.GenData;
 import amesmarket.NumberRecognizer;
 import amesmarket.DAMOptimization;
 import amesmarket.Support;
+import amesmarket.extern.psst.PSSTConfig;
 import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -26,11 +27,23 @@ import java.util.logging.Logger;
  */
 public class CaseFileReader {
 
+    /**
+     * Version of the parsing rules, part of the {@link CaseFileSnapshot} hash.
+     * Bump it with any change to what the reader accepts or how it fills the
+     * {@link CaseFileData}, so that the snapshots of the old reader are not
+     * loaded.
+     */
+    public static final int PARSER_VERSION = 1;
+
     //TOKENS
     private static final String BASE_S = "BASE_S";
     private static final String BASE_V = "BASE_V";
     private static final String FNCS_ACTIVE = "FNCSActive";
     private static final String SOLVER = "solver";
+    private static final String PSST_MODE = "PSSTMode";
+    private static final String PSST_DATA_FORMAT = "PSSTDataFormat";
+    private static final String SCED_ENGINE = "SCEDEngine";
+    private static final String SCED_NETWORK = "SCEDNetwork";
     private static final String DATDur = "DATDur";
     private static final String RTOPDur = "RTOPDur";
     private static final String RTKDur = "RTKDur";
@@ -97,6 +110,10 @@ public class CaseFileReader {
      */
     private File testCaseFile = null;
     private String currentLine = null;
+    /**
+     * Whether the last case file was read to the end without errors.
+     */
+    private boolean parsed = false;
 
     /**
      * Use this to convert int/doubles strings. It will handle floating points
@@ -107,13 +124,28 @@ public class CaseFileReader {
     /**
      * Read in/load the test file configuration.
      *
+     * The {@link CaseFileSnapshot} of the file is used instead if the file
+     * has not changed since it was saved, and saved otherwise.
+     *
      * @param testCaseFile
      * @throws BadDataFileFormatException
      */
     public CaseFileData loadCaseFileData(final File testCaseFile) {
+        CaseFileSnapshot snapshot = CaseFileSnapshot.forCaseFile(testCaseFile);
+        if (snapshot != null) {
+            CaseFileData testConf = snapshot.load();
+            if (testConf != null) {
+                return testConf;
+            }
+        }
+
         inputReader = new SimpleLineReader(testCaseFile);
         this.testCaseFile = testCaseFile;
-        return loadCaseFileData(true);
+        CaseFileData testConf = loadCaseFileData(true);
+        if (snapshot != null && parsed) {
+            snapshot.save(testConf);
+        }
+        return testConf;
     }
 
     /**
@@ -156,8 +188,10 @@ public class CaseFileReader {
     private CaseFileData loadCaseFileData(boolean doFinishActions) {
         CaseFileData testConf = new CaseFileData();
 
+        parsed = false;
         try {
             parseDataFile(testConf, doFinishActions);
+            parsed = doFinishActions;
         } catch (BadDataFileFormatException ex) {
             Logger.getLogger(CaseFileReader.class.getName()).log(Level.SEVERE, null, ex);
         }
@@ -188,6 +222,14 @@ public class CaseFileReader {
                 parseBASE_V(testConf);
             } else if (currentLine.startsWith(SOLVER)) {
                 parseSolver(testConf);
+            } else if (currentLine.startsWith(PSST_MODE)) {
+                parsePSSTMode(testConf);
+            } else if (currentLine.startsWith(PSST_DATA_FORMAT)) {
+                parsePSSTDataFormat(testConf);
+            } else if (currentLine.startsWith(SCED_ENGINE)) {
+                parseSCEDEngine(testConf);
+            } else if (currentLine.startsWith(SCED_NETWORK)) {
+                parseSCEDNetwork(testConf);
             } else if (currentLine.startsWith(DATDur)) {
                 parseDATDur(testConf);
             } else if (currentLine.startsWith(RTOPDur)) {
@@ -407,6 +449,54 @@ public class CaseFileReader {
         testConf.Solver = (splitValueFromKey(currentLine, SOLVER));
     }
 
+    // PSSTMode
+    private void parsePSSTMode(CaseFileData testConf) throws BadDataFileFormatException {
+        String mode = splitValueFromKey(currentLine, PSST_MODE);
+
+        if (PSSTConfig.ONE_SHOT_MODE.equals(mode) || PSSTConfig.SERVER_MODE.equals(mode)) {
+            testConf.PSSTMode = mode;
+        } else {
+            throw new BadDataFileFormatException(inputReader.sourceFile, inputReader.lineNum,
+                    "Unknown PSST mode " + mode);
+        }
+    }
+
+    // PSSTDataFormat
+    private void parsePSSTDataFormat(CaseFileData testConf) throws BadDataFileFormatException {
+        String format = splitValueFromKey(currentLine, PSST_DATA_FORMAT);
+
+        if (PSSTConfig.TEXT_FORMAT.equals(format) || PSSTConfig.BINARY_FORMAT.equals(format)) {
+            testConf.PSSTDataFormat = format;
+        } else {
+            throw new BadDataFileFormatException(inputReader.sourceFile, inputReader.lineNum,
+                    "Unknown PSST data format " + format);
+        }
+    }
+
+    // SCEDEngine
+    private void parseSCEDEngine(CaseFileData testConf) throws BadDataFileFormatException {
+        String engine = splitValueFromKey(currentLine, SCED_ENGINE);
+
+        if (CaseFileData.SCED_ENGINE_PSST.equals(engine) || CaseFileData.SCED_ENGINE_DCOPFJ.equals(engine)) {
+            testConf.SCEDEngine = engine;
+        } else {
+            throw new BadDataFileFormatException(inputReader.sourceFile, inputReader.lineNum,
+                    "Unknown SCED engine " + engine);
+        }
+    }
+
+    // SCEDNetwork
+    private void parseSCEDNetwork(CaseFileData testConf) throws BadDataFileFormatException {
+        String network = splitValueFromKey(currentLine, SCED_NETWORK);
+
+        if (CaseFileData.SCED_NETWORK_ANGLES.equals(network) || CaseFileData.SCED_NETWORK_PTDF.equals(network)) {
+            testConf.SCEDNetwork = network;
+        } else {
+            throw new BadDataFileFormatException(inputReader.sourceFile, inputReader.lineNum,
+                    "Unknown SCED network model " + network);
+        }
+    }
+
     /**
      * Parse the random seed field
      *
@@ -0,0 +1,523 @@
+package amesmarket.filereaders;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import amesmarket.CaseFileData;
+
+/**
+ * Parsed case files, kept on disk so that a case file that has not changed
+ * is not parsed again.
+ *
+ * A snapshot is the {@link CaseFileData} of a case file, with all the finish
+ * actions of the {@link CaseFileReader} done, in a compact binary form. Each
+ * case file has one snapshot, named after the hash of its path, in the
+ * directory given by the system property {@value #DIR_PROPERTY}
+ * (ames-case-cache in the temporary directory by default).
+ *
+ * The snapshot starts with a SHA-256 hash of the contents of the case file,
+ * of its directory, which relative paths in it are resolved against, of
+ * {@link CaseFileReader#PARSER_VERSION} and of the fields of the case file
+ * classes. A snapshot only loads if the hash is the one of the case file as
+ * it is now, so a changed case file, a reader with new parsing rules or new
+ * case file classes are parsed again and their snapshot replaced.
+ *
+ * The fields of the case file classes are written in name order, primitives
+ * as they are and other values with a tag byte for their type. Arrays, maps,
+ * lists and objects seen before are written as a reference to the first
+ * one, so values shared by several tables are still shared once loaded.
+ *
+ * Snapshots are on by default, and turned off by setting
+ * {@value #CACHE_PROPERTY} to false.
+ */
+public class CaseFileSnapshot {
+
+    public static final String CACHE_PROPERTY = "AMES_CASE_CACHE";
+    public static final String DIR_PROPERTY = "AMES_CASE_CACHE_DIR";
+
+    private static final int MAGIC = 0x414d4353; //"AMCS"
+    /**
+     * The only classes, besides arrays of them, the JDK value classes,
+     * HashMap and ArrayList, a snapshot can hold.
+     */
+    private static final Class<?>[] SNAPSHOT_CLASSES = {CaseFileData.class, CaseFileData.GenData.class,
+        CaseFileData.ZonalData.class, CaseFileData.SCUCInputData.class, CaseFileData.StorageInputData.class};
+
+    //Tags of the non primitive values.
+    private static final int NULL = 0;
+    private static final int REFERENCE = 1;
+    private static final int BOOLEAN = 2;
+    private static final int INTEGER = 3;
+    private static final int LONG = 4;
+    private static final int DOUBLE = 5;
+    private static final int STRING = 6;
+    private static final int INT_ARRAY = 7;
+    private static final int DOUBLE_ARRAY = 8;
+    private static final int OBJECT_ARRAY = 9;
+    private static final int MAP = 10;
+    private static final int LIST = 11;
+    private static final int OBJECT = 12;
+
+    private final File snapshotFile;
+    private final byte[] hash;
+
+    private CaseFileSnapshot(File snapshotFile, byte[] hash) {
+        this.snapshotFile = snapshotFile;
+        this.hash = hash;
+    }
+
+    /**
+     * @param caseFile
+     * @return the snapshot of the case file, whether or not it was saved yet.
+     * null if snapshots are off or the case file can't be read.
+     */
+    public static CaseFileSnapshot forCaseFile(File caseFile) {
+        if (!Boolean.parseBoolean(System.getProperty(CACHE_PROPERTY, "true"))) {
+            return null;
+        }
+        try {
+            File source = caseFile.getCanonicalFile();
+            String dirPath = source.getParent() == null ? "" : source.getParent();
+
+            MessageDigest md = sha256();
+            md.update(Files.readAllBytes(source.toPath()));
+            md.update(dirPath.getBytes(StandardCharsets.UTF_8));
+            StringBuilder layout = new StringBuilder();
+            layout.append("parser ").append(CaseFileReader.PARSER_VERSION).append(';');
+            for (Class<?> c : SNAPSHOT_CLASSES) {
+                layout.append(c.getName()).append('{');
+                for (Field f : fields(c)) {
+                    layout.append(f.getType().getName()).append(' ').append(f.getName()).append(';');
+                }
+                layout.append('}');
+            }
+            md.update(layout.toString().getBytes(StandardCharsets.UTF_8));
+            byte[] hash = md.digest();
+
+            String name = hex(sha256().digest(source.getPath().getBytes(StandardCharsets.UTF_8)));
+            return new CaseFileSnapshot(new File(cacheDir(), name + ".snapshot"), hash);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private static File cacheDir() {
+        String dir = System.getProperty(DIR_PROPERTY);
+        if (dir == null || dir.trim().isEmpty()) {
+            return new File(System.getProperty("java.io.tmpdir"), "ames-case-cache");
+        }
+        return new File(dir.trim());
+    }
+
+    public File getFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * @return the case file data of the snapshot, or null if there is no
+     * snapshot of the case file as it is now.
+     */
+    public CaseFileData load() {
+        if (!snapshotFile.isFile()) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)));
+            try {
+                if (in.readInt() != MAGIC) {
+                    return null;
+                }
+                byte[] saved = new byte[hash.length];
+                in.readFully(saved);
+                if (!Arrays.equals(saved, hash)) {
+                    return null;
+                }
+                return (CaseFileData) new Reader(in).readValue();
+            } finally {
+                in.close();
+            }
+        } catch (IOException | ReflectiveOperationException | RuntimeException ex) {
+            //Unreadable snapshot: the case file is parsed again.
+            Logger.getLogger(CaseFileSnapshot.class.getName()).log(Level.FINE, null, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Save the case file data as the snapshot of the case file. The snapshot
+     * is written to a temporary file first, so that concurrent runs of the
+     * same case never read half a snapshot.
+     * @param testConf
+     */
+    public void save(CaseFileData testConf) {
+        File dir = snapshotFile.getParentFile();
+        File tmp = null;
+        try {
+            dir.mkdirs();
+            tmp = File.createTempFile(snapshotFile.getName(), ".tmp", dir);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            try {
+                out.writeInt(MAGIC);
+                out.write(hash);
+                new Writer(out).writeValue(testConf);
+            } finally {
+                out.close();
+            }
+            Files.move(tmp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            tmp = null;
+        } catch (IOException | ReflectiveOperationException | RuntimeException ex) {
+            Logger.getLogger(CaseFileSnapshot.class.getName()).log(Level.WARNING,
+                    "Can't save the snapshot " + snapshotFile.getPath(), ex);
+        } finally {
+            if (tmp != null) {
+                tmp.delete();
+            }
+        }
+    }
+
+    /**
+     * @param c
+     * @return the instance fields of the class, by name.
+     */
+    private static Field[] fields(Class<?> c) {
+        List<Field> fields = new ArrayList<Field>();
+        for (Field f : c.getDeclaredFields()) {
+            int mod = f.getModifiers();
+            if (!Modifier.isStatic(mod) && !Modifier.isTransient(mod) && !f.isSynthetic()) {
+                f.setAccessible(true);
+                fields.add(f);
+            }
+        }
+        Field[] sorted = fields.toArray(new Field[fields.size()]);
+        Arrays.sort(sorted, new Comparator<Field>() {
+            @Override
+            public int compare(Field f1, Field f2) {
+                return f1.getName().compareTo(f2.getName());
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * @param c
+     * @return whether a snapshot can hold values of the class.
+     */
+    private static boolean isSnapshotClass(Class<?> c) {
+        while (c.isArray()) {
+            c = c.getComponentType();
+        }
+        if (c.isPrimitive() || c == Object.class || c == String.class || c == Boolean.class
+                || c == Integer.class || c == Long.class || c == Double.class) {
+            return true;
+        }
+        return Arrays.asList(SNAPSHOT_CLASSES).contains(c);
+    }
+
+    /**
+     * Writes the values of one snapshot.
+     */
+    private static class Writer {
+
+        private final DataOutputStream out;
+        private final Map<Object, Integer> written = new IdentityHashMap<Object, Integer>();
+        private final Map<Class<?>, Field[]> classFields = new HashMap<Class<?>, Field[]>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void writeValue(Object v) throws IOException, IllegalAccessException {
+            if (v == null) {
+                out.writeByte(NULL);
+            } else if (v instanceof Boolean) {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean((Boolean) v);
+            } else if (v instanceof Integer) {
+                out.writeByte(INTEGER);
+                out.writeInt((Integer) v);
+            } else if (v instanceof Long) {
+                out.writeByte(LONG);
+                out.writeLong((Long) v);
+            } else if (v instanceof Double) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) v);
+            } else if (v instanceof String) {
+                out.writeByte(STRING);
+                out.writeUTF((String) v);
+            } else if (written.containsKey(v)) {
+                out.writeByte(REFERENCE);
+                out.writeInt(written.get(v));
+            } else {
+                written.put(v, written.size());
+                writeShared(v);
+            }
+        }
+
+        private void writeShared(Object v) throws IOException, IllegalAccessException {
+            Class<?> c = v.getClass();
+            if (c == int[].class) {
+                int[] a = (int[]) v;
+                out.writeByte(INT_ARRAY);
+                out.writeInt(a.length);
+                for (int x : a) {
+                    out.writeInt(x);
+                }
+            } else if (c == double[].class) {
+                double[] a = (double[]) v;
+                out.writeByte(DOUBLE_ARRAY);
+                out.writeInt(a.length);
+                for (double x : a) {
+                    out.writeDouble(x);
+                }
+            } else if (c.isArray() && isSnapshotClass(c)) {
+                Object[] a = (Object[]) v;
+                out.writeByte(OBJECT_ARRAY);
+                out.writeUTF(c.getComponentType().getName());
+                out.writeInt(a.length);
+                for (Object x : a) {
+                    writeValue(x);
+                }
+            } else if (c == HashMap.class) {
+                Map<?, ?> m = (Map<?, ?>) v;
+                out.writeByte(MAP);
+                out.writeInt(m.size());
+                for (Map.Entry<?, ?> e : m.entrySet()) {
+                    writeValue(e.getKey());
+                    writeValue(e.getValue());
+                }
+            } else if (c == ArrayList.class) {
+                List<?> l = (List<?>) v;
+                out.writeByte(LIST);
+                out.writeInt(l.size());
+                for (Object x : l) {
+                    writeValue(x);
+                }
+            } else if (isSnapshotClass(c)) {
+                out.writeByte(OBJECT);
+                out.writeUTF(c.getName());
+                for (Field f : fieldsOf(c)) {
+                    writeField(f, v);
+                }
+            } else {
+                throw new IOException("A case file snapshot can't hold a " + c.getName());
+            }
+        }
+
+        private void writeField(Field f, Object o) throws IOException, IllegalAccessException {
+            Class<?> t = f.getType();
+            if (t == int.class) {
+                out.writeInt(f.getInt(o));
+            } else if (t == double.class) {
+                out.writeDouble(f.getDouble(o));
+            } else if (t == boolean.class) {
+                out.writeBoolean(f.getBoolean(o));
+            } else if (t == long.class) {
+                out.writeLong(f.getLong(o));
+            } else if (t.isPrimitive()) {
+                throw new IOException("A case file snapshot can't hold the " + t + " " + f.getName());
+            } else {
+                writeValue(f.get(o));
+            }
+        }
+
+        private Field[] fieldsOf(Class<?> c) {
+            Field[] f = classFields.get(c);
+            if (f == null) {
+                f = fields(c);
+                classFields.put(c, f);
+            }
+            return f;
+        }
+    }
+
+    /**
+     * Reads the values of one snapshot.
+     */
+    private static class Reader {
+
+        private final DataInputStream in;
+        private final List<Object> read = new ArrayList<Object>();
+        private final Map<String, Class<?>> classes = new HashMap<String, Class<?>>();
+        private final Map<Class<?>, Field[]> classFields = new HashMap<Class<?>, Field[]>();
+
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        Object readValue() throws IOException, ReflectiveOperationException {
+            int tag = in.readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case REFERENCE:
+                    return read.get(in.readInt());
+                case BOOLEAN:
+                    return in.readBoolean();
+                case INTEGER:
+                    return in.readInt();
+                case LONG:
+                    return in.readLong();
+                case DOUBLE:
+                    return in.readDouble();
+                case STRING:
+                    return in.readUTF();
+                case INT_ARRAY: {
+                    int[] a = new int[in.readInt()];
+                    read.add(a);
+                    for (int i = 0; i < a.length; i++) {
+                        a[i] = in.readInt();
+                    }
+                    return a;
+                }
+                case DOUBLE_ARRAY: {
+                    double[] a = new double[in.readInt()];
+                    read.add(a);
+                    for (int i = 0; i < a.length; i++) {
+                        a[i] = in.readDouble();
+                    }
+                    return a;
+                }
+                case OBJECT_ARRAY: {
+                    Class<?> component = snapshotClass(in.readUTF());
+                    Object[] a = (Object[]) Array.newInstance(component, in.readInt());
+                    read.add(a);
+                    for (int i = 0; i < a.length; i++) {
+                        a[i] = readValue();
+                    }
+                    return a;
+                }
+                case MAP: {
+                    int size = in.readInt();
+                    Map<Object, Object> m = new HashMap<Object, Object>();
+                    read.add(m);
+                    for (int i = 0; i < size; i++) {
+                        Object key = readValue();
+                        m.put(key, readValue());
+                    }
+                    return m;
+                }
+                case LIST: {
+                    int size = in.readInt();
+                    List<Object> l = new ArrayList<Object>(size);
+                    read.add(l);
+                    for (int i = 0; i < size; i++) {
+                        l.add(readValue());
+                    }
+                    return l;
+                }
+                case OBJECT: {
+                    Class<?> c = snapshotClass(in.readUTF());
+                    Object o = newInstance(c);
+                    read.add(o);
+                    for (Field f : fieldsOf(c)) {
+                        readField(f, o);
+                    }
+                    return o;
+                }
+                default:
+                    throw new IOException("Unknown snapshot value tag " + tag);
+            }
+        }
+
+        private void readField(Field f, Object o) throws IOException, ReflectiveOperationException {
+            Class<?> t = f.getType();
+            if (t == int.class) {
+                f.setInt(o, in.readInt());
+            } else if (t == double.class) {
+                f.setDouble(o, in.readDouble());
+            } else if (t == boolean.class) {
+                f.setBoolean(o, in.readBoolean());
+            } else if (t == long.class) {
+                f.setLong(o, in.readLong());
+            } else {
+                f.set(o, readValue());
+            }
+        }
+
+        private Class<?> snapshotClass(String name) throws IOException, ClassNotFoundException {
+            Class<?> c = classes.get(name);
+            if (c == null) {
+                c = Class.forName(name, false, CaseFileSnapshot.class.getClassLoader());
+                if (!isSnapshotClass(c)) {
+                    throw new IOException("A case file snapshot can't hold a " + name);
+                }
+                classes.put(name, c);
+            }
+            return c;
+        }
+
+        /**
+         * Make an object through its first constructor, with default
+         * arguments: all its fields are read from the snapshot afterwards.
+         */
+        private static Object newInstance(Class<?> c) throws InstantiationException,
+                IllegalAccessException, InvocationTargetException {
+            Constructor<?> ctor = c.getConstructors()[0];
+            Class<?>[] types = ctor.getParameterTypes();
+            Object[] args = new Object[types.length];
+            for (int i = 0; i < types.length; i++) {
+                if (types[i] == boolean.class) {
+                    args[i] = false;
+                } else if (types[i] == int.class) {
+                    args[i] = 0;
+                } else if (types[i] == long.class) {
+                    args[i] = 0L;
+                } else if (types[i] == double.class) {
+                    args[i] = 0.0;
+                }
+            }
+            return ctor.newInstance(args);
+        }
+
+        private Field[] fieldsOf(Class<?> c) {
+            Field[] f = classFields.get(c);
+            if (f == null) {
+                f = fields(c);
+                classFields.put(c, f);
+            }
+            return f;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            //Every JVM has SHA-256.
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(2 * bytes.length);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,216 @@
+package amesmarket;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import amesmarket.extern.common.CommitmentDecision;
+import amesmarket.extern.psst.PSSTConfig;
+import amesmarket.extern.psst.PSSTRTMOpt;
+import amesmarket.filereaders.CaseFileReader;
+
+/**
+ * The in-process SCED on the 2-bus case: its costs, and its dispatch and
+ * LMPs against PSST when PSST is installed.
+ */
+public class DCOPFJSCEDTest {
+
+    private static final String CASE = "DATA/2BusTestCase.dat";
+    private static final double EPS = 1e-6;
+
+    private File scratchDir;
+    private AMESMarket ames;
+    private RunContext runContext;
+
+    @Before
+    public void setUp() throws Exception {
+        CaseFileData config = new CaseFileReader().loadCaseFileData(new File(CASE));
+        config.FNCSActive = false;
+
+        scratchDir = Files.createTempDirectory("ames-test-").toFile();
+        runContext = new RunContext(scratchDir);
+        ames = BatchRunner.createMarket(config, config.RandomSeed);
+        ames.setRunContext(runContext);
+        ames.setup();
+        ames.buildModel();
+
+        double[][] supplyOfferRT = ames.getISO().getSupplyOfferByGenRT();
+        for (int i = 0; i < supplyOfferRT.length; i++) {
+            supplyOfferRT[i] = ames.getGenAgentList().get(i).submitSupplyOffer().clone();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        ames.getResultStore().close();
+        delete(scratchDir);
+    }
+
+    @Test
+    public void productionCostIsTheOfferCurveAboveTheMinimum() throws AMESMarketException {
+        DCOPFJSCED sced = new DCOPFJSCED(ames);
+        solve(sced, commitments(new int[]{1, 1}, new int[]{1, 1}), 2, 5);
+        assertEquals("optimal", sced.getSolutionStatus());
+
+        double stepHours = ames.getTestCaseConfig().RTKDur / 60.0;
+        double[][] dispatch = sced.getRTMDispatchSolution();
+        for (int t = 0; t < ames.NIRTM; t++) {
+            for (int i = 0; i < ames.getNumGenAgents(); i++) {
+                GenAgent ga = ames.getGenAgentList().get(i);
+                double[] offer = ga.submitSupplyOffer();
+                double p = dispatch[t][i];
+                double pMin = ga.getCapacityMin();
+                double expected = stepHours * (offer[1] * (p - pMin) + offer[2] * (p * p - pMin * pMin));
+                assertEquals(expected, sced.getProductionCost()[t][i], EPS);
+                assertEquals(0, sced.getStartupCost()[t][i], 0);
+                assertEquals(0, sced.getShutdownCost()[t][i], 0);
+            }
+        }
+    }
+
+    @Test
+    public void commitmentChangesAreChargedAtTheStartOfTheHour() throws AMESMarketException {
+        GenAgent gen1 = ames.getGenAgentList().get(0);
+        GenAgent gen2 = ames.getGenAgentList().get(1);
+        gen1.setColdStartUpCost(500);
+        gen1.setHotStartUpCost(200);
+        gen2.setShutDownCost(70);
+
+        //GenCo1 off in hour 1 and GenCo2 off from hour 2.
+        List<CommitmentDecision> commitments = commitments(new int[]{0, 1}, new int[]{1, 0});
+
+        DCOPFJSCED sced = new DCOPFJSCED(ames);
+        solve(sced, commitments, 2, 0);
+        assertEquals("optimal", sced.getSolutionStatus());
+        //Off for hour 1 and the hours before the day, a cold start.
+        assertEquals(500, sced.getStartupCost()[0][0], 0);
+        assertEquals(70, sced.getShutdownCost()[0][1], 0);
+        assertEquals(0, sced.getStartupCost()[0][1], 0);
+        assertEquals(0, sced.getProductionCost()[0][1], 0);
+        for (int t = 1; t < ames.NIRTM; t++) {
+            assertEquals(0, sced.getStartupCost()[t][0], 0);
+            assertEquals(0, sced.getShutdownCost()[t][1], 0);
+        }
+
+        //Later intervals of the hour do not start anything.
+        solve(sced, commitments, 2, 5);
+        assertEquals(0, sced.getStartupCost()[0][0], 0);
+        assertEquals(0, sced.getShutdownCost()[0][1], 0);
+
+        //Off for hour 1 only, within its cold start time: a hot start.
+        gen1.setColdStartTime(3);
+        gen1.setUnitOnT0State(1);
+        solve(sced, commitments, 2, 0);
+        assertEquals(200, sced.getStartupCost()[0][0], 0);
+    }
+
+    @Test
+    public void dispatchAndLMPsMatchPSST() throws Exception {
+        assumeTrue("psst is not installed", onPath("psst"));
+        List<CommitmentDecision> commitments = commitments(new int[]{1, 1}, new int[]{1, 1});
+        int h = 2;
+
+        DCOPFJSCED dcopfj = new DCOPFJSCED(ames);
+        solve(dcopfj, commitments, h, 0);
+        assertEquals("optimal", dcopfj.getSolutionStatus());
+
+        String ext = PSSTConfig.fileExtension(ames.getTestCaseConfig().PSSTDataFormat);
+        PSSTRTMOpt psst = new PSSTRTMOpt(ames, runContext, ames.getBaseS(),
+                runContext.getScratchFile("RTUnitCommitments.dat"),
+                runContext.getScratchFile("RTMReferenceModel" + ext),
+                runContext.getScratchFile("RTMResults" + ext));
+        solve(psst, commitments, h, 0);
+        assertEquals("optimal", psst.getSolutionStatus());
+
+        //PSST uses a piecewise linear cost with NS segments: the dispatch can
+        //be off by a segment, and the LMP by the slope change over one.
+        for (int i = 0; i < ames.getNumGenAgents(); i++) {
+            GenAgent ga = ames.getGenAgentList().get(i);
+            double[] offer = ga.submitSupplyOffer();
+            double segment = (ga.getCapacityMax() - ga.getCapacityMin()) / ga.getNS();
+            for (int t = 0; t < ames.NIRTM; t++) {
+                assertEquals("GenCo " + (i + 1) + " step " + t, psst.getRTMDispatchSolution()[t][i],
+                        dcopfj.getRTMDispatchSolution()[t][i], segment);
+            }
+            double slope = 2 * offer[2] * segment;
+            for (int t = 0; t < ames.NIRTM; t++) {
+                for (int k = 0; k < ames.getNumNodes(); k++) {
+                    assertEquals("bus " + (k + 1) + " step " + t, psst.getRTMLMPSolution()[t][k],
+                            dcopfj.getRTMLMPSolution()[t][k], slope);
+                }
+            }
+        }
+    }
+
+    /**
+     * Solve the SCED of the first interval at minute m of hour h of day 1,
+     * with the loads and bids of the case, from no output.
+     */
+    private void solve(RTMOptimization sced, List<CommitmentDecision> commitments, int h, int m)
+            throws AMESMarketException {
+        List<LSEAgent> lses = ames.getLSEAgentList();
+        int J = lses.size();
+        int NIRTM = ames.NIRTM;
+        double[][] rtDemand = new double[J][NIRTM];
+        double[][][] PSLDemandBidByLSE = new double[J][][];
+        for (int j = 0; j < J; j++) {
+            double[] load = lses.get(j).submitDAMFixedDemandBid(1, j, null);
+            Arrays.fill(rtDemand[j], load[h - 1]);
+            PSLDemandBidByLSE[j] = lses.get(j).submitRTMPriceSensitiveDemandBid(h, 1, j,
+                    ames.getPriceSensitiveDemandFlag(), NIRTM, null);
+        }
+        double[][] rtNDG = new double[ames.getNumNDGAgents()][NIRTM];
+        for (GenAgent ga : ames.getGenAgentList()) {
+            ga.setPowerPrevInterval(0);
+        }
+        sced.prepareRTMOptimization(commitments, rtDemand, rtNDG, PSLDemandBidByLSE, m, h, 1);
+        sced.solveRTMOptimization(0);
+    }
+
+    /**
+     * @param schedules for each hour from hour 1, the commitment of each
+     * GenCo.
+     * @return commitments of the day, all the GenCos on after the last hour
+     * given.
+     */
+    private List<CommitmentDecision> commitments(int[]... schedules) {
+        List<CommitmentDecision> commitments = new ArrayList<CommitmentDecision>();
+        for (GenAgent gen : ames.getGenAgentList()) {
+            int[] schedule = new int[AMESMarket.NUM_HOURS_PER_DAY_UC];
+            Arrays.fill(schedule, 1);
+            for (int h = 0; h < schedules.length; h++) {
+                schedule[h] = schedules[h][gen.getIndex()];
+            }
+            commitments.add(new CommitmentDecision(gen.getID(), gen.getIndex(), schedule));
+        }
+        return commitments;
+    }
+
+    private static boolean onPath(String command) {
+        for (String dir : System.getenv("PATH").split(File.pathSeparator)) {
+            if (new File(dir, command).canExecute()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void delete(File f) {
+        File[] children = f.listFiles();
+        if (children != null) {
+            for (File c : children) {
+                delete(c);
+            }
+        }
+        f.delete();
+    }
+}
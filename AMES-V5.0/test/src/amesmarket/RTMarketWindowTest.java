@@ -0,0 +1,298 @@
+package amesmarket;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import amesmarket.extern.common.CommitmentDecision;
+import amesmarket.filereaders.CaseFileReader;
+
+/**
+ * The RTM posts the same results whether each interval is solved on its own
+ * or a window of intervals is solved as one SCED.
+ *
+ * The SCED is a stub. Its solution of a step either only depends on the
+ * hour and on the step in the hour, or also on the dispatch of the step
+ * before through ramp limits, from the initial power left by the last SCED.
+ * The ramped stub looks no step ahead, so both modes must agree there too.
+ * Like PSST, it returns dispatches in MW and the interval values of the first
+ * NIRTM steps, and leaves the GenCos at the dispatch of its last step.
+ */
+public class RTMarketWindowTest {
+
+    private static final String CASE = "DATA/2BusTestCase.dat";
+    private static final int RTOP_DUR = 15;
+    private static final double EPS = 1e-9;
+    private static final double INITIAL_POWER = 150;
+
+    private File scratchDir;
+    private AMESMarket ames;
+    private String reuse;
+
+    @Before
+    public void setUp() throws Exception {
+        reuse = System.getProperty(RTMarket.REUSE_PROPERTY);
+        //Skipped solves would hide the stub solution of the per interval mode.
+        System.setProperty(RTMarket.REUSE_PROPERTY, "false");
+
+        CaseFileData config = new CaseFileReader().loadCaseFileData(new File(CASE));
+        config.RTOPDur = RTOP_DUR;
+        config.FNCSActive = false;
+
+        scratchDir = Files.createTempDirectory("ames-test-").toFile();
+        ames = BatchRunner.createMarket(config, config.RandomSeed);
+        ames.setRunContext(new RunContext(scratchDir));
+        ames.setup();
+        ames.buildModel();
+    }
+
+    @After
+    public void tearDown() {
+        if (reuse == null) {
+            System.clearProperty(RTMarket.REUSE_PROPERTY);
+        } else {
+            System.setProperty(RTMarket.REUSE_PROPERTY, reuse);
+        }
+        ames.getResultStore().close();
+        delete(scratchDir);
+    }
+
+    @Test
+    public void windowPostsThePerIntervalResults() throws IOException {
+        assertSameResults(false);
+    }
+
+    @Test
+    public void windowCarriesTheRampedDispatchAcrossIntervals() throws IOException {
+        assertSameResults(true);
+    }
+
+    private void assertSameResults(boolean ramped) {
+        int perHour = ames.RTMFrequencyPerHour;
+        List<double[][]> expected = run(1, ramped);
+        for (int window = 2; window <= perHour; window++) {
+            if (perHour % window != 0) {
+                continue;
+            }
+            List<double[][]> actual = run(window, ramped);
+            assertEquals(expected.size(), actual.size());
+            for (int n = 0; n < expected.size(); n++) {
+                double[][] e = expected.get(n);
+                double[][] a = actual.get(n);
+                assertEquals("window " + window + ", result " + n, e.length, a.length);
+                for (int r = 0; r < e.length; r++) {
+                    assertArrayEquals("window " + window + ", result " + n + ", row " + r, e[r], a[r], EPS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Clear the RTM intervals of two hours, as {@link ISO#clearRTM} does,
+     * from the same initial power of the GenCos.
+     * @param window
+     * @param ramped
+     * @return for each interval, its dispatches, LMPs, interval dispatch,
+     * interval LMP and costs.
+     */
+    private List<double[][]> run(int window, boolean ramped) {
+        RTMarket rtm = new RTMarket(null, ames, ames.getRunContext(), window,
+                new StubSCED(ames, ames.NIRTM * window, ramped));
+        int numSteps = rtm.getNumSteps();
+        int J = ames.getNumLSEAgents();
+        for (GenAgent gen : ames.getGenAgentList()) {
+            gen.setPowerPrevInterval(INITIAL_POWER);
+        }
+
+        List<CommitmentDecision> commitments = new ArrayList<CommitmentDecision>();
+        for (GenAgent gen : ames.getGenAgentList()) {
+            int[] schedule = new int[AMESMarket.NUM_HOURS_PER_DAY_UC];
+            Arrays.fill(schedule, 1);
+            commitments.add(new CommitmentDecision(gen.getID(), gen.getIndex(), schedule));
+        }
+
+        List<double[][]> results = new ArrayList<double[][]>();
+        int interval = 0;
+        for (int h = 1; h <= 2; h++) {
+            for (int m = 0; m < 60; m += ames.M) {
+                if (rtm.solvesInterval(m)) {
+                    rtm.RTMarketOptimization(commitments, new double[J][numSteps],
+                            new double[ames.getNumNDGAgents()][numSteps], new double[J][numSteps][4],
+                            m, interval, h, 2);
+                } else {
+                    rtm.RTMarketWindowInterval(m);
+                }
+                assertEquals("optimal", rtm.getSolutionStatus());
+                assertNotNull(rtm.getRtDispatches());
+                results.add(rtm.getRtDispatches());
+                results.add(rtm.getRtLMPs());
+                results.add(new double[][]{rtm.getIntervalRtDispatches()});
+                results.add(new double[][]{rtm.getIntervalRtLMPs()});
+                results.add(rtm.getRtProductionCost());
+                results.add(rtm.getRtStartupCost());
+                results.add(rtm.getRtShutdownCost());
+                interval++;
+            }
+        }
+        return results;
+    }
+
+    private static void delete(File f) {
+        File[] children = f.listFiles();
+        if (children != null) {
+            for (File c : children) {
+                delete(c);
+            }
+        }
+        f.delete();
+    }
+
+    /**
+     * SCED of numSteps RTKDur steps, with a made up solution: the value of
+     * a step only depends on the hour, the step in the hour and the GenCo or
+     * bus. When ramped, each GenCo instead moves from its dispatch of the step
+     * before towards that value, by at most its ramp limit, and the LMPs rise
+     * while a ramp limit binds.
+     */
+    private static class StubSCED implements RTMOptimization {
+
+        private final AMESMarket ames;
+        private final int numSteps;
+        private final boolean ramped;
+        private final SCEDStatistics statistics = new SCEDStatistics();
+
+        private int h, m;
+        private double[][] dispatch, lmp, productionCost, startupCost, shutdownCost;
+        private double[] intervalDispatch, intervalLMP;
+
+        StubSCED(AMESMarket ames, int numSteps, boolean ramped) {
+            this.ames = ames;
+            this.numSteps = numSteps;
+            this.ramped = ramped;
+        }
+
+        @Override
+        public void prepareRTMOptimization(List<CommitmentDecision> genCoCommitments,
+                double[][] rtDemand, double[][] rtNDG, double[][][] PSLdemandBidByLSE,
+                int m, int h, int d) {
+            assertEquals(numSteps, rtDemand[0].length);
+            this.m = m;
+            this.h = h;
+        }
+
+        @Override
+        public void solveRTMOptimization(int interval) {
+            int I = ames.getNumGenAgents();
+            int K = ames.getNumNodes();
+            int NIRTM = ames.NIRTM;
+            int first = m / ames.getTestCaseConfig().RTKDur;
+
+            dispatch = new double[numSteps][I];
+            lmp = new double[numSteps][K];
+            productionCost = new double[numSteps][I];
+            startupCost = new double[numSteps][I];
+            shutdownCost = new double[numSteps][I];
+            for (int t = 0; t < numSteps; t++) {
+                int step = first + t;
+                int binding = 0;
+                for (int i = 0; i < I; i++) {
+                    if (ramped) {
+                        double previous = t == 0
+                                ? ames.getGenAgentList().get(i).getPowerPrevInterval()
+                                : dispatch[t - 1][i];
+                        double target = 100 * h + 30 * (step % 3) + 5 * i;
+                        double ramp = 15 + 5 * i;
+                        if (Math.abs(target - previous) > ramp) {
+                            target = previous + Math.signum(target - previous) * ramp;
+                            binding++;
+                        }
+                        dispatch[t][i] = target;
+                    } else {
+                        dispatch[t][i] = 100 * h + 10 * step + i;
+                    }
+                    productionCost[t][i] = 3 * dispatch[t][i];
+                    startupCost[t][i] = step == 0 ? h : 0;
+                    shutdownCost[t][i] = step == 1 ? h : 0;
+                }
+                for (int k = 0; k < K; k++) {
+                    lmp[t][k] = 20 + h + 0.5 * step + 0.1 * k + 4 * binding;
+                }
+            }
+
+            intervalLMP = new double[K];
+            for (int k = 0; k < K; k++) {
+                double sum = 0;
+                for (int t = 0; t < NIRTM; t++) {
+                    sum += lmp[t][k];
+                }
+                intervalLMP[k] = sum / NIRTM;
+            }
+            intervalDispatch = dispatch[NIRTM - 1].clone();
+            for (int i = 0; i < I; i++) {
+                ames.getGenAgentList().get(i).setPowerPrevInterval(dispatch[numSteps - 1][i]);
+            }
+            statistics.recordSolve(false);
+        }
+
+        @Override
+        public double[][] getRTMDispatchSolution() {
+            return dispatch;
+        }
+
+        @Override
+        public double[][] getRTMLMPSolution() {
+            return lmp;
+        }
+
+        @Override
+        public double[][] getRTMPriceSensitiveDemandSolution() {
+            return null;
+        }
+
+        @Override
+        public double[] getIntervalLMP() {
+            return intervalLMP;
+        }
+
+        @Override
+        public double[] getIntervalGenDispatches() {
+            return intervalDispatch;
+        }
+
+        @Override
+        public double[][] getProductionCost() {
+            return productionCost;
+        }
+
+        @Override
+        public double[][] getStartupCost() {
+            return startupCost;
+        }
+
+        @Override
+        public double[][] getShutdownCost() {
+            return shutdownCost;
+        }
+
+        @Override
+        public String getSolutionStatus() {
+            return "optimal";
+        }
+
+        @Override
+        public SCEDStatistics getSCEDStatistics() {
+            return statistics;
+        }
+    }
+}